@@ -0,0 +1,80 @@
+import cartographie.gestionDonnées.EnsembleDIdentifiables;
+import cartographie.gestionDonnées.Identifiable;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Banc d'essai autonome (hors des sources) comparant un {@link EnsembleDIdentifiables} à une {@link HashMap} ({@code Long} → élément) : durée de
+ * remplissage, durée de recherche de tous les éléments dans un ordre aléatoire, et mémoire occupée. Prévoir environ 3 Go de tas pour 10 millions d'éléments.
+ * <pre>
+ * javac -encoding UTF-8 -d /tmp/cartographie $(find src -name '*.java')
+ * javac -encoding UTF-8 -cp /tmp/cartographie -d /tmp/bench bench/BenchEnsembleDIdentifiables.java
+ * java -Xmx3g -cp /tmp/cartographie:/tmp/bench BenchEnsembleDIdentifiables [nombre d'éléments]
+ * </pre>
+ *
+ * @author Charles Masson
+ */
+public class BenchEnsembleDIdentifiables {
+
+    private static final int NB_ESSAIS = 3;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Identifiable[] éléments = new Identifiable[n];
+        long[] ordre = new long[n];
+        Random aléa = new Random(1);
+        for (int i = 0; i < n; i++) {
+            final long id = aléa.nextLong() & Long.MAX_VALUE;
+            éléments[i] = new Identifiable() {
+
+                @Override
+                public long getID() {
+                    return id;
+                }
+            };
+            ordre[i] = id;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = aléa.nextInt(i + 1);
+            long t = ordre[i];
+            ordre[i] = ordre[j];
+            ordre[j] = t;
+        }
+
+        // Le premier essai sert de préchauffage au compilateur à la volée
+        for (int essai = 0; essai < NB_ESSAIS; essai++) {
+            long mémoire = mémoireUtilisée(), début = System.nanoTime();
+            HashMap<Long, Identifiable> table = new HashMap<>();
+            for (Identifiable élément : éléments)
+                table.put(élément.getID(), élément);
+            long remplissage = System.nanoTime() - début, occupée = mémoireUtilisée() - mémoire;
+            début = System.nanoTime();
+            long somme = 0;
+            for (long id : ordre)
+                somme += table.get(id).getID();
+            System.out.printf("HashMap                : remplissage %5d ms, recherches %5d ms, %5d Mo (%d)%n", remplissage / 1_000_000,
+                    (System.nanoTime() - début) / 1_000_000, occupée >> 20, somme);
+            table = null;
+
+            mémoire = mémoireUtilisée();
+            début = System.nanoTime();
+            EnsembleDIdentifiables<Identifiable> ensemble = new EnsembleDIdentifiables<>();
+            for (Identifiable élément : éléments)
+                ensemble.ajouterÉlément(élément);
+            remplissage = System.nanoTime() - début;
+            occupée = mémoireUtilisée() - mémoire;
+            début = System.nanoTime();
+            somme = 0;
+            for (long id : ordre)
+                somme += ensemble.getÉlément(id).getID();
+            System.out.printf("EnsembleDIdentifiables : remplissage %5d ms, recherches %5d ms, %5d Mo (%d)%n", remplissage / 1_000_000,
+                    (System.nanoTime() - début) / 1_000_000, occupée >> 20, somme);
+        }
+    }
+
+    private static long mémoireUtilisée() {
+        Runtime r = Runtime.getRuntime();
+        System.gc();
+        return r.totalMemory() - r.freeMemory();
+    }
+}
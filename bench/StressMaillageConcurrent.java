@@ -0,0 +1,104 @@
+import cartographie.gestionDonnées.MaillageConcurrent;
+import cartographie.gestionDonnées.Zone;
+import cartographie.éléments.Noeud;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Banc d'essai autonome (hors des sources) mesurant le passage à l'échelle des lectures d'un {@link MaillageConcurrent} : 1 à 32 threads lecteurs
+ * parcourent des zones aléatoires pendant une durée fixe, avec ou sans un thread écrivain retirant et replaçant des noeuds en continu.
+ * <pre>
+ * javac -encoding UTF-8 -d /tmp/cartographie $(find src -name '*.java')
+ * javac -encoding UTF-8 -cp /tmp/cartographie -d /tmp/bench bench/StressMaillageConcurrent.java
+ * java -cp /tmp/cartographie:/tmp/bench StressMaillageConcurrent [durée en ms par mesure]
+ * </pre>
+ *
+ * @author Charles Masson
+ */
+public class StressMaillageConcurrent {
+
+    private static final int NB_NOEUDS = 100000;
+    private static final double LAT0 = Math.toRadians(48.8), LONG0 = Math.toRadians(2.3), ÉTENDUE = Math.toRadians(0.2);
+
+    public static void main(String[] args) throws InterruptedException {
+        long durée = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        MaillageConcurrent<Noeud> maillage = new MaillageConcurrent<>(200);
+        Random r = new Random(1);
+        Noeud[] noeuds = new Noeud[NB_NOEUDS];
+        for (int k = 0; k < NB_NOEUDS; k++)
+            maillage.ajouterÉlément(noeuds[k] = new Noeud(k, LAT0 + r.nextDouble() * ÉTENDUE, LONG0 + r.nextDouble() * ÉTENDUE));
+        System.out.println("processeurs : " + Runtime.getRuntime().availableProcessors());
+        // Préchauffage du compilateur à la volée
+        mesurer(maillage, noeuds, 4, true, durée);
+        for (boolean écrivain : new boolean[]{false, true})
+            for (int nbThreads = 1; nbThreads <= 32; nbThreads <<= 1)
+                System.out.printf("lecteurs %2d, écrivain %-5s : %,12d lectures/s%n", nbThreads, écrivain, mesurer(maillage, noeuds, nbThreads, écrivain, durée));
+    }
+
+    private static long mesurer(final MaillageConcurrent<Noeud> maillage, final Noeud[] noeuds, int nbThreads, boolean écrivain, long durée)
+            throws InterruptedException {
+        final AtomicBoolean fin = new AtomicBoolean();
+        final LongAdder lectures = new LongAdder();
+        final CountDownLatch départ = new CountDownLatch(1);
+        Thread[] threads = new Thread[nbThreads + (écrivain ? 1 : 0)];
+        for (int t = 0; t < nbThreads; t++) {
+            final long graine = t;
+            threads[t] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    Random r = new Random(graine);
+                    final long[] compte = new long[1];
+                    Consumer<Noeud> action = new Consumer<Noeud>() {
+
+                        @Override
+                        public void accept(Noeud n) {
+                            compte[0]++;
+                        }
+                    };
+                    attendre(départ);
+                    long n = 0;
+                    while (!fin.get()) {
+                        Noeud centre = noeuds[r.nextInt(noeuds.length)];
+                        maillage.parcourir(new Zone(centre, 300), true, action);
+                        n++;
+                    }
+                    lectures.add(n);
+                }
+            });
+        }
+        if (écrivain)
+            threads[nbThreads] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    Random r = new Random(-1);
+                    attendre(départ);
+                    while (!fin.get()) {
+                        int k = r.nextInt(noeuds.length);
+                        maillage.retirerÉlément(noeuds[k]);
+                        maillage.ajouterÉlément(noeuds[k] = new Noeud(k, LAT0 + r.nextDouble() * ÉTENDUE, LONG0 + r.nextDouble() * ÉTENDUE));
+                    }
+                }
+            });
+        for (Thread t : threads)
+            t.start();
+        départ.countDown();
+        Thread.sleep(durée);
+        fin.set(true);
+        for (Thread t : threads)
+            t.join();
+        return lectures.sum() * 1000 / durée;
+    }
+
+    private static void attendre(CountDownLatch départ) {
+        try {
+            départ.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,40 +5,49 @@ import cartographie.positionnementGéographique.PositionSurArc;
 import cartographie.positionnementGéographique.Point;
 import cartographie.éléments.PointDIntérêt;
 import cartographie.éléments.Noeud;
-import cartographie.éléments.ArcComposé;
-import cartographie.éléments.ArcSimple;
 import cartographie.éléments.Route;
 import cartographie.éléments.Arc;
+import cartographie.éléments.ArcComposé;
+import cartographie.éléments.Tronçon;
+import cartographie.positionnementGéographique.Coordonnées;
+import cartographie.positionnementGéographique.Latitude;
+import cartographie.positionnementGéographique.Longitude;
+import cartographie.gestionDonnées.ArbreR;
 import cartographie.gestionDonnées.Zone;
 import cartographie.gestionDonnées.Ensemble;
-import cartographie.pointsDIntérêt.Parking;
-import cartographie.pointsDIntérêt.StationService;
+import cartographie.gestionDonnées.EnsembleDeLocalisables;
+import cartographie.gestionDonnées.Identifiable;
+import cartographie.gestionDonnées.IndexSpatial;
+import cartographie.gestionDonnées.Localisable;
+import cartographie.gestionDonnées.MesureDeDistance;
+import cartographie.fichiers.Compression;
+import cartographie.fichiers.LecteurXML;
+import cartographie.fichiers.StatistiquesChargement;
+import cartographie.fichiers.ÉcrivainXML;
 import dijkstra.GraphGPS;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import javax.xml.stream.XMLStreamException;
 
 /**
  * La classe {@code Carte} représente une carte complète, incluant tous les éléments de cartographie : arcs, noeuds, routes et points d'intérêt, stockés dans
  * des ensemble (voir {@link Ensemble}).
- * <p>La carte se charge à partir d'un fichier XML spécifié en paramètre du constructeur.
+ * <p>La carte se charge à partir d'un fichier XML spécifié en paramètre du constructeur. Le fichier est lu en flux (voir {@link LecteurXML}), sans
+ * construire de document DOM.
  *
  * @author Charles Masson
  */
@@ -52,6 +61,10 @@ public class Carte {
      * constante utilisée par la méthode {@code déterminerCheminOptimal}
      */
     public static final short CHEMIN_LE_PLUS_COURT = 0, CHEMIN_LE_PLUS_RAPIDE_NOMINAL = 1, CHEMIN_LE_PLUS_RAPIDE_ACTUEL = 2;
+    /**
+     * taille du maillage des ensembles de la carte
+     */
+    private double taille;
     /**
      * ensemble des arcs de la carte
      */
@@ -68,6 +81,63 @@ public class Carte {
      * ensemble des routes de la carte
      */
     private Ensemble<Route> routes;
+    /**
+     * {@code true} si les chargements des cartes créées doivent être mesurés
+     */
+    private static volatile boolean mesureChargement;
+    /**
+     * {@code true} si les ensembles des cartes créées doivent être indexés par des R-arbres plutôt que par des maillages
+     */
+    private static volatile boolean indexArbreR;
+    /**
+     * {@code true} si les tronçons des arcs des cartes créées doivent être indexés séparément
+     */
+    private static volatile boolean indexParTronçons;
+    /**
+     * rayons (en mètres) du premier et du plus grand disque dont les tuiles sont chargées lors de la recherche des plus proches éléments
+     */
+    private static final double RAYON_INITIAL_TUILES = 1000, RAYON_MAXIMAL_TUILES = 2000000;
+    /**
+     * distance entre un point et le point le plus proche d'un arc
+     */
+    private static final MesureDeDistance<Arc> DISTANCE_AUX_ARCS = new MesureDeDistance<Arc>() {
+
+        @Override
+        public double calculerDistance(Point p, Arc a) {
+            return p.calculerDistanceMétrique(a.calculerPointLePlusProche(p));
+        }
+    };
+    /**
+     * distance entre un point et le point le plus proche d'un tronçon d'arc
+     */
+    private static final MesureDeDistance<Tronçon> DISTANCE_AUX_TRONÇONS = new MesureDeDistance<Tronçon>() {
+
+        @Override
+        public double calculerDistance(Point p, Tronçon t) {
+            return p.calculerDistanceMétrique(t.calculerPointLePlusProche(p));
+        }
+    };
+    /**
+     * statistiques des chargements de cette carte, ou {@code null} si ses chargements ne sont pas mesurés
+     */
+    private StatistiquesChargement statistiquesChargement;
+    /**
+     * gestionnaire des tuiles chargées à la demande, ou {@code null} si la carte est entièrement chargée
+     */
+    private Tuiles tuiles;
+    /**
+     * index des tronçons des arcs de la carte, ou {@code null} si les arcs ne sont indexés qu'en entier (voir {@link #setIndexParTronçons(boolean)})
+     */
+    private IndexSpatial<Tronçon> tronçons;
+    /**
+     * {@code true} pendant un chargement dont les éléments ne sont indexés qu'à la fin, à partir d'un fichier d'index (voir
+     * {@link #chargerAvecIndex(Path, Path, double, Path, long)})
+     */
+    private boolean indexationDifférée;
+    /**
+     * graphe figé du réseau routier, ou {@code null} s'il n'a pas été construit ou si le réseau a changé depuis (voir {@link #figerGraphe()})
+     */
+    private GrapheFigé graphe;
 
     /**
      * Construit une carte à partir d'un fichier XML et de la taille de maillage spécifiée.
@@ -76,13 +146,36 @@ public class Carte {
      * @param taille la taille du maillage, utilisée lors de la création des ensemble d'éléments de cartographie (arcs, noeuds, routes et points d'intérêt).
      */
     public Carte(File xmlCarte, double taille) {
-        arcs = new Ensemble<>(taille);
-        noeuds = new Ensemble<>(taille);
-        pointsDIntérêts = new Ensemble<>(taille);
-        routes = new Ensemble<>(taille);
+        this(taille);
         chargerCarte(xmlCarte);
     }
 
+    /**
+     * Construit une carte vide dont les ensembles ont la taille de maillage spécifiée.
+     *
+     * @param taille la taille du maillage.
+     */
+    private Carte(double taille) {
+        this.taille = taille;
+        arcs = créerEnsemble(taille);
+        noeuds = créerEnsemble(taille);
+        pointsDIntérêts = créerEnsemble(taille);
+        routes = créerEnsemble(taille);
+        if (indexParTronçons)
+            tronçons = indexArbreR ? new ArbreR<Tronçon>() : new EnsembleDeLocalisables<Tronçon>(taille);
+    }
+
+    /**
+     * Crée un ensemble vide, indexé par un maillage ou par un R-arbre selon la configuration (voir {@link #setIndexArbreR(boolean)}).
+     *
+     * @param <T> le type des éléments de l'ensemble.
+     * @param taille la taille du maillage.
+     * @return l'ensemble créé.
+     */
+    private static <T extends Identifiable & Localisable> Ensemble<T> créerEnsemble(double taille) {
+        return indexArbreR ? new Ensemble<>(taille, new ArbreR<T>()) : new Ensemble<T>(taille);
+    }
+
     /**
      * Construit une carte à partir de deux fichiers XML (un pour la carte et un pour les points d'intérêt) et la taille du maillage spécifiée.
      *
@@ -116,109 +209,510 @@ public class Carte {
     }
 
     /**
-     * Charge les éléments de cartographie à partir du fichier XML spécifié.
+     * Construit une carte à partir de deux fichiers XML (un pour la carte et un pour les points d'intérêt) et la taille du maillage spécifiée. Les fichiers
+     * compressés (gzip ou zlib) sont décompressés dans un thread dédié pendant leur analyse.
      *
-     * @param fichier un fichier XML représentant une carte.
+     * @param xmlCarte un fichier XML représentant une carte.
+     * @param xmlPoI un fichier XML représentant des points d'intérêt, ou {@code null}.
+     * @param taille la taille du maillage, utilisée lors de la création des ensembles d'éléments de cartographie (arcs, noeuds, routes et points d'intérêt).
+     * @throws IOException si la lecture d'un fichier échoue ou si un fichier est mal formé.
      */
-    private void chargerCarte(File fichier) {
+    public Carte(Path xmlCarte, Path xmlPoI, double taille) throws IOException {
+        this(taille);
+        try (InputStream flux = Compression.ouvrir(xmlCarte)) {
+            chargerCarte(flux);
+        }
+        if (xmlPoI != null)
+            try (InputStream flux = Compression.ouvrir(xmlPoI)) {
+                chargerPoI(flux);
+            }
+    }
+
+    /**
+     * Construit une carte à partir de deux flux XML (un pour la carte et un pour les points d'intérêt) et la taille du maillage spécifiée. Les flux
+     * compressés (gzip ou zlib) sont décompressés dans un thread dédié pendant leur analyse. Les flux ne sont pas fermés.
+     *
+     * @param xmlCarte un flux XML représentant une carte.
+     * @param xmlPoI un flux XML représentant des points d'intérêt, ou {@code null}.
+     * @param taille la taille du maillage, utilisée lors de la création des ensembles d'éléments de cartographie (arcs, noeuds, routes et points d'intérêt).
+     * @throws IOException si la lecture d'un flux échoue ou si un flux est mal formé.
+     */
+    public Carte(InputStream xmlCarte, InputStream xmlPoI, double taille) throws IOException {
+        this(taille);
+        chargerCarte(xmlCarte);
+        if (xmlPoI != null)
+            chargerPoI(xmlPoI);
+    }
+
+    /**
+     * Construit une carte à partir d'un fichier XML et de la taille de maillage spécifiée, en répartissant l'analyse du fichier sur les threads du pool
+     * spécifié. Le fichier doit être encodé en UTF-8.
+     *
+     * @param xmlCarte un fichier XML représentant une carte.
+     * @param taille la taille du maillage.
+     * @param pool le pool de threads utilisé pour l'analyse (par exemple {@link ForkJoinPool#commonPool()}).
+     * @return la carte.
+     * @throws IOException si la lecture du fichier échoue ou si le fichier est mal formé.
+     */
+    public static Carte importerEnParallèle(File xmlCarte, double taille, ForkJoinPool pool) throws IOException {
+        Carte c = new Carte(taille);
         try {
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(fichier);
+            new LecteurXML(c).chargerCarteEnParallèle(xmlCarte.toPath(), pool);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+        return c;
+    }
 
-            doc.getDocumentElement().normalize();
+    /**
+     * Active ou désactive la mesure des chargements XML séquentiels des cartes (durée, nombre d'éléments et allocations de chaque phase, octets lus). La
+     * mesure concerne les chargements effectués après l'appel, y compris ceux des constructeurs ; elle ralentit légèrement le chargement.
+     *
+     * @param activée {@code true} pour mesurer les chargements.
+     */
+    public static void setMesureChargement(boolean activée) {
+        mesureChargement = activée;
+    }
 
-            NodeList noeudsXML = doc.getElementsByTagName("noeud");
-            NodeList arcsSimplesListXML = doc.getElementsByTagName("arcsimple");
-            NodeList arcsComposésXML = doc.getElementsByTagName("arccomposé");
-            NodeList routesXML = doc.getElementsByTagName("route");
+    /**
+     * Choisit l'index spatial des ensembles des cartes créées après l'appel : un R-arbre construit en bloc ({@link ArbreR}), adapté aux cartes de densité
+     * très variable, ou le maillage uniforme utilisé par défaut. Le R-arbre est reconstruit après de nombreuses modifications ; il convient donc aux cartes
+     * peu modifiées après leur chargement.
+     *
+     * @param activé {@code true} pour utiliser des R-arbres, {@code false} pour utiliser des maillages.
+     */
+    public static void setIndexArbreR(boolean activé) {
+        indexArbreR = activé;
+    }
 
-            // Ajout des noeuds
-            for (int i = 0; i < noeudsXML.getLength(); i++)
-                ajouterNoeud(new Noeud((Element) noeudsXML.item(i)));
+    /**
+     * Choisit si les cartes créées après l'appel indexent aussi chaque tronçon de leurs arcs séparément (voir {@link Tronçon}). La recherche de la position
+     * sur arc la plus proche d'un point ne mesure alors que les tronçons proches du point, au lieu de mesurer tous les tronçons des arcs dont la zone est
+     * proche : c'est avantageux pour les cartes contenant de longs arcs composés. L'index des tronçons utilise la même structure que les ensembles de la
+     * carte (voir {@link #setIndexArbreR(boolean)}).
+     *
+     * @param activé {@code true} pour indexer les tronçons, {@code false} pour n'indexer que les arcs entiers.
+     */
+    public static void setIndexParTronçons(boolean activé) {
+        indexParTronçons = activé;
+    }
 
-            // Ajout des arcs
-            for (int i = 0; i < arcsSimplesListXML.getLength(); i++)
-                ajouterArc(new ArcSimple((Element) arcsSimplesListXML.item(i), this));
-            for (int i = 0; i < arcsComposésXML.getLength(); i++)
-                ajouterArc(new ArcComposé((Element) arcsComposésXML.item(i), this));
+    /**
+     * Renvoie les statistiques des chargements XML de cette carte.
+     *
+     * @return les statistiques cumulées des chargements de cette carte, ou {@code null} si aucun chargement n'a été mesuré (voir
+     * {@link #setMesureChargement(boolean)}).
+     */
+    public StatistiquesChargement getStatistiquesChargement() {
+        return statistiquesChargement;
+    }
 
-            // Ajout des routes
-            for (int i = 0; i < routesXML.getLength(); i++)
-                ajouterRoute(new Route((Element) routesXML.item(i), this));
+    /**
+     * Crée un lecteur XML ajoutant les éléments lus à cette carte, et mesurant les chargements si la mesure est activée.
+     *
+     * @return le lecteur.
+     */
+    private LecteurXML créerLecteur() {
+        LecteurXML l = new LecteurXML(this);
+        if (mesureChargement) {
+            if (statistiquesChargement == null)
+                statistiquesChargement = new StatistiquesChargement();
+            l.setStatistiques(statistiquesChargement);
+        }
+        return l;
+    }
 
-        } catch (SAXException | IOException | ParserConfigurationException ex) {
+    /**
+     * Charge les éléments de cartographie à partir du fichier XML spécifié, éventuellement compressé (voir {@link Compression}).
+     *
+     * @param fichier un fichier XML représentant une carte.
+     */
+    private void chargerCarte(File fichier) {
+        try (InputStream flux = Compression.ouvrir(fichier.toPath())) {
+            créerLecteur().chargerCarte(flux);
+        } catch (XMLStreamException | IOException ex) {
             Logger.getLogger(Carte.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
 
     /**
-     * Charge les points d'intérêt à partir du fichier XML spécifié.
+     * Charge les points d'intérêt à partir du fichier XML spécifié, éventuellement compressé (voir {@link Compression}).
      *
      * @param fichier un fichier XML représentant des points d'intérêt.
      */
     public final void chargerPoI(File fichier) {
-        try {
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(fichier);
+        try (InputStream flux = Compression.ouvrir(fichier.toPath())) {
+            créerLecteur().chargerPoI(flux);
+        } catch (XMLStreamException | IOException ex) {
+            Logger.getLogger(Carte.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
 
-            doc.getDocumentElement().normalize();
+    /**
+     * Charge les éléments de cartographie à partir du flux XML spécifié, éventuellement compressé. Le flux n'est pas fermé.
+     *
+     * @param flux un flux XML représentant une carte.
+     * @throws IOException si la lecture du flux échoue ou si le flux est mal formé.
+     */
+    private void chargerCarte(InputStream flux) throws IOException {
+        try (InputStream f = Compression.décompresserSansFermer(flux)) {
+            créerLecteur().chargerCarte(f);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
 
-            NodeList parkingsXML = doc.getElementsByTagName("parking");
-            NodeList stationsServiceXML = doc.getElementsByTagName("stationservice");
+    /**
+     * Charge les points d'intérêt à partir du flux XML spécifié, éventuellement compressé. Les arcs auxquels ils font référence doivent déjà appartenir à la
+     * carte. Le flux n'est pas fermé.
+     *
+     * @param flux un flux XML représentant des points d'intérêt.
+     * @throws IOException si la lecture du flux échoue ou si le flux est mal formé.
+     */
+    public void chargerPoI(InputStream flux) throws IOException {
+        try (InputStream f = Compression.décompresserSansFermer(flux)) {
+            créerLecteur().chargerPoI(f);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
 
-            // Ajout des parkings
-            for (int i = 0; i < parkingsXML.getLength(); i++)
-                ajouterPoI(new Parking((Element) parkingsXML.item(i), this));
+    /**
+     * Enregistre les points d'intérêt dans le flux spécifié, au format XML. Le flux n'est pas fermé.
+     *
+     * @param flux le flux dans lequel écrire (il est préférable qu'il soit bufferisé).
+     * @throws IOException si l'écriture échoue.
+     */
+    public void enregistrerPoI(OutputStream flux) throws IOException {
+        try {
+            new ÉcrivainXML(this).enregistrerPoI(flux);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
 
-            // Ajout des stations service
-            for (int i = 0; i < stationsServiceXML.getLength(); i++)
-                ajouterPoI(new StationService((Element) stationsServiceXML.item(i), this));
+    /**
+     * Enregistre les noeuds, arcs et routes de la carte dans le flux spécifié, au format XML. Le flux n'est pas fermé.
+     *
+     * @param flux le flux dans lequel écrire (il est préférable qu'il soit bufferisé).
+     * @throws IOException si l'écriture échoue.
+     */
+    public void enregistrerCarte(OutputStream flux) throws IOException {
+        try {
+            new ÉcrivainXML(this).enregistrerCarte(flux, false);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
 
-        } catch (SAXException | IOException | ParserConfigurationException ex) {
-            Logger.getLogger(Carte.class.getName()).log(Level.SEVERE, null, ex);
+    /**
+     * Enregistre les noeuds, arcs et routes de la carte dans le fichier XML spécifié, compressé au format gzip si son nom se termine par {@code .gz}.
+     *
+     * @param fichier le fichier dans lequel enregistrer la carte.
+     * @throws IOException si l'écriture échoue.
+     */
+    public void enregistrerCarte(Path fichier) throws IOException {
+        try (OutputStream flux = Compression.créer(fichier)) {
+            enregistrerCarte(flux);
         }
     }
 
     /**
-     * Enregistre les points d'intérêt dans le fichier XML spécifié.
+     * Enregistre les points d'intérêt dans le fichier XML spécifié, compressé au format gzip si son nom se termine par {@code .gz}.
+     *
+     * @param fichier le fichier dans lequel enregistrer les points d'intérêt.
+     * @throws IOException si l'écriture échoue.
+     */
+    public void enregistrerPoI(Path fichier) throws IOException {
+        try (OutputStream flux = Compression.créer(fichier)) {
+            enregistrerPoI(flux);
+        }
+    }
+
+    /**
+     * Enregistre les points d'intérêt dans le fichier XML spécifié, compressé au format gzip si son nom se termine par {@code .gz}.
      *
      * @param fichier le fichier XLM dans lequel les points d'intérêts doivent être enregistrés.
      */
     public void enregistrerPoI(File fichier) {
-        try {
+        try (OutputStream flux = Compression.créer(fichier.toPath())) {
+            new ÉcrivainXML(this).enregistrerPoI(flux);
+        } catch (XMLStreamException | IOException ex) {
+            Logger.getLogger(Carte.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
 
-            DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
+    /**
+     * Enregistre les noeuds, arcs et routes de la carte dans le fichier XML spécifié, dans le format lu par les constructeurs de la carte. Le fichier est
+     * compressé au format gzip si son nom se termine par {@code .gz}.
+     *
+     * @param fichier le fichier XML dans lequel la carte doit être enregistrée.
+     */
+    public void enregistrerCarte(File fichier) {
+        try (OutputStream flux = Compression.créer(fichier.toPath())) {
+            new ÉcrivainXML(this).enregistrerCarte(flux, false);
+        } catch (XMLStreamException | IOException ex) {
+            Logger.getLogger(Carte.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
 
-            Document doc = docBuilder.newDocument();
-            Element racine = doc.createElement("pointsdintérêt");
-            doc.appendChild(racine);
+    /**
+     * Enregistre la carte complète (noeuds, arcs, routes et points d'intérêt, avec les bornes de leurs zones) dans un instantané binaire, qui pourra être
+     * rechargé beaucoup plus rapidement qu'un fichier XML (voir {@link #chargerInstantané(Path)}).
+     *
+     * @param chemin le fichier dans lequel enregistrer l'instantané.
+     * @throws IOException si l'écriture échoue.
+     */
+    public void enregistrerInstantané(Path chemin) throws IOException {
+        Instantané.enregistrer(chemin, taille, noeuds, arcs, routes, pointsDIntérêts);
+    }
 
-            for (PointDIntérêt p : pointsDIntérêts.getÉléments())
-                racine.appendChild(p.convertirEnXML(doc));
+    /**
+     * Charge une carte à partir d'un instantané binaire créé par {@link #enregistrerInstantané(Path)}. Le fichier est projeté en mémoire et les index
+     * spatiaux sont reconstruits à partir des bornes enregistrées des zones des éléments, sans recalculer la zone de chaque élément.
+     *
+     * @param chemin le fichier de l'instantané.
+     * @return la carte correspondante.
+     * @throws IOException si la lecture échoue ou si le fichier n'est pas un instantané d'une version reconnue.
+     */
+    public static Carte chargerInstantané(Path chemin) throws IOException {
+        try (Instantané instantané = new Instantané(chemin)) {
+            Carte c = new Carte(instantané.getTaille());
+            instantané.lire(c.noeuds, c.arcs, c.routes, c.pointsDIntérêts);
+            for (Arc a : c.arcs.getÉléments()) {
+                c.relier(a);
+                if (c.tronçons != null)
+                    c.indexerTronçons(a);
+            }
+            for (PointDIntérêt p : c.pointsDIntérêts.getÉléments())
+                c.associer(p);
+            return c;
+        }
+    }
 
-            // Écriture dans le fichier XML
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer = transformerFactory.newTransformer();
-            DOMSource source = new DOMSource(doc);
-            StreamResult result = new StreamResult(fichier);
+    /**
+     * Enregistre les bornes des zones des éléments de cette carte (et de leurs tronçons s'ils sont indexés) dans un fichier d'index, identifié par la
+     * version de la carte et la taille de son maillage (voir {@link #chargerAvecIndex(Path, Path, double, Path, long)}).
+     *
+     * @param chemin le fichier dans lequel enregistrer l'index.
+     * @param version la version de la carte, choisie par l'application (par exemple la date de production des fichiers XML).
+     * @throws IOException si l'écriture échoue.
+     */
+    public void enregistrerIndex(Path chemin, long version) throws IOException {
+        IndexEnregistré.enregistrer(chemin, version, taille, noeuds, arcs, routes, pointsDIntérêts, tronçons != null);
+    }
 
-            transformer.transform(source, result);
+    /**
+     * Construit une carte à partir de deux fichiers XML, en reconstruisant ses index spatiaux à partir d'un fichier d'index plutôt qu'en calculant la zone
+     * de chaque élément. Le fichier d'index n'est utilisé que s'il a été enregistré pour la même version de la carte et la même taille de maillage ; sinon
+     * (ou s'il est absent ou illisible), les index sont calculés et le fichier est enregistré à nouveau pour les chargements suivants. Le fichier d'index
+     * convient quel que soit l'index spatial choisi (voir {@link #setIndexArbreR(boolean)}).
+     *
+     * @param xmlCarte un fichier XML représentant une carte.
+     * @param xmlPoI un fichier XML représentant des points d'intérêt, ou {@code null}.
+     * @param taille la taille du maillage.
+     * @param index le fichier d'index.
+     * @param version la version de la carte, choisie par l'application ; elle doit changer dès que les fichiers XML changent.
+     * @return la carte.
+     * @throws IOException si la lecture d'un fichier XML échoue, si un fichier XML est mal formé ou si l'enregistrement du fichier d'index échoue.
+     */
+    public static Carte chargerAvecIndex(Path xmlCarte, Path xmlPoI, double taille, Path index, long version) throws IOException {
+        IndexEnregistré enregistré = null;
+        if (Files.isRegularFile(index))
+            try {
+                enregistré = new IndexEnregistré(index);
+            } catch (IOException ex) {
+                Logger.getLogger(Carte.class.getName()).log(Level.WARNING, "Index de carte illisible : " + index, ex);
+            }
+        Carte c = new Carte(taille);
+        try {
+            if (enregistré != null && !enregistré.correspond(version, taille, c.tronçons != null)) {
+                enregistré.close();
+                enregistré = null;
+            }
+            c.indexationDifférée = true;
+            try (InputStream flux = Compression.ouvrir(xmlCarte)) {
+                c.chargerCarte(flux);
+            }
+            if (xmlPoI != null)
+                try (InputStream flux = Compression.ouvrir(xmlPoI)) {
+                    c.chargerPoI(flux);
+                }
+            c.indexationDifférée = false;
+            if (enregistré != null)
+                try {
+                    enregistré.lire(c.noeuds, c.arcs, c.routes, c.pointsDIntérêts, c.tronçons);
+                    return c;
+                } catch (IOException ex) {
+                    Logger.getLogger(Carte.class.getName()).log(Level.WARNING, "Index de carte inutilisable : " + index, ex);
+                }
+        } finally {
+            if (enregistré != null)
+                enregistré.close();
+        }
+        IndexEnregistré.indexerEtEnregistrer(index, version, taille, c.noeuds, c.arcs, c.routes, c.pointsDIntérêts, c.tronçons);
+        return c;
+    }
 
-        } catch (ParserConfigurationException | TransformerException ex) {
-            Logger.getLogger(Carte.class.getName()).log(Level.SEVERE, null, ex);
+    /**
+     * Range les noeuds, les arcs, les routes et les points d'intérêt de cette carte le long d'une courbe de Hilbert (voir {@link Ensemble#compacter()}),
+     * pour améliorer la localité des accès mémoire lors des recherches par zone, des calculs d'itinéraires et des dessins. À appeler une fois la carte
+     * chargée.
+     */
+    public void compacter() {
+        noeuds.compacter();
+        arcs.compacter();
+        routes.compacter();
+        pointsDIntérêts.compacter();
+        if (tronçons != null) {
+            for (Arc a : arcs.getÉléments())
+                retirerTronçons(a);
+            for (Arc a : arcs.getÉléments())
+                indexerTronçons(a);
         }
     }
 
+    /**
+     * Découpe cette carte en tuiles géographiques et les enregistre dans le répertoire spécifié, en vue d'un chargement à la demande (voir
+     * {@link #ouvrirTuiles(Path, int)}). Une tuile regroupe {@code côté} × {@code côté} mailles du maillage de la carte. Les points d'intérêt ne sont pas
+     * enregistrés.
+     *
+     * @param répertoire le répertoire dans lequel enregistrer les tuiles (créé si nécessaire).
+     * @param côté le nombre de mailles d'un côté de tuile.
+     * @throws IOException si l'écriture échoue.
+     */
+    public void découperEnTuiles(Path répertoire, int côté) throws IOException {
+        Files.createDirectories(répertoire);
+        Tuiles.découper(répertoire, côté, taille, noeuds, arcs, routes);
+    }
+
+    /**
+     * Ouvre une carte découpée en tuiles par {@link #découperEnTuiles(Path, int)}. La carte est initialement vide : les tuiles sont chargées à la demande par
+     * les recherches par zone ou par identifiant, par {@link #calculerPositionSurArcLaPlusProche(Point)} et par
+     * {@link #déterminerCheminOptimal(Noeud, Noeud, short)}, et les tuiles les moins récemment utilisées sont évincées lorsque le nombre d'éléments chargés
+     * dépasse le budget spécifié. Les méthodes renvoyant tous les éléments de la carte ne renvoient que les éléments chargés.
+     *
+     * @param répertoire le répertoire des tuiles.
+     * @param budget le nombre maximal de noeuds, d'arcs et de routes chargés (les tuiles utilisées par la requête en cours sont chargées même si le budget
+     * est dépassé).
+     * @return la carte.
+     * @throws IOException si l'index des tuiles ne peut être lu.
+     */
+    public static Carte ouvrirTuiles(Path répertoire, int budget) throws IOException {
+        Tuiles t = new Tuiles(répertoire, budget);
+        Carte c = new Carte(t.getTaille());
+        t.associer(c, c.noeuds);
+        c.tuiles = t;
+        return c;
+    }
+
+    /**
+     * Renvoie le réseau routier de cette carte sous forme de listes d'adjacence compressées (voir {@link GrapheFigé}), qui permettent de parcourir les arcs
+     * partant d'un noeud ou y arrivant sans créer d'objet. Le graphe est construit au premier appel, puis conservé tant que le réseau n'est pas modifié ;
+     * tant qu'il est à jour, la carte elle-même y lit les arcs des noeuds qu'elle déplace. À appeler une fois la carte chargée.
+     *
+     * @return le graphe figé de la carte.
+     * @throws IllegalStateException si la carte est découpée en tuiles (les arcs d'une carte découpée changent à chaque chargement de tuile).
+     */
+    public GrapheFigé figerGraphe() {
+        if (tuiles != null)
+            throw new IllegalStateException("Une carte découpée en tuiles ne peut pas figer son graphe");
+        if (graphe == null)
+            graphe = new GrapheFigé(this);
+        return graphe;
+    }
+
+    /**
+     * Charge les tuiles recoupant la zone spécifiée, si la carte est découpée en tuiles.
+     *
+     * @param z une zone.
+     */
+    private void chargerTuiles(Zone z) {
+        if (tuiles != null)
+            tuiles.charger(z);
+    }
+
+    /**
+     * Renvoie la taille du maillage des ensembles de cette carte.
+     *
+     * @return la taille d'une maille en mètres.
+     */
+    public double getTaille() {
+        return taille;
+    }
+
     /**
      * Ajoute un arc à la carte.
      *
      * @param a l'arc à ajouter.
      */
     public final void ajouterArc(Arc a) {
+        graphe = null;
+        if (indexationDifférée) {
+            arcs.ajouterÉlémentSansIndexer(a);
+            relier(a);
+            return;
+        }
         arcs.ajouterÉlément(a);
+        relier(a);
+        if (tronçons != null)
+            indexerTronçons(a);
+    }
+
+    /**
+     * Inscrit un arc de la carte parmi les arcs sortants de son noeud de départ et les arcs entrants de son noeud d'arrivée, sous son indice dense : les
+     * noeuds retrouvent leurs arcs sans consulter la table des identifiants.
+     *
+     * @param a un arc déjà ajouté à l'ensemble des arcs.
+     */
+    private void relier(Arc a) {
+        int indice = arcs.getIndice(a.getID());
+        a.getDépart().ajouterArcSortant(indice);
+        a.getArrivée().ajouterArcEntrant(indice);
+    }
+
+    /**
+     * Retire un arc de la carte des arcs sortants de son noeud de départ et des arcs entrants de son noeud d'arrivée.
+     *
+     * @param a un arc de la carte.
+     */
+    private void délier(Arc a) {
+        int indice = arcs.getIndice(a.getID());
+        a.getDépart().retirerArcSortant(indice);
+        a.getArrivée().retirerArcEntrant(indice);
+    }
+
+    /**
+     * Inscrit un point d'intérêt de la carte auprès de l'arc sur lequel il se situe et de ses arcs associés, sous son indice dense : la modification ou le
+     * retrait de l'un de ces arcs tient ainsi compte du point d'intérêt, même si l'arc qui le porte ne figure pas parmi ses arcs associés.
+     *
+     * @param p un point d'intérêt déjà ajouté à l'ensemble des points d'intérêt.
+     */
+    private void associer(PointDIntérêt p) {
+        int indice = pointsDIntérêts.getIndice(p.getID());
+        p.getArc().ajouterPointDIntérêt(indice);
+        for (Arc a : p.getArcsAssociés())
+            a.ajouterPointDIntérêt(indice);
+    }
+
+    /**
+     * Ajoute les tronçons d'un arc à l'index des tronçons.
+     *
+     * @param a l'arc.
+     */
+    private void indexerTronçons(Arc a) {
+        for (int i = 0; i < a.getNbTronçons(); i++)
+            tronçons.ajouterÉlément(new Tronçon(a, i));
+    }
+
+    /**
+     * Retire les tronçons d'un arc de l'index des tronçons. La géométrie de l'arc doit être la même que lors de l'ajout de ses tronçons.
+     *
+     * @param a l'arc.
+     */
+    private void retirerTronçons(Arc a) {
+        for (int i = 0; i < a.getNbTronçons(); i++)
+            tronçons.retirerÉlément(new Tronçon(a, i));
     }
 
     /**
@@ -227,7 +721,11 @@ public class Carte {
      * @param n le noeud à ajouter.
      */
     public final void ajouterNoeud(Noeud n) {
-        noeuds.ajouterÉlément(n);
+        graphe = null;
+        if (indexationDifférée)
+            noeuds.ajouterÉlémentSansIndexer(n);
+        else
+            noeuds.ajouterÉlément(n);
     }
 
     /**
@@ -236,7 +734,11 @@ public class Carte {
      * @param p le point d'intérêt à ajouter.
      */
     public final void ajouterPoI(PointDIntérêt p) {
-        pointsDIntérêts.ajouterÉlément(p);
+        if (indexationDifférée)
+            pointsDIntérêts.ajouterÉlémentSansIndexer(p);
+        else
+            pointsDIntérêts.ajouterÉlément(p);
+        associer(p);
     }
 
     /**
@@ -245,7 +747,203 @@ public class Carte {
      * @param r la route à ajouter.
      */
     public final void ajouterRoute(Route r) {
-        routes.ajouterÉlément(r);
+        if (indexationDifférée)
+            routes.ajouterÉlémentSansIndexer(r);
+        else
+            routes.ajouterÉlément(r);
+    }
+
+    /**
+     * Retire un noeud de la carte. Le noeud ne doit plus être le départ ou l'arrivée d'aucun arc.
+     *
+     * @param id l'identifiant du noeud à retirer.
+     * @throws IllegalArgumentException si la carte ne contient aucun noeud ayant cet identifiant.
+     * @throws IllegalStateException si des arcs partent du noeud ou y arrivent.
+     */
+    public void retirerNoeud(long id) {
+        Noeud n = noeudConnu(id);
+        if (n.getNbArcsEntrants() > 0 || n.getNbArcsSortants() > 0)
+            throw new IllegalStateException("Le noeud " + id + " est encore relié à des arcs");
+        noeuds.retirerÉlément(n);
+        graphe = null;
+    }
+
+    /**
+     * Retire un arc de la carte. L'arc ne doit plus appartenir à aucune route, ni porter ou être associé à aucun point d'intérêt.
+     *
+     * @param id l'identifiant de l'arc à retirer.
+     * @throws IllegalArgumentException si la carte ne contient aucun arc ayant cet identifiant.
+     * @throws IllegalStateException si l'arc appartient à une route, ou porte un point d'intérêt ou lui est associé.
+     */
+    public void retirerArc(long id) {
+        Arc a = arcConnu(id);
+        if (a.getRoute(this) != null || a.aDesPointsDIntérêt())
+            throw new IllegalStateException("L'arc " + id + " appartient encore à une route ou à un point d'intérêt");
+        arcs.retirerÉlément(a);
+        if (tronçons != null)
+            retirerTronçons(a);
+        délier(a);
+        graphe = null;
+    }
+
+    /**
+     * Retire une route de la carte. Les arcs de la route ne sont pas retirés.
+     *
+     * @param id l'identifiant de la route à retirer.
+     * @throws IllegalArgumentException si la carte ne contient aucune route ayant cet identifiant.
+     */
+    public void retirerRoute(long id) {
+        Route r = getRoute(id);
+        if (r == null)
+            throw new IllegalArgumentException("Route inconnue : " + id);
+        routes.retirerÉlément(r);
+        for (Arc a : new Arc[]{r.getArcAller(), r.getArcRetour()})
+            if (a != null && a.getRoute(this) == null)
+                a.retirerIdRoute();
+    }
+
+    /**
+     * Retire un point d'intérêt de la carte, ainsi que son association aux arcs.
+     *
+     * @param id l'identifiant du point d'intérêt à retirer.
+     * @throws IllegalArgumentException si la carte ne contient aucun point d'intérêt ayant cet identifiant.
+     */
+    public void retirerPoI(long id) {
+        PointDIntérêt p = getPoI(id);
+        if (p == null)
+            throw new IllegalArgumentException("Point d'intérêt inconnu : " + id);
+        pointsDIntérêts.retirerÉlément(p);
+        int indice = pointsDIntérêts.getIndice(id);
+        p.getArc().retirerPointDIntérêt(indice);
+        for (Arc a : p.getArcsAssociés())
+            a.retirerPointDIntérêt(indice);
+    }
+
+    /**
+     * Déplace un noeud de la carte. Les arcs partant du noeud ou y arrivant, leurs routes et les points d'intérêt qui leur sont associés sont mis à jour,
+     * ainsi que leur place dans le maillage.
+     *
+     * @param id l'identifiant du noeud.
+     * @param latitude la nouvelle latitude du noeud.
+     * @param longitude la nouvelle longitude du noeud.
+     * @throws IllegalArgumentException si la carte ne contient aucun noeud ayant cet identifiant.
+     */
+    public void modifierNoeud(long id, Latitude latitude, Longitude longitude) {
+        Noeud n = noeudConnu(id);
+        List<Arc> arcsModifiés = arcsDuNoeud(n);
+        Dépendances d = new Dépendances(arcsModifiés);
+        noeuds.retirerÉlément(n);
+        d.retirer();
+        n.déplacer(latitude, longitude);
+        for (Arc a : arcsModifiés)
+            a.géométrieModifiée();
+        noeuds.ajouterÉlément(n);
+        d.ajouter();
+    }
+
+    /**
+     * Renvoie les arcs partant d'un noeud ou y arrivant, chacun une seule fois. Les arcs sont lus dans le graphe figé de la carte s'il est à jour (voir
+     * {@link #figerGraphe()}), sinon dans les indices d'arcs conservés par le noeud ; aucun ensemble intermédiaire n'est créé.
+     *
+     * @param n un noeud de la carte.
+     * @return les arcs du noeud.
+     */
+    private List<Arc> arcsDuNoeud(Noeud n) {
+        List<Arc> arcsDuNoeud = new ArrayList<>();
+        if (graphe != null) {
+            int i = graphe.getIndice(n);
+            for (int k = 0; k < graphe.getNbArcsSortants(i); k++)
+                arcsDuNoeud.add(graphe.getArc(graphe.getArcSortant(i, k)));
+            for (int k = 0; k < graphe.getNbArcsEntrants(i); k++) {
+                int a = graphe.getArcEntrant(i, k);
+                if (graphe.getDépart(a) != i)
+                    arcsDuNoeud.add(graphe.getArc(a));
+            }
+        } else {
+            for (int k = 0; k < n.getNbArcsSortants(); k++)
+                arcsDuNoeud.add(getArcParIndice(n.getIndiceArcSortant(k)));
+            for (int k = 0; k < n.getNbArcsEntrants(); k++) {
+                Arc a = getArcParIndice(n.getIndiceArcEntrant(k));
+                if (a.getDépart() != n)
+                    arcsDuNoeud.add(a);
+            }
+        }
+        return arcsDuNoeud;
+    }
+
+    /**
+     * Modifie un arc de la carte. Le type de l'arc (simple ou composé) ne peut pas être modifié. Les routes et les points d'intérêt de l'arc sont mis à jour,
+     * ainsi que leur place dans le maillage.
+     *
+     * @param id l'identifiant de l'arc.
+     * @param départ le nouveau noeud de départ.
+     * @param arrivée le nouveau noeud d'arrivée.
+     * @param nbVoies le nouveau nombre de voies.
+     * @param vitesseLimite la nouvelle vitesse limite légale de circulation.
+     * @param coefVitesseNominale le nouveau coefficient de vitesse nominale.
+     * @param shapePoints les nouveaux shape-points pour un arc composé, {@code null} pour un arc simple.
+     * @throws IllegalArgumentException si la carte ne contient aucun arc ayant cet identifiant ou si le type de l'arc ne correspond pas.
+     */
+    public void modifierArc(long id, Noeud départ, Noeud arrivée, byte nbVoies, short vitesseLimite, double coefVitesseNominale,
+            Coordonnées[] shapePoints) {
+        Arc a = arcConnu(id);
+        if ((shapePoints != null) != (a instanceof ArcComposé))
+            throw new IllegalArgumentException("Le type de l'arc " + id + " ne peut pas être modifié");
+        Dépendances d = new Dépendances(Collections.singleton(a));
+        d.retirer();
+        a.setCaractéristiques(nbVoies, vitesseLimite, coefVitesseNominale);
+        if (a.getDépart() != départ || a.getArrivée() != arrivée) {
+            délier(a);
+            a.setNoeuds(départ, arrivée);
+            relier(a);
+            graphe = null;
+        }
+        if (shapePoints != null)
+            ((ArcComposé) a).setShapePoints(shapePoints);
+        d.ajouter();
+    }
+
+    /**
+     * Applique à la carte les modifications décrites par un fichier XML de delta (voir {@link LecteurXML#appliquerDelta(InputStream)}). Les opérations sont
+     * appliquées dans l'ordre du fichier ; en cas d'erreur, les opérations précédentes restent appliquées.
+     *
+     * @param fichier un fichier XML de delta.
+     * @throws IOException si la lecture du fichier échoue ou si le fichier est mal formé.
+     */
+    public void appliquerDelta(File fichier) throws IOException {
+        try (InputStream flux = Compression.ouvrir(fichier.toPath())) {
+            new LecteurXML(this).appliquerDelta(flux);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Renvoie le noeud de la carte correspondant à l'identifiant spécifié.
+     *
+     * @param id l'identifiant du noeud.
+     * @return le noeud correspondant.
+     * @throws IllegalArgumentException si la carte ne contient aucun noeud ayant cet identifiant.
+     */
+    private Noeud noeudConnu(long id) {
+        Noeud n = getNoeud(id);
+        if (n == null)
+            throw new IllegalArgumentException("Noeud inconnu : " + id);
+        return n;
+    }
+
+    /**
+     * Renvoie l'arc de la carte correspondant à l'identifiant spécifié.
+     *
+     * @param id l'identifiant de l'arc.
+     * @return l'arc correspondant.
+     * @throws IllegalArgumentException si la carte ne contient aucun arc ayant cet identifiant.
+     */
+    private Arc arcConnu(long id) {
+        Arc a = getArc(id);
+        if (a == null)
+            throw new IllegalArgumentException("Arc inconnu : " + id);
+        return a;
     }
 
     /**
@@ -255,7 +953,10 @@ public class Carte {
      * @return l'arc correspondant à l'identifiant.
      */
     public Arc getArc(long id) {
-        return arcs.getÉlément(id);
+        Arc a = arcs.getÉlément(id);
+        if (a == null && tuiles != null && tuiles.chargerArc(id))
+            a = arcs.getÉlément(id);
+        return a;
     }
 
     /**
@@ -265,7 +966,10 @@ public class Carte {
      * @return le noeud correspondant à l'identifiant.
      */
     public Noeud getNoeud(long id) {
-        return noeuds.getÉlément(id);
+        Noeud n = noeuds.getÉlément(id);
+        if (n == null && tuiles != null && tuiles.chargerNoeud(id))
+            n = noeuds.getÉlément(id);
+        return n;
     }
 
     /**
@@ -287,7 +991,80 @@ public class Carte {
     public Route getRoute(long id) {
         return routes.getÉlément(id);
     }
-    
+
+    /**
+     * Renvoie l'indice dense d'un noeud de la carte. Les indices des noeuds vont de 0 à {@link #getNbIndicesNoeuds()} - 1 et ne changent pas lorsqu'un noeud
+     * est déplacé ou rechargé : ils permettent de stocker des données par noeud dans des tableaux plutôt que dans des tables associatives. Les relations
+     * entre éléments (arcs d'un noeud, points d'intérêt d'un arc) sont elles-mêmes conservées sous forme d'indices.
+     * <p>Les indices ne sont jamais récupérés : le retrait d'un élément laisse sa case vide, et le nombre d'indices est celui des identifiants distincts
+     * ajoutés depuis la création de la carte. Pour une carte découpée en tuiles, il reste borné par le nombre d'éléments du découpage ; une carte qui
+     * reçoit sans fin de nouveaux identifiants par des deltas voit en revanche ses tableaux indexés grandir, et doit être rechargée pour les compacter.
+     *
+     * @param id l'identifiant d'un noeud.
+     * @return l'indice du noeud, ou -1 si aucun noeud de la carte n'a porté cet identifiant.
+     */
+    public int getIndiceNoeud(long id) {
+        return noeuds.getIndice(id);
+    }
+
+    /**
+     * Renvoie le noeud de la carte portant un indice dense.
+     *
+     * @param indice un indice, entre 0 et {@link #getNbIndicesNoeuds()} - 1.
+     * @return le noeud, ou {@code null} s'il a été retiré.
+     */
+    public Noeud getNoeudParIndice(int indice) {
+        return noeuds.getÉlémentParIndice(indice);
+    }
+
+    /**
+     * Renvoie le nombre d'indices denses attribués aux noeuds de la carte.
+     *
+     * @return le nombre d'indices attribués.
+     */
+    public int getNbIndicesNoeuds() {
+        return noeuds.getNbIndices();
+    }
+
+    /**
+     * Renvoie l'indice dense d'un arc de la carte (voir {@link #getIndiceNoeud(long)}).
+     *
+     * @param id l'identifiant d'un arc.
+     * @return l'indice de l'arc, ou -1 si aucun arc de la carte n'a porté cet identifiant.
+     */
+    public int getIndiceArc(long id) {
+        return arcs.getIndice(id);
+    }
+
+    /**
+     * Renvoie l'arc de la carte portant un indice dense.
+     *
+     * @param indice un indice, entre 0 et {@link #getNbIndicesArcs()} - 1.
+     * @return l'arc, ou {@code null} s'il a été retiré.
+     */
+    public Arc getArcParIndice(int indice) {
+        return arcs.getÉlémentParIndice(indice);
+    }
+
+    /**
+     * Renvoie le nombre d'indices denses attribués aux arcs de la carte.
+     *
+     * @return le nombre d'indices attribués.
+     */
+    public int getNbIndicesArcs() {
+        return arcs.getNbIndices();
+    }
+
+    /**
+     * Renvoie le point d'intérêt de la carte portant un indice dense (voir {@link #getIndiceNoeud(long)}).
+     *
+     * @param indice un indice attribué à un point d'intérêt.
+     * @return le point d'intérêt, ou {@code null} s'il a été retiré.
+     */
+    public PointDIntérêt getPoIParIndice(int indice) {
+        return pointsDIntérêts.getÉlémentParIndice(indice);
+    }
+
     public Collection<Arc> getArcs() {
         return arcs.getÉléments();
     }
@@ -305,43 +1082,66 @@ public class Carte {
     }
     
     public Set<Arc> getArcs(Zone z) {
+        chargerTuiles(z);
         return arcs.getÉléments(z);
     }
     
     public Set<Noeud> getNoeuds(Zone z) {
+        chargerTuiles(z);
         return noeuds.getÉléments(z);
     }
     
     public Set<PointDIntérêt> getPoIs(Zone z) {
+        chargerTuiles(z);
         return pointsDIntérêts.getÉléments(z);
     }
     
     public Set<Route> getRoutes(Zone z) {
+        chargerTuiles(z);
         return routes.getÉléments(z);
     }
     
     /**
-     * Renvoie la position sur arc la plus proche du point spécifié, parmi toutes les positions sur arc de cette carte.
+     * Renvoie la position sur arc la plus proche du point spécifié, parmi toutes les positions sur arc de cette carte. Les arcs sont explorés par distance
+     * croissante au point (voir {@link Ensemble#kPlusProches(Point, int, MesureDeDistance)}) ; si les tronçons des arcs sont indexés (voir
+     * {@link #setIndexParTronçons(boolean)}), ce sont les tronçons qui sont explorés.
      *
      * @param point point.
-     * @return la position sur arc la plus proche.
+     * @return la position sur arc la plus proche, ou {@code null} si la carte ne contient aucun arc.
      */
     public PositionSurArc calculerPositionSurArcLaPlusProche(Point point) {
+        if (tronçons != null) {
+            List<Tronçon> plusProches = kPlusProches(tronçons, point, 1, DISTANCE_AUX_TRONÇONS);
+            return plusProches.isEmpty() ? null : plusProches.get(0).calculerPointLePlusProche(point);
+        }
+        List<Arc> plusProches = kPlusProches(arcs.getIndexSpatial(), point, 1, DISTANCE_AUX_ARCS);
+        return plusProches.isEmpty() ? null : plusProches.get(0).calculerPointLePlusProche(point);
+    }
 
-        // Taille initiale du disque, puis incrément de cette taille
-        final double INCRÉMENT = 1000;
-
-        double distanceMinimale = 1. / 0.;
-        PositionSurArc pointRéalisant = null;
-
-        for (double rayon = INCRÉMENT; distanceMinimale > rayon; rayon += INCRÉMENT)
-            for (Arc a : arcs.getÉléments(point, rayon))
-                if (point.calculerDistanceMétrique(a.calculerPointLePlusProche(point)) < distanceMinimale) {
-                    distanceMinimale = point.calculerDistanceMétrique(a.calculerPointLePlusProche(point));
-                    pointRéalisant = a.calculerPointLePlusProche(point);
-                }
-
-        return pointRéalisant;
+    /**
+     * Renvoie les éléments d'un index de la carte les plus proches d'un point. Si la carte est découpée en tuiles, les tuiles d'un disque centré sur le
+     * point sont chargées, et le rayon du disque est doublé tant que les éléments trouvés ne sont pas tous dans le disque.
+     *
+     * @param <T> le type des éléments.
+     * @param index l'index de la carte.
+     * @param p un point.
+     * @param k le nombre d'éléments recherchés.
+     * @param mesure la distance exacte entre le point et un élément.
+     * @return les éléments les plus proches, par distance croissante.
+     */
+    private <T extends Localisable> List<T> kPlusProches(IndexSpatial<T> index, Point p, int k, MesureDeDistance<? super T> mesure) {
+        if (tuiles == null)
+            return index.kPlusProches(p, k, mesure);
+        List<T> plusProches;
+        double rayon = RAYON_INITIAL_TUILES;
+        do {
+            chargerTuiles(new Zone(p, rayon));
+            plusProches = index.kPlusProches(p, k, mesure);
+            if (plusProches.size() == k && mesure.calculerDistance(p, plusProches.get(k - 1)) <= rayon)
+                break;
+            rayon *= 2;
+        } while (rayon <= RAYON_MAXIMAL_TUILES);
+        return plusProches;
     }
 
     /**
@@ -357,42 +1157,53 @@ public class Carte {
      * <li>{@code CHEMIN_LE_PLUS_RAPIDE_ACTUEL} : l'itinéraire calculé est le plus rapide dans les conditions actuelles de circulation.</ul>
      * @return Renvoie l'itinéraire optimal.
      */
-    public Itinéraire déterminerCheminOptimal(Noeud départ, Noeud arrivée, short type) {
+    public Itinéraire déterminerCheminOptimal(Noeud départ, Noeud arrivée, final short type) {
 
         // Définition de la zone à laquelle on se restreint pour la création du graphe sur lequel on appliquera Dijkstra
         final double MARGE = 0.5;
         double distance = départ.calculerDistanceMétrique(arrivée);
         Zone z = new Zone(new Zone(départ, MARGE * distance), new Zone(arrivée, MARGE * distance));
 
-        // Ajout des noeuds
-        Set<Noeud> noeudsDansZone = noeuds.getÉléments(z);
-        long[] idNoeudsDansZones = new long[noeudsDansZone.size()];
-        int i = 0;
-        for (Noeud n : noeudsDansZone)
-            idNoeudsDansZones[i++] = n.getID();
+        // Ajout des noeuds (les éléments sont parcourus deux fois : pour dimensionner les tableaux, puis pour les remplir)
+        chargerTuiles(z);
+        final long[] idNoeudsDansZones = new long[noeuds.compter(z, false)];
+        noeuds.parcourir(z, false, new Consumer<Noeud>() {
+
+            private int i;
+
+            @Override
+            public void accept(Noeud n) {
+                idNoeudsDansZones[i++] = n.getID();
+            }
+        });
 
         // Ajout des arcs
-        Set<Arc> arcsDansZone = arcs.getÉléments(z);
-        long[] idArcsDansZone = new long[arcsDansZone.size()];
-        long[] idDéparts = new long[arcsDansZone.size()];
-        long[] idArrivées = new long[arcsDansZone.size()];
-        double[] poids = new double[arcsDansZone.size()];
-        i = 0;
-        for (Arc a : arcsDansZone) {
-            idArcsDansZone[i] = a.getID();
-            idDéparts[i] = a.getDépart().getID();
-            idArrivées[i] = a.getArrivée().getID();
-            switch (type) {
-                case CHEMIN_LE_PLUS_COURT:
-                    poids[i++] = a.calculerLongueur();
-                    break;
-                case CHEMIN_LE_PLUS_RAPIDE_NOMINAL:
-                    poids[i++] = a.calculerTempsParcoursEffectif();
-                    break;
-                case CHEMIN_LE_PLUS_RAPIDE_ACTUEL:
-                    poids[i++] = a.calculerTempsParcoursActuel();
+        int nbArcs = arcs.compter(z, false);
+        final long[] idArcsDansZone = new long[nbArcs];
+        final long[] idDéparts = new long[nbArcs];
+        final long[] idArrivées = new long[nbArcs];
+        final double[] poids = new double[nbArcs];
+        arcs.parcourir(z, false, new Consumer<Arc>() {
+
+            private int i;
+
+            @Override
+            public void accept(Arc a) {
+                idArcsDansZone[i] = a.getID();
+                idDéparts[i] = a.getDépart().getID();
+                idArrivées[i] = a.getArrivée().getID();
+                switch (type) {
+                    case CHEMIN_LE_PLUS_COURT:
+                        poids[i++] = a.calculerLongueur();
+                        break;
+                    case CHEMIN_LE_PLUS_RAPIDE_NOMINAL:
+                        poids[i++] = a.calculerTempsParcoursEffectif();
+                        break;
+                    case CHEMIN_LE_PLUS_RAPIDE_ACTUEL:
+                        poids[i++] = a.calculerTempsParcoursActuel();
+                }
             }
-        }
+        });
 
         // Calcul du plus court chemin par l'algorithme de Dijkstra
         GraphGPS g = new GraphGPS(idNoeudsDansZones, idArcsDansZone, idDéparts, idArrivées, poids);
@@ -430,7 +1241,8 @@ public class Carte {
      * @return le noeud le plus proche du point spécifié.
      */
     public Noeud déterminerPlusProcheNoeud(Point p) {
-        return p.déterminerPlusProchePoint(noeuds);
+        List<Noeud> plusProches = kPlusProches(noeuds.getIndexSpatial(), p, 1, Point.DISTANCE_ENTRE_POINTS);
+        return plusProches.isEmpty() ? null : plusProches.get(0);
     }
 
     /**
@@ -440,7 +1252,55 @@ public class Carte {
      * @return le point d'intérêt le plus proche du point spécifié.
      */
     public PointDIntérêt déterminerPlusProchePointDIntérêt(Point p) {
-        return p.déterminerPlusProchePoint(pointsDIntérêts);
+        List<PointDIntérêt> plusProches = kPlusProches(pointsDIntérêts.getIndexSpatial(), p, 1, Point.DISTANCE_ENTRE_POINTS);
+        return plusProches.isEmpty() ? null : plusProches.get(0);
+    }
+
+    /**
+     * Éléments de la carte dont la place dans le maillage dépend de la géométrie d'un ensemble d'arcs : les arcs eux-mêmes, leurs routes et les points
+     * d'intérêt qui leur sont associés. Ces éléments sont retirés des maillages avant la modification des arcs, puis ajoutés à nouveau.
+     */
+    private class Dépendances {
+
+        private final Collection<Arc> arcsModifiés;
+        private final Set<Route> routesModifiées = new HashSet<>();
+        private final Set<PointDIntérêt> pointsDIntérêtModifiés = new HashSet<>();
+
+        Dépendances(Collection<Arc> arcsModifiés) {
+            this.arcsModifiés = arcsModifiés;
+            for (Arc a : arcsModifiés) {
+                if (a.getRoute(Carte.this) != null)
+                    routesModifiées.add(a.getRoute(Carte.this));
+                for (int k = 0; k < a.getNbPointsDIntérêt(); k++)
+                    pointsDIntérêtModifiés.add(getPoIParIndice(a.getIndicePointDIntérêt(k)));
+            }
+        }
+
+        void retirer() {
+            for (Arc a : arcsModifiés) {
+                arcs.retirerÉlément(a);
+                if (tronçons != null)
+                    retirerTronçons(a);
+            }
+            for (Route r : routesModifiées)
+                routes.retirerÉlément(r);
+            for (PointDIntérêt p : pointsDIntérêtModifiés)
+                pointsDIntérêts.retirerÉlément(p);
+        }
+
+        void ajouter() {
+            for (Arc a : arcsModifiés) {
+                arcs.ajouterÉlément(a);
+                if (tronçons != null)
+                    indexerTronçons(a);
+            }
+            for (Route r : routesModifiées)
+                routes.ajouterÉlément(r);
+            for (PointDIntérêt p : pointsDIntérêtModifiés) {
+                p.invaliderCoordonnées();
+                pointsDIntérêts.ajouterÉlément(p);
+            }
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,211 @@
+package cartographie;
+
+import cartographie.éléments.Arc;
+import cartographie.éléments.Noeud;
+import java.util.Arrays;
+
+/**
+ * La classe {@code GrapheFigé} représente le réseau routier d'une carte sous forme de listes d'adjacence compressées (format CSR) : les arcs partant des
+ * noeuds sont rangés dans un seul tableau d'indices, trié par noeud de départ, et un second tableau donne pour chaque noeud la position de son premier arc
+ * sortant ; les arcs entrants sont rangés de la même façon. Les noeuds et les arcs sont désignés par leurs indices denses dans la carte (voir
+ * {@link Carte#getIndiceNoeud(long)}), si bien que le parcours des voisins d'un noeud ne crée aucun objet et ne consulte aucune table associative :
+ * <pre>
+ * for (int k = 0; k &lt; g.getNbArcsSortants(n); k++) {
+ *     int a = g.getArcSortant(n, k);
+ *     ... g.getArrivée(a), g.getArc(a) ...
+ * }</pre>
+ * <p>Un graphe figé est obtenu par {@link Carte#figerGraphe()} une fois la carte chargée. Il décrit la carte au moment de sa construction : l'ajout ou le
+ * retrait d'un noeud ou d'un arc, ou la modification des extrémités d'un arc, rend le graphe obsolète, et la carte en construit un nouveau au prochain
+ * appel de {@link Carte#figerGraphe()}. Le déplacement d'un noeud ne modifie pas le graphe.
+ *
+ * @author Charles Masson
+ */
+public final class GrapheFigé {
+
+    /**
+     * la carte décrite par ce graphe
+     */
+    private final Carte carte;
+    /**
+     * pour chaque noeud, la position de son premier arc sortant dans {@link #arcsSortants} ; la dernière case contient le nombre d'arcs
+     */
+    private final int[] débutsSortants;
+    /**
+     * les indices des arcs sortants, rangés par noeud de départ
+     */
+    private final int[] arcsSortants;
+    /**
+     * pour chaque noeud, la position de son premier arc entrant dans {@link #arcsEntrants} ; la dernière case contient le nombre d'arcs
+     */
+    private final int[] débutsEntrants;
+    /**
+     * les indices des arcs entrants, rangés par noeud d'arrivée
+     */
+    private final int[] arcsEntrants;
+    /**
+     * l'indice du noeud de départ de chaque arc, -1 pour un indice d'arc retiré
+     */
+    private final int[] départs;
+    /**
+     * l'indice du noeud d'arrivée de chaque arc, -1 pour un indice d'arc retiré
+     */
+    private final int[] arrivées;
+
+    /**
+     * Construit le graphe figé d'une carte à partir des indices d'arcs conservés par ses noeuds (voir {@link Noeud#getIndiceArcSortant(int)}), sans
+     * consulter la table des identifiants.
+     *
+     * @param carte la carte.
+     */
+    GrapheFigé(Carte carte) {
+        this.carte = carte;
+        int nbNoeuds = carte.getNbIndicesNoeuds(), nbIndicesArcs = carte.getNbIndicesArcs();
+        départs = new int[nbIndicesArcs];
+        arrivées = new int[nbIndicesArcs];
+        Arrays.fill(départs, -1);
+        Arrays.fill(arrivées, -1);
+        débutsSortants = new int[nbNoeuds + 1];
+        débutsEntrants = new int[nbNoeuds + 1];
+
+        // Degrés, comptés dans la case suivant celle du noeud, puis sommes cumulées
+        for (int n = 0; n < nbNoeuds; n++) {
+            Noeud noeud = carte.getNoeudParIndice(n);
+            if (noeud != null) {
+                débutsSortants[n + 1] = noeud.getNbArcsSortants();
+                débutsEntrants[n + 1] = noeud.getNbArcsEntrants();
+            }
+            débutsSortants[n + 1] += débutsSortants[n];
+            débutsEntrants[n + 1] += débutsEntrants[n];
+        }
+
+        // Placement des arcs et de leurs extrémités, noeud par noeud
+        arcsSortants = new int[débutsSortants[nbNoeuds]];
+        arcsEntrants = new int[débutsEntrants[nbNoeuds]];
+        for (int n = 0; n < nbNoeuds; n++) {
+            Noeud noeud = carte.getNoeudParIndice(n);
+            if (noeud == null)
+                continue;
+            for (int k = 0; k < noeud.getNbArcsSortants(); k++) {
+                int a = noeud.getIndiceArcSortant(k);
+                arcsSortants[débutsSortants[n] + k] = a;
+                départs[a] = n;
+            }
+            for (int k = 0; k < noeud.getNbArcsEntrants(); k++) {
+                int a = noeud.getIndiceArcEntrant(k);
+                arcsEntrants[débutsEntrants[n] + k] = a;
+                arrivées[a] = n;
+            }
+        }
+    }
+
+    /**
+     * Renvoie le nombre de noeuds du graphe, c'est-à-dire la taille des tableaux indexés par les indices des noeuds. Les indices des noeuds retirés de la
+     * carte sont comptés ; ces noeuds n'ont aucun arc.
+     *
+     * @return le nombre d'indices de noeuds.
+     */
+    public int getNbNoeuds() {
+        return débutsSortants.length - 1;
+    }
+
+    /**
+     * Renvoie le nombre d'indices d'arcs du graphe, c'est-à-dire la taille des tableaux indexés par les indices des arcs.
+     *
+     * @return le nombre d'indices d'arcs.
+     */
+    public int getNbIndicesArcs() {
+        return départs.length;
+    }
+
+    /**
+     * Renvoie le nombre d'arcs partant d'un noeud.
+     *
+     * @param noeud l'indice du noeud.
+     * @return le nombre d'arcs sortants.
+     */
+    public int getNbArcsSortants(int noeud) {
+        return débutsSortants[noeud + 1] - débutsSortants[noeud];
+    }
+
+    /**
+     * Renvoie un arc partant d'un noeud.
+     *
+     * @param noeud l'indice du noeud.
+     * @param k le rang de l'arc parmi les arcs sortants du noeud, entre 0 et {@link #getNbArcsSortants(int)} - 1.
+     * @return l'indice de l'arc.
+     */
+    public int getArcSortant(int noeud, int k) {
+        return arcsSortants[débutsSortants[noeud] + k];
+    }
+
+    /**
+     * Renvoie le nombre d'arcs arrivant sur un noeud.
+     *
+     * @param noeud l'indice du noeud.
+     * @return le nombre d'arcs entrants.
+     */
+    public int getNbArcsEntrants(int noeud) {
+        return débutsEntrants[noeud + 1] - débutsEntrants[noeud];
+    }
+
+    /**
+     * Renvoie un arc arrivant sur un noeud.
+     *
+     * @param noeud l'indice du noeud.
+     * @param k le rang de l'arc parmi les arcs entrants du noeud, entre 0 et {@link #getNbArcsEntrants(int)} - 1.
+     * @return l'indice de l'arc.
+     */
+    public int getArcEntrant(int noeud, int k) {
+        return arcsEntrants[débutsEntrants[noeud] + k];
+    }
+
+    /**
+     * Renvoie le noeud de départ d'un arc.
+     *
+     * @param arc l'indice de l'arc.
+     * @return l'indice du noeud de départ, ou -1 si l'arc a été retiré.
+     */
+    public int getDépart(int arc) {
+        return départs[arc];
+    }
+
+    /**
+     * Renvoie le noeud d'arrivée d'un arc.
+     *
+     * @param arc l'indice de l'arc.
+     * @return l'indice du noeud d'arrivée, ou -1 si l'arc a été retiré.
+     */
+    public int getArrivée(int arc) {
+        return arrivées[arc];
+    }
+
+    /**
+     * Renvoie l'arc de la carte portant un indice.
+     *
+     * @param arc l'indice de l'arc.
+     * @return l'arc.
+     */
+    public Arc getArc(int arc) {
+        return carte.getArcParIndice(arc);
+    }
+
+    /**
+     * Renvoie le noeud de la carte portant un indice.
+     *
+     * @param noeud l'indice du noeud.
+     * @return le noeud.
+     */
+    public Noeud getNoeud(int noeud) {
+        return carte.getNoeudParIndice(noeud);
+    }
+
+    /**
+     * Renvoie l'indice d'un noeud de la carte.
+     *
+     * @param n un noeud de la carte.
+     * @return l'indice du noeud.
+     */
+    public int getIndice(Noeud n) {
+        return carte.getIndiceNoeud(n.getID());
+    }
+}
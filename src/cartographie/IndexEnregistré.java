@@ -0,0 +1,382 @@
+package cartographie;
+
+import cartographie.gestionDonnées.Ensemble;
+import cartographie.gestionDonnées.Identifiable;
+import cartographie.gestionDonnées.IndexSpatial;
+import cartographie.gestionDonnées.Localisable;
+import cartographie.gestionDonnées.Zone;
+import cartographie.éléments.Arc;
+import cartographie.éléments.Noeud;
+import cartographie.éléments.PointDIntérêt;
+import cartographie.éléments.Route;
+import cartographie.éléments.Tronçon;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * La classe {@code IndexEnregistré} lit et écrit les fichiers d'index spatial de carte, qui permettent de reconstruire les index d'une carte chargée depuis
+ * un fichier XML sans calculer la zone de chacun de ses éléments.
+ * <p>Un fichier d'index est identifié par la version de la carte (fournie par l'application) et la taille du maillage. Il contient, dans l'ordre : un en-tête
+ * (signature, version du format, version de la carte, taille du maillage, présence des tronçons), puis pour chacun des quatre ensembles de la carte (noeuds,
+ * arcs, routes, points d'intérêt) le nombre d'éléments, leurs identifiants et les bornes de leurs zones, et enfin, si les tronçons sont indexés, les
+ * identifiants des arcs, leur nombre de tronçons et les bornes des tronçons. Les identifiants et les bornes sont stockés en colonnes, pour être lus en bloc.
+ * Le contenu du fichier ne dépend pas de la structure des index : il convient aux maillages comme aux R-arbres.
+ *
+ * @author Charles Masson
+ */
+final class IndexEnregistré implements Closeable {
+
+    /**
+     * signature des fichiers d'index ("CIDX")
+     */
+    private static final int SIGNATURE = 0x43494458;
+    /**
+     * version du format de fichier
+     */
+    private static final int VERSION = 1;
+    /**
+     * taille de l'en-tête en octets
+     */
+    private static final int TAILLE_EN_TÊTE = 25;
+    /**
+     * le canal du fichier lu
+     */
+    private final FileChannel canal;
+    /**
+     * version de la carte lue dans l'en-tête
+     */
+    private final long versionCarte;
+    /**
+     * taille du maillage lue dans l'en-tête
+     */
+    private final double taille;
+    /**
+     * {@code true} si le fichier contient les bornes des tronçons des arcs
+     */
+    private final boolean tronçons;
+
+    /**
+     * Ouvre un fichier d'index en lecture et lit son en-tête.
+     *
+     * @param chemin le fichier d'index.
+     * @throws IOException si le fichier ne peut être lu ou n'est pas un fichier d'index d'une version reconnue.
+     */
+    IndexEnregistré(Path chemin) throws IOException {
+        canal = FileChannel.open(chemin, StandardOpenOption.READ);
+        try {
+            ByteBuffer entête = lire(TAILLE_EN_TÊTE);
+            if (entête.getInt() != SIGNATURE)
+                throw new IOException("Le fichier n'est pas un index de carte : " + chemin);
+            int version = entête.getInt();
+            if (version != VERSION)
+                throw new IOException("Version d'index de carte non reconnue : " + version);
+            versionCarte = entête.getLong();
+            taille = entête.getDouble();
+            tronçons = entête.get() != 0;
+        } catch (IOException ex) {
+            canal.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Indique si ce fichier d'index correspond à une carte.
+     *
+     * @param versionCarte la version de la carte.
+     * @param taille la taille du maillage de la carte.
+     * @param tronçons {@code true} si les tronçons des arcs de la carte sont indexés.
+     * @return {@code true} si l'index a été enregistré pour cette version de la carte, avec cette taille de maillage, et contient les tronçons si
+     * nécessaire.
+     */
+    boolean correspond(long versionCarte, double taille, boolean tronçons) {
+        return this.versionCarte == versionCarte && this.taille == taille && (this.tronçons || !tronçons);
+    }
+
+    /**
+     * Lit le fichier et indexe les éléments des ensembles spécifiés, qui doivent contenir les éléments de la carte sans qu'ils aient été indexés (voir
+     * {@link Ensemble#ajouterÉlémentSansIndexer(Identifiable)}). Le fichier est entièrement lu et vérifié avant que le premier élément soit indexé : en
+     * cas d'erreur, aucun index n'est modifié.
+     *
+     * @param noeuds l'ensemble des noeuds.
+     * @param arcs l'ensemble des arcs.
+     * @param routes l'ensemble des routes.
+     * @param pointsDIntérêt l'ensemble des points d'intérêt.
+     * @param indexTronçons l'index des tronçons des arcs, vide, ou {@code null} si les tronçons ne sont pas indexés.
+     * @throws IOException si le fichier est tronqué ou ne correspond pas aux éléments des ensembles.
+     */
+    void lire(Ensemble<Noeud> noeuds, Ensemble<Arc> arcs, Ensemble<Route> routes, Ensemble<PointDIntérêt> pointsDIntérêt,
+            IndexSpatial<Tronçon> indexTronçons) throws IOException {
+        Section<Noeud> sectionNoeuds = lireSection(noeuds);
+        Section<Arc> sectionArcs = lireSection(arcs);
+        Section<Route> sectionRoutes = lireSection(routes);
+        Section<PointDIntérêt> sectionPoI = lireSection(pointsDIntérêt);
+        List<Tronçon> listeTronçons = null;
+        double[] bornesTronçons = null;
+        if (indexTronçons != null) {
+            int nbArcs = lire(4).getInt();
+            long[] ids = new long[nbArcs];
+            int[] nbTronçons = new int[nbArcs];
+            lire(8L * nbArcs).asLongBuffer().get(ids);
+            lire(4L * nbArcs).asIntBuffer().get(nbTronçons);
+            listeTronçons = new ArrayList<>();
+            for (int k = 0; k < nbArcs; k++) {
+                Arc a = élémentConnu(arcs, ids[k]);
+                if (nbTronçons[k] != a.getNbTronçons())
+                    throw new IOException("Index incohérent : nombre de tronçons de l'arc " + ids[k]);
+                for (int i = 0; i < nbTronçons[k]; i++)
+                    listeTronçons.add(new Tronçon(a, i));
+            }
+            bornesTronçons = new double[4 * listeTronçons.size()];
+            lire(8L * bornesTronçons.length).asDoubleBuffer().get(bornesTronçons);
+        }
+
+        noeuds.indexer(sectionNoeuds.éléments, sectionNoeuds.bornes);
+        arcs.indexer(sectionArcs.éléments, sectionArcs.bornes);
+        routes.indexer(sectionRoutes.éléments, sectionRoutes.bornes);
+        pointsDIntérêt.indexer(sectionPoI.éléments, sectionPoI.bornes);
+        if (indexTronçons != null)
+            indexTronçons.ajouterÉléments(listeTronçons, bornesTronçons);
+    }
+
+    /**
+     * Lit la section d'un ensemble : ses éléments et les bornes de leurs zones.
+     *
+     * @param <T> le type des éléments de l'ensemble.
+     * @param ens l'ensemble, qui contient déjà les éléments.
+     * @return la section lue.
+     * @throws IOException si le fichier est tronqué ou si la section ne correspond pas aux éléments de l'ensemble (identifiant inconnu ou en double).
+     */
+    private <T extends Identifiable & Localisable> Section<T> lireSection(Ensemble<T> ens) throws IOException {
+        int n = lire(4).getInt();
+        if (n != ens.getNbÉléments())
+            throw new IOException("Index incohérent : " + n + " éléments au lieu de " + ens.getNbÉléments());
+        long[] ids = new long[n];
+        lire(8L * n).asLongBuffer().get(ids);
+        long[] triés = ids.clone();
+        Arrays.sort(triés);
+        for (int k = 1; k < n; k++)
+            if (triés[k] == triés[k - 1])
+                throw new IOException("Index incohérent : identifiant en double " + triés[k]);
+        List<T> éléments = new ArrayList<>(n);
+        for (long id : ids)
+            éléments.add(élémentConnu(ens, id));
+        double[] bornes = new double[4 * n];
+        lire(32L * n).asDoubleBuffer().get(bornes);
+        return new Section<>(éléments, bornes);
+    }
+
+    /**
+     * Indexe tous les éléments des ensembles spécifiés, ajoutés sans être indexés, en calculant leurs zones, puis enregistre l'index. Les zones ne sont
+     * calculées qu'une fois : les bornes qui servent à indexer les éléments sont celles qui sont écrites. Cette méthode remplace la lecture d'un fichier
+     * d'index absent ou inutilisable.
+     *
+     * @param chemin le fichier dans lequel enregistrer l'index.
+     * @param versionCarte la version de la carte.
+     * @param taille la taille du maillage de la carte.
+     * @param noeuds l'ensemble des noeuds.
+     * @param arcs l'ensemble des arcs.
+     * @param routes l'ensemble des routes.
+     * @param pointsDIntérêt l'ensemble des points d'intérêt.
+     * @param indexTronçons l'index des tronçons des arcs, vide, ou {@code null} si les tronçons ne sont pas indexés.
+     * @throws IOException si l'écriture échoue (les ensembles sont alors indexés).
+     */
+    static void indexerEtEnregistrer(Path chemin, long versionCarte, double taille, Ensemble<Noeud> noeuds, Ensemble<Arc> arcs, Ensemble<Route> routes,
+            Ensemble<PointDIntérêt> pointsDIntérêt, IndexSpatial<Tronçon> indexTronçons) throws IOException {
+        Section<Noeud> sectionNoeuds = calculerSection(noeuds.getÉléments());
+        Section<Arc> sectionArcs = calculerSection(arcs.getÉléments());
+        Section<Route> sectionRoutes = calculerSection(routes.getÉléments());
+        Section<PointDIntérêt> sectionPoI = calculerSection(pointsDIntérêt.getÉléments());
+        Section<Tronçon> sectionTronçons = indexTronçons != null ? calculerSectionTronçons(sectionArcs.éléments) : null;
+        noeuds.indexer(sectionNoeuds.éléments, sectionNoeuds.bornes);
+        arcs.indexer(sectionArcs.éléments, sectionArcs.bornes);
+        routes.indexer(sectionRoutes.éléments, sectionRoutes.bornes);
+        pointsDIntérêt.indexer(sectionPoI.éléments, sectionPoI.bornes);
+        if (indexTronçons != null)
+            indexTronçons.ajouterÉléments(sectionTronçons.éléments, sectionTronçons.bornes);
+        écrire(chemin, versionCarte, taille, sectionNoeuds, sectionArcs, sectionRoutes, sectionPoI, sectionTronçons);
+    }
+
+    /**
+     * Calcule la section d'un ensemble : ses éléments et les bornes de leurs zones.
+     *
+     * @param <T> le type des éléments.
+     * @param éléments les éléments de l'ensemble.
+     * @return la section calculée.
+     */
+    private static <T extends Localisable> Section<T> calculerSection(Collection<T> éléments) {
+        List<T> liste = new ArrayList<>(éléments);
+        double[] bornes = new double[4 * liste.size()];
+        for (int k = 0; k < liste.size(); k++) {
+            Zone z = liste.get(k).calculerZone();
+            bornes[4 * k] = z.getLatitudeMinRadians();
+            bornes[4 * k + 1] = z.getLatitudeMaxRadians();
+            bornes[4 * k + 2] = z.getLongitudeMinRadians();
+            bornes[4 * k + 3] = z.getLongitudeMaxRadians();
+        }
+        return new Section<>(liste, bornes);
+    }
+
+    /**
+     * Calcule la section des tronçons : les tronçons des arcs spécifiés, arc par arc, et les bornes de leurs zones.
+     *
+     * @param arcs les arcs, dans l'ordre de leur section.
+     * @return la section calculée.
+     */
+    private static Section<Tronçon> calculerSectionTronçons(List<Arc> arcs) {
+        List<Tronçon> tronçons = new ArrayList<>();
+        for (Arc a : arcs)
+            for (int i = 0; i < a.getNbTronçons(); i++)
+                tronçons.add(new Tronçon(a, i));
+        return calculerSection(tronçons);
+    }
+
+    /**
+     * Renvoie l'élément de l'ensemble correspondant à l'identifiant spécifié.
+     *
+     * @param <T> le type des éléments de l'ensemble.
+     * @param ens un ensemble.
+     * @param id un identifiant.
+     * @return l'élément correspondant.
+     * @throws IOException si l'ensemble ne contient aucun élément ayant cet identifiant.
+     */
+    private static <T extends Identifiable & Localisable> T élémentConnu(Ensemble<T> ens, long id) throws IOException {
+        T élément = ens.getÉlément(id);
+        if (élément == null)
+            throw new IOException("Index incohérent : identifiant inconnu " + id);
+        return élément;
+    }
+
+    /**
+     * Lit en bloc le nombre d'octets spécifié à la position courante du fichier.
+     *
+     * @param nbOctets le nombre d'octets à lire.
+     * @return un tampon contenant les octets lus, prêt à être lu.
+     * @throws IOException si le fichier est tronqué.
+     */
+    private ByteBuffer lire(long nbOctets) throws IOException {
+        if (nbOctets > Integer.MAX_VALUE || nbOctets > canal.size() - canal.position())
+            throw new IOException("Index de carte tronqué");
+        ByteBuffer tampon = ByteBuffer.allocate((int) nbOctets);
+        while (tampon.hasRemaining())
+            if (canal.read(tampon) < 0)
+                throw new IOException("Index de carte tronqué");
+        tampon.flip();
+        return tampon;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Enregistre l'index d'une carte. Les zones de tous les éléments sont calculées.
+     *
+     * @param chemin le fichier dans lequel enregistrer l'index.
+     * @param versionCarte la version de la carte.
+     * @param taille la taille du maillage de la carte.
+     * @param noeuds l'ensemble des noeuds.
+     * @param arcs l'ensemble des arcs.
+     * @param routes l'ensemble des routes.
+     * @param pointsDIntérêt l'ensemble des points d'intérêt.
+     * @param tronçons {@code true} pour enregistrer aussi les bornes des tronçons des arcs.
+     * @throws IOException si l'écriture échoue.
+     */
+    static void enregistrer(Path chemin, long versionCarte, double taille, Ensemble<Noeud> noeuds, Ensemble<Arc> arcs, Ensemble<Route> routes,
+            Ensemble<PointDIntérêt> pointsDIntérêt, boolean tronçons) throws IOException {
+        Section<Arc> sectionArcs = calculerSection(arcs.getÉléments());
+        écrire(chemin, versionCarte, taille, calculerSection(noeuds.getÉléments()), sectionArcs, calculerSection(routes.getÉléments()),
+                calculerSection(pointsDIntérêt.getÉléments()), tronçons ? calculerSectionTronçons(sectionArcs.éléments) : null);
+    }
+
+    /**
+     * Écrit un fichier d'index à partir des sections déjà calculées.
+     *
+     * @param chemin le fichier dans lequel enregistrer l'index.
+     * @param versionCarte la version de la carte.
+     * @param taille la taille du maillage de la carte.
+     * @param noeuds la section des noeuds.
+     * @param arcs la section des arcs.
+     * @param routes la section des routes.
+     * @param pointsDIntérêt la section des points d'intérêt.
+     * @param tronçons la section des tronçons des arcs, dans l'ordre de la section des arcs, ou {@code null} pour ne pas les enregistrer.
+     * @throws IOException si l'écriture échoue.
+     */
+    private static void écrire(Path chemin, long versionCarte, double taille, Section<Noeud> noeuds, Section<Arc> arcs, Section<Route> routes,
+            Section<PointDIntérêt> pointsDIntérêt, Section<Tronçon> tronçons) throws IOException {
+        try (DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(chemin), 1 << 16))) {
+            sortie.writeInt(SIGNATURE);
+            sortie.writeInt(VERSION);
+            sortie.writeLong(versionCarte);
+            sortie.writeDouble(taille);
+            sortie.writeBoolean(tronçons != null);
+            écrireSection(sortie, noeuds);
+            écrireSection(sortie, arcs);
+            écrireSection(sortie, routes);
+            écrireSection(sortie, pointsDIntérêt);
+            if (tronçons != null) {
+                sortie.writeInt(arcs.éléments.size());
+                for (Arc a : arcs.éléments)
+                    sortie.writeLong(a.getID());
+                for (Arc a : arcs.éléments)
+                    sortie.writeInt(a.getNbTronçons());
+                écrireBornes(sortie, tronçons.bornes);
+            }
+        }
+    }
+
+    /**
+     * Écrit la section d'un ensemble : le nombre d'éléments, leurs identifiants puis les bornes de leurs zones.
+     *
+     * @param <T> le type des éléments.
+     * @param sortie le flux de sortie.
+     * @param section la section de l'ensemble.
+     * @throws IOException si l'écriture échoue.
+     */
+    private static <T extends Identifiable> void écrireSection(DataOutputStream sortie, Section<T> section) throws IOException {
+        sortie.writeInt(section.éléments.size());
+        for (T élément : section.éléments)
+            sortie.writeLong(élément.getID());
+        écrireBornes(sortie, section.bornes);
+    }
+
+    /**
+     * Écrit des bornes de zones, en radians, dans l'ordre latitude minimale, latitude maximale, longitude minimale, longitude maximale pour chaque zone.
+     *
+     * @param sortie le flux de sortie.
+     * @param bornes les bornes, quatre valeurs par zone.
+     * @throws IOException si l'écriture échoue.
+     */
+    private static void écrireBornes(DataOutputStream sortie, double[] bornes) throws IOException {
+        for (double b : bornes)
+            sortie.writeDouble(b);
+    }
+
+    /**
+     * La classe {@code Section} associe les éléments d'un ensemble aux bornes de leurs zones, lues dans le fichier le temps de sa vérification, ou calculées
+     * pour être à la fois indexées et écrites.
+     *
+     * @param <T> le type des éléments.
+     */
+    private static final class Section<T> {
+
+        final List<T> éléments;
+        final double[] bornes;
+
+        Section(List<T> éléments, double[] bornes) {
+            this.éléments = éléments;
+            this.bornes = bornes;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package cartographie;
+
+import cartographie.gestionDonnées.Ensemble;
+import cartographie.gestionDonnées.Identifiable;
+import cartographie.gestionDonnées.Localisable;
+import cartographie.gestionDonnées.Zone;
+import cartographie.pointsDIntérêt.Parking;
+import cartographie.pointsDIntérêt.StationService;
+import cartographie.positionnementGéographique.Coordonnées;
+import cartographie.éléments.Arc;
+import cartographie.éléments.ArcComposé;
+import cartographie.éléments.ArcSimple;
+import cartographie.éléments.Noeud;
+import cartographie.éléments.PointDIntérêt;
+import cartographie.éléments.Route;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * La classe {@code Instantané} lit et écrit les instantanés binaires de carte.
+ * <p>Un instantané contient, dans l'ordre : un en-tête (signature, version du format, taille du maillage), les noeuds, les arcs (avec les shape-points des
+ * arcs composés), les routes et les points d'intérêt. Chaque élément est suivi des bornes de sa zone, qui servent à l'indexer au chargement sans la
+ * recalculer. Les entiers sont écrits en gros-boutiste. La lecture se fait par projection du fichier en mémoire ({@link FileChannel#map}), par fenêtres successives.
+ *
+ * @author Charles Masson
+ */
+final class Instantané implements Closeable {
+
+    /**
+     * signature des instantanés ("CART")
+     */
+    private static final int SIGNATURE = 0x43415254;
+    /**
+     * version du format de fichier
+     */
+    private static final int VERSION = 2;
+    /**
+     * taille maximale d'une fenêtre de projection en mémoire
+     */
+    private static final long TAILLE_FENÊTRE = 1 << 28;
+    /**
+     * types d'arcs et de points d'intérêt
+     */
+    private static final byte ARC_SIMPLE = 0, ARC_COMPOSÉ = 1, PARKING = 0, STATION_SERVICE = 1;
+    /**
+     * le canal du fichier lu
+     */
+    private final FileChannel canal;
+    /**
+     * la fenêtre du fichier actuellement projetée en mémoire
+     */
+    private MappedByteBuffer tampon;
+    /**
+     * position dans le fichier du début de la fenêtre courante
+     */
+    private long débutFenêtre;
+    /**
+     * taille du maillage lue dans l'en-tête
+     */
+    private final double taille;
+
+    /**
+     * Ouvre un instantané en lecture et vérifie son en-tête.
+     *
+     * @param chemin le fichier de l'instantané.
+     * @throws IOException si le fichier ne peut être lu ou n'est pas un instantané d'une version reconnue.
+     */
+    Instantané(Path chemin) throws IOException {
+        canal = FileChannel.open(chemin, StandardOpenOption.READ);
+        try {
+            projeter(0);
+            assurer(16);
+            if (tampon.getInt() != SIGNATURE)
+                throw new IOException("Le fichier n'est pas un instantané de carte : " + chemin);
+            int version = tampon.getInt();
+            if (version != VERSION)
+                throw new IOException("Version d'instantané non reconnue : " + version);
+            taille = tampon.getDouble();
+        } catch (IOException ex) {
+            canal.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Renvoie la taille du maillage de la carte enregistrée.
+     *
+     * @return la taille d'une maille en mètres.
+     */
+    double getTaille() {
+        return taille;
+    }
+
+    /**
+     * Lit les éléments de l'instantané et les ajoute aux ensembles spécifiés, qui doivent être vides et avoir la taille de maillage de l'instantané. Les
+     * éléments sont indexés à partir des bornes enregistrées de leurs zones, ensemble par ensemble, une fois tous les éléments lus.
+     *
+     * @param noeuds l'ensemble des noeuds.
+     * @param arcs l'ensemble des arcs.
+     * @param routes l'ensemble des routes.
+     * @param pointsDIntérêt l'ensemble des points d'intérêt.
+     * @throws IOException si le fichier est tronqué ou fait référence à un élément inconnu.
+     */
+    void lire(Ensemble<Noeud> noeuds, Ensemble<Arc> arcs, Ensemble<Route> routes, Ensemble<PointDIntérêt> pointsDIntérêt) throws IOException {
+
+        // Noeuds
+        List<Noeud> listeNoeuds = new ArrayList<>();
+        double[] bornesNoeuds = new double[4 * lireInt()];
+        for (int k = 0; k < bornesNoeuds.length; k += 4) {
+            assurer(24);
+            Noeud n = new Noeud(tampon.getLong(), tampon.getDouble(), tampon.getDouble());
+            noeuds.ajouterÉlémentSansIndexer(n);
+            listeNoeuds.add(n);
+            lireBornes(bornesNoeuds, k);
+        }
+
+        // Arcs
+        List<Arc> listeArcs = new ArrayList<>();
+        double[] bornesArcs = new double[4 * lireInt()];
+        for (int k = 0; k < bornesArcs.length; k += 4) {
+            assurer(36);
+            byte type = tampon.get();
+            long id = tampon.getLong();
+            Noeud départ = élémentConnu(noeuds, tampon.getLong()), arrivée = élémentConnu(noeuds, tampon.getLong());
+            byte nbVoies = tampon.get();
+            short vitesseLimite = tampon.getShort();
+            double coefVitesseNominale = tampon.getDouble();
+            Arc a;
+            if (type == ARC_SIMPLE)
+                a = new ArcSimple(id, départ, arrivée, nbVoies, vitesseLimite, coefVitesseNominale);
+            else {
+                Coordonnées[] shapePoints = new Coordonnées[lireInt()];
+                for (int i = 0; i < shapePoints.length; i++) {
+                    assurer(16);
+                    shapePoints[i] = new Coordonnées(tampon.getDouble(), tampon.getDouble());
+                }
+                a = new ArcComposé(id, départ, arrivée, nbVoies, vitesseLimite, coefVitesseNominale, shapePoints);
+            }
+            arcs.ajouterÉlémentSansIndexer(a);
+            listeArcs.add(a);
+            lireBornes(bornesArcs, k);
+        }
+
+        // Routes
+        List<Route> listeRoutes = new ArrayList<>();
+        double[] bornesRoutes = new double[4 * lireInt()];
+        for (int k = 0; k < bornesRoutes.length; k += 4) {
+            long id = lireLong();
+            String nom = lireChaîne();
+            assurer(17);
+            Arc aller = élémentConnu(arcs, tampon.getLong());
+            boolean aUnRetour = tampon.get() != 0;
+            long idRetour = tampon.getLong();
+            Route r = new Route(id, nom, aller, aUnRetour ? élémentConnu(arcs, idRetour) : null);
+            routes.ajouterÉlémentSansIndexer(r);
+            listeRoutes.add(r);
+            lireBornes(bornesRoutes, k);
+        }
+
+        // Points d'intérêt
+        List<PointDIntérêt> listePoI = new ArrayList<>();
+        double[] bornesPoI = new double[4 * lireInt()];
+        for (int k = 0; k < bornesPoI.length; k += 4) {
+            assurer(29);
+            byte type = tampon.get();
+            long id = tampon.getLong();
+            Arc arc = élémentConnu(arcs, tampon.getLong());
+            double positionRelative = tampon.getDouble();
+            Arc[] arcsAssociés = new Arc[tampon.getInt()];
+            for (int i = 0; i < arcsAssociés.length; i++)
+                arcsAssociés[i] = élémentConnu(arcs, lireLong());
+            PointDIntérêt p;
+            if (type == PARKING) {
+                String nom = lireChaîne();
+                assurer(4);
+                Parking parking = new Parking(id, arc, positionRelative, nom, tampon.getShort(), arcsAssociés);
+                parking.setNbPlacesLibres(tampon.getShort());
+                p = parking;
+            } else
+                p = new StationService(id, arc, positionRelative, lireChaîne(), arcsAssociés);
+            pointsDIntérêt.ajouterÉlémentSansIndexer(p);
+            listePoI.add(p);
+            lireBornes(bornesPoI, k);
+        }
+
+        // Index spatiaux
+        noeuds.indexer(listeNoeuds, bornesNoeuds);
+        arcs.indexer(listeArcs, bornesArcs);
+        routes.indexer(listeRoutes, bornesRoutes);
+        pointsDIntérêt.indexer(listePoI, bornesPoI);
+    }
+
+    /**
+     * Lit les bornes de la zone d'un élément.
+     *
+     * @param bornes le tableau des bornes des zones des éléments d'un ensemble.
+     * @param k la position de la première borne de l'élément dans le tableau.
+     * @throws IOException si le fichier est tronqué.
+     */
+    private void lireBornes(double[] bornes, int k) throws IOException {
+        assurer(32);
+        for (int b = 0; b < 4; b++)
+            bornes[k + b] = tampon.getDouble();
+    }
+
+    /**
+     * Renvoie l'élément de l'ensemble correspondant à l'identifiant spécifié.
+     *
+     * @param <T> le type des éléments de l'ensemble.
+     * @param ens un ensemble.
+     * @param id un identifiant.
+     * @return l'élément correspondant.
+     * @throws IOException si l'ensemble ne contient aucun élément ayant cet identifiant.
+     */
+    private static <T extends Identifiable & Localisable> T élémentConnu(Ensemble<T> ens, long id) throws IOException {
+        T élément = ens.getÉlément(id);
+        if (élément == null)
+            throw new IOException("Instantané incohérent : identifiant inconnu " + id);
+        return élément;
+    }
+
+    /**
+     * Projette en mémoire la fenêtre du fichier commençant à la position spécifiée.
+     *
+     * @param position la position du début de la fenêtre dans le fichier.
+     * @throws IOException si la projection échoue.
+     */
+    private void projeter(long position) throws IOException {
+        débutFenêtre = position;
+        tampon = canal.map(FileChannel.MapMode.READ_ONLY, position, Math.min(TAILLE_FENÊTRE, canal.size() - position));
+    }
+
+    /**
+     * S'assure que le nombre d'octets spécifié peut être lu dans la fenêtre courante, en déplaçant la fenêtre si nécessaire.
+     *
+     * @param nbOctets le nombre d'octets à lire.
+     * @throws IOException si le fichier est tronqué.
+     */
+    private void assurer(int nbOctets) throws IOException {
+        if (tampon.remaining() >= nbOctets)
+            return;
+        projeter(débutFenêtre + tampon.position());
+        if (tampon.remaining() < nbOctets)
+            throw new IOException("Instantané tronqué");
+    }
+
+    private int lireInt() throws IOException {
+        assurer(4);
+        return tampon.getInt();
+    }
+
+    private long lireLong() throws IOException {
+        assurer(8);
+        return tampon.getLong();
+    }
+
+    private String lireChaîne() throws IOException {
+        int longueur = lireInt();
+        if (longueur < 0)
+            return null;
+        assurer(longueur);
+        byte[] octets = new byte[longueur];
+        tampon.get(octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Enregistre un instantané de carte.
+     *
+     * @param chemin le fichier dans lequel enregistrer l'instantané.
+     * @param taille la taille du maillage de la carte.
+     * @param noeuds l'ensemble des noeuds.
+     * @param arcs l'ensemble des arcs.
+     * @param routes l'ensemble des routes.
+     * @param pointsDIntérêt l'ensemble des points d'intérêt.
+     * @throws IOException si l'écriture échoue ou si un point d'intérêt est d'un type non pris en charge.
+     */
+    static void enregistrer(Path chemin, double taille, Ensemble<Noeud> noeuds, Ensemble<Arc> arcs, Ensemble<Route> routes,
+            Ensemble<PointDIntérêt> pointsDIntérêt) throws IOException {
+        try (DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(chemin), 1 << 16))) {
+            sortie.writeInt(SIGNATURE);
+            sortie.writeInt(VERSION);
+            sortie.writeDouble(taille);
+
+            // Noeuds
+            sortie.writeInt(noeuds.getNbÉléments());
+            for (Noeud n : noeuds.getÉléments()) {
+                sortie.writeLong(n.getID());
+                sortie.writeDouble(n.getLatitudeRadians());
+                sortie.writeDouble(n.getLongitudeRadians());
+                écrireBornes(sortie, n);
+            }
+
+            // Arcs
+            sortie.writeInt(arcs.getNbÉléments());
+            for (Arc a : arcs.getÉléments()) {
+                sortie.writeByte(a instanceof ArcComposé ? ARC_COMPOSÉ : ARC_SIMPLE);
+                sortie.writeLong(a.getID());
+                sortie.writeLong(a.getDépart().getID());
+                sortie.writeLong(a.getArrivée().getID());
+                sortie.writeByte(a.getNbVoies());
+                sortie.writeShort(a.getVitesseLimite());
+                sortie.writeDouble(a.getCoefVitesseNominale());
+                if (a instanceof ArcComposé) {
+                    Coordonnées[] shapePoints = ((ArcComposé) a).getShapePoints();
+                    sortie.writeInt(shapePoints.length);
+                    for (Coordonnées c : shapePoints) {
+                        sortie.writeDouble(c.getLatitudeRadians());
+                        sortie.writeDouble(c.getLongitudeRadians());
+                    }
+                }
+                écrireBornes(sortie, a);
+            }
+
+            // Routes
+            sortie.writeInt(routes.getNbÉléments());
+            for (Route r : routes.getÉléments()) {
+                sortie.writeLong(r.getID());
+                écrireChaîne(sortie, r.getNom());
+                sortie.writeLong(r.getArcAller().getID());
+                sortie.writeBoolean(r.getArcRetour() != null);
+                sortie.writeLong(r.getArcRetour() == null ? 0 : r.getArcRetour().getID());
+                écrireBornes(sortie, r);
+            }
+
+            // Points d'intérêt
+            sortie.writeInt(pointsDIntérêt.getNbÉléments());
+            for (PointDIntérêt p : pointsDIntérêt.getÉléments()) {
+                if (!(p instanceof Parking) && !(p instanceof StationService))
+                    throw new IOException("Type de point d'intérêt non pris en charge : " + p.getClass().getName());
+                sortie.writeByte(p instanceof Parking ? PARKING : STATION_SERVICE);
+                sortie.writeLong(p.getID());
+                sortie.writeLong(p.getArc().getID());
+                sortie.writeDouble(p.getPositionRelative());
+                Collection<Arc> arcsAssociés = p.getArcsAssociés();
+                sortie.writeInt(arcsAssociés.size());
+                for (Arc a : arcsAssociés)
+                    sortie.writeLong(a.getID());
+                if (p instanceof Parking) {
+                    Parking parking = (Parking) p;
+                    écrireChaîne(sortie, parking.getNom());
+                    sortie.writeShort(parking.getNbPlaces());
+                    sortie.writeShort(parking.getNbPlacesLibres());
+                } else
+                    écrireChaîne(sortie, ((StationService) p).getEntreprise());
+                écrireBornes(sortie, p);
+            }
+        }
+    }
+
+    /**
+     * Écrit les bornes de la zone d'un élément, en radians, dans l'ordre latitude minimale, latitude maximale, longitude minimale, longitude maximale. La
+     * zone n'est calculée qu'une fois par élément.
+     *
+     * @param sortie le flux de sortie.
+     * @param élément l'élément.
+     * @throws IOException si l'écriture échoue.
+     */
+    private static void écrireBornes(DataOutputStream sortie, Localisable élément) throws IOException {
+        Zone z = élément.calculerZone();
+        sortie.writeDouble(z.getLatitudeMinRadians());
+        sortie.writeDouble(z.getLatitudeMaxRadians());
+        sortie.writeDouble(z.getLongitudeMinRadians());
+        sortie.writeDouble(z.getLongitudeMaxRadians());
+    }
+
+    /**
+     * Écrit une chaîne de caractères (longueur en octets puis contenu UTF-8 ; une longueur de -1 représente {@code null}).
+     *
+     * @param sortie le flux de sortie.
+     * @param chaîne la chaîne à écrire.
+     * @throws IOException si l'écriture échoue.
+     */
+    private static void écrireChaîne(DataOutputStream sortie, String chaîne) throws IOException {
+        if (chaîne == null) {
+            sortie.writeInt(-1);
+            return;
+        }
+        byte[] octets = chaîne.getBytes(StandardCharsets.UTF_8);
+        sortie.writeInt(octets.length);
+        sortie.write(octets);
+    }
+}
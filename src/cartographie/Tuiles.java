@@ -0,0 +1,533 @@
+package cartographie;
+
+import cartographie.fichiers.Compression;
+import cartographie.fichiers.LecteurXML;
+import cartographie.fichiers.ÉcrivainXML;
+import cartographie.gestionDonnées.Ensemble;
+import cartographie.gestionDonnées.Zone;
+import cartographie.positionnementGéographique.Point;
+import cartographie.éléments.Arc;
+import cartographie.éléments.Noeud;
+import cartographie.éléments.Route;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * La classe {@code Tuiles} gère le chargement à la demande d'une carte découpée en tuiles géographiques.
+ * <p>Une tuile regroupe {@code côté} × {@code côté} mailles du maillage des ensembles de la carte. Le répertoire d'une carte découpée contient un fichier XML
+ * compressé par tuile et un index binaire ({@value #INDEX}) donnant la liste des tuiles et, pour chaque noeud et chaque arc, la tuile qui le contient. Une
+ * tuile contient les noeuds situés dans ses mailles et les arcs dont la zone recoupe ses mailles, ainsi que les noeuds de ces arcs, leurs routes et les autres
+ * arcs de ces routes : chaque tuile se suffit donc à elle-même et un élément peut appartenir à plusieurs tuiles.
+ * <p>Les tuiles sont chargées lorsqu'une requête porte sur leur zone. Chaque élément chargé compte les tuiles chargées qui le contiennent et n'est retiré de
+ * la carte que lorsque la dernière de ces tuiles est évincée. Les tuiles les moins récemment utilisées sont évincées dès que le nombre d'éléments chargés
+ * dépasse le budget, à l'exception des tuiles utilisées par la requête en cours. Le budget porte sur un nombre d'éléments et non sur la mémoire occupée : un
+ * arc compte autant qu'un noeud, quel que soit son nombre de shape-points. Les points d'intérêt ne sont pas découpés en tuiles ; une tuile dont l'éviction
+ * retirerait un arc portant un point d'intérêt n'est pas évincée.
+ *
+ * @author Charles Masson
+ */
+final class Tuiles {
+
+    /**
+     * nom du fichier d'index dans le répertoire des tuiles
+     */
+    static final String INDEX = "index.bin";
+    /**
+     * signature des index de tuiles ("TUIL")
+     */
+    private static final int SIGNATURE = 0x5455494c;
+    /**
+     * version du format de l'index
+     */
+    private static final int VERSION = 1;
+    /**
+     * le répertoire contenant les tuiles
+     */
+    private final Path répertoire;
+    /**
+     * taille du maillage de la carte découpée
+     */
+    private final double taille;
+    /**
+     * nombre de mailles d'un côté de tuile
+     */
+    private final int côté;
+    /**
+     * nombre maximal d'éléments (noeuds, arcs et routes) chargés, hors tuiles utilisées par la requête en cours ; c'est un nombre d'éléments, pas une taille
+     * en octets
+     */
+    private final int budget;
+    /**
+     * clés des tuiles existantes, triées (voir {@link #clé(int, int)}) ; l'indice d'une clé dans ce tableau est le numéro de la tuile
+     */
+    private long[] clés;
+    /**
+     * identifiants triés des noeuds et numéro de la tuile contenant chacun d'eux
+     */
+    private long[] idNoeuds;
+    private int[] tuilesNoeuds;
+    /**
+     * identifiants triés des arcs et numéro d'une tuile contenant chacun d'eux
+     */
+    private long[] idArcs;
+    private int[] tuilesArcs;
+    /**
+     * la carte dans laquelle sont chargées les tuiles, et l'ensemble de ses noeuds (dont le maillage détermine les tuiles)
+     */
+    private Carte carte;
+    private Ensemble<Noeud> noeuds;
+    /**
+     * contenu des tuiles chargées, indexé par numéro de tuile, de la moins récemment utilisée à la plus récemment utilisée
+     */
+    private final LinkedHashMap<Integer, Contenu> tuilesChargées = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * nombre de tuiles chargées contenant chaque élément chargé
+     */
+    private final Map<Long, Integer> référencesNoeuds = new HashMap<>(), référencesArcs = new HashMap<>(), référencesRoutes = new HashMap<>();
+    /**
+     * {@code true} pendant le chargement ou l'éviction d'une tuile, pour que les recherches d'éléments par la carte ne déclenchent pas d'autre chargement
+     */
+    private boolean occupé;
+
+    /**
+     * Ouvre le répertoire d'une carte découpée en tuiles et lit son index.
+     *
+     * @param répertoire le répertoire des tuiles.
+     * @param budget le nombre maximal d'éléments chargés.
+     * @throws IOException si l'index ne peut être lu ou n'est pas un index d'une version reconnue.
+     */
+    Tuiles(Path répertoire, int budget) throws IOException {
+        this.répertoire = répertoire;
+        this.budget = budget;
+        try (DataInputStream entrée = new DataInputStream(new BufferedInputStream(Files.newInputStream(répertoire.resolve(INDEX)), 1 << 16))) {
+            if (entrée.readInt() != SIGNATURE)
+                throw new IOException("Le fichier n'est pas un index de tuiles");
+            int version = entrée.readInt();
+            if (version != VERSION)
+                throw new IOException("Version d'index de tuiles non reconnue : " + version);
+            taille = entrée.readDouble();
+            côté = entrée.readInt();
+            clés = new long[entrée.readInt()];
+            for (int i = 0; i < clés.length; i++)
+                clés[i] = entrée.readLong();
+            idNoeuds = new long[entrée.readInt()];
+            tuilesNoeuds = new int[idNoeuds.length];
+            for (int i = 0; i < idNoeuds.length; i++) {
+                idNoeuds[i] = entrée.readLong();
+                tuilesNoeuds[i] = entrée.readInt();
+            }
+            idArcs = new long[entrée.readInt()];
+            tuilesArcs = new int[idArcs.length];
+            for (int i = 0; i < idArcs.length; i++) {
+                idArcs[i] = entrée.readLong();
+                tuilesArcs[i] = entrée.readInt();
+            }
+        }
+    }
+
+    /**
+     * Associe ce gestionnaire à la carte dans laquelle charger les tuiles.
+     *
+     * @param carte la carte, initialement vide.
+     * @param noeuds l'ensemble des noeuds de la carte.
+     */
+    void associer(Carte carte, Ensemble<Noeud> noeuds) {
+        this.carte = carte;
+        this.noeuds = noeuds;
+    }
+
+    /**
+     * Renvoie la taille du maillage de la carte découpée.
+     *
+     * @return la taille d'une maille en mètres.
+     */
+    double getTaille() {
+        return taille;
+    }
+
+    /**
+     * Charge toutes les tuiles recoupant la zone spécifiée, puis évince si nécessaire les autres tuiles.
+     *
+     * @param z une zone.
+     * @throws IllegalStateException si la lecture d'une tuile échoue.
+     */
+    synchronized void charger(Zone z) {
+        if (occupé)
+            return;
+        int iMin = Math.floorDiv(noeuds.indiceLatitude(z.getLatitudeMinRadians()), côté);
+        int iMax = Math.floorDiv(noeuds.indiceLatitude(z.getLatitudeMaxRadians()), côté);
+        int jMin = Math.floorDiv(noeuds.indiceLongitude(z.getLongitudeMinRadians()), côté);
+        int jMax = Math.floorDiv(noeuds.indiceLongitude(z.getLongitudeMaxRadians()), côté);
+        Set<Integer> tuiles = new HashSet<>();
+        for (int i = iMin; i <= iMax; i++)
+            for (int j = jMin; j <= jMax; j++) {
+                int n = Arrays.binarySearch(clés, clé(i, j));
+                if (n >= 0)
+                    tuiles.add(n);
+            }
+        utiliser(tuiles);
+    }
+
+    /**
+     * Charge la tuile contenant le noeud spécifié, s'il existe.
+     *
+     * @param id l'identifiant du noeud.
+     * @return {@code true} si le noeud appartient à la carte découpée, {@code false} sinon.
+     * @throws IllegalStateException si la lecture de la tuile échoue.
+     */
+    synchronized boolean chargerNoeud(long id) {
+        int n = Arrays.binarySearch(idNoeuds, id);
+        if (occupé || n < 0)
+            return false;
+        utiliser(Collections.singleton(tuilesNoeuds[n]));
+        return true;
+    }
+
+    /**
+     * Charge une tuile contenant l'arc spécifié, s'il existe.
+     *
+     * @param id l'identifiant de l'arc.
+     * @return {@code true} si l'arc appartient à la carte découpée, {@code false} sinon.
+     * @throws IllegalStateException si la lecture de la tuile échoue.
+     */
+    synchronized boolean chargerArc(long id) {
+        int n = Arrays.binarySearch(idArcs, id);
+        if (occupé || n < 0)
+            return false;
+        utiliser(Collections.singleton(tuilesArcs[n]));
+        return true;
+    }
+
+    /**
+     * Renvoie le nombre de tuiles actuellement chargées.
+     *
+     * @return le nombre de tuiles chargées.
+     */
+    synchronized int getNbTuilesChargées() {
+        return tuilesChargées.size();
+    }
+
+    /**
+     * Charge les tuiles spécifiées si elles ne le sont pas déjà, les marque comme les plus récemment utilisées, puis évince les tuiles les moins récemment
+     * utilisées (autres que celles-ci et que celles portant des points d'intérêt, voir {@link #évinçable(Contenu)}) tant que le budget est dépassé.
+     *
+     * @param tuiles les numéros des tuiles utilisées par la requête en cours.
+     */
+    private void utiliser(Collection<Integer> tuiles) {
+        occupé = true;
+        try {
+            for (int n : tuiles)
+                if (tuilesChargées.get(n) == null)
+                    tuilesChargées.put(n, lire(n));
+            Iterator<Map.Entry<Integer, Contenu>> it = tuilesChargées.entrySet().iterator();
+            while (nbÉlémentsChargés() > budget && it.hasNext()) {
+                Map.Entry<Integer, Contenu> e = it.next();
+                if (!tuiles.contains(e.getKey()) && évinçable(e.getValue())) {
+                    évincer(e.getValue());
+                    it.remove();
+                }
+            }
+        } catch (IOException | XMLStreamException ex) {
+            throw new IllegalStateException("Lecture de tuile impossible", ex);
+        } finally {
+            occupé = false;
+        }
+    }
+
+    /**
+     * Renvoie le nombre d'éléments actuellement chargés.
+     *
+     * @return le nombre de noeuds, d'arcs et de routes chargés.
+     */
+    private int nbÉlémentsChargés() {
+        return référencesNoeuds.size() + référencesArcs.size() + référencesRoutes.size();
+    }
+
+    /**
+     * Lit une tuile et ajoute à la carte ceux de ses éléments qui n'y sont pas déjà.
+     *
+     * @param n le numéro de la tuile.
+     * @return le contenu de la tuile.
+     * @throws IOException si la lecture du fichier échoue.
+     * @throws XMLStreamException si le fichier est mal formé.
+     */
+    private Contenu lire(int n) throws IOException, XMLStreamException {
+        Contenu c = new Contenu();
+        try (InputStream flux = Compression.ouvrir(répertoire.resolve(nomFichier(clés[n])))) {
+            new LecteurXML(carte).chargerTuile(flux, c.noeuds, c.arcs, c.routes);
+        }
+        référencer(c.noeuds, référencesNoeuds);
+        référencer(c.arcs, référencesArcs);
+        référencer(c.routes, référencesRoutes);
+        return c;
+    }
+
+    /**
+     * Indique si une tuile peut être évincée, c'est-à-dire si aucun des arcs que son éviction retirerait de la carte ne porte de point d'intérêt (les points
+     * d'intérêt n'étant pas découpés en tuiles, leurs arcs doivent rester chargés).
+     *
+     * @param c le contenu de la tuile.
+     * @return {@code true} si la tuile peut être évincée.
+     */
+    private boolean évinçable(Contenu c) {
+        for (Long id : c.arcs)
+            if (référencesArcs.get(id) == 1 && carte.getArc(id).aDesPointsDIntérêt())
+                return false;
+        return true;
+    }
+
+    /**
+     * Retire une tuile : les éléments qui n'appartiennent à aucune autre tuile chargée sont retirés de la carte, les routes avant les arcs et les arcs avant
+     * les noeuds.
+     *
+     * @param c le contenu de la tuile.
+     */
+    private void évincer(Contenu c) {
+        for (long id : déréférencer(c.routes, référencesRoutes))
+            carte.retirerRoute(id);
+        for (long id : déréférencer(c.arcs, référencesArcs))
+            carte.retirerArc(id);
+        for (long id : déréférencer(c.noeuds, référencesNoeuds))
+            carte.retirerNoeud(id);
+    }
+
+    /**
+     * Incrémente le nombre de références des éléments spécifiés.
+     *
+     * @param ids les identifiants des éléments.
+     * @param références le nombre de références de chaque élément chargé.
+     */
+    private static void référencer(List<Long> ids, Map<Long, Integer> références) {
+        for (Long id : ids) {
+            Integer r = références.get(id);
+            références.put(id, r == null ? 1 : r + 1);
+        }
+    }
+
+    /**
+     * Décrémente le nombre de références des éléments spécifiés.
+     *
+     * @param ids les identifiants des éléments.
+     * @param références le nombre de références de chaque élément chargé.
+     * @return les identifiants des éléments qui ne sont plus référencés.
+     */
+    private static List<Long> déréférencer(List<Long> ids, Map<Long, Integer> références) {
+        List<Long> libérés = new ArrayList<>();
+        for (Long id : ids) {
+            int r = références.get(id) - 1;
+            if (r == 0) {
+                références.remove(id);
+                libérés.add(id);
+            } else
+                références.put(id, r);
+        }
+        return libérés;
+    }
+
+    /**
+     * Découpe une carte en tuiles et les enregistre, avec leur index, dans le répertoire spécifié.
+     *
+     * @param répertoire le répertoire des tuiles, qui doit exister.
+     * @param côté le nombre de mailles d'un côté de tuile.
+     * @param taille la taille du maillage des ensembles de la carte.
+     * @param noeuds les noeuds de la carte.
+     * @param arcs les arcs de la carte.
+     * @param routes les routes de la carte.
+     * @throws IOException si l'écriture échoue.
+     */
+    static void découper(Path répertoire, int côté, double taille, Ensemble<Noeud> noeuds, Ensemble<Arc> arcs, Ensemble<Route> routes) throws IOException {
+        TreeMap<Long, Éléments> tuiles = new TreeMap<>();
+        Map<Long, Long> tuileNoeud = new HashMap<>(), tuileArc = new HashMap<>();
+
+        // Noeuds, dans la tuile de leur maille
+        for (Noeud n : noeuds.getÉléments()) {
+            long k = clé(noeuds, n, côté);
+            tuileNoeud.put(n.getID(), k);
+            éléments(tuiles, k).noeuds.add(n);
+        }
+
+        // Routes et arcs : une route et ses arcs sont ajoutés, avec les noeuds de ces arcs, à toutes les tuiles recoupant l'un des arcs
+        Set<Arc> arcsDesRoutes = new HashSet<>();
+        for (Route r : routes.getÉléments()) {
+            List<Arc> groupe = new ArrayList<>();
+            groupe.add(r.getArcAller());
+            if (r.getArcRetour() != null)
+                groupe.add(r.getArcRetour());
+            arcsDesRoutes.addAll(groupe);
+            for (long k : clésRecoupées(noeuds, groupe, côté)) {
+                Éléments t = éléments(tuiles, k);
+                for (Arc a : groupe)
+                    t.ajouter(a);
+                t.routes.add(r);
+            }
+        }
+        for (Arc a : arcs.getÉléments()) {
+            tuileArc.put(a.getID(), tuileNoeud.get(a.getDépart().getID()));
+            if (!arcsDesRoutes.contains(a))
+                for (long k : clésRecoupées(noeuds, Collections.singletonList(a), côté))
+                    éléments(tuiles, k).ajouter(a);
+        }
+
+        // Fichiers des tuiles
+        long[] clés = new long[tuiles.size()];
+        int n = 0;
+        for (Map.Entry<Long, Éléments> e : tuiles.entrySet()) {
+            clés[n++] = e.getKey();
+            try (OutputStream flux = Compression.créer(répertoire.resolve(nomFichier(e.getKey())))) {
+                ÉcrivainXML.enregistrerCarte(flux, e.getValue().noeuds, e.getValue().arcs, e.getValue().routes, false);
+            } catch (XMLStreamException ex) {
+                throw new IOException(ex);
+            }
+        }
+
+        // Index
+        try (DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(répertoire.resolve(INDEX)), 1 << 16))) {
+            sortie.writeInt(SIGNATURE);
+            sortie.writeInt(VERSION);
+            sortie.writeDouble(taille);
+            sortie.writeInt(côté);
+            sortie.writeInt(clés.length);
+            for (long k : clés)
+                sortie.writeLong(k);
+            écrireIndex(sortie, new TreeMap<>(tuileNoeud), clés);
+            écrireIndex(sortie, new TreeMap<>(tuileArc), clés);
+        }
+    }
+
+    /**
+     * Écrit la tuile de chaque élément, par ordre croissant d'identifiant.
+     *
+     * @param sortie le flux de l'index.
+     * @param tuiles la clé de la tuile de chaque élément, indexée par identifiant.
+     * @param clés les clés triées des tuiles.
+     * @throws IOException si l'écriture échoue.
+     */
+    private static void écrireIndex(DataOutputStream sortie, TreeMap<Long, Long> tuiles, long[] clés) throws IOException {
+        sortie.writeInt(tuiles.size());
+        for (Map.Entry<Long, Long> e : tuiles.entrySet()) {
+            sortie.writeLong(e.getKey());
+            sortie.writeInt(Arrays.binarySearch(clés, e.getValue()));
+        }
+    }
+
+    /**
+     * Renvoie les éléments de la tuile spécifiée, en les créant si nécessaire.
+     *
+     * @param tuiles les éléments de chaque tuile, indexés par clé de tuile.
+     * @param k la clé de la tuile.
+     * @return les éléments de la tuile.
+     */
+    private static Éléments éléments(Map<Long, Éléments> tuiles, long k) {
+        Éléments t = tuiles.get(k);
+        if (t == null)
+            tuiles.put(k, t = new Éléments());
+        return t;
+    }
+
+    /**
+     * Renvoie la clé de la tuile contenant un point.
+     *
+     * @param maillage l'ensemble dont le maillage détermine les tuiles.
+     * @param p un point.
+     * @param côté le nombre de mailles d'un côté de tuile.
+     * @return la clé de la tuile.
+     */
+    private static long clé(Ensemble<?> maillage, Point p, int côté) {
+        return clé(Math.floorDiv(maillage.indiceLatitude(p.getLatitudeRadians()), côté),
+                Math.floorDiv(maillage.indiceLongitude(p.getLongitudeRadians()), côté));
+    }
+
+    /**
+     * Renvoie les clés des tuiles recoupant la zone d'au moins un des arcs spécifiés.
+     *
+     * @param maillage l'ensemble dont le maillage détermine les tuiles.
+     * @param arcs des arcs.
+     * @param côté le nombre de mailles d'un côté de tuile.
+     * @return les clés des tuiles.
+     */
+    private static Set<Long> clésRecoupées(Ensemble<?> maillage, Collection<Arc> arcs, int côté) {
+        Set<Long> clés = new HashSet<>();
+        for (Arc a : arcs) {
+            Zone z = a.calculerZone();
+            int iMin = Math.floorDiv(maillage.indiceLatitude(z.getLatitudeMinRadians()), côté);
+            int iMax = Math.floorDiv(maillage.indiceLatitude(z.getLatitudeMaxRadians()), côté);
+            int jMin = Math.floorDiv(maillage.indiceLongitude(z.getLongitudeMinRadians()), côté);
+            int jMax = Math.floorDiv(maillage.indiceLongitude(z.getLongitudeMaxRadians()), côté);
+            for (int i = iMin; i <= iMax; i++)
+                for (int j = jMin; j <= jMax; j++)
+                    clés.add(clé(i, j));
+        }
+        return clés;
+    }
+
+    /**
+     * Renvoie la clé d'une tuile à partir de ses coordonnées. L'ordre des clés est celui des coordonnées (latitude, puis longitude).
+     *
+     * @param i la coordonnée de la tuile suivant la direction d'un méridien.
+     * @param j la coordonnée de la tuile suivant la direction d'un parallèle.
+     * @return la clé de la tuile.
+     */
+    private static long clé(int i, int j) {
+        return (long) i << 32 | (j - (long) Integer.MIN_VALUE);
+    }
+
+    /**
+     * Renvoie le nom du fichier d'une tuile.
+     *
+     * @param clé la clé de la tuile.
+     * @return le nom du fichier.
+     */
+    private static String nomFichier(long clé) {
+        return "tuile_" + (int) (clé >> 32) + "_" + (int) (clé + Integer.MIN_VALUE) + ".xml.gz";
+    }
+
+    /**
+     * Identifiants des éléments d'une tuile chargée.
+     */
+    private static final class Contenu {
+
+        final List<Long> noeuds = new ArrayList<>(), arcs = new ArrayList<>(), routes = new ArrayList<>();
+    }
+
+    /**
+     * Éléments d'une tuile en cours de découpage.
+     */
+    private static final class Éléments {
+
+        final Set<Noeud> noeuds = new LinkedHashSet<>();
+        final Set<Arc> arcs = new LinkedHashSet<>();
+        final Set<Route> routes = new LinkedHashSet<>();
+
+        /**
+         * Ajoute un arc et ses noeuds à la tuile.
+         *
+         * @param a l'arc à ajouter.
+         */
+        void ajouter(Arc a) {
+            noeuds.add(a.getDépart());
+            noeuds.add(a.getArrivée());
+            arcs.add(a);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package cartographie.fichiers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * La classe {@code Compression} est une classe statique non instantiable permettant de lire et d'écrire de manière transparente des fichiers compressés.
+ * <p>À la lecture, le format est détecté d'après les premiers octets du flux : gzip ou zlib (deflate), sinon le flux est lu tel quel. La décompression est
+ * effectuée par un thread dédié, qui remplit une file de blocs pendant que le thread appelant analyse les blocs déjà décompressés. À l'écriture, les fichiers
+ * dont le nom se termine par {@code .gz} sont compressés au format gzip.
+ *
+ * @author Charles Masson
+ */
+public final class Compression {
+
+    /**
+     * taille des tampons et des blocs décompressés en octets
+     */
+    private static final int TAILLE_BLOC = 1 << 16;
+    /**
+     * nombre maximal de blocs décompressés en attente de lecture
+     */
+    private static final int NB_BLOCS_EN_ATTENTE = 16;
+    /**
+     * délai maximal en millisecondes accordé au thread de lecture pour s'arrêter, avant puis après la fermeture de la source
+     */
+    private static final long DÉLAI_ARRÊT = 1000;
+    /**
+     * extension des fichiers compressés au format gzip
+     */
+    private static final String EXTENSION_GZIP = ".gz";
+
+    /**
+     * Contructeur privé empêchant l'instantiation de la classe.
+     */
+    private Compression() {
+    }
+
+    /**
+     * Ouvre un fichier en lecture, en le décompressant s'il est compressé.
+     *
+     * @param fichier le fichier à lire.
+     * @return un flux bufferisé sur le contenu (décompressé) du fichier.
+     * @throws IOException si le fichier ne peut pas être ouvert.
+     */
+    public static InputStream ouvrir(Path fichier) throws IOException {
+        return décompresser(Files.newInputStream(fichier));
+    }
+
+    /**
+     * Renvoie un flux sur le contenu décompressé du flux spécifié, ou sur le flux lui-même s'il n'est pas compressé.
+     *
+     * @param flux un flux éventuellement compressé.
+     * @return un flux bufferisé sur le contenu décompressé.
+     * @throws IOException si la lecture de l'en-tête échoue.
+     */
+    public static InputStream décompresser(InputStream flux) throws IOException {
+        InputStream f = flux.markSupported() ? flux : new BufferedInputStream(flux, TAILLE_BLOC);
+        switch (détecterFormat(f)) {
+            case GZIP:
+                return new FluxAsynchrone(new GZIPInputStream(f, TAILLE_BLOC));
+            case ZLIB:
+                return new FluxAsynchrone(new InflaterInputStream(f));
+            default:
+                return f;
+        }
+    }
+
+    /**
+     * Renvoie un flux sur le contenu décompressé du flux spécifié, comme {@link #décompresser(InputStream)}, mais dont la fermeture ne ferme pas le flux
+     * spécifié : elle arrête seulement le thread de décompression. Le flux renvoyé doit être fermé, même en cas d'erreur, pour que ce thread se termine.
+     *
+     * @param flux un flux éventuellement compressé, qui reste ouvert.
+     * @return un flux bufferisé sur le contenu décompressé.
+     * @throws IOException si la lecture de l'en-tête échoue.
+     */
+    public static InputStream décompresserSansFermer(InputStream flux) throws IOException {
+        return décompresser(new FilterInputStream(flux) {
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    /**
+     * Détermine si le fichier spécifié est compressé.
+     *
+     * @param fichier un fichier.
+     * @return {@code true} si le fichier est compressé, {@code false} sinon.
+     * @throws IOException si la lecture de l'en-tête échoue.
+     */
+    public static boolean estCompressé(Path fichier) throws IOException {
+        try (InputStream flux = new BufferedInputStream(Files.newInputStream(fichier), 2)) {
+            return détecterFormat(flux) != Format.BRUT;
+        }
+    }
+
+    /**
+     * Ouvre un fichier en écriture, en le compressant au format gzip si son nom se termine par {@code .gz}.
+     *
+     * @param fichier le fichier à écrire.
+     * @return un flux bufferisé dont la fermeture termine la compression et ferme le fichier.
+     * @throws IOException si le fichier ne peut pas être créé.
+     */
+    public static OutputStream créer(Path fichier) throws IOException {
+        OutputStream flux = Files.newOutputStream(fichier);
+        if (fichier.getFileName().toString().endsWith(EXTENSION_GZIP))
+            return new BufferedOutputStream(new GZIPOutputStream(flux, TAILLE_BLOC), TAILLE_BLOC);
+        return new BufferedOutputStream(flux, TAILLE_BLOC);
+    }
+
+    /**
+     * Détecte le format d'un flux d'après ses deux premiers octets, sans les consommer.
+     *
+     * @param flux un flux supportant {@link InputStream#mark(int)}.
+     * @return le format du flux.
+     * @throws IOException si la lecture échoue.
+     */
+    private static Format détecterFormat(InputStream flux) throws IOException {
+        flux.mark(2);
+        int b0 = flux.read(), b1 = flux.read();
+        flux.reset();
+        if (b0 == 0x1f && b1 == 0x8b)
+            return Format.GZIP;
+        // En-tête zlib : méthode deflate et somme de contrôle multiple de 31 (un document XML commence par '<', un espace ou une marque d'ordre)
+        if (b0 >= 0 && b1 >= 0 && (b0 & 0x0f) == 8 && (b0 << 8 | b1) % 31 == 0)
+            return Format.ZLIB;
+        return Format.BRUT;
+    }
+
+    /**
+     * formats de compression reconnus
+     */
+    private enum Format {
+
+        BRUT, GZIP, ZLIB
+    }
+
+    /**
+     * Flux dont le contenu est lu par anticipation dans un thread dédié. Le thread lit la source par blocs et les place dans une file bornée ; les blocs sont
+     * ensuite consommés par le thread appelant.
+     */
+    private static final class FluxAsynchrone extends InputStream {
+
+        /**
+         * bloc vide marquant la fin de la source
+         */
+        private static final byte[] FIN = new byte[0];
+        /**
+         * la source lue par le thread dédié
+         */
+        private final InputStream source;
+        /**
+         * les blocs lus et pas encore consommés
+         */
+        private final BlockingQueue<byte[]> blocs = new ArrayBlockingQueue<>(NB_BLOCS_EN_ATTENTE);
+        /**
+         * le thread lisant la source
+         */
+        private final Thread lecteur;
+        /**
+         * l'erreur survenue lors de la lecture de la source, transmise au thread appelant
+         */
+        private volatile IOException erreur;
+        /**
+         * le bloc en cours de consommation et la position dans ce bloc
+         */
+        private byte[] bloc = new byte[0];
+        private int position;
+
+        /**
+         * Construit un flux lisant la source spécifiée dans un thread dédié, démarré immédiatement.
+         *
+         * @param source la source à lire.
+         */
+        FluxAsynchrone(InputStream source) {
+            this.source = source;
+            lecteur = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    lireSource();
+                }
+            }, "Décompression");
+            lecteur.setDaemon(true);
+            lecteur.start();
+        }
+
+        /**
+         * Lit la source par blocs jusqu'à sa fin, une erreur ou une interruption.
+         */
+        private void lireSource() {
+            try {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        byte[] b = new byte[TAILLE_BLOC];
+                        int n = 0, lus;
+                        while (n < b.length && (lus = source.read(b, n, b.length - n)) >= 0)
+                            n += lus;
+                        if (n > 0)
+                            blocs.put(n == b.length ? b : Arrays.copyOf(b, n));
+                        if (n < b.length)
+                            break;
+                    }
+                } catch (IOException ex) {
+                    erreur = ex;
+                }
+                blocs.put(FIN);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * S'assure que le bloc en cours contient des octets à consommer.
+         *
+         * @return {@code false} si la fin du flux est atteinte.
+         * @throws IOException si la lecture de la source a échoué.
+         */
+        private boolean remplir() throws IOException {
+            if (bloc == FIN)
+                return false;
+            if (position < bloc.length)
+                return true;
+            try {
+                bloc = blocs.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            position = 0;
+            if (bloc == FIN && erreur != null)
+                throw erreur;
+            return bloc != FIN;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return remplir() ? bloc[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int début, int longueur) throws IOException {
+            if (longueur == 0)
+                return 0;
+            if (!remplir())
+                return -1;
+            int n = Math.min(longueur, bloc.length - position);
+            System.arraycopy(bloc, position, b, début, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return bloc.length - position;
+        }
+
+        /**
+         * Arrête le thread de lecture, puis ferme la source. Le thread est interrompu et la file est vidée pour le débloquer s'il attendait de la place.
+         * L'interruption ne débloquant pas une lecture bloquante de la source (socket ou tube en attente de données), la fermeture n'attend le thread
+         * que pendant {@value #DÉLAI_ARRÊT} ms : la source est ensuite fermée, ce qui fait échouer la lecture en cours pour les sources qui le permettent,
+         * puis le thread est attendu une seconde fois pendant le même délai. La fermeture ne bloque donc jamais indéfiniment ; un thread encore bloqué
+         * dans une source qui ignore sa fermeture est abandonné (c'est un démon) et s'arrête à la fin de sa lecture.
+         *
+         * @throws IOException si la fermeture de la source échoue.
+         */
+        @Override
+        public void close() throws IOException {
+            lecteur.interrupt();
+            blocs.clear();
+            boolean interrompu = attendreLecteur();
+            try {
+                source.close();
+            } finally {
+                interrompu |= attendreLecteur();
+                blocs.clear();
+                bloc = FIN;
+                if (interrompu)
+                    Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Attend la fin du thread de lecture pendant au plus {@value #DÉLAI_ARRÊT} ms.
+         *
+         * @return {@code true} si le thread appelant a été interrompu pendant l'attente.
+         */
+        private boolean attendreLecteur() {
+            boolean interrompu = false;
+            long fin = System.nanoTime() + DÉLAI_ARRÊT * 1000000;
+            for (long reste = DÉLAI_ARRÊT; lecteur.isAlive() && reste > 0; reste = (fin - System.nanoTime()) / 1000000)
+                try {
+                    lecteur.join(reste);
+                } catch (InterruptedException ex) {
+                    interrompu = true;
+                }
+            return interrompu;
+        }
+    }
+}
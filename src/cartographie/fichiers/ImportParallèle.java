@@ -0,0 +1,329 @@
+package cartographie.fichiers;
+
+import cartographie.Carte;
+import cartographie.fichiers.LecteurXML.DescriptionArc;
+import cartographie.fichiers.LecteurXML.DescriptionRoute;
+import cartographie.éléments.Arc;
+import cartographie.éléments.Noeud;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * La classe {@code ImportParallèle} charge une carte XML en deux phases parallèles.
+ * <p>Le fichier, supposé encodé en UTF-8, est découpé en morceaux dont les limites tombent sur des balises ouvrantes d'éléments de premier niveau
+ * ({@code noeud}, {@code arcsimple}, {@code arccomposé}, {@code route}). Les morceaux sont d'abord analysés en parallèle : les noeuds sont construits et les
+ * arcs et routes sont décrits par identifiants. Les arcs sont ensuite construits en parallèle à partir de la table des noeuds, qui n'est plus modifiée. Tous
+ * les éléments sont enfin ajoutés aux ensembles de la carte, dans l'ordre du fichier. Les sections CDATA et les commentaires contenant ces balises ne sont
+ * pas pris en charge.
+ *
+ * @author Charles Masson
+ */
+final class ImportParallèle {
+
+    /**
+     * taille minimale d'un morceau en octets
+     */
+    private static final long TAILLE_MIN_MORCEAU = 1 << 22;
+    /**
+     * taille maximale d'un morceau en octets (un morceau est projeté en mémoire d'un seul tenant)
+     */
+    private static final long TAILLE_MAX_MORCEAU = 1 << 30;
+    /**
+     * balises ouvrantes délimitant les morceaux, encodées en UTF-8
+     */
+    private static final byte[][] BALISES = {octets("<noeud"), octets("<arcsimple"), octets("<arccomposé"), octets("<route")};
+    /**
+     * balises englobant chaque morceau pour en faire un document XML bien formé
+     */
+    private static final byte[] OUVERTURE = octets("<morceau>"), FERMETURE = octets("</morceau>");
+
+    /**
+     * Contructeur privé empêchant l'instantiation de la classe.
+     */
+    private ImportParallèle() {
+    }
+
+    /**
+     * Charge dans la carte spécifiée les noeuds, arcs et routes du fichier XML spécifié.
+     *
+     * @param carte la carte à remplir.
+     * @param fichier un fichier XML représentant une carte.
+     * @param pool le pool de threads utilisé pour l'analyse.
+     * @throws IOException si la lecture du fichier échoue.
+     * @throws XMLStreamException si le fichier est mal formé ou fait référence à un élément inconnu.
+     */
+    static void charger(Carte carte, Path fichier, ForkJoinPool pool) throws IOException, XMLStreamException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+
+            // Découpage
+            long[] limites = calculerLimites(canal, pool.getParallelism());
+            List<Callable<Morceau>> analyses = new ArrayList<>();
+            for (int k = 0; k + 1 < limites.length; k++) {
+                final ByteBuffer contenu = canal.map(FileChannel.MapMode.READ_ONLY, limites[k], limites[k + 1] - limites[k]);
+                analyses.add(new Callable<Morceau>() {
+                    @Override
+                    public Morceau call() throws XMLStreamException {
+                        return analyser(contenu);
+                    }
+                });
+            }
+
+            // Phase 1 : analyse des morceaux et construction des noeuds
+            final List<Morceau> morceaux = exécuter(pool, analyses);
+            int nbNoeuds = 0;
+            for (Morceau m : morceaux)
+                nbNoeuds += m.noeuds.size();
+            final Map<Long, Noeud> tableNoeuds = new HashMap<>(2 * nbNoeuds);
+            for (Morceau m : morceaux)
+                for (Noeud n : m.noeuds)
+                    tableNoeuds.put(n.getID(), n);
+
+            // Phase 2 : construction des arcs à partir de la table des noeuds
+            List<Callable<List<Arc>>> constructions = new ArrayList<>();
+            for (final Morceau m : morceaux)
+                constructions.add(new Callable<List<Arc>>() {
+                    @Override
+                    public List<Arc> call() throws XMLStreamException {
+                        List<Arc> arcs = new ArrayList<>(m.arcs.size());
+                        for (DescriptionArc a : m.arcs) {
+                            Noeud départ = tableNoeuds.get(a.idDépart), arrivée = tableNoeuds.get(a.idArrivée);
+                            if (départ == null || arrivée == null)
+                                throw new XMLStreamException("Noeud inconnu pour l'arc " + a.id);
+                            arcs.add(a.construire(départ, arrivée));
+                        }
+                        return arcs;
+                    }
+                });
+            List<List<Arc>> arcs = exécuter(pool, constructions);
+
+            // Ajout en bloc à la carte
+            for (Morceau m : morceaux)
+                for (Noeud n : m.noeuds)
+                    carte.ajouterNoeud(n);
+            for (List<Arc> l : arcs)
+                for (Arc a : l)
+                    carte.ajouterArc(a);
+            for (Morceau m : morceaux)
+                for (DescriptionRoute r : m.routes) {
+                    // Tous les arcs sont déjà ajoutés : un arc retour inconnu est ignoré, comme lors du chargement séquentiel
+                    Arc aller = carte.getArc(r.idArcAller), retour = r.aUnArcRetour ? carte.getArc(r.idArcRetour) : null;
+                    if (aller == null)
+                        throw new XMLStreamException("Arc inconnu pour la route " + r.id);
+                    carte.ajouterRoute(r.construire(aller, retour));
+                }
+        }
+    }
+
+    /**
+     * Exécute des tâches dans le pool spécifié et renvoie leurs résultats dans l'ordre.
+     *
+     * @param <R> le type du résultat des tâches.
+     * @param pool le pool de threads.
+     * @param tâches les tâches à exécuter.
+     * @return les résultats des tâches.
+     * @throws XMLStreamException si l'une des tâches a échoué.
+     */
+    private static <R> List<R> exécuter(ForkJoinPool pool, List<Callable<R>> tâches) throws XMLStreamException {
+        List<R> résultats = new ArrayList<>(tâches.size());
+        try {
+            for (Future<R> f : pool.invokeAll(tâches))
+                résultats.add(f.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new XMLStreamException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof XMLStreamException)
+                throw (XMLStreamException) ex.getCause();
+            throw new XMLStreamException(ex.getCause());
+        }
+        return résultats;
+    }
+
+    /**
+     * Analyse un morceau du fichier.
+     *
+     * @param contenu le contenu du morceau.
+     * @return les éléments décrits dans le morceau.
+     * @throws XMLStreamException si le morceau est mal formé.
+     */
+    private static Morceau analyser(ByteBuffer contenu) throws XMLStreamException {
+        Morceau m = new Morceau();
+        InputStream flux = new SequenceInputStream(new SequenceInputStream(new ByteArrayInputStream(OUVERTURE), new FluxDeTampon(contenu)),
+                new ByteArrayInputStream(FERMETURE));
+        XMLStreamReader r = LecteurXML.créerLecteur(flux);
+        try {
+            while (r.hasNext())
+                if (r.next() == XMLStreamConstants.START_ELEMENT)
+                    switch (r.getLocalName()) {
+                        case "noeud":
+                            m.noeuds.add(LecteurXML.lireNoeud(r));
+                            break;
+                        case "arcsimple":
+                        case "arccomposé":
+                            m.arcs.add(LecteurXML.lireArc(r));
+                            break;
+                        case "route":
+                            m.routes.add(LecteurXML.lireRoute(r));
+                    }
+        } finally {
+            r.close();
+        }
+        return m;
+    }
+
+    /**
+     * Calcule les limites des morceaux du fichier. Le premier morceau commence à la première balise d'élément de premier niveau et le dernier se termine
+     * juste avant la balise fermante de l'élément racine.
+     *
+     * @param canal le canal du fichier.
+     * @param parallélisme le nombre de threads disponibles.
+     * @return les positions des limites, croissantes, la première et la dernière encadrant l'ensemble des éléments.
+     * @throws IOException si la lecture du fichier échoue.
+     */
+    private static long[] calculerLimites(FileChannel canal, int parallélisme) throws IOException {
+        long taille = canal.size();
+        long début = chercherBalise(canal, 0, taille);
+        long fin = chercherFermetureRacine(canal, taille);
+        if (début >= fin)
+            return new long[]{début, début};
+        long longueur = fin - début;
+        int nbMorceaux = (int) Math.max((longueur + TAILLE_MAX_MORCEAU - 1) / TAILLE_MAX_MORCEAU,
+                Math.min(longueur / TAILLE_MIN_MORCEAU, 4L * parallélisme));
+        nbMorceaux = Math.max(nbMorceaux, 1);
+        List<Long> limites = new ArrayList<>();
+        limites.add(début);
+        for (int k = 1; k < nbMorceaux; k++) {
+            long limite = chercherBalise(canal, Math.max(début + k * longueur / nbMorceaux, limites.get(limites.size() - 1) + 1), fin);
+            if (limite < fin)
+                limites.add(limite);
+        }
+        limites.add(fin);
+        long[] résultat = new long[limites.size()];
+        for (int k = 0; k < résultat.length; k++)
+            résultat[k] = limites.get(k);
+        return résultat;
+    }
+
+    /**
+     * Cherche la première balise ouvrante d'un élément de premier niveau à partir de la position spécifiée.
+     *
+     * @param canal le canal du fichier.
+     * @param position la position à partir de laquelle chercher.
+     * @param fin la position à laquelle arrêter la recherche.
+     * @return la position de la balise, ou {@code fin} si aucune balise n'a été trouvée.
+     * @throws IOException si la lecture du fichier échoue.
+     */
+    private static long chercherBalise(FileChannel canal, long position, long fin) throws IOException {
+        final int FENÊTRE = 1 << 16, MARGE = 16;
+        for (long p = position; p < fin; p += FENÊTRE) {
+            ByteBuffer tampon = canal.map(FileChannel.MapMode.READ_ONLY, p, Math.min(FENÊTRE + MARGE, canal.size() - p));
+            for (int i = 0; i < FENÊTRE && p + i < fin; i++)
+                if (tampon.get(i) == '<')
+                    for (byte[] balise : BALISES)
+                        if (correspond(tampon, i, balise))
+                            return p + i;
+        }
+        return fin;
+    }
+
+    /**
+     * Permet de savoir si la balise spécifiée, suivie d'un blanc, d'un chevron ou d'une barre oblique, commence à la position spécifiée.
+     *
+     * @param tampon le tampon dans lequel chercher.
+     * @param i la position dans le tampon.
+     * @param balise la balise, encodée en UTF-8.
+     * @return {@code true} si la balise commence à la position spécifiée, {@code false} sinon.
+     */
+    private static boolean correspond(ByteBuffer tampon, int i, byte[] balise) {
+        if (i + balise.length >= tampon.limit())
+            return false;
+        for (int k = 0; k < balise.length; k++)
+            if (tampon.get(i + k) != balise[k])
+                return false;
+        byte suivant = tampon.get(i + balise.length);
+        return suivant == ' ' || suivant == '\t' || suivant == '\n' || suivant == '\r' || suivant == '>' || suivant == '/';
+    }
+
+    /**
+     * Cherche la balise fermante de l'élément racine, c'est-à-dire la dernière balise fermante du fichier.
+     *
+     * @param canal le canal du fichier.
+     * @param taille la taille du fichier.
+     * @return la position de la balise fermante de l'élément racine.
+     * @throws IOException si la lecture du fichier échoue.
+     */
+    private static long chercherFermetureRacine(FileChannel canal, long taille) throws IOException {
+        final int FENÊTRE = 1 << 16;
+        for (long p = taille; p > 0; p -= FENÊTRE) {
+            long débutFenêtre = Math.max(0, p - FENÊTRE);
+            ByteBuffer tampon = canal.map(FileChannel.MapMode.READ_ONLY, débutFenêtre, Math.min(p + 1, taille) - débutFenêtre);
+            for (int i = (int) (p - débutFenêtre) - 1; i >= 0; i--)
+                if (tampon.get(i) == '<' && i + 1 < tampon.limit() && tampon.get(i + 1) == '/')
+                    return débutFenêtre + i;
+        }
+        return taille;
+    }
+
+    private static byte[] octets(String chaîne) {
+        return chaîne.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Éléments décrits dans un morceau du fichier.
+     */
+    private static final class Morceau {
+
+        final List<Noeud> noeuds = new ArrayList<>();
+        final List<DescriptionArc> arcs = new ArrayList<>();
+        final List<DescriptionRoute> routes = new ArrayList<>();
+    }
+
+    /**
+     * Flux d'entrée lisant le contenu d'un tampon d'octets.
+     */
+    private static final class FluxDeTampon extends InputStream {
+
+        private final ByteBuffer tampon;
+
+        FluxDeTampon(ByteBuffer tampon) {
+            this.tampon = tampon;
+        }
+
+        @Override
+        public int read() {
+            return tampon.hasRemaining() ? tampon.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int décalage, int longueur) {
+            if (!tampon.hasRemaining())
+                return -1;
+            longueur = Math.min(longueur, tampon.remaining());
+            tampon.get(b, décalage, longueur);
+            return longueur;
+        }
+
+        @Override
+        public int available() {
+            return tampon.remaining();
+        }
+    }
+}
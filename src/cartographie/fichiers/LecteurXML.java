@@ -0,0 +1,738 @@
+package cartographie.fichiers;
+
+import cartographie.Carte;
+import cartographie.fichiers.StatistiquesChargement.Phase;
+import cartographie.pointsDIntérêt.Parking;
+import cartographie.pointsDIntérêt.StationService;
+import cartographie.positionnementGéographique.Angle;
+import cartographie.positionnementGéographique.CodagePolyligne;
+import cartographie.positionnementGéographique.Coordonnées;
+import cartographie.éléments.Arc;
+import cartographie.éléments.ArcComposé;
+import cartographie.éléments.ArcSimple;
+import cartographie.éléments.Noeud;
+import cartographie.éléments.PointDIntérêt;
+import cartographie.éléments.Route;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * La classe {@code LecteurXML} charge une carte ou des points d'intérêt à partir d'un flux XML, en une seule passe et sans construire de document DOM.
+ * <p>Les éléments de cartographie sont créés au fur et à mesure de la lecture du flux (voir {@link XMLStreamReader}). Les arcs dont les noeuds n'ont pas
+ * encore été lus, ainsi que les routes dont les arcs n'ont pas encore été lus, sont mis en attente et résolus par identifiant à la fin de la lecture.
+ *
+ * @author Charles Masson
+ */
+public class LecteurXML {
+
+    /**
+     * fabrique partagée des lecteurs StAX
+     */
+    private static final XMLInputFactory FABRIQUE = XMLInputFactory.newInstance();
+
+    static {
+        FABRIQUE.setProperty(XMLInputFactory.IS_COALESCING, true);
+        FABRIQUE.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+    /**
+     * la carte dans laquelle sont ajoutés les éléments lus
+     */
+    private final Carte carte;
+    /**
+     * les statistiques mises à jour pendant les chargements, ou {@code null} si les chargements ne sont pas mesurés
+     */
+    private StatistiquesChargement statistiques;
+
+    /**
+     * Construit un lecteur ajoutant les éléments lus à la carte spécifiée.
+     *
+     * @param carte la carte à remplir.
+     */
+    public LecteurXML(Carte carte) {
+        this.carte = carte;
+    }
+
+    /**
+     * Active la mesure des chargements séquentiels effectués par ce lecteur ({@link #chargerCarte(InputStream)} et {@link #chargerPoI(InputStream)}).
+     *
+     * @param statistiques les statistiques à mettre à jour, ou {@code null} pour désactiver la mesure.
+     */
+    public void setStatistiques(StatistiquesChargement statistiques) {
+        this.statistiques = statistiques;
+    }
+
+    /**
+     * Signale un changement de phase aux statistiques, si les chargements sont mesurés.
+     *
+     * @param phase la phase qui commence.
+     */
+    private void basculer(Phase phase) {
+        if (statistiques != null)
+            statistiques.basculer(phase);
+    }
+
+    /**
+     * Crée un lecteur StAX sur le flux spécifié.
+     *
+     * @param flux un flux XML.
+     * @return le lecteur StAX.
+     * @throws XMLStreamException si le flux ne peut pas être lu.
+     */
+    static XMLStreamReader créerLecteur(InputStream flux) throws XMLStreamException {
+        return FABRIQUE.createXMLStreamReader(flux);
+    }
+
+    /**
+     * Charge les noeuds, arcs et routes décrits par le flux XML spécifié.
+     *
+     * @param flux un flux XML représentant une carte.
+     * @throws XMLStreamException si le flux est mal formé ou fait référence à un noeud inconnu.
+     */
+    public void chargerCarte(InputStream flux) throws XMLStreamException {
+        if (statistiques != null) {
+            flux = statistiques.compter(flux);
+            statistiques.démarrer();
+        }
+        try {
+            XMLStreamReader r = créerLecteur(flux);
+            List<DescriptionArc> arcsEnAttente = new ArrayList<>();
+            List<DescriptionRoute> routesEnAttente = new ArrayList<>();
+            try {
+                while (r.hasNext())
+                    if (r.next() == XMLStreamConstants.START_ELEMENT)
+                        switch (r.getLocalName()) {
+                            case "noeud":
+                                basculer(Phase.LECTURE_NOEUDS);
+                                Noeud n = lireNoeud(r);
+                                basculer(Phase.INSERTION_ENSEMBLES);
+                                carte.ajouterNoeud(n);
+                                basculer(Phase.ANALYSE_XML);
+                                break;
+                            case "arcsimple":
+                            case "arccomposé":
+                                basculer(Phase.LECTURE_ARCS);
+                                DescriptionArc a = lireArc(r);
+                                if (!ajouterArc(a))
+                                    arcsEnAttente.add(a);
+                                basculer(Phase.ANALYSE_XML);
+                                break;
+                            case "route":
+                                basculer(Phase.LECTURE_ROUTES);
+                                DescriptionRoute route = lireRoute(r);
+                                if (!ajouterRoute(route, false))
+                                    routesEnAttente.add(route);
+                                basculer(Phase.ANALYSE_XML);
+                        }
+            } finally {
+                r.close();
+            }
+
+            // Résolution des références vers des éléments lus plus loin dans le flux
+            for (DescriptionArc a : arcsEnAttente)
+                if (!ajouterArc(a))
+                    throw new XMLStreamException("Noeud inconnu pour l'arc " + a.id);
+            for (DescriptionRoute route : routesEnAttente)
+                if (!ajouterRoute(route, true))
+                    throw new XMLStreamException("Arc inconnu pour la route " + route.id);
+        } finally {
+            if (statistiques != null)
+                statistiques.arrêter();
+        }
+    }
+
+    /**
+     * Charge une tuile de carte, c'est-à-dire un flux XML de carte dans lequel chaque arc est précédé de ses noeuds et chaque route de ses arcs. Les éléments
+     * déjà présents dans la carte (chargés avec une tuile voisine) ne sont pas ajoutés une seconde fois : les arcs lus sont rattachés aux noeuds existants.
+     *
+     * @param flux un flux XML représentant une tuile.
+     * @param idNoeuds la liste à laquelle sont ajoutés les identifiants des noeuds de la tuile.
+     * @param idArcs la liste à laquelle sont ajoutés les identifiants des arcs de la tuile.
+     * @param idRoutes la liste à laquelle sont ajoutés les identifiants des routes de la tuile.
+     * @throws XMLStreamException si le flux est mal formé ou si un élément fait référence à un élément qui le suit.
+     */
+    public void chargerTuile(InputStream flux, List<Long> idNoeuds, List<Long> idArcs, List<Long> idRoutes) throws XMLStreamException {
+        XMLStreamReader r = créerLecteur(flux);
+        try {
+            while (r.hasNext())
+                if (r.next() == XMLStreamConstants.START_ELEMENT)
+                    switch (r.getLocalName()) {
+                        case "noeud":
+                            Noeud n = lireNoeud(r);
+                            idNoeuds.add(n.getID());
+                            if (carte.getNoeud(n.getID()) == null)
+                                carte.ajouterNoeud(n);
+                            break;
+                        case "arcsimple":
+                        case "arccomposé":
+                            DescriptionArc a = lireArc(r);
+                            idArcs.add(a.id);
+                            if (carte.getArc(a.id) == null && !ajouterArc(a))
+                                throw new XMLStreamException("Noeud inconnu pour l'arc " + a.id);
+                            break;
+                        case "route":
+                            DescriptionRoute route = lireRoute(r);
+                            idRoutes.add(route.id);
+                            if (carte.getRoute(route.id) == null && !ajouterRoute(route, true))
+                                throw new XMLStreamException("Arc inconnu pour la route " + route.id);
+                    }
+        } finally {
+            r.close();
+        }
+    }
+
+    /**
+     * Charge les noeuds, arcs et routes du fichier XML spécifié en répartissant l'analyse sur plusieurs threads (voir {@link ImportParallèle}). Le fichier
+     * doit être encodé en UTF-8. Un fichier compressé ne pouvant pas être découpé, il est analysé séquentiellement pendant sa décompression (voir
+     * {@link Compression}).
+     *
+     * @param fichier un fichier XML représentant une carte.
+     * @param pool le pool de threads utilisé pour l'analyse.
+     * @throws IOException si la lecture du fichier échoue.
+     * @throws XMLStreamException si le fichier est mal formé ou fait référence à un élément inconnu.
+     */
+    public void chargerCarteEnParallèle(Path fichier, ForkJoinPool pool) throws IOException, XMLStreamException {
+        if (Compression.estCompressé(fichier))
+            try (InputStream flux = Compression.ouvrir(fichier)) {
+                chargerCarte(flux);
+            }
+        else
+            ImportParallèle.charger(carte, fichier, pool);
+    }
+
+    /**
+     * Charge les points d'intérêt décrits par le flux XML spécifié. Les arcs auxquels ils font référence doivent déjà appartenir à la carte.
+     *
+     * @param flux un flux XML représentant des points d'intérêt.
+     * @throws XMLStreamException si le flux est mal formé ou fait référence à un arc inconnu.
+     */
+    public void chargerPoI(InputStream flux) throws XMLStreamException {
+        if (statistiques != null) {
+            flux = statistiques.compter(flux);
+            statistiques.démarrer();
+        }
+        try {
+            XMLStreamReader r = créerLecteur(flux);
+            try {
+                while (r.hasNext())
+                    if (r.next() == XMLStreamConstants.START_ELEMENT)
+                        switch (r.getLocalName()) {
+                            case "parking":
+                            case "stationservice":
+                                basculer(Phase.LECTURE_POINTS_D_INTÉRÊT);
+                                DescriptionPoI p = lirePoI(r);
+                                basculer(Phase.CONSTRUCTION_POINTS_D_INTÉRÊT);
+                                PointDIntérêt poi = p.construire(carte);
+                                basculer(Phase.INSERTION_ENSEMBLES);
+                                carte.ajouterPoI(poi);
+                                basculer(Phase.ANALYSE_XML);
+                        }
+            } finally {
+                r.close();
+            }
+        } finally {
+            if (statistiques != null)
+                statistiques.arrêter();
+        }
+    }
+
+    /**
+     * Applique à la carte les modifications décrites par un flux XML de delta.
+     * <p>Un delta est un élément {@code delta} contenant, dans un ordre quelconque, des sections {@code ajout}, {@code modification} et
+     * {@code suppression}. Les sections {@code ajout} et {@code modification} contiennent des éléments {@code noeud}, {@code arcsimple},
+     * {@code arccomposé}, {@code route}, {@code parking} et {@code stationservice} dans le même format que les fichiers de carte et de points d'intérêt ;
+     * dans une section {@code modification}, l'identifiant désigne l'élément à modifier. Les sections {@code suppression} contiennent des éléments vides
+     * {@code noeud}, {@code arc}, {@code route} et {@code poi} dont l'attribut {@code id} désigne l'élément à retirer. Les opérations sont appliquées dans
+     * l'ordre du flux : un élément doit être ajouté après les éléments auxquels il fait référence et retiré avant eux.
+     *
+     * @param flux un flux XML représentant un delta.
+     * @throws XMLStreamException si le flux est mal formé ou fait référence à un élément inconnu.
+     * @throws IllegalStateException si un élément retiré est encore utilisé par d'autres éléments de la carte.
+     */
+    public void appliquerDelta(InputStream flux) throws XMLStreamException {
+        XMLStreamReader r = créerLecteur(flux);
+        String section = null;
+        try {
+            while (r.hasNext())
+                if (r.next() == XMLStreamConstants.START_ELEMENT) {
+                    String nom = r.getLocalName();
+                    switch (nom) {
+                        case "ajout":
+                        case "modification":
+                        case "suppression":
+                            section = nom;
+                            continue;
+                    }
+                    if ("suppression".equals(section))
+                        supprimer(nom, Long.parseLong(r.getAttributeValue(null, "id")));
+                    else if (section != null)
+                        ajouterOuModifier(r, "modification".equals(section));
+                }
+        } finally {
+            r.close();
+        }
+    }
+
+    /**
+     * Retire un élément de la carte.
+     *
+     * @param type le type de l'élément ({@code noeud}, {@code arc}, {@code route} ou {@code poi}).
+     * @param id l'identifiant de l'élément.
+     * @throws XMLStreamException si le type n'est pas reconnu ou si l'élément est inconnu.
+     */
+    private void supprimer(String type, long id) throws XMLStreamException {
+        try {
+            switch (type) {
+                case "noeud":
+                    carte.retirerNoeud(id);
+                    break;
+                case "arc":
+                    carte.retirerArc(id);
+                    break;
+                case "route":
+                    carte.retirerRoute(id);
+                    break;
+                case "poi":
+                    carte.retirerPoI(id);
+                    break;
+                default:
+                    throw new XMLStreamException("Type d'élément inconnu : " + type);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new XMLStreamException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Lit un élément et l'ajoute à la carte ou modifie l'élément de la carte ayant le même identifiant.
+     *
+     * @param r le lecteur StAX, positionné sur la balise ouvrante de l'élément.
+     * @param modification {@code true} pour modifier un élément existant, {@code false} pour ajouter un nouvel élément.
+     * @throws XMLStreamException si l'élément est mal formé ou fait référence à un élément inconnu.
+     */
+    private void ajouterOuModifier(XMLStreamReader r, boolean modification) throws XMLStreamException {
+        try {
+            switch (r.getLocalName()) {
+                case "noeud":
+                    Noeud n = lireNoeud(r);
+                    if (modification)
+                        carte.modifierNoeud(n.getID(), n.getLatitude(), n.getLongitude());
+                    else
+                        carte.ajouterNoeud(n);
+                    break;
+                case "arcsimple":
+                case "arccomposé":
+                    DescriptionArc a = lireArc(r);
+                    Noeud départ = carte.getNoeud(a.idDépart), arrivée = carte.getNoeud(a.idArrivée);
+                    if (départ == null || arrivée == null)
+                        throw new XMLStreamException("Noeud inconnu pour l'arc " + a.id);
+                    if (modification)
+                        carte.modifierArc(a.id, départ, arrivée, a.nbVoies, a.vitesseLimite, a.coefVitesseNominale, a.shapePoints);
+                    else
+                        carte.ajouterArc(a.construire(départ, arrivée));
+                    break;
+                case "route":
+                    // Les arcs sont résolus avant le retrait de l'ancienne route, qui n'est retirée que si la nouvelle peut être construite
+                    DescriptionRoute route = lireRoute(r);
+                    Arc aller = carte.getArc(route.idArcAller), retour = route.aUnArcRetour ? carte.getArc(route.idArcRetour) : null;
+                    if (aller == null || route.aUnArcRetour && retour == null)
+                        throw new XMLStreamException("Arc inconnu pour la route " + route.id);
+                    if (modification)
+                        carte.retirerRoute(route.id);
+                    carte.ajouterRoute(route.construire(aller, retour));
+                    break;
+                case "parking":
+                case "stationservice":
+                    // De même, l'ancien point d'intérêt n'est retiré qu'une fois les arcs du nouveau résolus
+                    DescriptionPoI p = lirePoI(r);
+                    Arc arc = arcConnu(carte, p.idArc);
+                    Arc[] associés = p.arcsAssociés(carte);
+                    if (modification)
+                        carte.retirerPoI(p.id);
+                    carte.ajouterPoI(p.construire(arc, associés));
+                    break;
+                default:
+                    throw new XMLStreamException("Type d'élément inconnu : " + r.getLocalName());
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new XMLStreamException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Construit et ajoute à la carte l'arc décrit, si ses deux noeuds sont déjà connus.
+     *
+     * @param a la description de l'arc.
+     * @return {@code true} si l'arc a été ajouté, {@code false} si l'un de ses noeuds est encore inconnu.
+     */
+    private boolean ajouterArc(DescriptionArc a) {
+        Noeud départ = carte.getNoeud(a.idDépart), arrivée = carte.getNoeud(a.idArrivée);
+        if (départ == null || arrivée == null)
+            return false;
+        basculer(Phase.CONSTRUCTION_ARCS);
+        Arc arc = a.construire(départ, arrivée);
+        basculer(Phase.INSERTION_ENSEMBLES);
+        carte.ajouterArc(arc);
+        return true;
+    }
+
+    /**
+     * Construit et ajoute à la carte la route décrite, si ses arcs sont déjà connus. Un arc retour inconnu une fois le flux entièrement lu est ignoré, comme
+     * le faisait le chargement DOM : la route est alors à sens unique.
+     *
+     * @param route la description de la route.
+     * @param finDuFlux {@code true} si tous les arcs du flux ont été lus, {@code false} si l'arc retour peut encore apparaître plus loin.
+     * @return {@code true} si la route a été ajoutée, {@code false} si son arc aller (ou, avant la fin du flux, son arc retour) est encore inconnu.
+     */
+    private boolean ajouterRoute(DescriptionRoute route, boolean finDuFlux) {
+        Arc aller = carte.getArc(route.idArcAller);
+        Arc retour = route.aUnArcRetour ? carte.getArc(route.idArcRetour) : null;
+        if (aller == null || route.aUnArcRetour && retour == null && !finDuFlux)
+            return false;
+        basculer(Phase.LIAISON_ROUTES);
+        Route r = route.construire(aller, retour);
+        basculer(Phase.INSERTION_ENSEMBLES);
+        carte.ajouterRoute(r);
+        return true;
+    }
+
+    /**
+     * Lit un noeud. Le lecteur doit être positionné sur la balise ouvrante {@code noeud} ; il est laissé sur la balise fermante correspondante.
+     *
+     * @param r le lecteur StAX.
+     * @return le noeud lu.
+     * @throws XMLStreamException si l'élément est mal formé.
+     */
+    static Noeud lireNoeud(XMLStreamReader r) throws XMLStreamException {
+        long id = Long.parseLong(r.getAttributeValue(null, "id"));
+        double latitude = 0, longitude = 0;
+        for (int profondeur = 1; profondeur > 0;)
+            switch (r.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    switch (r.getLocalName()) {
+                        case "latitude":
+                            latitude = lireAngle(r);
+                            break;
+                        case "longitude":
+                            longitude = lireAngle(r);
+                            break;
+                        default:
+                            profondeur++;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    profondeur--;
+            }
+        return new Noeud(id, latitude, longitude);
+    }
+
+    /**
+     * Lit un arc simple ou composé sans résoudre ses noeuds. Le lecteur doit être positionné sur la balise ouvrante de l'arc ; il est laissé sur la balise
+     * fermante correspondante. Les shape-points d'un arc composé sont lus soit à partir d'un élément {@code géométrie} (voir {@link CodagePolyligne}), soit
+     * à partir des éléments {@code latitude} et {@code longitude} successifs.
+     *
+     * @param r le lecteur StAX.
+     * @return la description de l'arc lu.
+     * @throws XMLStreamException si l'élément est mal formé.
+     */
+    static DescriptionArc lireArc(XMLStreamReader r) throws XMLStreamException {
+        DescriptionArc a = new DescriptionArc();
+        a.id = Long.parseLong(r.getAttributeValue(null, "id"));
+        boolean composé = "arccomposé".equals(r.getLocalName());
+        int nbShapePoints = 0, nbLatitudes = 0, nbLongitudes = 0;
+        double[] latitudes = new double[8], longitudes = new double[8];
+        for (int profondeur = 1; profondeur > 0;)
+            switch (r.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    switch (r.getLocalName()) {
+                        case "départ":
+                            a.idDépart = Long.parseLong(r.getElementText().trim());
+                            break;
+                        case "arrivée":
+                            a.idArrivée = Long.parseLong(r.getElementText().trim());
+                            break;
+                        case "nbvoies":
+                            a.nbVoies = Byte.parseByte(r.getElementText().trim());
+                            break;
+                        case "vitesselimite":
+                            a.vitesseLimite = Short.parseShort(r.getElementText().trim());
+                            break;
+                        case "coefvitessenominale":
+                            a.coefVitesseNominale = Double.parseDouble(r.getElementText());
+                            break;
+                        case "nbshapepoints":
+                            nbShapePoints = Integer.parseInt(r.getElementText().trim());
+                            break;
+                        case "latitude":
+                            if (nbLatitudes == latitudes.length)
+                                latitudes = Arrays.copyOf(latitudes, nbLatitudes << 1);
+                            latitudes[nbLatitudes++] = lireAngle(r);
+                            break;
+                        case "longitude":
+                            if (nbLongitudes == longitudes.length)
+                                longitudes = Arrays.copyOf(longitudes, nbLongitudes << 1);
+                            longitudes[nbLongitudes++] = lireAngle(r);
+                            break;
+                        case "géométrie":
+                            a.shapePoints = CodagePolyligne.décoder(r.getElementText().trim());
+                            break;
+                        default:
+                            profondeur++;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    profondeur--;
+            }
+        if (composé && a.shapePoints == null) {
+            if (nbLatitudes != nbShapePoints || nbLongitudes != nbShapePoints)
+                throw new XMLStreamException("Nombre de shape-points incorrect pour l'arc " + a.id);
+            a.shapePoints = new Coordonnées[nbShapePoints];
+            for (int i = 0; i < nbShapePoints; i++)
+                a.shapePoints[i] = new Coordonnées(latitudes[i], longitudes[i]);
+        }
+        return a;
+    }
+
+    /**
+     * Lit une route sans résoudre ses arcs. Le lecteur doit être positionné sur la balise ouvrante {@code route} ; il est laissé sur la balise fermante
+     * correspondante.
+     *
+     * @param r le lecteur StAX.
+     * @return la description de la route lue.
+     * @throws XMLStreamException si l'élément est mal formé.
+     */
+    static DescriptionRoute lireRoute(XMLStreamReader r) throws XMLStreamException {
+        DescriptionRoute route = new DescriptionRoute();
+        route.id = Long.parseLong(r.getAttributeValue(null, "id"));
+        for (int profondeur = 1; profondeur > 0;)
+            switch (r.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    switch (r.getLocalName()) {
+                        case "nom":
+                            route.nom = r.getElementText();
+                            break;
+                        case "idarcaller":
+                            route.idArcAller = Long.parseLong(r.getElementText().trim());
+                            break;
+                        case "idarcretour":
+                            String texte = r.getElementText().trim();
+                            route.aUnArcRetour = !texte.isEmpty();
+                            if (route.aUnArcRetour)
+                                route.idArcRetour = Long.parseLong(texte);
+                            break;
+                        default:
+                            profondeur++;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    profondeur--;
+            }
+        return route;
+    }
+
+    /**
+     * Lit un parking ou une station service sans résoudre ses arcs. Le lecteur doit être positionné sur la balise ouvrante du point d'intérêt ; il est
+     * laissé sur la balise fermante correspondante.
+     *
+     * @param r le lecteur StAX.
+     * @return la description du point d'intérêt lu.
+     * @throws XMLStreamException si l'élément est mal formé.
+     */
+    static DescriptionPoI lirePoI(XMLStreamReader r) throws XMLStreamException {
+        DescriptionPoI p = new DescriptionPoI();
+        p.parking = "parking".equals(r.getLocalName());
+        for (int profondeur = 1; profondeur > 0;)
+            switch (r.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    switch (r.getLocalName()) {
+                        case "poi":
+                            p.id = Long.parseLong(r.getAttributeValue(null, "id"));
+                            profondeur++;
+                            break;
+                        case "idarc":
+                            p.idArc = Long.parseLong(r.getElementText().trim());
+                            break;
+                        case "positionrelative":
+                            p.positionRelative = Double.parseDouble(r.getElementText());
+                            break;
+                        case "idarcassocié":
+                            p.idArcsAssociés.add(Long.parseLong(r.getElementText().trim()));
+                            break;
+                        case "nom":
+                            p.nom = r.getElementText();
+                            break;
+                        case "nbplaces":
+                            p.nbPlaces = Short.parseShort(r.getElementText().trim());
+                            break;
+                        case "entreprise":
+                            p.entreprise = r.getElementText();
+                            break;
+                        default:
+                            profondeur++;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    profondeur--;
+            }
+        return p;
+    }
+
+    /**
+     * Renvoie l'arc de la carte correspondant à l'identifiant spécifié.
+     *
+     * @param c une carte.
+     * @param id un identifiant d'arc.
+     * @return l'arc correspondant.
+     * @throws XMLStreamException si la carte ne contient aucun arc ayant cet identifiant.
+     */
+    private static Arc arcConnu(Carte c, long id) throws XMLStreamException {
+        Arc a = c.getArc(id);
+        if (a == null)
+            throw new XMLStreamException("Arc inconnu : " + id);
+        return a;
+    }
+
+    /**
+     * Lit une latitude ou une longitude exprimée en degrés, minutes (facultatives) et secondes (facultatives), et la convertit directement en radians sans
+     * créer d'objet. Le lecteur doit être positionné sur la balise ouvrante ; il est laissé sur la balise fermante correspondante.
+     *
+     * @param r le lecteur StAX.
+     * @return l'angle lu, en radians.
+     * @throws XMLStreamException si l'élément est mal formé.
+     */
+    static double lireAngle(XMLStreamReader r) throws XMLStreamException {
+        double degrés = 0, minutes = 0, secondes = 0;
+        for (int profondeur = 1; profondeur > 0;)
+            switch (r.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    switch (r.getLocalName()) {
+                        case "degrés":
+                            degrés = Double.parseDouble(r.getElementText());
+                            break;
+                        case "minutes":
+                            minutes = Double.parseDouble(r.getElementText());
+                            break;
+                        case "secondes":
+                            secondes = Double.parseDouble(r.getElementText());
+                            break;
+                        default:
+                            profondeur++;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    profondeur--;
+            }
+        return Angle.enRadians(degrés, minutes, secondes);
+    }
+
+    /**
+     * Description d'un arc lu dont les noeuds ne sont désignés que par leur identifiant.
+     */
+    static final class DescriptionArc {
+
+        long id, idDépart, idArrivée;
+        byte nbVoies;
+        short vitesseLimite;
+        double coefVitesseNominale;
+        /**
+         * les shape-points de l'arc, ou {@code null} s'il s'agit d'un arc simple
+         */
+        Coordonnées[] shapePoints;
+
+        /**
+         * Construit l'arc décrit.
+         *
+         * @param départ le noeud duquel part l'arc.
+         * @param arrivée le noeud auquel arrive l'arc.
+         * @return l'arc.
+         */
+        Arc construire(Noeud départ, Noeud arrivée) {
+            if (shapePoints == null)
+                return new ArcSimple(id, départ, arrivée, nbVoies, vitesseLimite, coefVitesseNominale);
+            return new ArcComposé(id, départ, arrivée, nbVoies, vitesseLimite, coefVitesseNominale, shapePoints);
+        }
+    }
+
+    /**
+     * Description d'une route lue dont les arcs ne sont désignés que par leur identifiant.
+     */
+    static final class DescriptionRoute {
+
+        long id, idArcAller, idArcRetour;
+        boolean aUnArcRetour;
+        String nom;
+
+        /**
+         * Construit la route décrite.
+         *
+         * @param aller l'arc aller.
+         * @param retour l'arc retour (éventuellement {@code null}).
+         * @return la route.
+         */
+        Route construire(Arc aller, Arc retour) {
+            return new Route(id, nom, aller, retour);
+        }
+    }
+
+    /**
+     * Description d'un point d'intérêt lu dont les arcs ne sont désignés que par leur identifiant.
+     */
+    static final class DescriptionPoI {
+
+        long id, idArc;
+        double positionRelative;
+        List<Long> idArcsAssociés = new ArrayList<>();
+        /**
+         * {@code true} pour un parking, {@code false} pour une station service
+         */
+        boolean parking;
+        String nom, entreprise;
+        short nbPlaces;
+
+        /**
+         * Construit le point d'intérêt décrit.
+         *
+         * @param c la carte contenant les arcs du point d'intérêt.
+         * @return le point d'intérêt.
+         * @throws XMLStreamException si le point d'intérêt fait référence à un arc inconnu.
+         */
+        PointDIntérêt construire(Carte c) throws XMLStreamException {
+            return construire(arcConnu(c, idArc), arcsAssociés(c));
+        }
+
+        /**
+         * Résout les arcs associés au point d'intérêt décrit.
+         *
+         * @param c la carte contenant les arcs.
+         * @return les arcs associés.
+         * @throws XMLStreamException si l'un des arcs est inconnu.
+         */
+        Arc[] arcsAssociés(Carte c) throws XMLStreamException {
+            Arc[] associés = new Arc[idArcsAssociés.size()];
+            for (int i = 0; i < associés.length; i++)
+                associés[i] = arcConnu(c, idArcsAssociés.get(i));
+            return associés;
+        }
+
+        /**
+         * Construit le point d'intérêt décrit à partir de ses arcs déjà résolus.
+         *
+         * @param arc l'arc sur lequel se situe le point d'intérêt.
+         * @param associés les arcs associés.
+         * @return le point d'intérêt.
+         */
+        PointDIntérêt construire(Arc arc, Arc[] associés) {
+            if (parking)
+                return new Parking(id, arc, positionRelative, nom, nbPlaces, associés);
+            return new StationService(id, arc, positionRelative, entreprise, associés);
+        }
+    }
+}
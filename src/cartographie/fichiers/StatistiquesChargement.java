@@ -0,0 +1,282 @@
+package cartographie.fichiers;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * La classe {@code StatistiquesChargement} mesure, phase par phase, le chargement d'une carte par un {@link LecteurXML} : durée, nombre d'éléments traités
+ * et octets alloués par le thread de chargement, ainsi que le nombre d'octets XML lus.
+ * <p>Le lecteur signale chaque changement de phase (voir {@link #basculer(Phase)}) : le temps et les allocations écoulés depuis le changement précédent sont
+ * attribués à la phase quittée. Les statistiques sont cumulées sur tous les chargements mesurés, jusqu'à leur remise à zéro. Elles peuvent être lues par
+ * programme ou publiées comme MBean (voir {@link #publier(String)}) ; une lecture pendant un chargement peut renvoyer des valeurs légèrement décalées.
+ *
+ * @author Charles Masson
+ */
+public class StatistiquesChargement implements StatistiquesChargementMXBean {
+
+    /**
+     * Les phases du chargement d'une carte.
+     */
+    public enum Phase {
+
+        /**
+         * lecture des événements XML situés entre les éléments
+         */
+        ANALYSE_XML,
+        /**
+         * lecture des noeuds et création des objets correspondants
+         */
+        LECTURE_NOEUDS,
+        /**
+         * lecture des arcs
+         */
+        LECTURE_ARCS,
+        /**
+         * construction des arcs et liaison avec leurs noeuds
+         */
+        CONSTRUCTION_ARCS,
+        /**
+         * lecture des routes
+         */
+        LECTURE_ROUTES,
+        /**
+         * construction des routes et liaison avec leurs arcs
+         */
+        LIAISON_ROUTES,
+        /**
+         * lecture des points d'intérêt
+         */
+        LECTURE_POINTS_D_INTÉRÊT,
+        /**
+         * construction des points d'intérêt et liaison avec leurs arcs
+         */
+        CONSTRUCTION_POINTS_D_INTÉRÊT,
+        /**
+         * insertion des éléments dans les ensembles de la carte (table des identifiants et maillage)
+         */
+        INSERTION_ENSEMBLES
+    }
+    /**
+     * interface de mesure des allocations, ou {@code null} si la machine virtuelle ne le permet pas
+     */
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = initialiserMesureAllocations();
+    /**
+     * durée, nombre d'éléments et octets alloués de chaque phase, indexés par numéro de phase
+     */
+    private final long[] durées = new long[Phase.values().length], nbÉléments = new long[Phase.values().length],
+            octetsAlloués = new long[Phase.values().length];
+    /**
+     * durée totale des chargements terminés et nombre d'octets lus
+     */
+    private long duréeTotale, octetsLus;
+    /**
+     * la phase en cours (ou {@code null} en dehors d'un chargement), l'instant de son début et les octets alloués à ce moment
+     */
+    private Phase phase;
+    private long débutPhase, allouésDébutPhase, débutChargement;
+
+    /**
+     * Renvoie l'interface de mesure des allocations par thread, si la machine virtuelle le permet.
+     *
+     * @return l'interface de mesure, ou {@code null}.
+     */
+    private static com.sun.management.ThreadMXBean initialiserMesureAllocations() {
+        ThreadMXBean t = ManagementFactory.getThreadMXBean();
+        if (!(t instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean a = (com.sun.management.ThreadMXBean) t;
+        if (!a.isThreadAllocatedMemorySupported())
+            return null;
+        a.setThreadAllocatedMemoryEnabled(true);
+        return a;
+    }
+
+    /**
+     * Renvoie le nombre d'octets alloués par le thread courant depuis son démarrage.
+     *
+     * @return le nombre d'octets alloués, ou 0 si la mesure n'est pas possible.
+     */
+    private static long octetsAllouésParLeThread() {
+        return ALLOCATIONS == null ? 0 : ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Commence la mesure d'un chargement, dans la phase {@link Phase#ANALYSE_XML}.
+     */
+    void démarrer() {
+        débutChargement = System.nanoTime();
+        phase = Phase.ANALYSE_XML;
+        débutPhase = débutChargement;
+        allouésDébutPhase = octetsAllouésParLeThread();
+    }
+
+    /**
+     * Termine la phase en cours et commence la phase spécifiée. Le nombre d'éléments de la nouvelle phase est incrémenté, sauf pour
+     * {@link Phase#ANALYSE_XML}. Les changements de phase en dehors d'un chargement mesuré sont ignorés.
+     *
+     * @param nouvellePhase la phase qui commence.
+     */
+    void basculer(Phase nouvellePhase) {
+        if (phase == null)
+            return;
+        long maintenant = System.nanoTime(), alloués = octetsAllouésParLeThread();
+        durées[phase.ordinal()] += maintenant - débutPhase;
+        octetsAlloués[phase.ordinal()] += alloués - allouésDébutPhase;
+        if (nouvellePhase != Phase.ANALYSE_XML)
+            nbÉléments[nouvellePhase.ordinal()]++;
+        phase = nouvellePhase;
+        débutPhase = maintenant;
+        allouésDébutPhase = alloués;
+    }
+
+    /**
+     * Termine la mesure d'un chargement.
+     */
+    void arrêter() {
+        basculer(Phase.ANALYSE_XML);
+        duréeTotale += débutPhase - débutChargement;
+        phase = null;
+    }
+
+    /**
+     * Renvoie un flux comptant les octets lus à partir du flux spécifié.
+     *
+     * @param flux le flux à lire.
+     * @return le flux comptant les octets lus.
+     */
+    InputStream compter(InputStream flux) {
+        return new FilterInputStream(flux) {
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0)
+                    octetsLus++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int début, int longueur) throws IOException {
+                int n = super.read(b, début, longueur);
+                if (n > 0)
+                    octetsLus += n;
+                return n;
+            }
+        };
+    }
+
+    /**
+     * Renvoie la durée d'une phase.
+     *
+     * @param p une phase.
+     * @return la durée de la phase en nanosecondes.
+     */
+    public long getDurée(Phase p) {
+        return durées[p.ordinal()];
+    }
+
+    /**
+     * Renvoie le nombre d'éléments traités par une phase.
+     *
+     * @param p une phase.
+     * @return le nombre d'éléments.
+     */
+    public long getNbÉléments(Phase p) {
+        return nbÉléments[p.ordinal()];
+    }
+
+    /**
+     * Renvoie le nombre d'octets alloués par une phase.
+     *
+     * @param p une phase.
+     * @return le nombre d'octets alloués, ou -1 si la machine virtuelle ne permet pas de le mesurer.
+     */
+    public long getOctetsAlloués(Phase p) {
+        return ALLOCATIONS == null ? -1 : octetsAlloués[p.ordinal()];
+    }
+
+    @Override
+    public long getDuréeTotale() {
+        return duréeTotale;
+    }
+
+    @Override
+    public long getOctetsLus() {
+        return octetsLus;
+    }
+
+    @Override
+    public Map<String, Long> getDurées() {
+        return parPhase(durées);
+    }
+
+    @Override
+    public Map<String, Long> getNbÉléments() {
+        return parPhase(nbÉléments);
+    }
+
+    @Override
+    public Map<String, Long> getOctetsAlloués() {
+        return ALLOCATIONS == null ? parPhase(new long[durées.length], -1) : parPhase(octetsAlloués);
+    }
+
+    @Override
+    public void réinitialiser() {
+        for (int i = 0; i < durées.length; i++)
+            durées[i] = nbÉléments[i] = octetsAlloués[i] = 0;
+        duréeTotale = octetsLus = 0;
+    }
+
+    /**
+     * Associe une valeur à chaque nom de phase.
+     *
+     * @param valeurs les valeurs, indexées par numéro de phase.
+     * @return les valeurs indexées par nom de phase, dans l'ordre des phases.
+     */
+    private static Map<String, Long> parPhase(long[] valeurs) {
+        return parPhase(valeurs, 0);
+    }
+
+    /**
+     * Associe une valeur à chaque nom de phase, en ajoutant une constante.
+     *
+     * @param valeurs les valeurs, indexées par numéro de phase.
+     * @param décalage la constante ajoutée à chaque valeur.
+     * @return les valeurs indexées par nom de phase, dans l'ordre des phases.
+     */
+    private static Map<String, Long> parPhase(long[] valeurs, long décalage) {
+        Map<String, Long> m = new LinkedHashMap<>();
+        for (Phase p : Phase.values())
+            m.put(p.name(), valeurs[p.ordinal()] + décalage);
+        return m;
+    }
+
+    /**
+     * Publie ces statistiques dans le serveur de MBeans de la plateforme, sous le nom {@code cartographie:type=StatistiquesChargement,name=<nom>}.
+     *
+     * @param nom le nom distinguant ces statistiques (par exemple le nom de la carte).
+     * @return le nom JMX sous lequel les statistiques sont publiées.
+     * @throws JMException si la publication échoue (par exemple si le nom est déjà utilisé).
+     */
+    public ObjectName publier(String nom) throws JMException {
+        ObjectName n = ObjectName.getInstance("cartographie:type=StatistiquesChargement,name=" + ObjectName.quote(nom));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, n);
+        return n;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("StatistiquesChargement{durée=" + duréeTotale / 1000000 + " ms, octetsLus=" + octetsLus);
+        for (Phase p : Phase.values())
+            s.append(", ").append(p).append("=[").append(nbÉléments[p.ordinal()]).append(" éléments, ").append(durées[p.ordinal()] / 1000000)
+                    .append(" ms, ").append(getOctetsAlloués(p)).append(" o]");
+        return s.append('}').toString();
+    }
+}
@@ -0,0 +1,52 @@
+package cartographie.fichiers;
+
+import java.util.Map;
+
+/**
+ * L'interface {@code StatistiquesChargementMXBean} définit les attributs JMX des statistiques de chargement d'une carte (voir
+ * {@link StatistiquesChargement}). Les attributs par phase sont indexés par le nom de la phase.
+ *
+ * @author Charles Masson
+ */
+public interface StatistiquesChargementMXBean {
+
+    /**
+     * Renvoie la durée totale des chargements.
+     *
+     * @return la durée en nanosecondes.
+     */
+    public long getDuréeTotale();
+
+    /**
+     * Renvoie le nombre d'octets XML lus.
+     *
+     * @return le nombre d'octets lus (après décompression).
+     */
+    public long getOctetsLus();
+
+    /**
+     * Renvoie la durée de chaque phase.
+     *
+     * @return la durée de chaque phase en nanosecondes.
+     */
+    public Map<String, Long> getDurées();
+
+    /**
+     * Renvoie le nombre d'éléments traités par chaque phase.
+     *
+     * @return le nombre d'éléments de chaque phase.
+     */
+    public Map<String, Long> getNbÉléments();
+
+    /**
+     * Renvoie le nombre d'octets alloués par chaque phase, ou -1 si la machine virtuelle ne permet pas de le mesurer.
+     *
+     * @return le nombre d'octets alloués par chaque phase.
+     */
+    public Map<String, Long> getOctetsAlloués();
+
+    /**
+     * Remet les statistiques à zéro.
+     */
+    public void réinitialiser();
+}
@@ -0,0 +1,154 @@
+package cartographie.fichiers;
+
+import cartographie.Carte;
+import cartographie.positionnementGéographique.Angle;
+import cartographie.positionnementGéographique.Point;
+import cartographie.éléments.Arc;
+import cartographie.éléments.Noeud;
+import cartographie.éléments.PointDIntérêt;
+import cartographie.éléments.Route;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * La classe {@code ÉcrivainXML} enregistre les éléments d'une carte dans un flux XML, au fur et à mesure et sans construire de document DOM.
+ * <p>Chaque élément est directement écrit dans le flux (voir {@link XMLStreamWriter}) : la mémoire utilisée ne dépend pas du nombre d'éléments enregistrés.
+ * Le format produit est celui lu par {@link LecteurXML}.
+ *
+ * @author Charles Masson
+ */
+public class ÉcrivainXML {
+
+    /**
+     * fabrique partagée des écrivains StAX
+     */
+    private static final XMLOutputFactory FABRIQUE = XMLOutputFactory.newInstance();
+    /**
+     * la carte dont les éléments sont enregistrés
+     */
+    private final Carte carte;
+
+    /**
+     * Construit un écrivain enregistrant les éléments de la carte spécifiée.
+     *
+     * @param carte la carte à enregistrer.
+     */
+    public ÉcrivainXML(Carte carte) {
+        this.carte = carte;
+    }
+
+    /**
+     * Crée un écrivain StAX encodé en UTF-8 sur le flux spécifié.
+     *
+     * @param flux le flux dans lequel écrire (il est préférable qu'il soit bufferisé).
+     * @return l'écrivain StAX.
+     * @throws XMLStreamException si l'écrivain ne peut pas être créé.
+     */
+    static XMLStreamWriter créerÉcrivain(OutputStream flux) throws XMLStreamException {
+        return FABRIQUE.createXMLStreamWriter(flux, "UTF-8");
+    }
+
+    /**
+     * Écrit un élément ne contenant que du texte.
+     *
+     * @param w l'écrivain StAX.
+     * @param nom le nom de l'élément.
+     * @param texte le contenu de l'élément ; l'élément est écrit vide si le texte est {@code null}.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public static void écrireÉlément(XMLStreamWriter w, String nom, String texte) throws XMLStreamException {
+        w.writeStartElement(nom);
+        if (texte != null)
+            w.writeCharacters(texte);
+        w.writeEndElement();
+    }
+
+    /**
+     * Écrit un angle en degrés décimaux, sous la forme d'un élément contenant un unique élément {@code degrés}.
+     *
+     * @param w l'écrivain StAX.
+     * @param nom le nom de l'élément ({@code latitude} ou {@code longitude}).
+     * @param a l'angle à écrire.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public static void écrireAngle(XMLStreamWriter w, String nom, Angle a) throws XMLStreamException {
+        w.writeStartElement(nom);
+        écrireÉlément(w, "degrés", String.valueOf(a.getValeurDegrés()));
+        w.writeEndElement();
+    }
+
+    /**
+     * Écrit la latitude et la longitude d'un point.
+     *
+     * @param w l'écrivain StAX.
+     * @param p le point à écrire.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public static void écrireCoordonnées(XMLStreamWriter w, Point p) throws XMLStreamException {
+        écrireAngle(w, "latitude", p.getLatitude());
+        écrireAngle(w, "longitude", p.getLongitude());
+    }
+
+    /**
+     * Enregistre les noeuds, arcs et routes de la carte dans le flux spécifié, dans le format lu par {@link LecteurXML#chargerCarte(InputStream)}. Le flux
+     * n'est pas fermé.
+     *
+     * @param flux le flux dans lequel écrire (il est préférable qu'il soit bufferisé).
+     * @param géométrieCodée {@code true} pour écrire les shape-points des arcs composés sous forme de polyligne codée (plus compacte mais arrondie au
+     * millionième de degré), {@code false} pour les écrire en degrés.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public void enregistrerCarte(OutputStream flux, boolean géométrieCodée) throws XMLStreamException {
+        enregistrerCarte(flux, carte.getNoeuds(), carte.getArcs(), carte.getRoutes(), géométrieCodée);
+    }
+
+    /**
+     * Enregistre des noeuds, arcs et routes dans le flux spécifié, dans le format lu par {@link LecteurXML#chargerCarte(InputStream)}. Les noeuds sont
+     * écrits avant les arcs, et les arcs avant les routes. Le flux n'est pas fermé.
+     *
+     * @param flux le flux dans lequel écrire (il est préférable qu'il soit bufferisé).
+     * @param noeuds les noeuds à écrire.
+     * @param arcs les arcs à écrire.
+     * @param routes les routes à écrire.
+     * @param géométrieCodée {@code true} pour écrire les shape-points des arcs composés sous forme de polyligne codée, {@code false} pour les écrire en
+     * degrés.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public static void enregistrerCarte(OutputStream flux, Iterable<Noeud> noeuds, Iterable<Arc> arcs, Iterable<Route> routes, boolean géométrieCodée)
+            throws XMLStreamException {
+        XMLStreamWriter w = créerÉcrivain(flux);
+        w.writeStartDocument("UTF-8", "1.0");
+        w.writeStartElement("carte");
+        for (Noeud n : noeuds)
+            n.écrireXML(w);
+        for (Arc a : arcs)
+            a.écrireXML(w, géométrieCodée);
+        for (Route r : routes)
+            r.écrireXML(w);
+        w.writeEndElement();
+        w.writeEndDocument();
+        w.flush();
+        w.close();
+    }
+
+    /**
+     * Enregistre les points d'intérêt de la carte dans le flux spécifié. Le flux n'est pas fermé.
+     *
+     * @param flux le flux dans lequel écrire (il est préférable qu'il soit bufferisé).
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public void enregistrerPoI(OutputStream flux) throws XMLStreamException {
+        XMLStreamWriter w = créerÉcrivain(flux);
+        w.writeStartDocument("UTF-8", "1.0");
+        w.writeStartElement("pointsdintérêt");
+        for (PointDIntérêt p : carte.getPoIs())
+            p.écrireXML(w);
+        w.writeEndElement();
+        w.writeEndDocument();
+        w.flush();
+        w.close();
+    }
+}
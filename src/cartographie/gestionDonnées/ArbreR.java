@@ -0,0 +1,544 @@
+package cartographie.gestionDonnées;
+
+import cartographie.positionnementGéographique.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * La classe {@code ArbreR} représente un index spatial sous forme de R-arbre construit en bloc par la méthode Sort-Tile-Recursive (STR) : les éléments sont
+ * triés selon la latitude du centre de leur zone, découpés en tranches, chaque tranche est triée selon la longitude puis découpée en groupes formant les
+ * feuilles, et l'opération est répétée sur les noeuds de chaque niveau jusqu'à la racine. Contrairement au maillage uniforme, la structure s'adapte à la
+ * densité des éléments et chaque élément n'est stocké qu'une fois, quelle que soit la taille de sa zone.
+ * <p>L'arbre est stocké niveau par niveau dans des tableaux (quatre bornes en radians par noeud), sans objet par noeud. Les ajouts et retraits effectués
+ * après la construction sont mis en attente : les éléments ajoutés sont parcourus séquentiellement lors des recherches, les éléments retirés sont filtrés,
+ * et l'arbre est reconstruit lors de la première recherche suivant un nombre suffisant de modifications. L'index convient donc surtout aux ensembles
+ * peu modifiés, comme les éléments d'une carte chargée. Les méthodes sont synchronisées, la reconstruction pouvant avoir lieu lors d'une recherche.
+ *
+ * @author Charles Masson
+ * @param <T> le type des éléments indexés.
+ */
+public class ArbreR<T extends Localisable> implements IndexSpatial<T> {
+
+    /**
+     * nombre maximal d'enfants d'un noeud utilisé par défaut
+     */
+    public static final int CAPACITÉ_PAR_DÉFAUT = 16;
+    /**
+     * nombre de modifications en attente au-delà duquel l'arbre est reconstruit
+     */
+    private static final int SEUIL_RECONSTRUCTION = 256;
+    /**
+     * indices des bornes d'un noeud dans les tableaux de bornes
+     */
+    private static final int LAT_MIN = 0, LAT_MAX = 1, LONG_MIN = 2, LONG_MAX = 3;
+    /**
+     * nombre maximal d'enfants d'un noeud
+     */
+    private final int capacité;
+    /**
+     * les éléments de l'arbre, dans l'ordre des feuilles
+     */
+    private Object[] éléments;
+    /**
+     * bornes des noeuds de chaque niveau : le niveau 0 correspond aux éléments, le dernier niveau à la racine
+     */
+    private double[][] bornes;
+    /**
+     * indice du premier enfant de chaque noeud des niveaux supérieurs à 0 (l'enfant est dans le niveau inférieur)
+     */
+    private int[][] premiersEnfants;
+    /**
+     * éléments ajoutés depuis la dernière construction
+     */
+    private final List<T> ajoutés = new ArrayList<>();
+    /**
+     * éléments de l'arbre retirés depuis la dernière construction
+     */
+    private final Set<T> retirés = new HashSet<>();
+
+    /**
+     * Construit un R-arbre vide, avec la capacité de noeud par défaut.
+     */
+    public ArbreR() {
+        this(CAPACITÉ_PAR_DÉFAUT);
+    }
+
+    /**
+     * Construit un R-arbre vide.
+     *
+     * @param capacité le nombre maximal d'enfants d'un noeud (au moins 2).
+     */
+    public ArbreR(int capacité) {
+        if (capacité < 2)
+            throw new IllegalArgumentException("Capacité de noeud invalide : " + capacité);
+        this.capacité = capacité;
+        construire(new ArrayList<T>());
+    }
+
+    /**
+     * Construit un R-arbre contenant les éléments spécifiés, avec la capacité de noeud par défaut.
+     *
+     * @param éléments les éléments à indexer.
+     */
+    public ArbreR(Collection<? extends T> éléments) {
+        this(CAPACITÉ_PAR_DÉFAUT);
+        construire(new ArrayList<T>(éléments));
+    }
+
+    @Override
+    public synchronized void ajouterÉlément(T élément) {
+        ajoutés.add(élément);
+    }
+
+    @Override
+    public synchronized void retirerÉlément(T élément) {
+        // Un élément en attente peut aussi avoir un exemplaire, déjà retiré, dans l'arbre (cas d'un élément déplacé)
+        if (!ajoutés.remove(élément))
+            retirés.add(élément);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>L'élément est retiré puis ajouté à nouveau ; sa place dans l'arbre n'est mise à jour que lors de la reconstruction suivante. Pour des éléments
+     * déplacés fréquemment, un maillage est préférable.
+     */
+    @Override
+    public synchronized void déplacerÉlément(T élément, Zone ancienneZone) {
+        retirerÉlément(élément);
+        ajoutés.add(élément);
+    }
+
+    @Override
+    public Set<T> getÉlémentsDansZone(Zone z) {
+        final Set<T> résultat = new HashSet<>();
+        parcourir(z, true, new Consumer<T>() {
+
+            @Override
+            public void accept(T élément) {
+                résultat.add(élément);
+            }
+        });
+        return résultat;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Les éléments parcourus sont toujours ceux dont la zone intersecte la zone spécifiée.
+     */
+    @Override
+    public synchronized void parcourir(Zone z, boolean intersectionExacte, Consumer<? super T> action) {
+        if (ajoutés.size() + retirés.size() > SEUIL_RECONSTRUCTION)
+            reconstruire();
+        double latMin = z.getLatitudeMinRadians(), latMax = z.getLatitudeMaxRadians();
+        double longMin = z.getLongitudeMinRadians(), longMax = z.getLongitudeMaxRadians();
+        if (éléments.length > 0)
+            chercher(bornes.length - 1, 0, latMin, latMax, longMin, longMax, action);
+        for (T élément : ajoutés)
+            if (intersecte(élément.calculerZone(), latMin, latMax, longMin, longMax))
+                action.accept(élément);
+    }
+
+    /**
+     * Indique si une zone intersecte une zone donnée par ses bornes.
+     *
+     * @param z une zone.
+     * @param latMin latitude minimale, en radians.
+     * @param latMax latitude maximale, en radians.
+     * @param longMin longitude minimale, en radians.
+     * @param longMax longitude maximale, en radians.
+     * @return {@code true} si les zones s'intersectent.
+     */
+    private static boolean intersecte(Zone z, double latMin, double latMax, double longMin, double longMax) {
+        return z.getLatitudeMinRadians() <= latMax && z.getLatitudeMaxRadians() >= latMin
+                && z.getLongitudeMinRadians() <= longMax && z.getLongitudeMaxRadians() >= longMin;
+    }
+
+    /**
+     * Applique une action aux éléments du sous-arbre d'un noeud dont la zone intersecte la zone recherchée.
+     *
+     * @param niveau le niveau du noeud.
+     * @param noeud l'indice du noeud dans son niveau.
+     * @param latMin latitude minimale de la zone recherchée, en radians.
+     * @param latMax latitude maximale de la zone recherchée, en radians.
+     * @param longMin longitude minimale de la zone recherchée, en radians.
+     * @param longMax longitude maximale de la zone recherchée, en radians.
+     * @param action l'action à appliquer aux éléments trouvés.
+     */
+    @SuppressWarnings("unchecked")
+    private void chercher(int niveau, int noeud, double latMin, double latMax, double longMin, double longMax, Consumer<? super T> action) {
+        double[] b = bornes[niveau];
+        int k = 4 * noeud;
+        if (b[k + LAT_MIN] > latMax || b[k + LAT_MAX] < latMin || b[k + LONG_MIN] > longMax || b[k + LONG_MAX] < longMin)
+            return;
+        if (niveau == 0) {
+            T élément = (T) éléments[noeud];
+            if (retirés.isEmpty() || !retirés.contains(élément))
+                action.accept(élément);
+            return;
+        }
+        int début = premiersEnfants[niveau][noeud], fin = Math.min(début + capacité, bornes[niveau - 1].length / 4);
+        for (int enfant = début; enfant < fin; enfant++)
+            chercher(niveau - 1, enfant, latMin, latMax, longMin, longMax, action);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Les éléments parcourus sont toujours ceux dont la zone intersecte la zone spécifiée. Le parcours n'est pas divisible et n'est pas synchronisé :
+     * l'arbre ne doit pas être modifié ni reconstruit pendant le parcours.
+     */
+    @Override
+    public synchronized Spliterator<T> spliterator(Zone z, boolean intersectionExacte) {
+        if (ajoutés.size() + retirés.size() > SEUIL_RECONSTRUCTION)
+            reconstruire();
+        return new Parcours(z);
+    }
+
+    /**
+     * La classe {@code Parcours} parcourt en profondeur les noeuds de l'arbre intersectant une zone, à l'aide d'une pile explicite, puis les éléments en
+     * attente d'ajout.
+     */
+    private final class Parcours implements Spliterator<T> {
+
+        /**
+         * bornes de la zone parcourue, en radians
+         */
+        private final double latMin, latMax, longMin, longMax;
+        /**
+         * niveaux et indices des noeuds restant à explorer
+         */
+        private final int[] niveaux, noeuds;
+        /**
+         * nombre de noeuds dans la pile
+         */
+        private int taillePile;
+        /**
+         * indice du prochain élément en attente d'ajout à examiner
+         */
+        private int ajout;
+
+        Parcours(Zone z) {
+            latMin = z.getLatitudeMinRadians();
+            latMax = z.getLatitudeMaxRadians();
+            longMin = z.getLongitudeMinRadians();
+            longMax = z.getLongitudeMaxRadians();
+            // Chaque niveau parcouru empile au plus les enfants d'un noeud
+            niveaux = new int[capacité * bornes.length + 1];
+            noeuds = new int[niveaux.length];
+            if (éléments.length > 0)
+                empiler(bornes.length - 1, 0);
+        }
+
+        /**
+         * Empile un noeud s'il intersecte la zone parcourue.
+         *
+         * @param niveau le niveau du noeud.
+         * @param noeud l'indice du noeud dans son niveau.
+         */
+        private void empiler(int niveau, int noeud) {
+            double[] b = bornes[niveau];
+            int k = 4 * noeud;
+            if (b[k + LAT_MIN] > latMax || b[k + LAT_MAX] < latMin || b[k + LONG_MIN] > longMax || b[k + LONG_MAX] < longMin)
+                return;
+            niveaux[taillePile] = niveau;
+            noeuds[taillePile++] = noeud;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (taillePile > 0) {
+                int niveau = niveaux[--taillePile], noeud = noeuds[taillePile];
+                if (niveau == 0) {
+                    T élément = (T) éléments[noeud];
+                    if (retirés.isEmpty() || !retirés.contains(élément)) {
+                        action.accept(élément);
+                        return true;
+                    }
+                    continue;
+                }
+                int début = premiersEnfants[niveau][noeud], fin = Math.min(début + capacité, bornes[niveau - 1].length / 4);
+                for (int enfant = fin - 1; enfant >= début; enfant--)
+                    empiler(niveau - 1, enfant);
+            }
+            while (ajout < ajoutés.size()) {
+                T élément = ajoutés.get(ajout++);
+                if (intersecte(élément.calculerZone(), latMin, latMax, longMin, longMax)) {
+                    action.accept(élément);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Les noeuds de l'arbre sont explorés par minorant croissant de la distance de leur zone au point ; les éléments en attente d'ajout sont mesurés
+     * dès le début de la recherche.
+     */
+    @Override
+    public synchronized List<T> kPlusProches(Point p, int k, MesureDeDistance<? super T> mesure) {
+        if (ajoutés.size() + retirés.size() > SEUIL_RECONSTRUCTION)
+            reconstruire();
+        RechercheDesPlusProches<T> recherche = new RechercheDesPlusProches<>(p, k, mesure);
+        for (T élément : ajoutés)
+            recherche.ajouterÉlément(élément);
+        if (éléments.length > 0)
+            ajouterNoeud(recherche, bornes.length - 1, 0);
+        for (Object région; (région = recherche.suivante(Double.POSITIVE_INFINITY)) != null;) {
+            long noeud = (Long) région;
+            int niveau = (int) (noeud >> 32), indice = (int) noeud;
+            int début = premiersEnfants[niveau][indice], fin = Math.min(début + capacité, bornes[niveau - 1].length / 4);
+            for (int enfant = début; enfant < fin; enfant++)
+                ajouterNoeud(recherche, niveau - 1, enfant);
+        }
+        return recherche.getRésultat();
+    }
+
+    /**
+     * Ajoute un noeud de l'arbre à la file d'une recherche des plus proches éléments. Un noeud du niveau 0 est directement ajouté comme élément, sauf s'il
+     * a été retiré.
+     *
+     * @param recherche la recherche.
+     * @param niveau le niveau du noeud.
+     * @param noeud l'indice du noeud dans son niveau.
+     */
+    @SuppressWarnings("unchecked")
+    private void ajouterNoeud(RechercheDesPlusProches<T> recherche, int niveau, int noeud) {
+        if (niveau == 0) {
+            T élément = (T) éléments[noeud];
+            if (retirés.isEmpty() || !retirés.contains(élément))
+                recherche.ajouterÉlément(élément);
+            return;
+        }
+        double[] b = bornes[niveau];
+        int k = 4 * noeud;
+        recherche.ajouterRégion(recherche.minorant(b[k + LAT_MIN], b[k + LAT_MAX], b[k + LONG_MIN], b[k + LONG_MAX]), (long) niveau << 32 | noeud);
+    }
+
+    /**
+     * Renvoie le nombre d'éléments de l'index.
+     *
+     * @return le nombre d'éléments.
+     */
+    public synchronized int getNbÉléments() {
+        return éléments.length - retirés.size() + ajoutés.size();
+    }
+
+    /**
+     * Renvoie la hauteur de l'arbre construit (nombre de niveaux au-dessus des éléments), sans tenir compte des modifications en attente.
+     *
+     * @return la hauteur de l'arbre.
+     */
+    public synchronized int getHauteur() {
+        return bornes.length - 1;
+    }
+
+    /**
+     * Reconstruit l'arbre en intégrant les modifications en attente. Les bornes des éléments déjà présents dans l'arbre sont réutilisées ; seules les
+     * zones des éléments ajoutés depuis la dernière construction sont calculées.
+     */
+    public synchronized void reconstruire() {
+        reconstruire(new ArrayList<T>(), new double[0]);
+    }
+
+    /**
+     * Reconstruit l'arbre en intégrant les modifications en attente et des éléments supplémentaires dont les bornes sont connues.
+     *
+     * @param nouveaux les éléments supplémentaires.
+     * @param bornesNouveaux les bornes des éléments supplémentaires (quatre valeurs par élément).
+     */
+    @SuppressWarnings("unchecked")
+    private void reconstruire(List<? extends T> nouveaux, double[] bornesNouveaux) {
+        List<T> tous = new ArrayList<>(éléments.length - retirés.size() + nouveaux.size() + ajoutés.size());
+        double[] b = new double[4 * (éléments.length + nouveaux.size())];
+        for (int k = 0; k < éléments.length; k++)
+            if (!retirés.contains(éléments[k])) {
+                System.arraycopy(bornes[0], 4 * k, b, 4 * tous.size(), 4);
+                tous.add((T) éléments[k]);
+            }
+        System.arraycopy(bornesNouveaux, 0, b, 4 * tous.size(), 4 * nouveaux.size());
+        tous.addAll(nouveaux);
+        int connus = tous.size();
+        tous.addAll(ajoutés);
+        construire(tous, b, connus);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>L'arbre est reconstruit immédiatement, sans calculer la zone des éléments ajoutés ni celle des éléments déjà présents.
+     */
+    @Override
+    public synchronized void ajouterÉléments(List<? extends T> nouveaux, double[] bornes) {
+        reconstruire(nouveaux, bornes);
+    }
+
+    /**
+     * Construit l'arbre contenant les éléments spécifiés et vide les modifications en attente.
+     *
+     * @param liste les éléments de l'arbre.
+     */
+    private void construire(List<T> liste) {
+        construire(liste, new double[0], 0);
+    }
+
+    /**
+     * Construit l'arbre contenant les éléments spécifiés et vide les modifications en attente. Les bornes des premiers éléments sont connues ; les zones
+     * des suivants sont calculées.
+     *
+     * @param liste les éléments de l'arbre.
+     * @param connues les bornes des premiers éléments de la liste (quatre valeurs par élément).
+     * @param nbConnus le nombre d'éléments dont les bornes sont connues.
+     */
+    private void construire(List<T> liste, double[] connues, int nbConnus) {
+        ajoutés.clear();
+        retirés.clear();
+        int n = liste.size();
+        Object[] élts = liste.toArray();
+        double[] b = new double[4 * n];
+        System.arraycopy(connues, 0, b, 0, 4 * nbConnus);
+        for (int i = nbConnus; i < n; i++) {
+            Zone z = ((Localisable) élts[i]).calculerZone();
+            b[4 * i + LAT_MIN] = z.getLatitudeMinRadians();
+            b[4 * i + LAT_MAX] = z.getLatitudeMaxRadians();
+            b[4 * i + LONG_MIN] = z.getLongitudeMinRadians();
+            b[4 * i + LONG_MAX] = z.getLongitudeMaxRadians();
+        }
+
+        List<double[]> niveaux = new ArrayList<>();
+        List<int[]> enfants = new ArrayList<>();
+        int[] premiers = null;
+        while (true) {
+            // Tri STR du niveau courant, qui détermine le regroupement en noeuds du niveau supérieur
+            int[] ordre = ordreSTR(b, n);
+            b = permuter(b, ordre);
+            if (premiers == null)
+                élts = permuter(élts, ordre);
+            else
+                premiers = permuter(premiers, ordre);
+            niveaux.add(b);
+            enfants.add(premiers);
+            if (n <= 1)
+                break;
+
+            // Niveau supérieur : un noeud par groupe de noeuds consécutifs
+            int m = (n + capacité - 1) / capacité;
+            double[] parents = new double[4 * m];
+            premiers = new int[m];
+            for (int p = 0; p < m; p++) {
+                int début = p * capacité, fin = Math.min(début + capacité, n);
+                premiers[p] = début;
+                parents[4 * p + LAT_MIN] = parents[4 * p + LONG_MIN] = Double.POSITIVE_INFINITY;
+                parents[4 * p + LAT_MAX] = parents[4 * p + LONG_MAX] = Double.NEGATIVE_INFINITY;
+                for (int e = début; e < fin; e++) {
+                    parents[4 * p + LAT_MIN] = Math.min(parents[4 * p + LAT_MIN], b[4 * e + LAT_MIN]);
+                    parents[4 * p + LAT_MAX] = Math.max(parents[4 * p + LAT_MAX], b[4 * e + LAT_MAX]);
+                    parents[4 * p + LONG_MIN] = Math.min(parents[4 * p + LONG_MIN], b[4 * e + LONG_MIN]);
+                    parents[4 * p + LONG_MAX] = Math.max(parents[4 * p + LONG_MAX], b[4 * e + LONG_MAX]);
+                }
+            }
+            b = parents;
+            n = m;
+        }
+        éléments = élts;
+        bornes = niveaux.toArray(new double[niveaux.size()][]);
+        premiersEnfants = enfants.toArray(new int[enfants.size()][]);
+    }
+
+    /**
+     * Calcule l'ordre Sort-Tile-Recursive des noeuds d'un niveau : tri selon la latitude du centre, découpage en tranches verticales d'environ
+     * √(n / capacité) noeuds parents chacune, puis tri de chaque tranche selon la longitude du centre.
+     *
+     * @param b les bornes des noeuds.
+     * @param n le nombre de noeuds.
+     * @return les indices des noeuds dans leur nouvel ordre.
+     */
+    private int[] ordreSTR(final double[] b, int n) {
+        Integer[] ordre = new Integer[n];
+        for (int i = 0; i < n; i++)
+            ordre[i] = i;
+        Arrays.sort(ordre, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i, Integer j) {
+                return Double.compare(b[4 * i + LAT_MIN] + b[4 * i + LAT_MAX], b[4 * j + LAT_MIN] + b[4 * j + LAT_MAX]);
+            }
+        });
+        int nbParents = (n + capacité - 1) / capacité;
+        int tailleTranche = (int) Math.ceil(Math.sqrt(nbParents)) * capacité;
+        for (int début = 0; début < n; début += tailleTranche)
+            Arrays.sort(ordre, début, Math.min(début + tailleTranche, n), new Comparator<Integer>() {
+                @Override
+                public int compare(Integer i, Integer j) {
+                    return Double.compare(b[4 * i + LONG_MIN] + b[4 * i + LONG_MAX], b[4 * j + LONG_MIN] + b[4 * j + LONG_MAX]);
+                }
+            });
+        int[] résultat = new int[n];
+        for (int i = 0; i < n; i++)
+            résultat[i] = ordre[i];
+        return résultat;
+    }
+
+    /**
+     * Réordonne des bornes de noeuds.
+     *
+     * @param b les bornes (quatre valeurs par noeud).
+     * @param ordre les indices des noeuds dans leur nouvel ordre.
+     * @return les bornes réordonnées.
+     */
+    private static double[] permuter(double[] b, int[] ordre) {
+        double[] r = new double[b.length];
+        for (int i = 0; i < ordre.length; i++)
+            System.arraycopy(b, 4 * ordre[i], r, 4 * i, 4);
+        return r;
+    }
+
+    /**
+     * Réordonne des entiers.
+     *
+     * @param t les entiers.
+     * @param ordre les indices des entiers dans leur nouvel ordre.
+     * @return les entiers réordonnés.
+     */
+    private static int[] permuter(int[] t, int[] ordre) {
+        int[] r = new int[t.length];
+        for (int i = 0; i < ordre.length; i++)
+            r[i] = t[ordre[i]];
+        return r;
+    }
+
+    /**
+     * Réordonne des objets.
+     *
+     * @param t les objets.
+     * @param ordre les indices des objets dans leur nouvel ordre.
+     * @return les objets réordonnés.
+     */
+    private static Object[] permuter(Object[] t, int[] ordre) {
+        Object[] r = new Object[t.length];
+        for (int i = 0; i < ordre.length; i++)
+            r[i] = t[ordre[i]];
+        return r;
+    }
+}
@@ -0,0 +1,111 @@
+package cartographie.gestionDonnées;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * La classe {@code CourbeDeHilbert} permet d'ordonner des éléments localisables le long d'une courbe de Hilbert couvrant la surface de la Terre (en
+ * coordonnées latitude-longitude). Deux éléments proches sur la courbe sont proches géographiquement : parcourir des éléments dans cet ordre améliore la
+ * localité des accès mémoire lors des parcours de zones.
+ *
+ * @author Charles Masson
+ */
+public final class CourbeDeHilbert {
+
+    /**
+     * nombre de bits de chaque coordonnée : la courbe couvre une grille de 2<sup>31</sup> × 2<sup>31</sup> cases
+     */
+    private static final int ORDRE = 31;
+
+    /**
+     * Constructeur privé : la classe ne contient que des méthodes statiques.
+     */
+    private CourbeDeHilbert() {
+    }
+
+    /**
+     * Renvoie la position d'un point sur la courbe de Hilbert.
+     *
+     * @param latitude la latitude du point, en radians.
+     * @param longitude la longitude du point, en radians.
+     * @return la position du point sur la courbe, entre 0 et 2<sup>62</sup> - 1.
+     */
+    public static long indice(double latitude, double longitude) {
+        long n = 1L << ORDRE;
+        long x = Math.max(0, Math.min(n - 1, (long) ((longitude + Math.PI) / (2 * Math.PI) * n)));
+        long y = Math.max(0, Math.min(n - 1, (long) ((latitude + Math.PI / 2) / Math.PI * n)));
+        long d = 0;
+        for (long s = n >> 1; s > 0; s >>= 1) {
+            int rx = (x & s) != 0 ? 1 : 0, ry = (y & s) != 0 ? 1 : 0;
+            d += s * s * ((3 * rx) ^ ry);
+
+            // Rotation du quadrant, pour que la suite de la courbe y soit parcourue dans le bon sens
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = n - 1 - x;
+                    y = n - 1 - y;
+                }
+                long t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Renvoie la position du centre d'une zone sur la courbe de Hilbert.
+     *
+     * @param z une zone.
+     * @return la position du centre de la zone sur la courbe.
+     */
+    public static long indice(Zone z) {
+        return indice((z.getLatitudeMinRadians() + z.getLatitudeMaxRadians()) / 2,
+                (z.getLongitudeMinRadians() + z.getLongitudeMaxRadians()) / 2);
+    }
+
+    /**
+     * Trie des éléments selon la position du centre de leur zone sur la courbe de Hilbert. La zone de chaque élément n'est calculée qu'une fois.
+     *
+     * @param <T> le type des éléments.
+     * @param éléments les éléments à trier.
+     * @return une liste des éléments, dans l'ordre de la courbe.
+     */
+    public static <T extends Localisable> List<T> trier(Collection<? extends T> éléments) {
+        Position[] positions = new Position[éléments.size()];
+        int n = 0;
+        for (T élément : éléments)
+            positions[n++] = new Position(indice(élément.calculerZone()), élément);
+        Arrays.sort(positions, 0, n, new Comparator<Position>() {
+
+            @Override
+            public int compare(Position p1, Position p2) {
+                return Long.compare(p1.indice, p2.indice);
+            }
+        });
+        List<T> triés = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            T élément = (T) positions[i].élément;
+            triés.add(élément);
+        }
+        return triés;
+    }
+
+    /**
+     * La classe {@code Position} associe un élément à sa position sur la courbe, le temps du tri.
+     */
+    private static final class Position {
+
+        final long indice;
+        final Object élément;
+
+        Position(long indice, Object élément) {
+            this.indice = indice;
+            this.élément = élément;
+        }
+    }
+}
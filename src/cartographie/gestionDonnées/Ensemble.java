@@ -1,14 +1,33 @@
 package cartographie.gestionDonnées;
 
+import cartographie.positionnementGéographique.Latitude;
+import cartographie.positionnementGéographique.Longitude;
 import cartographie.positionnementGéographique.Point;
 import cartographie.positionnementGéographique.Terre;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * La clase {@code Ensemble} représente un ensemble d'éléments identifiables et localisables. La structure de l'ensemble tire donc profit de ces deux
  * caractéristiques. Les éléments de l'objet sont simultanément stockés dans un ensemble d'identifiables et un ensemble de localisables et la classe regroupe
  * les méthodes des deux classes {@link EnsembleDIdentifiables} et {@link EnsembleDeLocalisables}.
+ * <p>L'index spatial utilisé pour les recherches par zone est par défaut un maillage uniforme ({@link EnsembleDeLocalisables}) ; un autre index, comme un
+ * {@link ArbreR}, peut être spécifié à la construction. La taille du maillage sert alors au découpage en tuiles.
+ * <p>Un ensemble dont l'index est un {@link MaillageConcurrent} peut être modifié et consulté simultanément par plusieurs threads : sa table des identifiants
+ * est alors elle aussi concurrente.
+ * <p>Un ensemble non concurrent attribue en outre à chaque identifiant un indice entier dense (voir {@link #getIndice(long)}), qui permet de représenter les
+ * relations entre éléments par de simples tableaux d'entiers. L'indice d'un identifiant ne change pas lorsque l'élément est retiré puis ajouté à nouveau,
+ * ni lorsque l'ensemble est compacté.
  *
  * @author Charles Masson
  * @param <T> le type des éléments de l'ensemble, qui doit implémenter les deux interfaces {@link Identifiable} et {@link Localisable}.
@@ -20,9 +39,17 @@ public class Ensemble<T extends Identifiable & Localisable> {
      */
     private EnsembleDIdentifiables<T> ensId;
     /**
-     * ensemble de localisables dans lequel sont stockés les éléments de l'ensemble
+     * index spatial dans lequel sont stockés les éléments de l'ensemble
      */
-    private EnsembleDeLocalisables<T> ensLoc;
+    private IndexSpatial<T> ensLoc;
+    /**
+     * taille du maillage
+     */
+    private int nbDivLat, nbDivLong;
+    /**
+     * numérotation dense des éléments, ou {@code null} pour un ensemble concurrent
+     */
+    private Numérotation numérotation;
 
     /**
      * Construit un ensemble vide, c'est-à-dire simultanément un ensemble d'identifiables et un ensemble de localisables, dont le maillage a la taille
@@ -32,8 +59,24 @@ public class Ensemble<T extends Identifiable & Localisable> {
      * @param nbDivLong taille du maillage.
      */
     public Ensemble(int nbDivLat, int nbDivLong) {
-        ensId = new EnsembleDIdentifiables();
-        ensLoc = new EnsembleDeLocalisables(nbDivLat, nbDivLong);
+        this(nbDivLat, nbDivLong, new EnsembleDeLocalisables<T>(nbDivLat, nbDivLong));
+    }
+
+    /**
+     * Construit un ensemble vide utilisant l'index spatial spécifié. Si l'index est un {@link MaillageConcurrent}, la table des identifiants est
+     * concurrente.
+     *
+     * @param nbDivLat taille du maillage.
+     * @param nbDivLong taille du maillage.
+     * @param index l'index spatial, vide, dans lequel stocker les éléments.
+     */
+    public Ensemble(int nbDivLat, int nbDivLong, IndexSpatial<T> index) {
+        this.nbDivLat = nbDivLat;
+        this.nbDivLong = nbDivLong;
+        ensId = new EnsembleDIdentifiables<>(index instanceof MaillageConcurrent);
+        ensLoc = index;
+        if (!(index instanceof MaillageConcurrent))
+            numérotation = new Numérotation();
     }
 
     /**
@@ -42,7 +85,46 @@ public class Ensemble<T extends Identifiable & Localisable> {
      * @param taille la taille d'un côté de la maille (suivant les deux directions) au niveau de l'équateur.
      */
     public Ensemble(double taille) {
-        this((int) (2 * Math.PI * Terre.RAYON / taille), (int) (Math.PI * Terre.RAYON / taille));
+        this(nbDivLat(taille), nbDivLong(taille));
+    }
+
+    /**
+     * Construit un ensemble vide utilisant l'index spatial spécifié.
+     *
+     * @param taille la taille d'un côté de la maille (suivant les deux directions) au niveau de l'équateur.
+     * @param index l'index spatial, vide, dans lequel stocker les éléments.
+     */
+    public Ensemble(double taille, IndexSpatial<T> index) {
+        this(nbDivLat(taille), nbDivLong(taille), index);
+    }
+
+    /**
+     * Renvoie le nombre de mailles suivant la direction d'un méridien correspondant à une taille de maille.
+     *
+     * @param taille la taille d'un côté de la maille au niveau de l'équateur.
+     * @return le nombre de mailles.
+     */
+    static int nbDivLat(double taille) {
+        return (int) (2 * Math.PI * Terre.RAYON / taille);
+    }
+
+    /**
+     * Renvoie le nombre de mailles suivant la direction d'un parallèle correspondant à une taille de maille.
+     *
+     * @param taille la taille d'un côté de la maille au niveau de l'équateur.
+     * @return le nombre de mailles.
+     */
+    static int nbDivLong(double taille) {
+        return (int) (Math.PI * Terre.RAYON / taille);
+    }
+
+    /**
+     * Renvoie l'index spatial de l'ensemble.
+     *
+     * @return l'index spatial.
+     */
+    public IndexSpatial<T> getIndexSpatial() {
+        return ensLoc;
     }
 
     /**
@@ -52,9 +134,143 @@ public class Ensemble<T extends Identifiable & Localisable> {
      */
     public void ajouterÉlément(T élément) {
         ensId.ajouterÉlément(élément);
+        numéroter(élément);
         ensLoc.ajouterÉlément(élément);
     }
 
+    /**
+     * Associe un élément ajouté à l'indice de son identifiant.
+     *
+     * @param élément l'élément ajouté.
+     */
+    private void numéroter(T élément) {
+        if (numérotation != null)
+            numérotation.numéroter(élément);
+    }
+
+    /**
+     * Retire un élément de l'ensemble. La zone de l'élément doit être la même que lors de son ajout : un élément qui doit être déplacé doit être retiré avant
+     * d'être modifié, puis ajouté à nouveau.
+     *
+     * @param élément l'élément à retirer.
+     */
+    public void retirerÉlément(T élément) {
+        ensId.retirerÉlément(élément.getID());
+        if (numérotation != null)
+            numérotation.retirer(élément.getID());
+        ensLoc.retirerÉlément(élément);
+    }
+
+    /**
+     * Retire l'élément ayant l'identifiant spécifié. Comme pour {@link #retirerÉlément(Identifiable)}, sa zone doit être la même que lors de son ajout.
+     *
+     * @param id l'identifiant de l'élément à retirer.
+     * @return l'élément retiré, ou {@code null} si l'ensemble ne contient aucun élément ayant cet identifiant.
+     */
+    public T retirerÉlément(long id) {
+        T élément = ensId.getÉlément(id);
+        if (élément != null)
+            retirerÉlément(élément);
+        return élément;
+    }
+
+    /**
+     * Met à jour la place d'un élément de l'ensemble dont la zone a changé (voir {@link IndexSpatial#déplacerÉlément(Localisable, Zone)}). Pour ne pas
+     * avoir à conserver les zones précédentes, voir {@link EnsembleMobile}.
+     *
+     * @param élément l'élément déplacé, déjà modifié.
+     * @param ancienneZone la zone de l'élément avant sa modification.
+     */
+    public void déplacerÉlément(T élément, Zone ancienneZone) {
+        ensLoc.déplacerÉlément(élément, ancienneZone);
+    }
+
+    /**
+     * Ajoute un élément à l'ensemble sans l'ajouter à l'index spatial. L'élément doit ensuite être indexé à l'aide de la méthode
+     * {@link #indexer(List, double[])} ; d'ici là, il n'est pas trouvé par les recherches géographiques.
+     *
+     * @param élément l'élément à ajouter.
+     */
+    public void ajouterÉlémentSansIndexer(T élément) {
+        ensId.ajouterÉlément(élément);
+        numéroter(élément);
+    }
+
+    /**
+     * Ajoute en bloc à l'index spatial des éléments de l'ensemble dont les bornes des zones sont connues, sans calculer leurs zones (voir
+     * {@link IndexSpatial#ajouterÉléments(List, double[])}). Les éléments doivent avoir été ajoutés par {@link #ajouterÉlémentSansIndexer(Identifiable)}.
+     *
+     * @param éléments les éléments à indexer.
+     * @param bornes les bornes des zones des éléments (quatre valeurs par élément, en radians).
+     */
+    public void indexer(List<? extends T> éléments, double[] bornes) {
+        ensLoc.ajouterÉléments(éléments, bornes);
+    }
+
+    /**
+     * Renvoie la coordonnée de maille correspondant à une latitude.
+     *
+     * @param latitude une latitude.
+     * @return la coordonnée de la maille suivant la direction d'un méridien.
+     */
+    public int indiceLatitude(Latitude latitude) {
+        return EnsembleDeLocalisables.indiceLatitude(latitude, nbDivLat);
+    }
+
+    /**
+     * Renvoie la coordonnée de maille correspondant à une latitude en radians.
+     *
+     * @param latitude une latitude en radians.
+     * @return la coordonnée de la maille suivant la direction d'un méridien.
+     */
+    public int indiceLatitude(double latitude) {
+        return EnsembleDeLocalisables.indiceLatitude(latitude, nbDivLat);
+    }
+
+    /**
+     * Renvoie la coordonnée de maille correspondant à une longitude.
+     *
+     * @param longitude une longitude.
+     * @return la coordonnée de la maille suivant la direction d'un parallèle.
+     */
+    public int indiceLongitude(Longitude longitude) {
+        return EnsembleDeLocalisables.indiceLongitude(longitude, nbDivLong);
+    }
+
+    /**
+     * Renvoie la coordonnée de maille correspondant à une longitude en radians.
+     *
+     * @param longitude une longitude en radians.
+     * @return la coordonnée de la maille suivant la direction d'un parallèle.
+     */
+    public int indiceLongitude(double longitude) {
+        return EnsembleDeLocalisables.indiceLongitude(longitude, nbDivLong);
+    }
+
+    /**
+     * Range les éléments de l'ensemble le long d'une courbe de Hilbert passant par le centre de leurs zones (voir {@link CourbeDeHilbert}) : les éléments
+     * géographiquement proches deviennent voisins dans le tableau parcouru par {@link #getÉléments()} et dans les mailles de l'index, ce qui améliore la
+     * localité des accès mémoire lors des parcours de zones et des dessins. L'ordre est conservé jusqu'aux modifications suivantes de l'ensemble ; il est
+     * donc préférable de compacter l'ensemble une fois chargé. Cette méthode ne doit pas être appelée pendant des accès concurrents à l'ensemble.
+     */
+    public void compacter() {
+        List<T> triés = CourbeDeHilbert.trier(ensId.getÉléments());
+        for (T élément : triés)
+            ensLoc.retirerÉlément(élément);
+        ensId.ordonner(triés);
+        for (T élément : triés)
+            ensLoc.ajouterÉlément(élément);
+    }
+
+    /**
+     * Renvoie le nombre d'éléments de l'ensemble.
+     *
+     * @return le nombre d'éléments.
+     */
+    public int getNbÉléments() {
+        return ensId.getÉléments().size();
+    }
+
     /**
      * Renvoie un élément à partir de son identifiant.
      *
@@ -65,6 +281,51 @@ public class Ensemble<T extends Identifiable & Localisable> {
         return ensId.getÉlément(id);
     }
 
+    /**
+     * Renvoie l'indice dense d'un identifiant. Les indices sont attribués dans l'ordre des ajouts, à partir de 0, et ne sont jamais réattribués.
+     *
+     * @param id un identifiant.
+     * @return l'indice de l'identifiant, ou -1 si aucun élément ayant cet identifiant n'a été ajouté à l'ensemble.
+     * @throws IllegalStateException si l'ensemble est concurrent.
+     */
+    public int getIndice(long id) {
+        return numérotationDense().getIndice(id);
+    }
+
+    /**
+     * Renvoie l'élément portant un indice dense (voir {@link #getIndice(long)}).
+     *
+     * @param indice un indice, entre 0 et {@link #getNbIndices()} - 1.
+     * @return l'élément, ou {@code null} si l'élément portant cet indice a été retiré de l'ensemble.
+     * @throws IllegalStateException si l'ensemble est concurrent.
+     */
+    @SuppressWarnings("unchecked")
+    public T getÉlémentParIndice(int indice) {
+        return (T) numérotationDense().get(indice);
+    }
+
+    /**
+     * Renvoie le nombre d'indices denses attribués, c'est-à-dire la taille des tableaux indexés par les indices des éléments de l'ensemble.
+     *
+     * @return le nombre d'indices attribués.
+     * @throws IllegalStateException si l'ensemble est concurrent.
+     */
+    public int getNbIndices() {
+        return numérotationDense().getNbIndices();
+    }
+
+    /**
+     * Renvoie la numérotation dense de l'ensemble.
+     *
+     * @return la numérotation.
+     * @throws IllegalStateException si l'ensemble est concurrent.
+     */
+    private Numérotation numérotationDense() {
+        if (numérotation == null)
+            throw new IllegalStateException("Un ensemble concurrent ne numérote pas ses éléments");
+        return numérotation;
+    }
+
     /**
      * Renvoie les éléments contenus dans la zone spécifiée. En réalité, l'ensemble renvoyé contient également d'autres éléments, situés aux alentours de la
      * zone.
@@ -84,7 +345,128 @@ public class Ensemble<T extends Identifiable & Localisable> {
      * @return un ensemble contenant au moins tous les éléments situés dans le disque spécifié.
      */
     public Set<T> getÉléments(Point centre, double rayonMétrique) {
-        return ensLoc.getÉlémentsDansZone(centre, rayonMétrique);
+        return ensLoc.getÉlémentsDansZone(new Zone(centre, rayonMétrique));
+    }
+
+    /**
+     * Applique une action à chaque élément dont la zone intersecte la zone spécifiée, sans créer d'ensemble de résultats (voir
+     * {@link IndexSpatial#parcourir(Zone, boolean, Consumer)}).
+     *
+     * @param z une zone.
+     * @param action l'action à appliquer.
+     */
+    public void parcourir(Zone z, Consumer<? super T> action) {
+        ensLoc.parcourir(z, true, action);
+    }
+
+    /**
+     * Applique une action à chaque élément de la zone spécifiée, sans créer d'ensemble de résultats (voir
+     * {@link IndexSpatial#parcourir(Zone, boolean, Consumer)}).
+     *
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne traiter que les éléments dont la zone intersecte la zone spécifiée, {@code false} pour traiter aussi
+     * des éléments situés aux alentours, comme {@link #getÉléments(Zone)}.
+     * @param action l'action à appliquer.
+     */
+    public void parcourir(Zone z, boolean intersectionExacte, Consumer<? super T> action) {
+        ensLoc.parcourir(z, intersectionExacte, action);
+    }
+
+    /**
+     * Compte les éléments de la zone spécifiée, sans créer d'ensemble de résultats (voir {@link IndexSpatial#compter(Zone, boolean)}).
+     *
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne compter que les éléments dont la zone intersecte la zone spécifiée.
+     * @return le nombre d'éléments de la zone.
+     */
+    public int compter(Zone z, boolean intersectionExacte) {
+        return ensLoc.compter(z, intersectionExacte);
+    }
+
+    /**
+     * Calcule la somme d'une valeur associée aux éléments de la zone spécifiée (voir {@link IndexSpatial#sommer(Zone, boolean, ToDoubleFunction)}).
+     *
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne retenir que les éléments dont la zone intersecte la zone spécifiée.
+     * @param valeur la valeur associée à chaque élément.
+     * @return la somme des valeurs des éléments de la zone.
+     */
+    public double sommer(Zone z, boolean intersectionExacte, ToDoubleFunction<? super T> valeur) {
+        return ensLoc.sommer(z, intersectionExacte, valeur);
+    }
+
+    /**
+     * Réduit séquentiellement les éléments de la zone spécifiée à une valeur (voir {@link IndexSpatial#réduire(Zone, boolean, Object, BiFunction)}).
+     *
+     * @param <R> le type du résultat.
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne retenir que les éléments dont la zone intersecte la zone spécifiée.
+     * @param initial la valeur initiale.
+     * @param réducteur la combinaison d'un résultat partiel avec un élément.
+     * @return le résultat de la réduction.
+     */
+    public <R> R réduire(Zone z, boolean intersectionExacte, R initial, BiFunction<R, ? super T, R> réducteur) {
+        return ensLoc.réduire(z, intersectionExacte, initial, réducteur);
+    }
+
+    /**
+     * Renvoie un flux des éléments de la zone spécifiée (voir {@link IndexSpatial#spliterator(Zone, boolean)}). L'ensemble ne doit pas être modifié
+     * pendant le parcours du flux.
+     *
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne parcourir que les éléments dont la zone intersecte la zone spécifiée.
+     * @param parallèle {@code true} pour obtenir un flux parallèle.
+     * @return le flux des éléments.
+     */
+    public Stream<T> flux(Zone z, boolean intersectionExacte, boolean parallèle) {
+        return StreamSupport.stream(ensLoc.spliterator(z, intersectionExacte), parallèle);
+    }
+
+    /**
+     * Renvoie les éléments contenus dans la zone spécifiée, en parcourant les mailles de la zone en parallèle dans le pool spécifié (voir
+     * {@link #réduire(Zone, boolean, Collector, ForkJoinPool)}). L'ensemble ne doit pas être modifié pendant la recherche.
+     *
+     * @param z une zone.
+     * @param pool le pool de threads utilisé pour les zones étendues.
+     * @return un ensemble contenant au moins tous les éléments situés dans la zone spécifiée.
+     */
+    public Set<T> getÉléments(Zone z, ForkJoinPool pool) {
+        return réduire(z, false, Collectors.<T>toSet(), pool);
+    }
+
+    /**
+     * Réduit les éléments de la zone spécifiée à l'aide d'un collecteur, en parallèle. Le parcours de la zone (voir
+     * {@link IndexSpatial#spliterator(Zone, boolean)}) est divisé en tâches exécutées dans le pool spécifié, chacune remplissant son propre conteneur ; les
+     * conteneurs sont ensuite combinés par le collecteur. Une zone dont la taille estimée (en mailles pour un maillage) est inférieure à un seuil est
+     * parcourue sur le thread appelant. L'ensemble ne doit pas être modifié pendant la réduction.
+     *
+     * @param <A> le type du conteneur intermédiaire du collecteur.
+     * @param <R> le type du résultat.
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne réduire que les éléments dont la zone intersecte la zone spécifiée.
+     * @param collecteur le collecteur, dont le résultat ne doit pas dépendre de l'ordre des éléments.
+     * @param pool le pool de threads.
+     * @return le résultat de la réduction.
+     */
+    @SuppressWarnings("unchecked")
+    public <A, R> R réduire(Zone z, boolean intersectionExacte, Collector<? super T, A, R> collecteur, ForkJoinPool pool) {
+        Collector<T, A, R> c = (Collector<T, A, R>) collecteur;
+        Spliterator<T> parcours = ensLoc.spliterator(z, intersectionExacte);
+        A conteneur = parcours.estimateSize() < 2 * RéductionParallèle.SEUIL ? RéductionParallèle.réduireSéquentiellement(parcours, c)
+                : pool.invoke(new RéductionParallèle<>(parcours, c));
+        return c.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH) ? (R) conteneur : c.finisher().apply(conteneur);
+    }
+
+    /**
+     * Renvoie les éléments de l'ensemble les plus proches d'un point (voir {@link IndexSpatial#kPlusProches(Point, int, MesureDeDistance)}).
+     *
+     * @param p un point.
+     * @param k le nombre d'éléments recherchés.
+     * @param mesure la distance exacte entre le point et un élément.
+     * @return les {@code k} éléments les plus proches du point (moins si l'ensemble contient moins de {@code k} éléments), par distance croissante.
+     */
+    public List<T> kPlusProches(Point p, int k, MesureDeDistance<? super T> mesure) {
+        return ensLoc.kPlusProches(p, k, mesure);
     }
 
     /**
@@ -1,11 +1,18 @@
 package cartographie.gestionDonnées;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * La classe {@code EnsembleDIdentifiables} représente un ensemble d'éléments identifiables. Sa principale utilité est d'implémenter une table de hachage qui
  * permet de récupérer en temps constant un élément de cet ensemble à partir de son identifiant.
+ * <p>Les éléments sont stockés de manière contiguë dans un tableau, une {@link TableLongueEntière} associant à chaque identifiant la position de l'élément
+ * dans le tableau, sans encapsuler les identifiants ni les positions : {@link #getÉléments()} parcourt le tableau, dans un ordre qui peut être choisi par
+ * {@link #ordonner(List)}. Le retrait d'un élément le remplace par le dernier élément du tableau. Un ensemble concurrent stocke en revanche ses éléments
+ * dans une table de hachage concurrente, sans ordre.
  *
  * @author Charles Masson
  * @param <T> le type des objets à stocker dans l'ensemble, qui doit implémenter l'interface {@link Identifiable} (chaque instance de {@code T} a un identifiant
@@ -14,24 +21,84 @@ import java.util.HashMap;
 public class EnsembleDIdentifiables<T extends Identifiable> {
 
     /**
-     * la table de hachage stockant tous les objets.
+     * la table de hachage associant à chaque identifiant la position de l'élément dans le tableau (ensemble non concurrent)
      */
-    private HashMap<Long, T> table;
+    private TableLongueEntière positions;
+    /**
+     * les éléments, suivis de cases inutilisées (ensemble non concurrent)
+     */
+    private Object[] éléments;
+    /**
+     * nombre d'éléments du tableau
+     */
+    private int taille;
+    /**
+     * la table de hachage concurrente stockant tous les objets, ou {@code null} si l'ensemble n'est pas concurrent
+     */
+    private ConcurrentHashMap<Long, T> table;
 
     /**
      * Construit un ensemble vide.
      */
     public EnsembleDIdentifiables() {
-        table = new HashMap<>();
+        this(false);
     }
 
     /**
-     * Ajoute un élément à l'ensemble.
+     * Construit un ensemble vide, éventuellement utilisable simultanément par plusieurs threads.
+     *
+     * @param concurrent {@code true} pour utiliser une table de hachage concurrente.
+     */
+    public EnsembleDIdentifiables(boolean concurrent) {
+        if (concurrent)
+            table = new ConcurrentHashMap<>();
+        else {
+            positions = new TableLongueEntière();
+            éléments = new Object[16];
+        }
+    }
+
+    /**
+     * Ajoute un élément à l'ensemble. Un élément ayant le même identifiant est remplacé.
      *
      * @param élément l'élément à ajouter.
      */
     public void ajouterÉlément(T élément) {
-        table.put(élément.getID(), élément);
+        if (table != null) {
+            table.put(élément.getID(), élément);
+            return;
+        }
+        int position = positions.get(élément.getID());
+        if (position != TableLongueEntière.ABSENTE) {
+            éléments[position] = élément;
+            return;
+        }
+        if (taille == éléments.length)
+            éléments = Arrays.copyOf(éléments, taille << 1);
+        positions.put(élément.getID(), taille);
+        éléments[taille++] = élément;
+    }
+
+    /**
+     * Retire un élément de l'ensemble.
+     *
+     * @param id l'identifiant de l'élément à retirer.
+     * @return l'élément retiré, ou {@code null} si l'ensemble ne contenait aucun élément ayant cet identifiant.
+     */
+    @SuppressWarnings("unchecked")
+    public T retirerÉlément(long id) {
+        if (table != null)
+            return table.remove(id);
+        int position = positions.remove(id);
+        if (position == TableLongueEntière.ABSENTE)
+            return null;
+        T retiré = (T) éléments[position];
+        if (position != --taille) {
+            éléments[position] = éléments[taille];
+            positions.put(((T) éléments[position]).getID(), position);
+        }
+        éléments[taille] = null;
+        return retiré;
     }
 
     /**
@@ -40,16 +107,65 @@ public class EnsembleDIdentifiables<T extends Identifiable> {
      * @param id l'identifiant de l'objet à récupérer.
      * @return l'élément correspondant.
      */
+    @SuppressWarnings("unchecked")
     public T getÉlément(long id) {
-        return table.get(id);
+        if (table != null)
+            return table.get(id);
+        int position = positions.get(id);
+        return position == TableLongueEntière.ABSENTE ? null : (T) éléments[position];
     }
 
     /**
-     * Renvoie tous les objets de l'ensemble.
+     * Renvoie tous les objets de l'ensemble. Pour un ensemble non concurrent, la collection renvoyée est une vue du tableau des éléments, qui ne doit pas
+     * être parcourue pendant une modification de l'ensemble.
      *
      * @return une collection contenant tous les éléments de l'ensemble.
      */
     public Collection<T> getÉléments() {
-        return table.values();
+        if (table != null)
+            return table.values();
+        return new AbstractList<T>() {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T get(int i) {
+                if (i >= taille)
+                    throw new IndexOutOfBoundsException(String.valueOf(i));
+                return (T) éléments[i];
+            }
+
+            @Override
+            public int size() {
+                return taille;
+            }
+        };
+    }
+
+    /**
+     * Range les éléments de l'ensemble dans l'ordre spécifié : le tableau des éléments est reconstruit dans cet ordre. Pour un ensemble concurrent, l'appel
+     * est sans effet.
+     *
+     * @param ordre une liste contenant exactement les éléments de l'ensemble.
+     * @throws IllegalArgumentException si la liste ne contient pas les éléments de l'ensemble.
+     */
+    public void ordonner(List<? extends T> ordre) {
+        if (table != null)
+            return;
+        if (ordre.size() != taille)
+            throw new IllegalArgumentException("L'ordre ne contient pas les " + taille + " éléments de l'ensemble");
+        boolean[] rangés = new boolean[taille];
+        for (T élément : ordre) {
+            int position = positions.get(élément.getID());
+            if (position == TableLongueEntière.ABSENTE || éléments[position] != élément || rangés[position])
+                throw new IllegalArgumentException("Élément inconnu ou répété : " + élément.getID());
+            rangés[position] = true;
+        }
+        Object[] nouveaux = new Object[éléments.length];
+        int i = 0;
+        for (T élément : ordre) {
+            positions.put(élément.getID(), i);
+            nouveaux[i++] = élément;
+        }
+        éléments = nouveaux;
     }
 }
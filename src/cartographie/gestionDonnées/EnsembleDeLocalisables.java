@@ -3,10 +3,12 @@ package cartographie.gestionDonnées;
 import cartographie.positionnementGéographique.Latitude;
 import cartographie.positionnementGéographique.Longitude;
 import cartographie.positionnementGéographique.Point;
-import java.util.HashMap;
+import cartographie.positionnementGéographique.Terre;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * La classe {@code EnsembleDeLocalisable} représente un ensemble d'éléments localisables. Cette classe permet de tirer profit du fait que les éléments qu'elle
@@ -14,24 +16,25 @@ import java.util.Set;
  * rapides des opérations, notamment de recherche d'éléments, où il est inutile de considérer tous les éléments de l'ensemble.
  *
  * <p>Concrètement, la classe utilise un maillage de la Terre suivant ses méridiens et ses parallèes. Le nombre de mailles suivant les deux directions est donné
- * par les attributs {@code nbDivLat} et {@code nbDivLong}. À chaque maille est associé un couple d'entiers (ses coordonnées) et un ensemble. Un élément se
- * situant géographiquement dans une maille donnée est stocké dans l'ensemble correspondant à la maille. Tous les ensembles sont stockés dans une table de
- * hachage dont les clés sont les couples de coordonnées correspondants. De cette manière, on accède en temps constant aux éléments d'une zone donnée de la
- * Terre.
+ * par les attributs {@code nbDivLat} et {@code nbDivLong}. À chaque maille est associé un couple d'entiers (ses coordonnées) et une {@link Maille}. Un élément se
+ * situant géographiquement dans une maille donnée est stocké dans la maille correspondante. Toutes les mailles non vides sont stockées dans une
+ * {@link TableLongue} dont les clés sont les deux coordonnées regroupées dans un {@code long} (voir {@link #clé(int, int)}). De cette manière, on accède en
+ * temps constant aux éléments d'une zone donnée de la Terre, sans créer d'objet pour chaque maille consultée.
+ * <p>Le maillage est adapté aux éléments répartis uniformément ; pour des densités très variables, voir {@link ArbreR}.
  *
  * @author Charles Masson
  * @param <T> le type de données, qui doit implémenter l'interface {@link Localisable}.
  */
-public class EnsembleDeLocalisables<T extends Localisable> {
+public class EnsembleDeLocalisables<T extends Localisable> implements IndexSpatial<T> {
 
     /**
      * taille du maillage.
      */
     private int nbDivLat, nbDivLong;
     /**
-     * table de hachage contenant les ensembles associés à chaque maille.
+     * table contenant les mailles non vides, indexées par leur clé.
      */
-    private Map<Paire<Integer>, Set<T>> sections;
+    private final TableLongue<Maille<T>> sections;
 
     /**
      * Construit un ensemble d'éléments localisables vide, avec la taille de maillage spécifiée.
@@ -42,7 +45,16 @@ public class EnsembleDeLocalisables<T extends Localisable> {
     public EnsembleDeLocalisables(int nbDivLat, int nbDivLong) {
         this.nbDivLat = nbDivLat;
         this.nbDivLong = nbDivLong;
-        sections = new HashMap<>();
+        sections = new TableLongue<>();
+    }
+
+    /**
+     * Construit un ensemble d'éléments localisables vide, dont les mailles ont approximativement la taille spécifiée (comme {@link Ensemble#Ensemble(double)}).
+     *
+     * @param taille la taille des mailles en mètres.
+     */
+    public EnsembleDeLocalisables(double taille) {
+        this(Ensemble.nbDivLat(taille), Ensemble.nbDivLong(taille));
     }
 
     /**
@@ -51,8 +63,40 @@ public class EnsembleDeLocalisables<T extends Localisable> {
      * @param latitude une latitude.
      * @return la coordonnée correspondant à la latitude donnée.
      */
-    private int indiceLatitude(Latitude latitude) {
-        return (int) (latitude.getValeurRadians() * nbDivLat / (Math.PI / 2));
+    public int indiceLatitude(Latitude latitude) {
+        return indiceLatitude(latitude, nbDivLat);
+    }
+
+    /**
+     * Renvoie la coordonnée correspondant à une latitude en radians.
+     *
+     * @param latitude une latitude en radians.
+     * @return la coordonnée correspondant à la latitude donnée.
+     */
+    public int indiceLatitude(double latitude) {
+        return indiceLatitude(latitude, nbDivLat);
+    }
+
+    /**
+     * Renvoie la coordonnée correspondant à une latitude, pour un maillage de taille donnée.
+     *
+     * @param latitude une latitude.
+     * @param nbDivLat nombre de mailles suivant la direction d'un méridien.
+     * @return la coordonnée correspondant à la latitude donnée.
+     */
+    static int indiceLatitude(Latitude latitude, int nbDivLat) {
+        return indiceLatitude(latitude.getValeurRadians(), nbDivLat);
+    }
+
+    /**
+     * Renvoie la coordonnée correspondant à une latitude en radians, pour un maillage de taille donnée.
+     *
+     * @param latitude une latitude en radians.
+     * @param nbDivLat nombre de mailles suivant la direction d'un méridien.
+     * @return la coordonnée correspondant à la latitude donnée.
+     */
+    static int indiceLatitude(double latitude, int nbDivLat) {
+        return (int) (latitude * nbDivLat / (Math.PI / 2));
     }
 
     /**
@@ -61,26 +105,157 @@ public class EnsembleDeLocalisables<T extends Localisable> {
      * @param longitude une longitude.
      * @return la coordonnée correspondant à la longitude donnée.
      */
-    private int indiceLongitude(Longitude longitude) {
-        return (int) (longitude.getValeurRadians() * nbDivLong / Math.PI);
+    public int indiceLongitude(Longitude longitude) {
+        return indiceLongitude(longitude, nbDivLong);
+    }
+
+    /**
+     * Renvoie la coordonnée correspondant à une longitude en radians.
+     *
+     * @param longitude une longitude en radians.
+     * @return la coordonnée correspondant à la longitude donnée.
+     */
+    public int indiceLongitude(double longitude) {
+        return indiceLongitude(longitude, nbDivLong);
+    }
+
+    /**
+     * Renvoie la coordonnée correspondant à une longitude, pour un maillage de taille donnée.
+     *
+     * @param longitude une longitude.
+     * @param nbDivLong nombre de mailles suivant la direction d'un parallèle.
+     * @return la coordonnée correspondant à la longitude donnée.
+     */
+    static int indiceLongitude(Longitude longitude, int nbDivLong) {
+        return indiceLongitude(longitude.getValeurRadians(), nbDivLong);
     }
 
     /**
-     * Ajoute un élément à l'ensemble.
+     * Renvoie la coordonnée correspondant à une longitude en radians, pour un maillage de taille donnée.
+     *
+     * @param longitude une longitude en radians.
+     * @param nbDivLong nombre de mailles suivant la direction d'un parallèle.
+     * @return la coordonnée correspondant à la longitude donnée.
+     */
+    static int indiceLongitude(double longitude, int nbDivLong) {
+        return (int) (longitude * nbDivLong / Math.PI);
+    }
+
+    /**
+     * Renvoie la clé d'une maille : la première coordonnée occupe les 32 bits de poids fort, la seconde les 32 bits de poids faible.
+     *
+     * @param i la coordonnée de la maille suivant la direction d'un méridien.
+     * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+     * @return la clé de la maille.
+     */
+    static long clé(int i, int j) {
+        return (long) i << 32 | j & 0xffffffffL;
+    }
+
+    /**
+     * Ajoute un élément à l'ensemble. L'élément ne doit pas déjà appartenir à l'ensemble.
      *
      * @param élément l'élément à ajouter.
      */
+    @Override
     public void ajouterÉlément(T élément) {
         Zone zoneÉlément = élément.calculerZone();
-        for (int i = indiceLatitude(zoneÉlément.getLatitudeMin()); i <= indiceLatitude(zoneÉlément.getLatitudeMax()); i++)
-            for (int j = indiceLongitude(zoneÉlément.getLongitudeMin()); j <= indiceLongitude(zoneÉlément.getLongitudeMax()); j++) {
-                Paire p = new Paire(i, j);
-                if (sections.get(p) == null)
-                    sections.put(p, new HashSet<T>());
-                sections.get(p).add(élément);
+        for (int i = indiceLatitude(zoneÉlément.getLatitudeMinRadians()); i <= indiceLatitude(zoneÉlément.getLatitudeMaxRadians()); i++)
+            for (int j = indiceLongitude(zoneÉlément.getLongitudeMinRadians()); j <= indiceLongitude(zoneÉlément.getLongitudeMaxRadians()); j++)
+                placer(élément, zoneÉlément, i, j);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Les bornes sont conservées dans les mailles : elles ne seront pas recalculées lors des parcours.
+     */
+    @Override
+    public void ajouterÉléments(List<? extends T> éléments, double[] bornes) {
+        for (int k = 0, n = éléments.size(); k < n; k++) {
+            T élément = éléments.get(k);
+            int iMax = indiceLatitude(bornes[4 * k + Maille.LAT_MAX], nbDivLat), jMax = indiceLongitude(bornes[4 * k + Maille.LONG_MAX], nbDivLong);
+            for (int i = indiceLatitude(bornes[4 * k + Maille.LAT_MIN], nbDivLat); i <= iMax; i++)
+                for (int j = indiceLongitude(bornes[4 * k + Maille.LONG_MIN], nbDivLong); j <= jMax; j++) {
+                    long c = clé(i, j);
+                    Maille<T> maille = sections.get(c);
+                    if (maille == null)
+                        sections.put(c, maille = new Maille<>());
+                    maille.ajouter(élément, bornes, k);
+                }
+        }
+    }
+
+    /**
+     * Retire un élément de l'ensemble. La zone de l'élément doit être la même que lors de son ajout : un élément qui doit être déplacé doit être retiré avant
+     * d'être modifié, puis ajouté à nouveau.
+     *
+     * @param élément l'élément à retirer.
+     */
+    @Override
+    public void retirerÉlément(T élément) {
+        Zone zoneÉlément = élément.calculerZone();
+        for (int i = indiceLatitude(zoneÉlément.getLatitudeMinRadians()); i <= indiceLatitude(zoneÉlément.getLatitudeMaxRadians()); i++)
+            for (int j = indiceLongitude(zoneÉlément.getLongitudeMinRadians()); j <= indiceLongitude(zoneÉlément.getLongitudeMaxRadians()); j++) {
+                long c = clé(i, j);
+                Maille<T> maille = sections.get(c);
+                if (maille != null && maille.remove(élément) && maille.isEmpty())
+                    sections.remove(c);
             }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>Seules les mailles quittées et les mailles nouvellement occupées par l'élément sont modifiées ; dans les mailles communes aux deux zones, seules
+     * les bornes de l'élément sont mises à jour.
+     */
+    @Override
+    public void déplacerÉlément(T élément, Zone ancienneZone) {
+        Zone zone = élément.calculerZone();
+        int aiMin = indiceLatitude(ancienneZone.getLatitudeMinRadians()), aiMax = indiceLatitude(ancienneZone.getLatitudeMaxRadians());
+        int ajMin = indiceLongitude(ancienneZone.getLongitudeMinRadians()), ajMax = indiceLongitude(ancienneZone.getLongitudeMaxRadians());
+        int iMin = indiceLatitude(zone.getLatitudeMinRadians()), iMax = indiceLatitude(zone.getLatitudeMaxRadians());
+        int jMin = indiceLongitude(zone.getLongitudeMinRadians()), jMax = indiceLongitude(zone.getLongitudeMaxRadians());
+
+        // Mailles quittées
+        for (int i = aiMin; i <= aiMax; i++)
+            for (int j = ajMin; j <= ajMax; j++)
+                if (i < iMin || i > iMax || j < jMin || j > jMax) {
+                    long c = clé(i, j);
+                    Maille<T> maille = sections.get(c);
+                    if (maille != null && maille.remove(élément) && maille.isEmpty())
+                        sections.remove(c);
+                }
+
+        // Mailles conservées et mailles nouvellement occupées
+        for (int i = iMin; i <= iMax; i++)
+            for (int j = jMin; j <= jMax; j++)
+                if (i < aiMin || i > aiMax || j < ajMin || j > ajMax)
+                    placer(élément, zone, i, j);
+                else {
+                    long c = clé(i, j);
+                    Maille<T> maille = sections.get(c);
+                    if (maille == null)
+                        sections.put(c, maille = new Maille<>());
+                    maille.mettreÀJour(élément, zone);
+                }
+    }
+
+    /**
+     * Ajoute un élément à une maille.
+     *
+     * @param élément l'élément à ajouter.
+     * @param zone la zone de l'élément.
+     * @param i la coordonnée de la maille suivant la direction d'un méridien.
+     * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+     */
+    private void placer(T élément, Zone zone, int i, int j) {
+        long c = clé(i, j);
+        Maille<T> maille = sections.get(c);
+        if (maille == null)
+            sections.put(c, maille = new Maille<>());
+        maille.ajouter(élément, zone);
+    }
+
     /**
      * Renvoie les éléments contenus dans la zone spécifiée. En réalité, l'ensemble renvoyé contient également d'autres éléments, situés aux alentours de la
      * zone.
@@ -88,15 +263,205 @@ public class EnsembleDeLocalisables<T extends Localisable> {
      * @param z une zone.
      * @return un ensemble contenant au moins tous les éléments situés dans la zone spécifiée.
      */
+    @Override
     public Set<T> getÉlémentsDansZone(Zone z) {
         HashSet<T> éléments = new HashSet<>();
-        for (int i = indiceLatitude(z.getLatitudeMin()); i <= indiceLatitude(z.getLatitudeMax()); i++)
-            for (int j = indiceLongitude(z.getLongitudeMin()); j <= indiceLongitude(z.getLongitudeMax()); j++)
-                if (sections.containsKey(new Paire(i, j)))
-                    éléments.addAll(sections.get(new Paire(i, j)));
+        for (int i = indiceLatitude(z.getLatitudeMinRadians()); i <= indiceLatitude(z.getLatitudeMaxRadians()); i++)
+            for (int j = indiceLongitude(z.getLongitudeMinRadians()); j <= indiceLongitude(z.getLongitudeMaxRadians()); j++) {
+                Maille<T> maille = sections.get(clé(i, j));
+                if (maille != null)
+                    maille.ajouterÀ(éléments);
+            }
         return éléments;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>Un élément situé dans plusieurs mailles de la zone n'est traité que dans sa maille de référence : la première maille, suivant chaque direction,
+     * commune à la zone de l'élément et à la zone parcourue. Aucun ensemble intermédiaire n'est créé.
+     */
+    @Override
+    public void parcourir(Zone z, boolean intersectionExacte, Consumer<? super T> action) {
+        Parcours p = new Parcours(z, intersectionExacte);
+        for (int i = p.iMin; i <= p.iMax; i++)
+            for (int j = p.jMin; j <= p.jMax; j++) {
+                Maille<T> maille = sections.get(clé(i, j));
+                if (maille != null)
+                    for (int k = 0, n = maille.size(); k < n; k++)
+                        if (p.retenir(maille, k, i, j))
+                            action.accept(maille.get(k));
+            }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Le parcours suit la même règle que {@link #parcourir(Zone, boolean, Consumer)}. Il peut être divisé par bandes de latitude pour un traitement
+     * parallèle.
+     */
+    @Override
+    public Spliterator<T> spliterator(Zone z, boolean intersectionExacte) {
+        Parcours p = new Parcours(z, intersectionExacte);
+        return new DiviseurDeMailles(p, p.iMin, p.iMax);
+    }
+
+    /**
+     * Parcourt les mailles non vides de la zone spécifiée en donnant le nombre d'éléments de chacune, sans accéder aux éléments. Un élément situé dans
+     * plusieurs mailles est compté dans chacune d'elles : rapporté à {@link #surfaceMaille(int, int)}, le nombre donne la densité d'éléments de la maille.
+     *
+     * @param z une zone.
+     * @param compteur le compteur appelé pour chaque maille non vide de la zone.
+     */
+    public void histogramme(Zone z, CompteurDeMailles compteur) {
+        int iMin = indiceLatitude(z.getLatitudeMinRadians()), iMax = indiceLatitude(z.getLatitudeMaxRadians());
+        int jMin = indiceLongitude(z.getLongitudeMinRadians()), jMax = indiceLongitude(z.getLongitudeMaxRadians());
+        for (int i = iMin; i <= iMax; i++)
+            for (int j = jMin; j <= jMax; j++) {
+                Maille<T> maille = sections.get(clé(i, j));
+                if (maille != null)
+                    compteur.compter(i, j, maille.size());
+            }
+    }
+
+    /**
+     * Renvoie la surface d'une maille, sur une Terre sphérique.
+     *
+     * @param i la coordonnée de la maille suivant la direction d'un méridien.
+     * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+     * @return la surface de la maille, en mètres carrés.
+     */
+    public double surfaceMaille(int i, int j) {
+        return Terre.RAYON * Terre.RAYON * (longitudeMax(j, nbDivLong) - longitudeMin(j, nbDivLong))
+                * (Math.sin(latitudeMax(i, nbDivLat)) - Math.sin(latitudeMin(i, nbDivLat)));
+    }
+
+    /**
+     * La classe {@code Parcours} représente les paramètres d'un parcours des éléments d'une zone : les mailles parcourues et la zone en radians.
+     */
+    private final class Parcours {
+
+        /**
+         * coordonnées extrêmes des mailles parcourues
+         */
+        final int iMin, iMax, jMin, jMax;
+        /**
+         * bornes de la zone parcourue, en radians
+         */
+        final double latMin, latMax, longMin, longMax;
+        /**
+         * {@code true} si seuls les éléments dont la zone intersecte la zone parcourue sont retenus
+         */
+        final boolean intersectionExacte;
+
+        Parcours(Zone z, boolean intersectionExacte) {
+            latMin = z.getLatitudeMinRadians();
+            latMax = z.getLatitudeMaxRadians();
+            longMin = z.getLongitudeMinRadians();
+            longMax = z.getLongitudeMaxRadians();
+            iMin = indiceLatitude(latMin, nbDivLat);
+            iMax = indiceLatitude(latMax, nbDivLat);
+            jMin = indiceLongitude(longMin, nbDivLong);
+            jMax = indiceLongitude(longMax, nbDivLong);
+            this.intersectionExacte = intersectionExacte;
+        }
+
+        /**
+         * Indique si un élément d'une maille doit être traité : la maille doit être sa maille de référence, et sa zone doit intersecter la zone parcourue
+         * si l'intersection exacte est demandée.
+         *
+         * @param maille la maille.
+         * @param k l'indice de l'élément dans la maille.
+         * @param i la coordonnée de la maille suivant la direction d'un méridien.
+         * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+         * @return {@code true} si l'élément doit être traité.
+         */
+        boolean retenir(Maille<T> maille, int k, int i, int j) {
+            if (i != iMin && indiceLatitude(maille.getBorne(k, Maille.LAT_MIN), nbDivLat) < i)
+                return false;
+            if (j != jMin && indiceLongitude(maille.getBorne(k, Maille.LONG_MIN), nbDivLong) < j)
+                return false;
+            return !intersectionExacte || maille.getBorne(k, Maille.LAT_MIN) <= latMax && maille.getBorne(k, Maille.LAT_MAX) >= latMin
+                    && maille.getBorne(k, Maille.LONG_MIN) <= longMax && maille.getBorne(k, Maille.LONG_MAX) >= longMin;
+        }
+    }
+
+    /**
+     * La classe {@code DiviseurDeMailles} parcourt les éléments d'une bande de mailles d'une zone. Elle se divise en deux bandes de latitude.
+     */
+    private final class DiviseurDeMailles implements Spliterator<T> {
+
+        /**
+         * les paramètres du parcours
+         */
+        private final Parcours parcours;
+        /**
+         * maille courante et dernière ligne de mailles de la bande
+         */
+        private int i, j, iFin;
+        /**
+         * élément courant de la maille courante
+         */
+        private int k;
+        /**
+         * la maille courante, ou {@code null}
+         */
+        private Maille<T> maille;
+
+        DiviseurDeMailles(Parcours parcours, int iDébut, int iFin) {
+            this.parcours = parcours;
+            this.i = iDébut;
+            this.iFin = iFin;
+            this.j = parcours.jMin;
+            this.maille = sections.get(clé(i, j));
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (i <= iFin) {
+                if (maille != null)
+                    while (k < maille.size()) {
+                        int courant = k++;
+                        if (parcours.retenir(maille, courant, i, j)) {
+                            action.accept(maille.get(courant));
+                            return true;
+                        }
+                    }
+                // Maille suivante
+                k = 0;
+                if (++j > parcours.jMax) {
+                    j = parcours.jMin;
+                    i++;
+                }
+                maille = i <= iFin ? sections.get(clé(i, j)) : null;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            // Seules les lignes suivant la ligne courante peuvent être cédées
+            int milieu = i + 1 + (iFin - i) / 2;
+            if (milieu > iFin)
+                return null;
+            Spliterator<T> moitié = new DiviseurDeMailles(parcours, milieu, iFin);
+            iFin = milieu - 1;
+            return moitié;
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>La taille estimée est le nombre de mailles restant à parcourir.
+         */
+        @Override
+        public long estimateSize() {
+            return Math.max(0, (long) (iFin - i + 1) * (parcours.jMax - parcours.jMin + 1));
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL;
+        }
+    }
+
     /**
      * Renvoie les éléments contenus dans le disque spécifié.
      *
@@ -107,4 +472,170 @@ public class EnsembleDeLocalisables<T extends Localisable> {
     public Set<T> getÉlémentsDansZone(Point centre, double rayonMétrique) {
         return getÉlémentsDansZone(new Zone(centre, rayonMétrique));
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>Les mailles sont ajoutées à la file de la recherche par anneaux concentriques autour de la maille du point : un anneau n'est ajouté que lorsque
+     * toutes les régions plus proches que lui ont été explorées. Lorsque les anneaux deviennent plus coûteux à énumérer que les mailles non vides, toutes
+     * les mailles restantes sont ajoutées en une fois.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> kPlusProches(Point p, int k, MesureDeDistance<? super T> mesure) {
+        RechercheDesPlusProches<T> recherche = new RechercheDesPlusProches<>(p, k, mesure);
+        int i0 = indiceLatitude(p.getLatitudeRadians()), j0 = indiceLongitude(p.getLongitudeRadians());
+        for (int r = 0; !recherche.estTerminée(); r++) {
+            boolean dernier = 4L * r * r > sections.size();
+            if (dernier)
+                ajouterMaillesÉloignées(recherche, i0, j0, r);
+            double seuil = dernier ? Double.POSITIVE_INFINITY : minorantAnneau(recherche, i0, j0, r, nbDivLat, nbDivLong);
+            for (Object maille; (maille = recherche.suivante(seuil)) != null;)
+                for (T élément : (Maille<T>) maille)
+                    recherche.ajouterÉlément(élément);
+            if (dernier)
+                break;
+            if (r == 0)
+                ajouterMaille(recherche, i0, j0);
+            else
+                for (int d = -r; d < r; d++) {
+                    ajouterMaille(recherche, i0 - r, j0 + d);
+                    ajouterMaille(recherche, i0 + d, j0 + r);
+                    ajouterMaille(recherche, i0 + r, j0 - d);
+                    ajouterMaille(recherche, i0 - d, j0 - r);
+                }
+        }
+        return recherche.getRésultat();
+    }
+
+    /**
+     * Ajoute une maille à la file d'une recherche des plus proches éléments, si elle n'est pas vide.
+     *
+     * @param recherche la recherche.
+     * @param i la coordonnée de la maille suivant la direction d'un méridien.
+     * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+     */
+    private void ajouterMaille(RechercheDesPlusProches<T> recherche, int i, int j) {
+        Maille<T> maille = sections.get(clé(i, j));
+        if (maille != null)
+            recherche.ajouterRégion(minorantMaille(recherche, i, j, nbDivLat, nbDivLong), maille);
+    }
+
+    /**
+     * Ajoute à la file d'une recherche des plus proches éléments toutes les mailles non vides situées au moins à l'anneau spécifié.
+     *
+     * @param recherche la recherche.
+     * @param i0 la coordonnée de la maille du point suivant la direction d'un méridien.
+     * @param j0 la coordonnée de la maille du point suivant la direction d'un parallèle.
+     * @param r le numéro du premier anneau à ajouter.
+     */
+    private void ajouterMaillesÉloignées(final RechercheDesPlusProches<T> recherche, final int i0, final int j0, final int r) {
+        sections.parcourir(new TableLongue.Visiteur<Maille<T>>() {
+
+            @Override
+            public void visiter(long clé, Maille<T> maille) {
+                int i = (int) (clé >> 32), j = (int) clé;
+                if (Math.max(Math.abs(i - i0), Math.abs(j - j0)) >= r)
+                    recherche.ajouterRégion(minorantMaille(recherche, i, j, nbDivLat, nbDivLong), maille);
+            }
+        });
+    }
+
+    /**
+     * Calcule un minorant de la distance entre le point d'une recherche et une maille.
+     *
+     * @param recherche la recherche.
+     * @param i la coordonnée de la maille suivant la direction d'un méridien.
+     * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+     * @param nbDivLat nombre de mailles suivant la direction d'un méridien.
+     * @param nbDivLong nombre de mailles suivant la direction d'un parallèle.
+     * @return un minorant de la distance en mètres.
+     */
+    static double minorantMaille(RechercheDesPlusProches<?> recherche, int i, int j, int nbDivLat, int nbDivLong) {
+        return recherche.minorant(latitudeMin(i, nbDivLat), latitudeMax(i, nbDivLat), longitudeMin(j, nbDivLong), longitudeMax(j, nbDivLong));
+    }
+
+    /**
+     * Calcule un minorant de la distance entre le point d'une recherche et les mailles situées au moins à l'anneau spécifié, c'est-à-dire hors du rectangle
+     * formé par les anneaux précédents.
+     *
+     * @param recherche la recherche.
+     * @param i0 la coordonnée de la maille du point suivant la direction d'un méridien.
+     * @param j0 la coordonnée de la maille du point suivant la direction d'un parallèle.
+     * @param r le numéro de l'anneau.
+     * @param nbDivLat nombre de mailles suivant la direction d'un méridien.
+     * @param nbDivLong nombre de mailles suivant la direction d'un parallèle.
+     * @return un minorant de la distance en mètres.
+     */
+    static double minorantAnneau(RechercheDesPlusProches<?> recherche, int i0, int j0, int r, int nbDivLat, int nbDivLong) {
+        if (r == 0)
+            return 0;
+        double latMin = latitudeMin(i0 - r + 1, nbDivLat), latMax = latitudeMax(i0 + r - 1, nbDivLat);
+        double longMin = longitudeMin(j0 - r + 1, nbDivLong), longMax = longitudeMax(j0 + r - 1, nbDivLong);
+        // Un point hors du rectangle en est séparé soit en latitude, soit en longitude à une latitude comprise dans le rectangle
+        double dLat = Math.min(recherche.minorant(Double.NEGATIVE_INFINITY, latMin, longMin, longMax),
+                recherche.minorant(latMax, Double.POSITIVE_INFINITY, longMin, longMax));
+        double dLong = Math.min(recherche.minorant(latMin, latMax, Double.NEGATIVE_INFINITY, longMin),
+                recherche.minorant(latMin, latMax, longMax, Double.POSITIVE_INFINITY));
+        return Math.min(dLat, dLong);
+    }
+
+    /**
+     * Renvoie la latitude minimale (en radians) d'une maille. La maille 0 est deux fois plus haute que les autres, les coordonnées étant obtenues par
+     * troncature.
+     *
+     * @param i la coordonnée de la maille suivant la direction d'un méridien.
+     * @param nbDivLat nombre de mailles suivant la direction d'un méridien.
+     * @return la latitude minimale.
+     */
+    static double latitudeMin(int i, int nbDivLat) {
+        return (i > 0 ? i : i - 1) * (Math.PI / 2) / nbDivLat;
+    }
+
+    /**
+     * Renvoie la latitude maximale (en radians) d'une maille.
+     *
+     * @param i la coordonnée de la maille suivant la direction d'un méridien.
+     * @param nbDivLat nombre de mailles suivant la direction d'un méridien.
+     * @return la latitude maximale.
+     */
+    static double latitudeMax(int i, int nbDivLat) {
+        return (i < 0 ? i : i + 1) * (Math.PI / 2) / nbDivLat;
+    }
+
+    /**
+     * Renvoie la longitude minimale (en radians) d'une maille.
+     *
+     * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+     * @param nbDivLong nombre de mailles suivant la direction d'un parallèle.
+     * @return la longitude minimale.
+     */
+    static double longitudeMin(int j, int nbDivLong) {
+        return (j > 0 ? j : j - 1) * Math.PI / nbDivLong;
+    }
+
+    /**
+     * Renvoie la longitude maximale (en radians) d'une maille.
+     *
+     * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+     * @param nbDivLong nombre de mailles suivant la direction d'un parallèle.
+     * @return la longitude maximale.
+     */
+    static double longitudeMax(int j, int nbDivLong) {
+        return (j < 0 ? j : j + 1) * Math.PI / nbDivLong;
+    }
+
+    /**
+     * L'interface {@code CompteurDeMailles} reçoit le nombre d'éléments des mailles d'une zone (voir {@link #histogramme(Zone, CompteurDeMailles)}).
+     */
+    public interface CompteurDeMailles {
+
+        /**
+         * Reçoit le nombre d'éléments d'une maille non vide.
+         *
+         * @param i la coordonnée de la maille suivant la direction d'un méridien.
+         * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+         * @param nombre le nombre d'éléments de la maille.
+         */
+        public void compter(int i, int j, int nombre);
+    }
 }
@@ -0,0 +1,110 @@
+package cartographie.gestionDonnées;
+
+import java.util.List;
+
+/**
+ * La classe {@code EnsembleMobile} représente un ensemble d'éléments dont la position change fréquemment (véhicules, points d'intérêt mobiles). L'ensemble
+ * conserve la zone de chaque élément lors de son ajout ou de son dernier déplacement : après avoir modifié un élément, il suffit d'appeler
+ * {@link #déplacerÉlément(Identifiable)} pour mettre à jour sa place dans l'index spatial, sans retirer ni ajouter à nouveau l'élément. Avec un maillage,
+ * seules les mailles quittées ou nouvellement occupées par l'élément sont modifiées.
+ * <p>Un élément modifié peut aussi être retiré directement : il est d'abord déplacé dans l'index. L'ensemble peut être utilisé par plusieurs threads si son
+ * index spatial est un {@link MaillageConcurrent}, à condition qu'un même élément ne soit pas déplacé simultanément par deux threads.
+ *
+ * @author Charles Masson
+ * @param <T> le type des éléments de l'ensemble.
+ */
+public class EnsembleMobile<T extends Identifiable & Localisable> extends Ensemble<T> {
+
+    /**
+     * la zone de chaque élément lors de son ajout ou de son dernier déplacement, indexée par son identifiant
+     */
+    private final TableLongue<Zone> zones = new TableLongue<>();
+
+    /**
+     * Construit un ensemble d'éléments mobiles vide, indexé par un maillage dont les mailles ont la taille spécifiée.
+     *
+     * @param taille la taille d'un côté de la maille (suivant les deux directions) au niveau de l'équateur.
+     */
+    public EnsembleMobile(double taille) {
+        super(taille);
+    }
+
+    /**
+     * Construit un ensemble d'éléments mobiles vide utilisant l'index spatial spécifié.
+     *
+     * @param taille la taille d'un côté de la maille (suivant les deux directions) au niveau de l'équateur.
+     * @param index l'index spatial, vide, dans lequel stocker les éléments.
+     */
+    public EnsembleMobile(double taille, IndexSpatial<T> index) {
+        super(taille, index);
+    }
+
+    /**
+     * Remplace la zone conservée d'un élément.
+     *
+     * @param id l'identifiant de l'élément.
+     * @param zone la nouvelle zone, ou {@code null} pour oublier la zone de l'élément.
+     * @return la zone précédemment conservée, ou {@code null}.
+     */
+    private Zone échangerZone(long id, Zone zone) {
+        synchronized (zones) {
+            return zone == null ? zones.remove(id) : zones.put(id, zone);
+        }
+    }
+
+    @Override
+    public void ajouterÉlément(T élément) {
+        super.ajouterÉlément(élément);
+        échangerZone(élément.getID(), élément.calculerZone());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>La zone de chaque élément, que l'ensemble doit conserver, est tout de même calculée.
+     */
+    @Override
+    public void indexer(List<? extends T> éléments, double[] bornes) {
+        super.indexer(éléments, bornes);
+        for (T élément : éléments)
+            échangerZone(élément.getID(), élément.calculerZone());
+    }
+
+    /**
+     * Retire un élément de l'ensemble. L'élément peut avoir été modifié depuis son ajout ou son dernier déplacement.
+     *
+     * @param élément l'élément à retirer.
+     */
+    @Override
+    public void retirerÉlément(T élément) {
+        Zone ancienneZone = échangerZone(élément.getID(), null);
+        if (ancienneZone != null)
+            super.déplacerÉlément(élément, ancienneZone);
+        super.retirerÉlément(élément);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>La zone conservée de l'élément est remplacée par sa zone actuelle ; la zone spécifiée n'est utilisée que si l'ensemble ne conservait pas de zone
+     * pour l'élément.
+     */
+    @Override
+    public void déplacerÉlément(T élément, Zone ancienneZone) {
+        Zone zoneConservée = échangerZone(élément.getID(), élément.calculerZone());
+        super.déplacerÉlément(élément, zoneConservée != null ? zoneConservée : ancienneZone);
+    }
+
+    /**
+     * Met à jour la place d'un élément de l'ensemble après sa modification, à partir de la zone conservée lors de son ajout ou de son dernier déplacement.
+     *
+     * @param élément l'élément déplacé, déjà modifié.
+     * @throws IllegalArgumentException si l'élément n'appartient pas à l'ensemble.
+     */
+    public void déplacerÉlément(T élément) {
+        Zone ancienneZone = échangerZone(élément.getID(), élément.calculerZone());
+        if (ancienneZone == null) {
+            échangerZone(élément.getID(), null);
+            throw new IllegalArgumentException("Élément inconnu : " + élément.getID());
+        }
+        super.déplacerÉlément(élément, ancienneZone);
+    }
+}
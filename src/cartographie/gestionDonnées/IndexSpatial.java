@@ -0,0 +1,160 @@
+package cartographie.gestionDonnées;
+
+import cartographie.positionnementGéographique.Point;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * L'interface {@code IndexSpatial} représente une structure d'indexation d'éléments localisables, permettant de retrouver rapidement les éléments situés
+ * dans une zone donnée. Elle est implémentée par le maillage uniforme {@link EnsembleDeLocalisables}, par sa variante {@link MaillageConcurrent} et par le
+ * R-arbre {@link ArbreR} ; un {@link Ensemble} peut utiliser n'importe laquelle.
+ *
+ * @author Charles Masson
+ * @param <T> le type des éléments indexés.
+ */
+public interface IndexSpatial<T extends Localisable> {
+
+    /**
+     * Ajoute un élément à l'index. L'élément ne doit pas déjà appartenir à l'index.
+     *
+     * @param élément l'élément à ajouter.
+     */
+    public void ajouterÉlément(T élément);
+
+    /**
+     * Ajoute en bloc des éléments dont les bornes des zones sont déjà connues (par exemple lues dans un fichier), sans calculer leurs zones. Les éléments
+     * ne doivent pas déjà appartenir à l'index.
+     *
+     * @param éléments les éléments à ajouter.
+     * @param bornes les bornes des zones des éléments, en radians : quatre valeurs par élément, dans l'ordre latitude minimale, latitude maximale,
+     * longitude minimale, longitude maximale.
+     */
+    public void ajouterÉléments(List<? extends T> éléments, double[] bornes);
+
+    /**
+     * Retire un élément de l'index. La zone de l'élément doit être la même que lors de son ajout : un élément qui doit être déplacé doit être retiré avant
+     * d'être modifié, puis ajouté à nouveau.
+     *
+     * @param élément l'élément à retirer.
+     */
+    public void retirerÉlément(T élément);
+
+    /**
+     * Met à jour la place d'un élément de l'index dont la zone a changé. L'élément doit déjà avoir été modifié ; sa zone précédente doit être celle qu'il
+     * avait lors de son ajout ou de son dernier déplacement.
+     *
+     * @param élément l'élément déplacé.
+     * @param ancienneZone la zone de l'élément avant sa modification.
+     */
+    public void déplacerÉlément(T élément, Zone ancienneZone);
+
+    /**
+     * Renvoie les éléments contenus dans la zone spécifiée. L'ensemble renvoyé peut également contenir d'autres éléments, situés aux alentours de la zone.
+     *
+     * @param z une zone.
+     * @return un ensemble contenant au moins tous les éléments situés dans la zone spécifiée.
+     */
+    public Set<T> getÉlémentsDansZone(Zone z);
+
+    /**
+     * Applique une action à chaque élément de la zone spécifiée, sans créer d'ensemble de résultats. Chaque élément est traité une seule fois. L'index ne
+     * doit pas être modifié pendant le parcours.
+     *
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne traiter que les éléments dont la zone intersecte la zone spécifiée, {@code false} pour traiter aussi
+     * des éléments situés aux alentours, comme {@link #getÉlémentsDansZone(Zone)}.
+     * @param action l'action à appliquer.
+     */
+    public void parcourir(Zone z, boolean intersectionExacte, Consumer<? super T> action);
+
+    /**
+     * Réduit les éléments de la zone spécifiée à une valeur, suivant les mêmes règles que {@link #parcourir(Zone, boolean, Consumer)} : le réducteur est
+     * appliqué successivement à chaque élément, à partir de la valeur initiale. {@link #compter(Zone, boolean)} et
+     * {@link #sommer(Zone, boolean, ToDoubleFunction)} reposent sur le même parcours, avec un accumulateur primitif.
+     *
+     * @param <R> le type du résultat.
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne retenir que les éléments dont la zone intersecte la zone spécifiée.
+     * @param initial la valeur initiale.
+     * @param réducteur la combinaison d'un résultat partiel avec un élément.
+     * @return le résultat de la réduction.
+     */
+    public default <R> R réduire(Zone z, boolean intersectionExacte, final R initial, final BiFunction<R, ? super T, R> réducteur) {
+        final class Accumulateur implements Consumer<T> {
+
+            private R résultat = initial;
+
+            @Override
+            public void accept(T élément) {
+                résultat = réducteur.apply(résultat, élément);
+            }
+        }
+        Accumulateur accumulateur = new Accumulateur();
+        parcourir(z, intersectionExacte, accumulateur);
+        return accumulateur.résultat;
+    }
+
+    /**
+     * Compte les éléments de la zone spécifiée, suivant les mêmes règles que {@link #parcourir(Zone, boolean, Consumer)}, sans créer d'ensemble de
+     * résultats.
+     *
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne compter que les éléments dont la zone intersecte la zone spécifiée.
+     * @return le nombre d'éléments de la zone.
+     */
+    public default int compter(Zone z, boolean intersectionExacte) {
+        return (int) sommer(z, intersectionExacte, new ToDoubleFunction<T>() {
+
+            @Override
+            public double applyAsDouble(T élément) {
+                return 1;
+            }
+        });
+    }
+
+    /**
+     * Calcule la somme d'une valeur associée aux éléments de la zone spécifiée (par exemple la capacité des parkings d'un quartier), suivant les mêmes
+     * règles que {@link #parcourir(Zone, boolean, Consumer)}.
+     *
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne retenir que les éléments dont la zone intersecte la zone spécifiée.
+     * @param valeur la valeur associée à chaque élément.
+     * @return la somme des valeurs des éléments de la zone.
+     */
+    public default double sommer(Zone z, boolean intersectionExacte, final ToDoubleFunction<? super T> valeur) {
+        final double[] somme = new double[1];
+        parcourir(z, intersectionExacte, new Consumer<T>() {
+
+            @Override
+            public void accept(T élément) {
+                somme[0] += valeur.applyAsDouble(élément);
+            }
+        });
+        return somme[0];
+    }
+
+    /**
+     * Renvoie un {@link Spliterator} parcourant les éléments de la zone spécifiée, suivant les mêmes règles que
+     * {@link #parcourir(Zone, boolean, Consumer)}.
+     *
+     * @param z une zone.
+     * @param intersectionExacte {@code true} pour ne parcourir que les éléments dont la zone intersecte la zone spécifiée.
+     * @return le {@code Spliterator}.
+     */
+    public Spliterator<T> spliterator(Zone z, boolean intersectionExacte);
+
+    /**
+     * Renvoie les éléments les plus proches d'un point. Les régions de l'index sont explorées par distance croissante au point, et chaque élément est mesuré
+     * au plus une fois.
+     *
+     * @param p un point.
+     * @param k le nombre d'éléments recherchés.
+     * @param mesure la distance exacte entre le point et un élément.
+     * @return les {@code k} éléments les plus proches du point (moins si l'index contient moins de {@code k} éléments), par distance croissante.
+     */
+    public List<T> kPlusProches(Point p, int k, MesureDeDistance<? super T> mesure);
+}
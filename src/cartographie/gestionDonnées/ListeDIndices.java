@@ -0,0 +1,91 @@
+package cartographie.gestionDonnées;
+
+import java.util.Arrays;
+
+/**
+ * La classe {@code ListeDIndices} représente une petite liste d'indices denses sans doublon (voir {@link Ensemble#getIndice(long)}), stockée dans un tableau
+ * d'{@code int} : elle remplace un {@code Set<Long>} pour les relations entre éléments d'une carte (arcs d'un noeud, points d'intérêt d'un arc), qui ne
+ * comptent que quelques éléments. Les indices désignent directement une case de la numérotation de l'ensemble : un élément de la liste est retrouvé sans
+ * consulter de table associative ni créer d'objet. Les recherches sont linéaires. La liste n'est pas synchronisée.
+ *
+ * @author Charles Masson
+ */
+public final class ListeDIndices {
+
+    /**
+     * tableau vide partagé par les listes vides
+     */
+    private static final int[] VIDE = new int[0];
+    /**
+     * les indices, suivis de cases inutilisées
+     */
+    private int[] indices = VIDE;
+    /**
+     * nombre d'indices de la liste
+     */
+    private int taille;
+
+    /**
+     * Ajoute un indice à la liste, s'il n'y figure pas déjà.
+     *
+     * @param indice l'indice à ajouter.
+     * @return {@code true} si l'indice a été ajouté.
+     */
+    public boolean ajouter(int indice) {
+        if (contient(indice))
+            return false;
+        if (taille == indices.length)
+            indices = Arrays.copyOf(indices, Math.max(2, taille << 1));
+        indices[taille++] = indice;
+        return true;
+    }
+
+    /**
+     * Retire un indice de la liste. Le dernier indice prend sa place.
+     *
+     * @param indice l'indice à retirer.
+     * @return {@code true} si l'indice figurait dans la liste.
+     */
+    public boolean retirer(int indice) {
+        for (int i = 0; i < taille; i++)
+            if (indices[i] == indice) {
+                indices[i] = indices[--taille];
+                return true;
+            }
+        return false;
+    }
+
+    /**
+     * Indique si la liste contient un indice.
+     *
+     * @param indice un indice.
+     * @return {@code true} si la liste contient l'indice.
+     */
+    public boolean contient(int indice) {
+        for (int i = 0; i < taille; i++)
+            if (indices[i] == indice)
+                return true;
+        return false;
+    }
+
+    /**
+     * Renvoie un indice de la liste.
+     *
+     * @param i le rang de l'indice dans la liste, entre 0 et {@link #taille()} - 1.
+     * @return l'indice.
+     */
+    public int get(int i) {
+        if (i >= taille)
+            throw new IndexOutOfBoundsException(String.valueOf(i));
+        return indices[i];
+    }
+
+    /**
+     * Renvoie le nombre d'indices de la liste.
+     *
+     * @return le nombre d'indices.
+     */
+    public int taille() {
+        return taille;
+    }
+}
@@ -0,0 +1,437 @@
+package cartographie.gestionDonnées;
+
+import cartographie.positionnementGéographique.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * La classe {@code MaillageConcurrent} est un maillage uniforme, semblable à {@link EnsembleDeLocalisables}, qui peut être modifié et consulté simultanément
+ * par plusieurs threads sans verrou global.
+ * <p>Les mailles sont réparties entre {@link #NB_BANDES} bandes selon leur clé, chaque bande ayant sa propre table de mailles et son propre verrou. Le contenu
+ * d'une maille n'est jamais modifié : un ajout ou un retrait remplace la maille par une copie modifiée, sous le verrou en écriture de sa bande. Une lecture
+ * cherche la maille sous une lecture optimiste de la bande ({@link StampedLock#tryOptimisticRead()}), sans écrire dans le verrou, et ne prend le verrou en
+ * lecture que si la bande a été modifiée pendant la recherche ; elle parcourt ensuite le contenu sans verrou. Les actions des parcours sont appelées hors de
+ * tout verrou.
+ * <p>Chaque maille est toujours cohérente, mais un élément couvrant plusieurs mailles y est ajouté (ou retiré) maille par maille : une recherche concurrente
+ * peut ne le trouver que dans certaines d'entre elles. Les résultats des recherches reflètent l'état de chaque maille au moment où elle est consultée.
+ *
+ * @author Charles Masson
+ * @param <T> le type des éléments.
+ */
+public class MaillageConcurrent<T extends Localisable> implements IndexSpatial<T> {
+
+    /**
+     * nombre de bandes (puissance de deux)
+     */
+    public static final int NB_BANDES = 64;
+    /**
+     * taille du maillage
+     */
+    private final int nbDivLat, nbDivLong;
+    /**
+     * les bandes de mailles
+     */
+    private final Bande[] bandes;
+    /**
+     * nombre de mailles non vides
+     */
+    private final AtomicInteger nbMailles = new AtomicInteger();
+
+    /**
+     * Construit un maillage concurrent vide, avec la taille de maillage spécifiée.
+     *
+     * @param nbDivLat nombre de mailles suivant la direction d'un méridien.
+     * @param nbDivLong nombre de mailles suivant la direction d'un parallèle.
+     */
+    public MaillageConcurrent(int nbDivLat, int nbDivLong) {
+        this.nbDivLat = nbDivLat;
+        this.nbDivLong = nbDivLong;
+        bandes = new Bande[NB_BANDES];
+        for (int b = 0; b < NB_BANDES; b++)
+            bandes[b] = new Bande();
+    }
+
+    /**
+     * Construit un maillage concurrent vide, dont les mailles ont approximativement la taille spécifiée (comme {@link Ensemble#Ensemble(double)}).
+     *
+     * @param taille la taille des mailles en mètres.
+     */
+    public MaillageConcurrent(double taille) {
+        this(Ensemble.nbDivLat(taille), Ensemble.nbDivLong(taille));
+    }
+
+    /**
+     * Renvoie la bande d'une maille.
+     *
+     * @param clé la clé de la maille.
+     * @return la bande contenant la maille.
+     */
+    private Bande bande(long clé) {
+        long h = clé * 0x9e3779b97f4a7c15L;
+        return bandes[(int) (h >>> 32) & (NB_BANDES - 1)];
+    }
+
+    /**
+     * Renvoie le contenu actuel d'une maille.
+     *
+     * @param i la coordonnée de la maille suivant la direction d'un méridien.
+     * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+     * @return le contenu de la maille, ou {@code null} si elle est vide.
+     */
+    private Contenu lire(int i, int j) {
+        long clé = EnsembleDeLocalisables.clé(i, j);
+        Bande bande = bande(clé);
+        long tampon = bande.verrou.tryOptimisticRead();
+        if (tampon != 0) {
+            Contenu contenu = bande.mailles.getOptimiste(clé);
+            if (bande.verrou.validate(tampon))
+                return contenu;
+        }
+        tampon = bande.verrou.readLock();
+        try {
+            return bande.mailles.get(clé);
+        } finally {
+            bande.verrou.unlockRead(tampon);
+        }
+    }
+
+    @Override
+    public void ajouterÉlément(T élément) {
+        Zone zone = élément.calculerZone();
+        int iMin = EnsembleDeLocalisables.indiceLatitude(zone.getLatitudeMinRadians(), nbDivLat);
+        int iMax = EnsembleDeLocalisables.indiceLatitude(zone.getLatitudeMaxRadians(), nbDivLat);
+        int jMin = EnsembleDeLocalisables.indiceLongitude(zone.getLongitudeMinRadians(), nbDivLong);
+        int jMax = EnsembleDeLocalisables.indiceLongitude(zone.getLongitudeMaxRadians(), nbDivLong);
+        double[] b = bornes(zone);
+        for (int i = iMin; i <= iMax; i++)
+            for (int j = jMin; j <= jMax; j++)
+                modifier(i, j, élément, b, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Chaque maille occupée est modifiée sous le verrou de sa bande, comme pour {@link #ajouterÉlément(Localisable)}.
+     */
+    @Override
+    public void ajouterÉléments(List<? extends T> éléments, double[] bornes) {
+        for (int k = 0, n = éléments.size(); k < n; k++) {
+            int iMin = EnsembleDeLocalisables.indiceLatitude(bornes[4 * k + Maille.LAT_MIN], nbDivLat);
+            int iMax = EnsembleDeLocalisables.indiceLatitude(bornes[4 * k + Maille.LAT_MAX], nbDivLat);
+            int jMin = EnsembleDeLocalisables.indiceLongitude(bornes[4 * k + Maille.LONG_MIN], nbDivLong);
+            int jMax = EnsembleDeLocalisables.indiceLongitude(bornes[4 * k + Maille.LONG_MAX], nbDivLong);
+            for (int i = iMin; i <= iMax; i++)
+                for (int j = jMin; j <= jMax; j++)
+                    modifier(i, j, éléments.get(k), bornes, k);
+        }
+    }
+
+    /**
+     * Renvoie les bornes d'une zone, dans l'ordre de {@link Maille}.
+     *
+     * @param zone la zone.
+     * @return les quatre bornes de la zone, en radians.
+     */
+    private static double[] bornes(Zone zone) {
+        return new double[]{zone.getLatitudeMinRadians(), zone.getLatitudeMaxRadians(),
+            zone.getLongitudeMinRadians(), zone.getLongitudeMaxRadians()};
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>L'élément est recherché par {@link Object#equals(Object)}.
+     */
+    @Override
+    public void retirerÉlément(T élément) {
+        Zone zone = élément.calculerZone();
+        int iMin = EnsembleDeLocalisables.indiceLatitude(zone.getLatitudeMinRadians(), nbDivLat);
+        int iMax = EnsembleDeLocalisables.indiceLatitude(zone.getLatitudeMaxRadians(), nbDivLat);
+        int jMin = EnsembleDeLocalisables.indiceLongitude(zone.getLongitudeMinRadians(), nbDivLong);
+        int jMax = EnsembleDeLocalisables.indiceLongitude(zone.getLongitudeMaxRadians(), nbDivLong);
+        for (int i = iMin; i <= iMax; i++)
+            for (int j = jMin; j <= jMax; j++)
+                modifier(i, j, élément, null, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Seules les mailles quittées et les mailles nouvellement occupées par l'élément changent de contenu ; dans les mailles communes aux deux zones, le
+     * contenu est remplacé par une copie où seules les bornes de l'élément diffèrent.
+     */
+    @Override
+    public void déplacerÉlément(T élément, Zone ancienneZone) {
+        Zone zone = élément.calculerZone();
+        int aiMin = EnsembleDeLocalisables.indiceLatitude(ancienneZone.getLatitudeMinRadians(), nbDivLat);
+        int aiMax = EnsembleDeLocalisables.indiceLatitude(ancienneZone.getLatitudeMaxRadians(), nbDivLat);
+        int ajMin = EnsembleDeLocalisables.indiceLongitude(ancienneZone.getLongitudeMinRadians(), nbDivLong);
+        int ajMax = EnsembleDeLocalisables.indiceLongitude(ancienneZone.getLongitudeMaxRadians(), nbDivLong);
+        int iMin = EnsembleDeLocalisables.indiceLatitude(zone.getLatitudeMinRadians(), nbDivLat);
+        int iMax = EnsembleDeLocalisables.indiceLatitude(zone.getLatitudeMaxRadians(), nbDivLat);
+        int jMin = EnsembleDeLocalisables.indiceLongitude(zone.getLongitudeMinRadians(), nbDivLong);
+        int jMax = EnsembleDeLocalisables.indiceLongitude(zone.getLongitudeMaxRadians(), nbDivLong);
+
+        // Les nouvelles mailles sont occupées avant que les anciennes soient quittées, pour que l'élément reste visible des recherches concurrentes
+        double[] b = bornes(zone);
+        for (int i = iMin; i <= iMax; i++)
+            for (int j = jMin; j <= jMax; j++)
+                modifier(i, j, élément, b, 0);
+        for (int i = aiMin; i <= aiMax; i++)
+            for (int j = ajMin; j <= ajMax; j++)
+                if (i < iMin || i > iMax || j < jMin || j > jMax)
+                    modifier(i, j, élément, null, 0);
+    }
+
+    /**
+     * Remplace le contenu d'une maille, sous le verrou en écriture de sa bande.
+     *
+     * @param i la coordonnée de la maille suivant la direction d'un méridien.
+     * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+     * @param élément l'élément à ajouter, à mettre à jour ou à retirer.
+     * @param b un tableau contenant les bornes de l'élément à ajouter ou à mettre à jour, ou {@code null} pour retirer l'élément.
+     * @param k l'indice de l'élément dans le tableau de bornes.
+     */
+    private void modifier(int i, int j, T élément, double[] b, int k) {
+        long clé = EnsembleDeLocalisables.clé(i, j);
+        Bande bande = bande(clé);
+        long tampon = bande.verrou.writeLock();
+        try {
+            Contenu contenu = bande.mailles.get(clé);
+            Contenu nouveau = b != null ? Contenu.avecBornes(contenu, élément, b, k) : contenu == null ? null : contenu.sans(élément);
+            if (nouveau == contenu)
+                return;
+            if (contenu == null)
+                nbMailles.incrementAndGet();
+            if (nouveau == null) {
+                bande.mailles.remove(clé);
+                nbMailles.decrementAndGet();
+            } else
+                bande.mailles.put(clé, nouveau);
+        } finally {
+            bande.verrou.unlockWrite(tampon);
+        }
+    }
+
+    @Override
+    public Set<T> getÉlémentsDansZone(Zone z) {
+        final Set<T> éléments = new HashSet<>();
+        parcourir(z, false, new Consumer<T>() {
+
+            @Override
+            public void accept(T élément) {
+                éléments.add(élément);
+            }
+        });
+        return éléments;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Comme pour {@link EnsembleDeLocalisables}, un élément situé dans plusieurs mailles de la zone n'est traité que dans sa maille de référence. Le
+     * maillage peut être modifié pendant le parcours.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void parcourir(Zone z, boolean intersectionExacte, Consumer<? super T> action) {
+        double latMin = z.getLatitudeMinRadians(), latMax = z.getLatitudeMaxRadians();
+        double longMin = z.getLongitudeMinRadians(), longMax = z.getLongitudeMaxRadians();
+        int iMin = EnsembleDeLocalisables.indiceLatitude(latMin, nbDivLat), iMax = EnsembleDeLocalisables.indiceLatitude(latMax, nbDivLat);
+        int jMin = EnsembleDeLocalisables.indiceLongitude(longMin, nbDivLong), jMax = EnsembleDeLocalisables.indiceLongitude(longMax, nbDivLong);
+        for (int i = iMin; i <= iMax; i++)
+            for (int j = jMin; j <= jMax; j++) {
+                Contenu contenu = lire(i, j);
+                if (contenu == null)
+                    continue;
+                double[] bornes = contenu.bornes;
+                for (int k = 0; k < contenu.éléments.length; k++) {
+                    // Maille de référence de l'élément, puis intersection exacte si elle est demandée
+                    if (i != iMin && EnsembleDeLocalisables.indiceLatitude(bornes[4 * k + Maille.LAT_MIN], nbDivLat) < i)
+                        continue;
+                    if (j != jMin && EnsembleDeLocalisables.indiceLongitude(bornes[4 * k + Maille.LONG_MIN], nbDivLong) < j)
+                        continue;
+                    if (intersectionExacte && (bornes[4 * k + Maille.LAT_MIN] > latMax || bornes[4 * k + Maille.LAT_MAX] < latMin
+                            || bornes[4 * k + Maille.LONG_MIN] > longMax || bornes[4 * k + Maille.LONG_MAX] < longMin))
+                        continue;
+                    action.accept((T) contenu.éléments[k]);
+                }
+            }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Les éléments sont d'abord copiés dans une liste par {@link #parcourir(Zone, boolean, Consumer)} : le {@code Spliterator} renvoyé n'est donc pas
+     * affecté par les modifications ultérieures du maillage.
+     */
+    @Override
+    public Spliterator<T> spliterator(Zone z, boolean intersectionExacte) {
+        final List<T> éléments = new ArrayList<>();
+        parcourir(z, intersectionExacte, new Consumer<T>() {
+
+            @Override
+            public void accept(T élément) {
+                éléments.add(élément);
+            }
+        });
+        return éléments.spliterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Les mailles sont explorées par anneaux concentriques, comme dans {@link EnsembleDeLocalisables#kPlusProches(Point, int, MesureDeDistance)}.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> kPlusProches(Point p, int k, MesureDeDistance<? super T> mesure) {
+        RechercheDesPlusProches<T> recherche = new RechercheDesPlusProches<>(p, k, mesure);
+        int i0 = EnsembleDeLocalisables.indiceLatitude(p.getLatitudeRadians(), nbDivLat);
+        int j0 = EnsembleDeLocalisables.indiceLongitude(p.getLongitudeRadians(), nbDivLong);
+        for (int r = 0; !recherche.estTerminée(); r++) {
+            boolean dernier = 4L * r * r > nbMailles.get();
+            if (dernier)
+                ajouterMaillesÉloignées(recherche, i0, j0, r);
+            double seuil = dernier ? Double.POSITIVE_INFINITY : EnsembleDeLocalisables.minorantAnneau(recherche, i0, j0, r, nbDivLat, nbDivLong);
+            for (Object contenu; (contenu = recherche.suivante(seuil)) != null;)
+                for (Object élément : ((Contenu) contenu).éléments)
+                    recherche.ajouterÉlément((T) élément);
+            if (dernier)
+                break;
+            if (r == 0)
+                ajouterMaille(recherche, i0, j0);
+            else
+                for (int d = -r; d < r; d++) {
+                    ajouterMaille(recherche, i0 - r, j0 + d);
+                    ajouterMaille(recherche, i0 + d, j0 + r);
+                    ajouterMaille(recherche, i0 + r, j0 - d);
+                    ajouterMaille(recherche, i0 - d, j0 - r);
+                }
+        }
+        return recherche.getRésultat();
+    }
+
+    /**
+     * Ajoute une maille à la file d'une recherche des plus proches éléments, si elle n'est pas vide.
+     *
+     * @param recherche la recherche.
+     * @param i la coordonnée de la maille suivant la direction d'un méridien.
+     * @param j la coordonnée de la maille suivant la direction d'un parallèle.
+     */
+    private void ajouterMaille(RechercheDesPlusProches<T> recherche, int i, int j) {
+        Contenu contenu = lire(i, j);
+        if (contenu != null)
+            recherche.ajouterRégion(EnsembleDeLocalisables.minorantMaille(recherche, i, j, nbDivLat, nbDivLong), contenu);
+    }
+
+    /**
+     * Ajoute à la file d'une recherche des plus proches éléments toutes les mailles non vides situées au moins à l'anneau spécifié, bande par bande. Chaque
+     * bande est copiée sous une lecture optimiste, ou sous son verrou en lecture si elle a été modifiée pendant la copie, et la copie est parcourue hors
+     * verrou.
+     *
+     * @param recherche la recherche.
+     * @param i0 la coordonnée de la maille du point suivant la direction d'un méridien.
+     * @param j0 la coordonnée de la maille du point suivant la direction d'un parallèle.
+     * @param r le numéro du premier anneau à ajouter.
+     */
+    private void ajouterMaillesÉloignées(final RechercheDesPlusProches<T> recherche, final int i0, final int j0, final int r) {
+        TableLongue.Visiteur<Contenu> visiteur = new TableLongue.Visiteur<Contenu>() {
+
+            @Override
+            public void visiter(long clé, Contenu contenu) {
+                int i = (int) (clé >> 32), j = (int) clé;
+                if (Math.max(Math.abs(i - i0), Math.abs(j - j0)) >= r)
+                    recherche.ajouterRégion(EnsembleDeLocalisables.minorantMaille(recherche, i, j, nbDivLat, nbDivLong), contenu);
+            }
+        };
+        for (Bande bande : bandes) {
+            long tampon = bande.verrou.tryOptimisticRead();
+            TableLongue<Contenu> mailles = tampon != 0 ? bande.mailles.copierOptimiste() : null;
+            if (mailles == null || !bande.verrou.validate(tampon)) {
+                tampon = bande.verrou.readLock();
+                try {
+                    mailles = bande.mailles.copierOptimiste();
+                } finally {
+                    bande.verrou.unlockRead(tampon);
+                }
+            }
+            mailles.parcourir(visiteur);
+        }
+    }
+
+    /**
+     * La classe {@code Bande} regroupe les mailles protégées par un même verrou.
+     */
+    private static final class Bande {
+
+        /**
+         * le verrou de la bande
+         */
+        final StampedLock verrou = new StampedLock();
+        /**
+         * les mailles non vides de la bande, indexées par leur clé
+         */
+        final TableLongue<Contenu> mailles = new TableLongue<>();
+    }
+
+    /**
+     * La classe {@code Contenu} représente le contenu d'une maille à un instant donné : les éléments et les bornes de leurs zones (quatre valeurs par
+     * élément, en radians, dans l'ordre de {@link Maille}). Un contenu n'est jamais modifié après sa construction.
+     */
+    private static final class Contenu {
+
+        final Object[] éléments;
+        final double[] bornes;
+
+        Contenu(Object[] éléments, double[] bornes) {
+            this.éléments = éléments;
+            this.bornes = bornes;
+        }
+
+        /**
+         * Renvoie un contenu où les bornes d'un élément sont mises à jour, l'élément étant ajouté s'il n'y figure pas.
+         *
+         * @param contenu le contenu d'origine, ou {@code null} si la maille est vide.
+         * @param élément l'élément.
+         * @param b un tableau contenant les bornes de l'élément.
+         * @param indice l'indice de l'élément dans le tableau de bornes.
+         * @return le nouveau contenu.
+         */
+        static Contenu avecBornes(Contenu contenu, Object élément, double[] b, int indice) {
+            int n = contenu == null ? 0 : contenu.éléments.length, k = 0;
+            while (k < n && !contenu.éléments[k].equals(élément))
+                k++;
+            // Le contenu d'origine peut être en cours de parcours par des lecteurs sans verrou : ses tableaux sont copiés, même pour une mise à jour
+            Object[] éléments = contenu == null ? new Object[1] : Arrays.copyOf(contenu.éléments, Math.max(n, k + 1));
+            double[] bornes = contenu == null ? new double[4] : Arrays.copyOf(contenu.bornes, 4 * Math.max(n, k + 1));
+            éléments[k] = élément;
+            System.arraycopy(b, 4 * indice, bornes, 4 * k, 4);
+            return new Contenu(éléments, bornes);
+        }
+
+        /**
+         * Renvoie ce contenu privé d'un élément.
+         *
+         * @param élément l'élément à retirer.
+         * @return le nouveau contenu, ce contenu s'il ne contient pas l'élément, ou {@code null} si le nouveau contenu est vide.
+         */
+        Contenu sans(Object élément) {
+            int n = éléments.length;
+            for (int k = 0; k < n; k++)
+                if (éléments[k].equals(élément)) {
+                    if (n == 1)
+                        return null;
+                    Object[] nouveauxÉléments = new Object[n - 1];
+                    double[] nouvellesBornes = new double[4 * (n - 1)];
+                    System.arraycopy(éléments, 0, nouveauxÉléments, 0, k);
+                    System.arraycopy(éléments, k + 1, nouveauxÉléments, k, n - k - 1);
+                    System.arraycopy(bornes, 0, nouvellesBornes, 0, 4 * k);
+                    System.arraycopy(bornes, 4 * k + 4, nouvellesBornes, 4 * k, 4 * (n - k - 1));
+                    return new Contenu(nouveauxÉléments, nouvellesBornes);
+                }
+            return this;
+        }
+    }
+}
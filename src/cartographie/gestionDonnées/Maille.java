@@ -0,0 +1,190 @@
+package cartographie.gestionDonnées;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * La classe {@code Maille} représente le contenu d'une maille d'un ensemble de localisables : les éléments sont stockés de manière contiguë dans un tableau,
+ * sans objet intermédiaire par élément. Un élément ne doit pas être ajouté deux fois à une même maille.
+ * <p>La maille conserve également les bornes de la zone de chaque élément (en radians), ce qui permet de filtrer les éléments et d'éliminer les doublons
+ * entre mailles lors des parcours, sans recalculer les zones. Les bornes sont connues dès l'ajout d'un élément : les parcours ne font que les lire.
+ *
+ * @author Charles Masson
+ * @param <T> le type des éléments.
+ */
+final class Maille<T extends Localisable> extends AbstractCollection<T> {
+
+    /**
+     * indices des bornes d'un élément dans le tableau des bornes
+     */
+    static final int LAT_MIN = 0, LAT_MAX = 1, LONG_MIN = 2, LONG_MAX = 3;
+    /**
+     * les éléments de la maille, suivis de cases inutilisées
+     */
+    private Object[] éléments = new Object[4];
+    /**
+     * les bornes de la zone de chaque élément (quatre valeurs par élément)
+     */
+    private double[] bornes = new double[16];
+    /**
+     * nombre d'éléments de la maille
+     */
+    private int taille;
+
+    /**
+     * Ajoute un élément à la maille. Sa zone est calculée immédiatement.
+     *
+     * @param élément l'élément à ajouter.
+     * @return {@code true}.
+     */
+    @Override
+    public boolean add(T élément) {
+        ajouter(élément, élément.calculerZone());
+        return true;
+    }
+
+    /**
+     * Ajoute un élément à la maille.
+     *
+     * @param élément l'élément à ajouter.
+     * @param zone la zone de l'élément.
+     */
+    void ajouter(T élément, Zone zone) {
+        agrandir();
+        éléments[taille] = élément;
+        copierBornes(zone, taille);
+        taille++;
+    }
+
+    /**
+     * Agrandit les tableaux de la maille s'ils sont pleins.
+     */
+    private void agrandir() {
+        if (taille == éléments.length) {
+            éléments = Arrays.copyOf(éléments, taille << 1);
+            bornes = Arrays.copyOf(bornes, taille << 3);
+        }
+    }
+
+    /**
+     * Ajoute un élément dont les bornes de la zone sont connues à la maille.
+     *
+     * @param élément l'élément à ajouter.
+     * @param b un tableau de bornes (quatre valeurs par élément, dans l'ordre de ce tableau).
+     * @param k l'indice de l'élément dans le tableau de bornes.
+     */
+    void ajouter(T élément, double[] b, int k) {
+        agrandir();
+        éléments[taille] = élément;
+        System.arraycopy(b, 4 * k, bornes, 4 * taille, 4);
+        taille++;
+    }
+
+    /**
+     * Copie les bornes d'une zone dans le tableau des bornes.
+     *
+     * @param zone la zone.
+     * @param k l'indice de l'élément.
+     */
+    private void copierBornes(Zone zone, int k) {
+        bornes[4 * k + LAT_MIN] = zone.getLatitudeMinRadians();
+        bornes[4 * k + LAT_MAX] = zone.getLatitudeMaxRadians();
+        bornes[4 * k + LONG_MIN] = zone.getLongitudeMinRadians();
+        bornes[4 * k + LONG_MAX] = zone.getLongitudeMaxRadians();
+    }
+
+    /**
+     * Met à jour les bornes de la zone d'un élément de la maille, ou l'ajoute à la maille s'il n'y figure pas.
+     *
+     * @param élément l'élément.
+     * @param zone la nouvelle zone de l'élément.
+     */
+    void mettreÀJour(T élément, Zone zone) {
+        for (int i = 0; i < taille; i++)
+            if (éléments[i].equals(élément)) {
+                copierBornes(zone, i);
+                return;
+            }
+        ajouter(élément, zone);
+    }
+
+    /**
+     * Retire un élément de la maille. Le dernier élément prend sa place.
+     *
+     * @param élément l'élément à retirer.
+     * @return {@code true} si l'élément appartenait à la maille.
+     */
+    @Override
+    public boolean remove(Object élément) {
+        for (int i = 0; i < taille; i++)
+            if (éléments[i].equals(élément)) {
+                éléments[i] = éléments[--taille];
+                System.arraycopy(bornes, 4 * taille, bornes, 4 * i, 4);
+                éléments[taille] = null;
+                return true;
+            }
+        return false;
+    }
+
+    /**
+     * Renvoie un élément de la maille.
+     *
+     * @param k l'indice de l'élément.
+     * @return l'élément.
+     */
+    @SuppressWarnings("unchecked")
+    T get(int k) {
+        return (T) éléments[k];
+    }
+
+    /**
+     * Renvoie une borne de la zone d'un élément de la maille.
+     *
+     * @param k l'indice de l'élément.
+     * @param borne la borne ({@link #LAT_MIN}, {@link #LAT_MAX}, {@link #LONG_MIN} ou {@link #LONG_MAX}).
+     * @return la valeur de la borne en radians.
+     */
+    double getBorne(int k, int borne) {
+        return bornes[4 * k + borne];
+    }
+
+    /**
+     * Ajoute tous les éléments de la maille à une collection, sans créer d'itérateur.
+     *
+     * @param destination la collection à laquelle ajouter les éléments.
+     */
+    @SuppressWarnings("unchecked")
+    void ajouterÀ(Collection<? super T> destination) {
+        for (int i = 0; i < taille; i++)
+            destination.add((T) éléments[i]);
+    }
+
+    @Override
+    public int size() {
+        return taille;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < taille;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (i >= taille)
+                    throw new NoSuchElementException();
+                return (T) éléments[i++];
+            }
+        };
+    }
+}
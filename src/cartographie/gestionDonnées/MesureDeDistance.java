@@ -0,0 +1,24 @@
+package cartographie.gestionDonnées;
+
+import cartographie.positionnementGéographique.Point;
+
+/**
+ * L'interface {@code MesureDeDistance} représente le calcul de la distance exacte entre un point et un élément localisable, utilisé par les recherches des
+ * plus proches éléments (voir {@link IndexSpatial#kPlusProches(Point, int, MesureDeDistance)}).
+ * <p>La distance à un élément ne doit pas être inférieure à la distance métrique ({@link Point#calculerDistanceMétrique(Point)}, calculée par rapport au
+ * point de l'élément) entre le point et la zone de l'élément : c'est le cas de la distance au point le plus proche de l'élément.
+ *
+ * @author Charles Masson
+ * @param <T> le type des éléments.
+ */
+public interface MesureDeDistance<T> {
+
+    /**
+     * Calcule la distance entre un point et un élément.
+     *
+     * @param p un point.
+     * @param élément un élément.
+     * @return la distance en mètres.
+     */
+    public double calculerDistance(Point p, T élément);
+}
@@ -0,0 +1,87 @@
+package cartographie.gestionDonnées;
+
+import java.util.Arrays;
+
+/**
+ * La classe {@code Numérotation} attribue à chaque identifiant un indice entier dense (0, 1, 2…), dans l'ordre des ajouts, et associe à chaque indice
+ * l'élément qui porte actuellement cet identifiant. Un identifiant conserve son indice lorsque son élément est retiré puis ajouté à nouveau (déplacement,
+ * rechargement d'une tuile) : les structures qui désignent les éléments par leur indice restent valables. Les indices ne sont jamais réattribués ; la case
+ * d'un élément retiré reste vide. La numérotation n'est pas synchronisée.
+ *
+ * @author Charles Masson
+ */
+final class Numérotation {
+
+    /**
+     * l'indice de chaque identifiant
+     */
+    private final TableLongueEntière indices = new TableLongueEntière();
+    /**
+     * l'élément portant chaque indice, {@code null} si l'élément a été retiré
+     */
+    private Object[] éléments = new Object[16];
+    /**
+     * nombre d'indices attribués
+     */
+    private int nbIndices;
+
+    /**
+     * Associe un élément à l'indice de son identifiant, en attribuant un nouvel indice si l'identifiant n'en a pas encore.
+     *
+     * @param élément l'élément.
+     * @return l'indice de l'élément.
+     */
+    int numéroter(Identifiable élément) {
+        int indice = indices.get(élément.getID());
+        if (indice == TableLongueEntière.ABSENTE) {
+            if (nbIndices == éléments.length)
+                éléments = Arrays.copyOf(éléments, nbIndices << 1);
+            indice = nbIndices++;
+            indices.put(élément.getID(), indice);
+        }
+        éléments[indice] = élément;
+        return indice;
+    }
+
+    /**
+     * Libère la case d'un élément retiré. L'identifiant conserve son indice.
+     *
+     * @param id l'identifiant de l'élément retiré.
+     */
+    void retirer(long id) {
+        int indice = indices.get(id);
+        if (indice != TableLongueEntière.ABSENTE)
+            éléments[indice] = null;
+    }
+
+    /**
+     * Renvoie l'indice d'un identifiant.
+     *
+     * @param id un identifiant.
+     * @return l'indice de l'identifiant, ou -1 s'il n'a jamais été numéroté.
+     */
+    int getIndice(long id) {
+        return indices.get(id);
+    }
+
+    /**
+     * Renvoie l'élément portant un indice.
+     *
+     * @param indice un indice, entre 0 et {@link #getNbIndices()} - 1.
+     * @return l'élément, ou {@code null} s'il a été retiré.
+     */
+    Object get(int indice) {
+        if (indice >= nbIndices)
+            throw new IndexOutOfBoundsException(String.valueOf(indice));
+        return éléments[indice];
+    }
+
+    /**
+     * Renvoie le nombre d'indices attribués, c'est-à-dire la taille des tableaux indexés par les indices de cette numérotation.
+     *
+     * @return le nombre d'indices attribués.
+     */
+    int getNbIndices() {
+        return nbIndices;
+    }
+}
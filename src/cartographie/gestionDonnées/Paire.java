@@ -26,6 +26,24 @@ public class Paire<T> {
         this.second = second;
     }
 
+    /**
+     * Renvoie le premier élément de la paire.
+     *
+     * @return le premier élément.
+     */
+    public T getPremier() {
+        return premier;
+    }
+
+    /**
+     * Renvoie le second élément de la paire.
+     *
+     * @return le second élément.
+     */
+    public T getSecond() {
+        return second;
+    }
+
     @Override
     public int hashCode() {
         int hash = 5;
@@ -0,0 +1,186 @@
+package cartographie.gestionDonnées;
+
+import cartographie.positionnementGéographique.Point;
+import cartographie.positionnementGéographique.Terre;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * La classe {@code RechercheDesPlusProches} implémente le parcours « meilleur d'abord » commun aux recherches des plus proches éléments des index spatiaux.
+ * <p>Une file de priorité contient des régions (mailles ou noeuds d'arbre), associées à un minorant de la distance de leurs éléments au point, et des
+ * éléments, associés à leur distance exacte. L'index retire de la file les régions dans l'ordre croissant de leur minorant (voir {@link #suivante(double)})
+ * et y ajoute leur contenu ; un élément sorti de la file est définitivement l'un des plus proches, puisque tout ce qui reste a une distance au moins égale.
+ * Chaque élément n'est mesuré qu'une fois, même s'il appartient à plusieurs régions.
+ *
+ * @author Charles Masson
+ * @param <T> le type des éléments recherchés.
+ */
+final class RechercheDesPlusProches<T> {
+
+    /**
+     * marge relative retirée des minorants, pour absorber les erreurs d'arrondi du calcul des bornes des régions
+     */
+    private static final double MARGE = 1e-9;
+    /**
+     * le point dont on cherche les plus proches éléments
+     */
+    private final Point centre;
+    /**
+     * latitude et longitude du point, en radians
+     */
+    private final double latitude, longitude;
+    /**
+     * nombre d'éléments recherchés
+     */
+    private final int k;
+    /**
+     * la distance exacte aux éléments
+     */
+    private final MesureDeDistance<? super T> mesure;
+    /**
+     * régions et éléments à traiter
+     */
+    private final PriorityQueue<Entrée> file = new PriorityQueue<>();
+    /**
+     * éléments déjà mesurés
+     */
+    private final Set<T> mesurés = new HashSet<>();
+    /**
+     * les plus proches éléments trouvés, par distance croissante
+     */
+    private final List<T> résultat = new ArrayList<>();
+
+    /**
+     * Prépare une recherche.
+     *
+     * @param centre le point dont on cherche les plus proches éléments.
+     * @param k le nombre d'éléments recherchés.
+     * @param mesure la distance exacte aux éléments.
+     */
+    RechercheDesPlusProches(Point centre, int k, MesureDeDistance<? super T> mesure) {
+        this.centre = centre;
+        this.latitude = centre.getLatitudeRadians();
+        this.longitude = centre.getLongitudeRadians();
+        this.k = k;
+        this.mesure = mesure;
+    }
+
+    /**
+     * Calcule un minorant de la distance métrique entre le point et une région délimitée en latitude et en longitude (en radians).
+     *
+     * @param latMin latitude minimale de la région.
+     * @param latMax latitude maximale de la région.
+     * @param longMin longitude minimale de la région.
+     * @param longMax longitude maximale de la région.
+     * @return un minorant de la distance en mètres.
+     */
+    double minorant(double latMin, double latMax, double longMin, double longMax) {
+        double dLat = Math.max(0, Math.max(latMin - latitude, latitude - latMax));
+        double dLong = Math.max(0, Math.max(longMin - longitude, longitude - longMax));
+        if (dLong > 0)
+            dLong *= cosinusMinimal(latMin, latMax);
+        return Terre.RAYON * Math.sqrt(dLat * dLat + dLong * dLong) * (1 - MARGE);
+    }
+
+    /**
+     * Renvoie le minimum du cosinus sur un intervalle de latitudes.
+     *
+     * @param latMin latitude minimale.
+     * @param latMax latitude maximale.
+     * @return le minimum du cosinus sur l'intervalle, atteint à l'une de ses bornes.
+     */
+    static double cosinusMinimal(double latMin, double latMax) {
+        return Math.max(0, Math.min(Math.cos(Math.max(latMin, -Math.PI / 2)), Math.cos(Math.min(latMax, Math.PI / 2))));
+    }
+
+    /**
+     * Ajoute une région à explorer.
+     *
+     * @param minorant un minorant de la distance entre le point et les éléments de la région.
+     * @param région la région, identifiée de manière propre à l'index.
+     */
+    void ajouterRégion(double minorant, Object région) {
+        file.add(new Entrée(minorant, région, false));
+    }
+
+    /**
+     * Ajoute un élément candidat, s'il n'a pas déjà été mesuré.
+     *
+     * @param élément l'élément.
+     */
+    void ajouterÉlément(T élément) {
+        if (mesurés.add(élément))
+            file.add(new Entrée(mesure.calculerDistance(centre, élément), élément, true));
+    }
+
+    /**
+     * Renvoie la prochaine région à explorer, si son minorant ne dépasse pas le seuil spécifié. Les éléments qui la précèdent dans la file sont ajoutés au
+     * résultat.
+     *
+     * @param seuil un minorant de la distance de tous les éléments qui n'ont pas encore été ajoutés à la file.
+     * @return la région à explorer, ou {@code null} si la file est vide, si sa tête dépasse le seuil, ou si tous les éléments recherchés ont été trouvés.
+     */
+    @SuppressWarnings("unchecked")
+    Object suivante(double seuil) {
+        while (résultat.size() < k && !file.isEmpty() && file.peek().distance <= seuil) {
+            Entrée e = file.poll();
+            if (!e.élément)
+                return e.objet;
+            résultat.add((T) e.objet);
+        }
+        return null;
+    }
+
+    /**
+     * Indique si tous les éléments recherchés ont été trouvés.
+     *
+     * @return {@code true} si la recherche est terminée.
+     */
+    boolean estTerminée() {
+        return résultat.size() >= k;
+    }
+
+    /**
+     * Renvoie les plus proches éléments trouvés.
+     *
+     * @return les éléments, par distance croissante.
+     */
+    List<T> getRésultat() {
+        return résultat;
+    }
+
+    /**
+     * Une entrée de la file de priorité : une région ou un élément.
+     */
+    private static final class Entrée implements Comparable<Entrée> {
+
+        /**
+         * minorant de la distance (région) ou distance exacte (élément)
+         */
+        final double distance;
+        /**
+         * la région ou l'élément
+         */
+        final Object objet;
+        /**
+         * {@code true} si l'entrée est un élément
+         */
+        final boolean élément;
+
+        Entrée(double distance, Object objet, boolean élément) {
+            this.distance = distance;
+            this.objet = objet;
+            this.élément = élément;
+        }
+
+        @Override
+        public int compareTo(Entrée e) {
+            int c = Double.compare(distance, e.distance);
+            // À distance égale, les éléments passent avant les régions
+            return c != 0 ? c : Boolean.compare(e.élément, élément);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package cartographie.gestionDonnées;
+
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+/**
+ * La classe {@code RéductionParallèle} réduit les éléments parcourus par un {@link Spliterator} à l'aide d'un {@link Collector}, en parallèle dans un
+ * {@link java.util.concurrent.ForkJoinPool}. Le parcours est divisé tant que sa taille estimée (un nombre de mailles pour un maillage) dépasse
+ * {@link #SEUIL} ; chaque tâche remplit son propre conteneur, et les conteneurs sont combinés deux à deux lors des jonctions, sans partage entre threads.
+ *
+ * @author Charles Masson
+ * @param <T> le type des éléments.
+ * @param <A> le type du conteneur intermédiaire du collecteur.
+ */
+final class RéductionParallèle<T, A> extends RecursiveTask<A> {
+
+    private static final long serialVersionUID = 1L;
+    /**
+     * taille estimée en dessous de laquelle un parcours n'est plus divisé
+     */
+    static final long SEUIL = 1024;
+    /**
+     * le parcours à réduire
+     */
+    private final Spliterator<T> parcours;
+    /**
+     * le collecteur
+     */
+    private final Collector<T, A, ?> collecteur;
+
+    /**
+     * Construit une tâche de réduction.
+     *
+     * @param parcours le parcours à réduire.
+     * @param collecteur le collecteur.
+     */
+    RéductionParallèle(Spliterator<T> parcours, Collector<T, A, ?> collecteur) {
+        this.parcours = parcours;
+        this.collecteur = collecteur;
+    }
+
+    @Override
+    protected A compute() {
+        Spliterator<T> moitié = parcours.estimateSize() >= 2 * SEUIL ? parcours.trySplit() : null;
+        if (moitié != null) {
+            RéductionParallèle<T, A> autre = new RéductionParallèle<>(moitié, collecteur);
+            autre.fork();
+            A résultat = new RéductionParallèle<>(parcours, collecteur).compute();
+            return collecteur.combiner().apply(résultat, autre.join());
+        }
+        return réduireSéquentiellement(parcours, collecteur);
+    }
+
+    /**
+     * Réduit les éléments d'un parcours sur le thread appelant.
+     *
+     * @param <T> le type des éléments.
+     * @param <A> le type du conteneur intermédiaire du collecteur.
+     * @param parcours le parcours.
+     * @param collecteur le collecteur.
+     * @return le conteneur rempli.
+     */
+    static <T, A> A réduireSéquentiellement(Spliterator<T> parcours, Collector<T, A, ?> collecteur) {
+        final A conteneur = collecteur.supplier().get();
+        final BiConsumer<A, T> accumulateur = collecteur.accumulator();
+        parcours.forEachRemaining(new Consumer<T>() {
+
+            @Override
+            public void accept(T élément) {
+                accumulateur.accept(conteneur, élément);
+            }
+        });
+        return conteneur;
+    }
+}
@@ -0,0 +1,239 @@
+package cartographie.gestionDonnées;
+
+/**
+ * La classe {@code TableLongue} représente une table associant des valeurs à des clés de type {@code long}, sans objet intermédiaire par clé.
+ * <p>La table utilise l'adressage ouvert avec sondage linéaire : les clés et les valeurs sont stockées dans deux tableaux dont la taille est une puissance de
+ * 2, et une case est libre si sa valeur est {@code null}. Aucune allocation n'est faite lors d'une recherche. La suppression décale les entrées suivantes au
+ * lieu de laisser des marqueurs, de sorte que les recherches restent courtes après de nombreuses suppressions. La table n'est pas synchronisée.
+ *
+ * @author Charles Masson
+ * @param <V> le type des valeurs, qui ne peuvent être {@code null}.
+ */
+public class TableLongue<V> {
+
+    /**
+     * capacité initiale par défaut (puissance de 2)
+     */
+    private static final int CAPACITÉ_INITIALE = 16;
+    /**
+     * taux de remplissage maximal avant agrandissement
+     */
+    private static final double TAUX_MAX = 0.5;
+    /**
+     * les clés des cases occupées
+     */
+    private long[] clés;
+    /**
+     * les valeurs, {@code null} pour les cases libres
+     */
+    private V[] valeurs;
+    /**
+     * nombre d'entrées de la table
+     */
+    private int taille;
+
+    /**
+     * Construit une table vide.
+     */
+    public TableLongue() {
+        this(CAPACITÉ_INITIALE);
+    }
+
+    /**
+     * Construit une table vide pouvant contenir le nombre d'entrées spécifié sans être agrandie.
+     *
+     * @param nbEntrées le nombre d'entrées attendu.
+     */
+    public TableLongue(int nbEntrées) {
+        int capacité = CAPACITÉ_INITIALE;
+        while (capacité * TAUX_MAX < nbEntrées)
+            capacité <<= 1;
+        allouer(capacité);
+    }
+
+    /**
+     * Alloue des tableaux vides de la capacité spécifiée.
+     *
+     * @param capacité la capacité (puissance de 2).
+     */
+    @SuppressWarnings("unchecked")
+    private void allouer(int capacité) {
+        clés = new long[capacité];
+        valeurs = (V[]) new Object[capacité];
+    }
+
+    /**
+     * Renvoie la case initiale d'une clé.
+     *
+     * @param clé une clé.
+     * @return l'indice de la case où commence la recherche de la clé.
+     */
+    private int caseInitiale(long clé) {
+        long h = clé * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ h >>> 32) & (clés.length - 1);
+    }
+
+    /**
+     * Renvoie la case contenant une clé, ou la case libre où elle serait ajoutée.
+     *
+     * @param clé une clé.
+     * @return l'indice de la case.
+     */
+    private int chercher(long clé) {
+        int masque = clés.length - 1, i = caseInitiale(clé);
+        while (valeurs[i] != null && clés[i] != clé)
+            i = (i + 1) & masque;
+        return i;
+    }
+
+    /**
+     * Renvoie la valeur associée à une clé.
+     *
+     * @param clé une clé.
+     * @return la valeur associée, ou {@code null} si la clé est absente.
+     */
+    public V get(long clé) {
+        return valeurs[chercher(clé)];
+    }
+
+    /**
+     * Renvoie la valeur associée à une clé, comme {@link #get(long)}, en tolérant une modification concurrente de la table : les tableaux ne sont lus qu'une
+     * fois et la recherche ne sonde pas plus de cases qu'ils n'en contiennent, si bien qu'elle ne lève pas d'exception et se termine toujours. Le résultat
+     * n'est fiable que si la table n'a pas été modifiée pendant l'appel, ce que l'appelant doit vérifier (par exemple avec
+     * {@link java.util.concurrent.locks.StampedLock#validate(long)} après une lecture optimiste).
+     *
+     * @param clé une clé.
+     * @return la valeur associée, ou {@code null} si la clé est absente.
+     */
+    public V getOptimiste(long clé) {
+        long[] c = clés;
+        V[] v = valeurs;
+        int masque = Math.min(c.length, v.length) - 1;
+        long h = clé * 0x9e3779b97f4a7c15L;
+        for (int i = (int) (h ^ h >>> 32) & masque, n = 0; n <= masque; i = (i + 1) & masque, n++) {
+            V valeur = v[i];
+            if (valeur == null || c[i] == clé)
+                return valeur;
+        }
+        return null;
+    }
+
+    /**
+     * Associe une valeur à une clé, en remplaçant l'éventuelle valeur précédente.
+     *
+     * @param clé une clé.
+     * @param valeur la valeur (non {@code null}).
+     * @return la valeur précédemment associée à la clé, ou {@code null}.
+     */
+    public V put(long clé, V valeur) {
+        if (valeur == null)
+            throw new NullPointerException();
+        int i = chercher(clé);
+        V précédente = valeurs[i];
+        if (précédente == null) {
+            if (taille + 1 > clés.length * TAUX_MAX) {
+                agrandir();
+                i = chercher(clé);
+            }
+            taille++;
+        }
+        clés[i] = clé;
+        valeurs[i] = valeur;
+        return précédente;
+    }
+
+    /**
+     * Retire une clé de la table.
+     *
+     * @param clé une clé.
+     * @return la valeur qui était associée à la clé, ou {@code null} si la clé était absente.
+     */
+    public V remove(long clé) {
+        int masque = clés.length - 1, i = chercher(clé);
+        V ancienne = valeurs[i];
+        if (ancienne == null)
+            return null;
+
+        // Décalage des entrées suivantes dont la case initiale ne se trouve pas entre la case libérée et leur case actuelle
+        for (int j = (i + 1) & masque; valeurs[j] != null; j = (j + 1) & masque) {
+            int k = caseInitiale(clés[j]);
+            if (((j - k) & masque) >= ((j - i) & masque)) {
+                clés[i] = clés[j];
+                valeurs[i] = valeurs[j];
+                i = j;
+            }
+        }
+        valeurs[i] = null;
+        taille--;
+        return ancienne;
+    }
+
+    /**
+     * Renvoie le nombre d'entrées de la table.
+     *
+     * @return le nombre d'entrées.
+     */
+    public int size() {
+        return taille;
+    }
+
+    /**
+     * Double la capacité de la table.
+     */
+    private void agrandir() {
+        long[] anciennesClés = clés;
+        V[] anciennesValeurs = valeurs;
+        allouer(clés.length << 1);
+        for (int i = 0; i < anciennesClés.length; i++)
+            if (anciennesValeurs[i] != null) {
+                int j = chercher(anciennesClés[i]);
+                clés[j] = anciennesClés[i];
+                valeurs[j] = anciennesValeurs[i];
+            }
+    }
+
+    /**
+     * Parcourt toutes les entrées de la table, dans un ordre quelconque. La table ne doit pas être modifiée pendant le parcours.
+     *
+     * @param visiteur le visiteur appelé pour chaque entrée.
+     */
+    public void parcourir(Visiteur<? super V> visiteur) {
+        for (int i = 0; i < clés.length; i++)
+            if (valeurs[i] != null)
+                visiteur.visiter(clés[i], valeurs[i]);
+    }
+
+    /**
+     * Renvoie une copie de la table, en tolérant une modification concurrente comme {@link #getOptimiste(long)}. La copie n'est fiable que si la table n'a
+     * pas été modifiée pendant l'appel.
+     *
+     * @return la copie.
+     */
+    public TableLongue<V> copierOptimiste() {
+        long[] c = clés;
+        V[] v = valeurs;
+        TableLongue<V> copie = new TableLongue<>();
+        for (int i = 0, n = Math.min(c.length, v.length); i < n; i++) {
+            V valeur = v[i];
+            if (valeur != null)
+                copie.put(c[i], valeur);
+        }
+        return copie;
+    }
+
+    /**
+     * L'interface {@code Visiteur} représente un traitement appliqué successivement aux entrées d'une table.
+     *
+     * @param <V> le type des valeurs.
+     */
+    public interface Visiteur<V> {
+
+        /**
+         * Traite une entrée.
+         *
+         * @param clé la clé de l'entrée.
+         * @param valeur la valeur de l'entrée.
+         */
+        public void visiter(long clé, V valeur);
+    }
+}
@@ -0,0 +1,153 @@
+package cartographie.gestionDonnées;
+
+/**
+ * La classe {@code TableLongueEntière} représente une table associant des entiers positifs ou nuls à des clés de type {@code long}, sans aucun objet : ni
+ * clé ni valeur n'est encapsulée. Elle est organisée comme {@link TableLongue} (adressage ouvert avec sondage linéaire, suppression par décalage), les
+ * valeurs étant stockées augmentées de 1 pour qu'une case libre contienne 0. La table n'est pas synchronisée.
+ *
+ * @author Charles Masson
+ */
+final class TableLongueEntière {
+
+    /**
+     * capacité initiale par défaut (puissance de 2)
+     */
+    private static final int CAPACITÉ_INITIALE = 16;
+    /**
+     * taux de remplissage maximal avant agrandissement
+     */
+    private static final double TAUX_MAX = 0.5;
+    /**
+     * valeur renvoyée pour une clé absente
+     */
+    static final int ABSENTE = -1;
+    /**
+     * les clés des cases occupées
+     */
+    private long[] clés;
+    /**
+     * les valeurs augmentées de 1, 0 pour les cases libres
+     */
+    private int[] valeurs;
+    /**
+     * nombre d'entrées de la table
+     */
+    private int taille;
+
+    /**
+     * Construit une table vide.
+     */
+    TableLongueEntière() {
+        clés = new long[CAPACITÉ_INITIALE];
+        valeurs = new int[CAPACITÉ_INITIALE];
+    }
+
+    /**
+     * Renvoie la case initiale d'une clé.
+     *
+     * @param clé une clé.
+     * @return l'indice de la case où commence la recherche de la clé.
+     */
+    private int caseInitiale(long clé) {
+        long h = clé * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ h >>> 32) & (clés.length - 1);
+    }
+
+    /**
+     * Renvoie la case contenant une clé, ou la case libre où elle serait ajoutée.
+     *
+     * @param clé une clé.
+     * @return l'indice de la case.
+     */
+    private int chercher(long clé) {
+        int masque = clés.length - 1, i = caseInitiale(clé);
+        while (valeurs[i] != 0 && clés[i] != clé)
+            i = (i + 1) & masque;
+        return i;
+    }
+
+    /**
+     * Renvoie la valeur associée à une clé.
+     *
+     * @param clé une clé.
+     * @return la valeur associée, ou {@link #ABSENTE} si la clé est absente.
+     */
+    int get(long clé) {
+        return valeurs[chercher(clé)] - 1;
+    }
+
+    /**
+     * Associe une valeur à une clé, en remplaçant l'éventuelle valeur précédente.
+     *
+     * @param clé une clé.
+     * @param valeur la valeur (positive ou nulle).
+     * @return la valeur précédemment associée à la clé, ou {@link #ABSENTE}.
+     */
+    int put(long clé, int valeur) {
+        if (valeur < 0)
+            throw new IllegalArgumentException("Valeur négative : " + valeur);
+        int i = chercher(clé);
+        int précédente = valeurs[i] - 1;
+        if (précédente == ABSENTE) {
+            if (taille + 1 > clés.length * TAUX_MAX) {
+                agrandir();
+                i = chercher(clé);
+            }
+            taille++;
+        }
+        clés[i] = clé;
+        valeurs[i] = valeur + 1;
+        return précédente;
+    }
+
+    /**
+     * Retire une clé de la table.
+     *
+     * @param clé une clé.
+     * @return la valeur qui était associée à la clé, ou {@link #ABSENTE} si la clé était absente.
+     */
+    int remove(long clé) {
+        int masque = clés.length - 1, i = chercher(clé);
+        int ancienne = valeurs[i] - 1;
+        if (ancienne == ABSENTE)
+            return ABSENTE;
+
+        // Décalage des entrées suivantes dont la case initiale ne se trouve pas entre la case libérée et leur case actuelle
+        for (int j = (i + 1) & masque; valeurs[j] != 0; j = (j + 1) & masque) {
+            int k = caseInitiale(clés[j]);
+            if (((j - k) & masque) >= ((j - i) & masque)) {
+                clés[i] = clés[j];
+                valeurs[i] = valeurs[j];
+                i = j;
+            }
+        }
+        valeurs[i] = 0;
+        taille--;
+        return ancienne;
+    }
+
+    /**
+     * Renvoie le nombre d'entrées de la table.
+     *
+     * @return le nombre d'entrées.
+     */
+    int size() {
+        return taille;
+    }
+
+    /**
+     * Double la capacité de la table.
+     */
+    private void agrandir() {
+        long[] anciennesClés = clés;
+        int[] anciennesValeurs = valeurs;
+        clés = new long[anciennesClés.length << 1];
+        valeurs = new int[anciennesClés.length << 1];
+        for (int i = 0; i < anciennesClés.length; i++)
+            if (anciennesValeurs[i] != 0) {
+                int j = chercher(anciennesClés[i]);
+                clés[j] = anciennesClés[i];
+                valeurs[j] = anciennesValeurs[i];
+            }
+    }
+}
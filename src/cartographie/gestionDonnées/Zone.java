@@ -1,5 +1,6 @@
 package cartographie.gestionDonnées;
 
+import cartographie.positionnementGéographique.Angle;
 import cartographie.positionnementGéographique.Latitude;
 import cartographie.positionnementGéographique.Longitude;
 import cartographie.positionnementGéographique.Point;
@@ -7,20 +8,20 @@ import cartographie.positionnementGéographique.Terre;
 
 /**
  * La classe {@code Zone} représente une zone du planisphère terrestre. Cette zone est en fait un rectangle défini par deux latitudes et deux longitudes
- * limites.
+ * limites, stockées en radians sous forme de nombres.
  *
  * @author Charles Masson
  */
 public class Zone {
 
     /**
-     * latitude limite
+     * latitude limite en radians
      */
-    private Latitude latitudeMin, latitudeMax;
+    private double latitudeMin, latitudeMax;
     /**
-     * longitude limite
+     * longitude limite en radians
      */
-    private Longitude longitudeMin, longitudeMax;
+    private double longitudeMin, longitudeMax;
 
     /**
      * Construit une zone à partir des latitudes et longitudes qui la délimitent.
@@ -31,10 +32,26 @@ public class Zone {
      * @param longitudeMax longitude maximale de la zone.
      */
     public Zone(Latitude latitudeMin, Latitude latitudeMax, Longitude longitudeMin, Longitude longitudeMax) {
-        this.latitudeMin = latitudeMin;
-        this.latitudeMax = latitudeMax;
-        this.longitudeMin = longitudeMin;
-        this.longitudeMax = longitudeMax;
+        this.latitudeMin = latitudeMin.getValeurRadians();
+        this.latitudeMax = latitudeMax.getValeurRadians();
+        this.longitudeMin = longitudeMin.getValeurRadians();
+        this.longitudeMax = longitudeMax.getValeurRadians();
+    }
+
+    /**
+     * Construit une zone à partir des latitudes et longitudes qui la délimitent, exprimées en radians. Les angles sont normalisés comme ceux des objets
+     * {@link Latitude} et {@link Longitude}.
+     *
+     * @param latitudeMin latitude minimale de la zone en radians.
+     * @param latitudeMax latitude maximale de la zone en radians.
+     * @param longitudeMin longitude minimale de la zone en radians.
+     * @param longitudeMax longitude maximale de la zone en radians.
+     */
+    public Zone(double latitudeMin, double latitudeMax, double longitudeMin, double longitudeMax) {
+        this.latitudeMin = Angle.normaliser(latitudeMin);
+        this.latitudeMax = Angle.normaliser(latitudeMax);
+        this.longitudeMin = Angle.normaliser(longitudeMin);
+        this.longitudeMax = Angle.normaliser(longitudeMax);
     }
 
     /**
@@ -44,10 +61,10 @@ public class Zone {
      * @param z2 la seconde zone.
      */
     public Zone(Zone z1, Zone z2) {
-        this(Latitude.min(z1.latitudeMin, z2.latitudeMin),
-                Latitude.max(z1.latitudeMax, z2.latitudeMax),
-                Longitude.min(z1.longitudeMin, z2.longitudeMin),
-                Longitude.max(z1.longitudeMax, z2.longitudeMax));
+        latitudeMin = Math.min(z1.latitudeMin, z2.latitudeMin);
+        latitudeMax = Math.max(z1.latitudeMax, z2.latitudeMax);
+        longitudeMin = Math.min(z1.longitudeMin, z2.longitudeMin);
+        longitudeMax = Math.max(z1.longitudeMax, z2.longitudeMax);
     }
 
     /**
@@ -56,15 +73,16 @@ public class Zone {
      * @param points les points servant à la construction de la zone.
      */
     public Zone(Point... points) {
-        latitudeMin = points[0].getLatitude();
+        latitudeMin = points[0].getLatitudeRadians();
         latitudeMax = latitudeMin;
-        longitudeMin = points[0].getLongitude();
+        longitudeMin = points[0].getLongitudeRadians();
         longitudeMax = longitudeMin;
         for (int i = 1; i < points.length; i++) {
-            latitudeMin = Latitude.min(latitudeMin, points[i].getLatitude());
-            latitudeMax = Latitude.max(latitudeMax, points[i].getLatitude());
-            longitudeMin = Longitude.min(longitudeMin, points[i].getLongitude());
-            longitudeMax = Longitude.max(longitudeMax, points[i].getLongitude());
+            double latitude = points[i].getLatitudeRadians(), longitude = points[i].getLongitudeRadians();
+            latitudeMin = Math.min(latitudeMin, latitude);
+            latitudeMax = Math.max(latitudeMax, latitude);
+            longitudeMin = Math.min(longitudeMin, longitude);
+            longitudeMax = Math.max(longitudeMax, longitude);
         }
     }
 
@@ -75,12 +93,19 @@ public class Zone {
      * @param rayonMétrique le rayon du disque en mètres.
      */
     public Zone(Point centre, double rayonMétrique) {
-        double dLat = rayonMétrique / Terre.RAYON;
-        double dLong = rayonMétrique / Terre.rayon(centre);
-        this.latitudeMin = new Latitude(centre.getLatitude().getValeurRadians() - dLat);
-        this.latitudeMax = new Latitude(centre.getLatitude().getValeurRadians() + dLat);
-        this.longitudeMin = new Longitude(centre.getLongitude().getValeurRadians() - dLong);
-        this.longitudeMax = new Longitude(centre.getLongitude().getValeurRadians() + dLong);
+        this(centre.getLatitudeRadians(), centre.getLongitudeRadians(), rayonMétrique);
+    }
+
+    /**
+     * Construit la plus petite zone contenant un disque dont le centre est donné en radians.
+     *
+     * @param latitude la latitude du centre.
+     * @param longitude la longitude du centre.
+     * @param rayonMétrique le rayon du disque en mètres.
+     */
+    private Zone(double latitude, double longitude, double rayonMétrique) {
+        this(latitude - rayonMétrique / Terre.RAYON, latitude + rayonMétrique / Terre.RAYON,
+                longitude - rayonMétrique / Terre.rayon(latitude), longitude + rayonMétrique / Terre.rayon(latitude));
     }
 
     /**
@@ -89,7 +114,7 @@ public class Zone {
      * @return la latitude minimale.
      */
     public Latitude getLatitudeMin() {
-        return latitudeMin;
+        return new Latitude(latitudeMin);
     }
 
     /**
@@ -98,7 +123,7 @@ public class Zone {
      * @return la latitude maximale.
      */
     public Latitude getLatitudeMax() {
-        return latitudeMax;
+        return new Latitude(latitudeMax);
     }
 
     /**
@@ -107,7 +132,7 @@ public class Zone {
      * @return la longitude minimale.
      */
     public Longitude getLongitudeMin() {
-        return longitudeMin;
+        return new Longitude(longitudeMin);
     }
 
     /**
@@ -116,11 +141,48 @@ public class Zone {
      * @return la longitude maximale.
      */
     public Longitude getLongitudeMax() {
+        return new Longitude(longitudeMax);
+    }
+
+    /**
+     * Renvoie la latitude minimale de cette zone en radians, sans créer d'objet.
+     *
+     * @return la latitude minimale en radians.
+     */
+    public double getLatitudeMinRadians() {
+        return latitudeMin;
+    }
+
+    /**
+     * Renvoie la latitude maximale de cette zone en radians, sans créer d'objet.
+     *
+     * @return la latitude maximale en radians.
+     */
+    public double getLatitudeMaxRadians() {
+        return latitudeMax;
+    }
+
+    /**
+     * Renvoie la longitude minimale de cette zone en radians, sans créer d'objet.
+     *
+     * @return la longitude minimale en radians.
+     */
+    public double getLongitudeMinRadians() {
+        return longitudeMin;
+    }
+
+    /**
+     * Renvoie la longitude maximale de cette zone en radians, sans créer d'objet.
+     *
+     * @return la longitude maximale en radians.
+     */
+    public double getLongitudeMaxRadians() {
         return longitudeMax;
     }
 
     @Override
     public String toString() {
-        return "LatMin = " + latitudeMin + " | LatMax = " + latitudeMax + " | LongMin = " + longitudeMin + " | LongMax = " + longitudeMax;
+        return "LatMin = " + getLatitudeMin() + " | LatMax = " + getLatitudeMax() + " | LongMin = " + getLongitudeMin() + " | LongMax = "
+                + getLongitudeMax();
     }
 }
@@ -1,9 +1,13 @@
 package cartographie.pointsDIntérêt;
 
 import cartographie.Carte;
+import cartographie.fichiers.ÉcrivainXML;
 import cartographie.positionnementGéographique.Point;
+import cartographie.éléments.Arc;
 import cartographie.éléments.PointDIntérêt;
 import java.awt.Graphics;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -27,6 +31,22 @@ public class Parking extends PointDIntérêt {
      */
     private short nbPlacesLibres;
 
+    /**
+     * Construit un parking.
+     *
+     * @param id l'identifiant du parking.
+     * @param arc l'arc sur lequel se situe le parking.
+     * @param positionRelative la position relative du parking sur l'arc.
+     * @param nom le nom du parking.
+     * @param nbPlaces le nombre de places dans le parking.
+     * @param arcsAssociés les arcs associés au parking.
+     */
+    public Parking(long id, Arc arc, double positionRelative, String nom, short nbPlaces, Arc... arcsAssociés) {
+        super(id, arc, positionRelative, arcsAssociés);
+        this.nom = nom;
+        this.nbPlaces = nbPlaces;
+    }
+
     /**
      * Construit un objet à partir d'un élément DOM (utile pour le décodage XML).
      *
@@ -120,4 +140,13 @@ public class Parking extends PointDIntérêt {
 
         return e;
     }
+
+    @Override
+    public void écrireXML(XMLStreamWriter w) throws XMLStreamException {
+        w.writeStartElement("parking");
+        écrireInfoPoIXML(w);
+        ÉcrivainXML.écrireÉlément(w, "nom", nom);
+        ÉcrivainXML.écrireÉlément(w, "nbplaces", String.valueOf(nbPlaces));
+        w.writeEndElement();
+    }
 }
@@ -1,9 +1,13 @@
 package cartographie.pointsDIntérêt;
 
 import cartographie.Carte;
+import cartographie.fichiers.ÉcrivainXML;
 import cartographie.positionnementGéographique.Point;
+import cartographie.éléments.Arc;
 import cartographie.éléments.PointDIntérêt;
 import java.awt.Graphics;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -31,6 +35,20 @@ public class StationService extends PointDIntérêt {
         entreprise = e.getElementsByTagName("entreprise").item(0).getTextContent();
     }
 
+    /**
+     * Construit une station service.
+     *
+     * @param id l'identifiant de la station service.
+     * @param arc l'arc sur lequel se situe la station service.
+     * @param positionRelative la position relative de la station service sur l'arc.
+     * @param entreprise le nom de l'entreprise gérant la station service.
+     * @param arcsAssociés les arcs associés à la station service.
+     */
+    public StationService(long id, Arc arc, double positionRelative, String entreprise, Arc... arcsAssociés) {
+        super(id, arc, positionRelative, arcsAssociés);
+        this.entreprise = entreprise;
+    }
+
     /**
      * Renvoie le nom de l'entreprise gérant cette station service.
      *
@@ -57,4 +75,12 @@ public class StationService extends PointDIntérêt {
 
         return e;
     }
+
+    @Override
+    public void écrireXML(XMLStreamWriter w) throws XMLStreamException {
+        w.writeStartElement("stationservice");
+        écrireInfoPoIXML(w);
+        ÉcrivainXML.écrireÉlément(w, "entreprise", entreprise);
+        w.writeEndElement();
+    }
 }
@@ -31,7 +31,7 @@ public class Angle {
      * @param valeurSecondes la part en secondes de l'angle.
      */
     public Angle(double valeurDegrés, double valeurMinutes, double valeurSecondes) {
-        valeurRadians = (valeurDegrés + valeurMinutes / 60 + valeurSecondes / 3600) * Math.PI / 180;
+        valeurRadians = enRadians(valeurDegrés, valeurMinutes, valeurSecondes);
     }
 
     /**
@@ -40,18 +40,45 @@ public class Angle {
      * @param e un élément DOM représentant un angle.
      */
     public Angle(Element e) {
-        this(Double.valueOf(e.getElementsByTagName("degrés").item(0).getTextContent()),
+        valeurRadians = enRadians(e);
+    }
+
+    /**
+     * Convertit en radians un angle exprimé en degrés, minutes et secondes, sans créer d'objet (utile pour la lecture de nombreuses coordonnées).
+     *
+     * @param valeurDegrés la part en degrés de l'angle
+     * @param valeurMinutes la part en minutes de l'angle.
+     * @param valeurSecondes la part en secondes de l'angle.
+     * @return la valeur de l'angle en radians.
+     */
+    public static double enRadians(double valeurDegrés, double valeurMinutes, double valeurSecondes) {
+        return (valeurDegrés + valeurMinutes / 60 + valeurSecondes / 3600) * Math.PI / 180;
+    }
+
+    /**
+     * Convertit en radians un angle représenté par un élément DOM, sans créer d'objet {@code Angle}.
+     *
+     * @param e un élément DOM représentant un angle.
+     * @return la valeur de l'angle en radians.
+     */
+    public static double enRadians(Element e) {
+        return enRadians(Double.valueOf(e.getElementsByTagName("degrés").item(0).getTextContent()),
                 e.getElementsByTagName("minutes").item(0) == null ? 0 : Double.valueOf(e.getElementsByTagName("minutes").item(0).getTextContent()),
                 e.getElementsByTagName("secondes").item(0) == null ? 0 : Double.valueOf(e.getElementsByTagName("secondes").item(0).getTextContent()));
     }
 
     /**
      * Normalise un angle donné en radians.
+     * <p>Un angle strictement compris entre -<i>pi</i> et <i>pi</i> est renvoyé tel quel, sans passer par le calcul du modulo qui pourrait en modifier le
+     * dernier bit : un angle déjà normalisé est ainsi retrouvé exactement. Les autres angles sont normalisés par ce calcul ; en particulier, <i>pi</i>
+     * donne -<i>pi</i>, qui est lui-même renvoyé tel quel.
      *
      * @param angle valeur donnée en radians.
-     * @return la valeur entre -<i>pi</i> exclu et <i>pi</i> correspondant à ce même angle.
+     * @return la valeur entre -<i>pi</i> et <i>pi</i> correspondant à ce même angle.
      */
-    private static double normaliser(double angle) {
+    public static double normaliser(double angle) {
+        if (angle > -Math.PI && angle < Math.PI)
+            return angle;
         return (angle + Math.PI) % (2 * Math.PI) + (angle >= -Math.PI ? -Math.PI : Math.PI);
     }
 
@@ -0,0 +1,101 @@
+package cartographie.positionnementGéographique;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * La classe {@code CodagePolyligne} est une classe statique non instantiable permettant de coder une suite de points sous forme de texte compact.
+ * <p>Le codage utilisé est celui des polylignes : les latitudes et longitudes, exprimées en degrés et arrondies au millionième de degré (environ 10 cm), sont
+ * codées par différence avec le point précédent, puis chaque différence est écrite par groupes de 5 bits sous forme de caractères ASCII imprimables.
+ *
+ * @author Charles Masson
+ */
+public final class CodagePolyligne {
+
+    /**
+     * facteur de précision (nombre d'unités codées par degré)
+     */
+    private static final double PRÉCISION = 1e6;
+
+    /**
+     * Contructeur privé empêchant l'instantiation de la classe.
+     */
+    private CodagePolyligne() {
+    }
+
+    /**
+     * Code une suite de points.
+     *
+     * @param points les points à coder.
+     * @return le texte représentant les points.
+     */
+    public static String coder(Point... points) {
+        StringBuilder texte = new StringBuilder(8 * points.length);
+        long latitudePrécédente = 0, longitudePrécédente = 0;
+        for (Point p : points) {
+            long latitude = Math.round(p.getLatitude().getValeurDegrés() * PRÉCISION);
+            long longitude = Math.round(p.getLongitude().getValeurDegrés() * PRÉCISION);
+            coderValeur(latitude - latitudePrécédente, texte);
+            coderValeur(longitude - longitudePrécédente, texte);
+            latitudePrécédente = latitude;
+            longitudePrécédente = longitude;
+        }
+        return texte.toString();
+    }
+
+    /**
+     * Décode une suite de points.
+     *
+     * @param texte le texte représentant les points.
+     * @return les points décodés.
+     * @throws IllegalArgumentException si le texte est tronqué ou contient un caractère invalide.
+     */
+    public static Coordonnées[] décoder(CharSequence texte) {
+        List<Coordonnées> points = new ArrayList<>();
+        long latitude = 0, longitude = 0;
+        int[] position = {0};
+        while (position[0] < texte.length()) {
+            latitude += décoderValeur(texte, position);
+            longitude += décoderValeur(texte, position);
+            points.add(new Coordonnées(Angle.enRadians(latitude / PRÉCISION, 0, 0), Angle.enRadians(longitude / PRÉCISION, 0, 0)));
+        }
+        return points.toArray(new Coordonnées[points.size()]);
+    }
+
+    /**
+     * Code une valeur entière signée et l'ajoute au texte.
+     *
+     * @param valeur la valeur à coder.
+     * @param texte le texte auquel ajouter la valeur codée.
+     */
+    private static void coderValeur(long valeur, StringBuilder texte) {
+        long v = valeur < 0 ? ~(valeur << 1) : valeur << 1;
+        while (v >= 0x20) {
+            texte.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        texte.append((char) (v + 63));
+    }
+
+    /**
+     * Décode une valeur entière signée.
+     *
+     * @param texte le texte à décoder.
+     * @param position un tableau contenant la position du premier caractère de la valeur, mis à jour après le décodage.
+     * @return la valeur décodée.
+     */
+    private static long décoderValeur(CharSequence texte, int[] position) {
+        long v = 0;
+        int décalage = 0, b;
+        do {
+            if (position[0] >= texte.length())
+                throw new IllegalArgumentException("Polyligne tronquée");
+            b = texte.charAt(position[0]++) - 63;
+            if (b < 0 || b > 0x3f)
+                throw new IllegalArgumentException("Caractère invalide dans une polyligne : " + texte.charAt(position[0] - 1));
+            v |= (long) (b & 0x1f) << décalage;
+            décalage += 5;
+        } while (b >= 0x20);
+        return (v & 1) != 0 ? ~(v >> 1) : v >> 1;
+    }
+}
@@ -2,19 +2,22 @@ package cartographie.positionnementGéographique;
 
 /**
  * La classe {@code Coordonnées} hérite de la classe {@link Point} et réprésente un point repéré par sa latitude et sa longitude.
+ * <p>La latitude et la longitude sont stockées en radians sous forme de nombres : les objets {@link Latitude} et {@link Longitude} renvoyés par
+ * {@link #getLatitude()} et {@link #getLongitude()} sont créés à chaque appel, et les calculs internes passent par {@link #getLatitudeRadians()} et
+ * {@link #getLongitudeRadians()}.
  *
  * @author Charles Masson
  */
 public class Coordonnées extends Point {
 
     /**
-     * la latitude du point
+     * la latitude du point en radians
      */
-    private Latitude latitude;
+    private double latitude;
     /**
-     * la longitude du point
+     * la longitude du point en radians
      */
-    private Longitude longitude;
+    private double longitude;
 
     /**
      * Construit le point à partir de sa latitude et de sa longitude.
@@ -23,8 +26,20 @@ public class Coordonnées extends Point {
      * @param longitude la longitude du point.
      */
     public Coordonnées(Latitude latitude, Longitude longitude) {
-        this.latitude = latitude;
-        this.longitude = longitude;
+        this.latitude = latitude.getValeurRadians();
+        this.longitude = longitude.getValeurRadians();
+    }
+
+    /**
+     * Construit le point à partir de sa latitude et de sa longitude en radians. Les angles sont normalisés comme ceux des objets {@link Latitude} et
+     * {@link Longitude}.
+     *
+     * @param latitude la latitude du point en radians.
+     * @param longitude la longitude du point en radians.
+     */
+    public Coordonnées(double latitude, double longitude) {
+        this.latitude = Angle.normaliser(latitude);
+        this.longitude = Angle.normaliser(longitude);
     }
 
     /**
@@ -39,17 +54,37 @@ public class Coordonnées extends Point {
      */
     public Coordonnées(double latitudeDegrés, double latitudeMinutes, double latitudeSecondes, double longitudeDegrés, double longitudeMinutes,
             double longitudeSecondes) {
-        latitude = new Latitude(latitudeDegrés, latitudeMinutes, latitudeSecondes);
-        longitude = new Longitude(longitudeDegrés, longitudeMinutes, longitudeSecondes);
+        this(new Latitude(latitudeDegrés, latitudeMinutes, latitudeSecondes), new Longitude(longitudeDegrés, longitudeMinutes, longitudeSecondes));
+    }
+
+    /**
+     * Redéfinit la position de ce point.
+     *
+     * @param latitude la nouvelle latitude.
+     * @param longitude la nouvelle longitude.
+     */
+    protected void setCoordonnées(Latitude latitude, Longitude longitude) {
+        this.latitude = latitude.getValeurRadians();
+        this.longitude = longitude.getValeurRadians();
     }
 
     @Override
     public Latitude getLatitude() {
-        return latitude;
+        return new Latitude(latitude);
     }
 
     @Override
     public Longitude getLongitude() {
+        return new Longitude(longitude);
+    }
+
+    @Override
+    public double getLatitudeRadians() {
+        return latitude;
+    }
+
+    @Override
+    public double getLongitudeRadians() {
         return longitude;
     }
 }
@@ -47,6 +47,17 @@ public class CoordonnéesMétriques {
      * @return la distance entre ce point et l'origine du plan, exprimée en mètres.
      */
     public double calculerDistanceÀLOrigine() {
+        return calculerDistanceÀLOrigine(x, y);
+    }
+
+    /**
+     * Renvoie la distance entre un point du plan et l'origine, sans créer d'objet.
+     *
+     * @param x l'abscisse du point en mètres.
+     * @param y l'ordonnée du point en mètres.
+     * @return la distance entre le point et l'origine du plan, exprimée en mètres.
+     */
+    public static double calculerDistanceÀLOrigine(double x, double y) {
         return Math.sqrt(x * x + y * y);
     }
 }
@@ -4,6 +4,8 @@ import cartographie.gestionDonnées.Ensemble;
 import cartographie.gestionDonnées.Identifiable;
 import cartographie.gestionDonnées.Zone;
 import cartographie.gestionDonnées.Localisable;
+import cartographie.gestionDonnées.MesureDeDistance;
+import java.util.List;
 
 /**
  * La classe {@code Point} représente une position géographique sur la Terre.
@@ -12,6 +14,17 @@ import cartographie.gestionDonnées.Localisable;
  */
 public abstract class Point implements Localisable {
 
+    /**
+     * distance métrique entre un point et un autre point (voir {@link #calculerDistanceMétrique(Point)})
+     */
+    public static final MesureDeDistance<Point> DISTANCE_ENTRE_POINTS = new MesureDeDistance<Point>() {
+
+        @Override
+        public double calculerDistance(Point p, Point élément) {
+            return p.calculerDistanceMétrique(élément);
+        }
+    };
+
     /**
      * Renvoie la latitude de ce point.
      *
@@ -26,6 +39,24 @@ public abstract class Point implements Localisable {
      */
     public abstract Longitude getLongitude();
 
+    /**
+     * Renvoie la latitude de ce point en radians, sans créer d'objet {@link Latitude} lorsque le point stocke ses coordonnées sous forme de nombres.
+     *
+     * @return la latitude de ce point en radians.
+     */
+    public double getLatitudeRadians() {
+        return getLatitude().getValeurRadians();
+    }
+
+    /**
+     * Renvoie la longitude de ce point en radians, sans créer d'objet {@link Longitude} lorsque le point stocke ses coordonnées sous forme de nombres.
+     *
+     * @return la longitude de ce point en radians.
+     */
+    public double getLongitudeRadians() {
+        return getLongitude().getValeurRadians();
+    }
+
     /**
      * Convertit la position géographique (latitude et longitude) en coordonnées métriques par rapport à une origine.
      *
@@ -33,8 +64,32 @@ public abstract class Point implements Localisable {
      * @return les coordonnées en mètres.
      */
     public CoordonnéesMétriques calculerCoordonnéesMétriques(Point origine) {
-        return new CoordonnéesMétriques(Terre.rayon(origine) * getLongitude().getAngleRelatifRadians(origine.getLongitude()),
-                Terre.RAYON * getLatitude().getAngleRelatifRadians(origine.getLatitude()));
+        double latitudeOrigine = origine.getLatitudeRadians();
+        return new CoordonnéesMétriques(calculerAbscisseMétrique(getLongitudeRadians(), latitudeOrigine, origine.getLongitudeRadians()),
+                calculerOrdonnéeMétrique(getLatitudeRadians(), latitudeOrigine));
+    }
+
+    /**
+     * Calcule l'abscisse métrique d'un point par rapport à une origine (voir {@link #calculerCoordonnéesMétriques(Point)}), sans créer d'objet.
+     *
+     * @param longitude la longitude du point en radians.
+     * @param latitudeOrigine la latitude de l'origine en radians.
+     * @param longitudeOrigine la longitude de l'origine en radians.
+     * @return l'abscisse du point en mètres.
+     */
+    public static double calculerAbscisseMétrique(double longitude, double latitudeOrigine, double longitudeOrigine) {
+        return Terre.rayon(latitudeOrigine) * Angle.normaliser(longitude - longitudeOrigine);
+    }
+
+    /**
+     * Calcule l'ordonnée métrique d'un point par rapport à une origine (voir {@link #calculerCoordonnéesMétriques(Point)}), sans créer d'objet.
+     *
+     * @param latitude la latitude du point en radians.
+     * @param latitudeOrigine la latitude de l'origine en radians.
+     * @return l'ordonnée du point en mètres.
+     */
+    public static double calculerOrdonnéeMétrique(double latitude, double latitudeOrigine) {
+        return Terre.RAYON * Angle.normaliser(latitude - latitudeOrigine);
     }
 
     /**
@@ -44,34 +99,36 @@ public abstract class Point implements Localisable {
      * @return la distance en mètres entre ce point et le point spécifié
      */
     public double calculerDistanceMétrique(Point p) {
-        return calculerCoordonnéesMétriques(p).calculerDistanceÀLOrigine();
+        return calculerDistanceMétrique(getLatitudeRadians(), getLongitudeRadians(), p.getLatitudeRadians(), p.getLongitudeRadians());
+    }
+
+    /**
+     * Calcule la distance entre deux points donnés par leurs coordonnées en radians, sans créer d'objet. Le résultat est celui de
+     * {@link #calculerDistanceMétrique(Point)}, le second point servant d'origine.
+     *
+     * @param latitude la latitude du premier point.
+     * @param longitude la longitude du premier point.
+     * @param latitudeOrigine la latitude du second point.
+     * @param longitudeOrigine la longitude du second point.
+     * @return la distance en mètres entre les deux points.
+     */
+    public static double calculerDistanceMétrique(double latitude, double longitude, double latitudeOrigine, double longitudeOrigine) {
+        return CoordonnéesMétriques.calculerDistanceÀLOrigine(calculerAbscisseMétrique(longitude, latitudeOrigine, longitudeOrigine),
+                calculerOrdonnéeMétrique(latitude, latitudeOrigine));
     }
 
     /**
      * Renvoie le point le plus proche de ce point parmi un ensemble de points.
-     * <p>L'algorithme utilisé commence par chercher dans un disque centré en ce point et de rayon spécifié dans le code, puis augmente le rayon du disque
-     * jusqu'à trouver des éléments dans le disque.
+     * <p>La recherche explore les régions de l'ensemble par distance croissante à ce point (voir {@link Ensemble#kPlusProches(Point, int, MesureDeDistance)}).
      *
      * @param <T> le type des éléments de l'ensemble, qui doit hériter de {@link Point} (pour pouvoir calculer la distance à cet élément) et implémenter
      * l'interface {@link Identifiable}.
      * @param ens l'ensemble des points à explorer.
-     * @return le point le plus proche de ce point.
+     * @return le point le plus proche de ce point, ou {@code null} si l'ensemble est vide.
      */
     public <T extends Point & Identifiable> T déterminerPlusProchePoint(Ensemble<T> ens) {
-        // Rayon initial du disque et incrément du rayon à chaque itération.
-        final double INCRÉMENT = 1000;
-
-        double distanceMinimale = 1. / 0.;
-        T pointRéalisant = null;
-
-        for (double rayon = INCRÉMENT; distanceMinimale > rayon; rayon += INCRÉMENT)
-            for (T p : ens.getÉléments(this, rayon))
-                if (calculerDistanceMétrique(p) < distanceMinimale) {
-                    pointRéalisant = p;
-                    distanceMinimale = calculerDistanceMétrique(p);
-                }
-
-        return pointRéalisant;
+        List<T> plusProches = ens.kPlusProches(this, 1, DISTANCE_ENTRE_POINTS);
+        return plusProches.isEmpty() ? null : plusProches.get(0);
     }
 
     @Override
@@ -81,7 +138,8 @@ public abstract class Point implements Localisable {
 
     @Override
     public Zone calculerZone() {
-        return new Zone(getLatitude(), getLatitude(), getLongitude(), getLongitude());
+        double latitude = getLatitudeRadians(), longitude = getLongitudeRadians();
+        return new Zone(latitude, latitude, longitude, longitude);
     }
 
     public static void main(String[] args) {
@@ -31,4 +31,14 @@ class Position extends Point {
     public Longitude getLongitude() {
         return point.getLongitude();
     }
+
+    @Override
+    public double getLatitudeRadians() {
+        return point.getLatitudeRadians();
+    }
+
+    @Override
+    public double getLongitudeRadians() {
+        return point.getLongitudeRadians();
+    }
 }
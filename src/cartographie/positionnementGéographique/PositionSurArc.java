@@ -23,13 +23,13 @@ public class PositionSurArc extends Point {
      */
     private boolean coordonnéesCalculées;
     /**
-     * latitude du point, calculée seulement lorsque cela est nécessaire
+     * latitude du point en radians, calculée seulement lorsque cela est nécessaire
      */
-    private Latitude latitude;
+    private double latitude;
     /**
-     * longitude du point, calculée seulement lorsque cela est nécessaire
+     * longitude du point en radians, calculée seulement lorsque cela est nécessaire
      */
-    private Longitude longitude;
+    private double longitude;
 
     /**
      * Construit un point à partir d'un arc et de la position relative du point sur l'arc.
@@ -48,11 +48,18 @@ public class PositionSurArc extends Point {
      */
     private void calculerCoordonnées() {
         Coordonnées c = arc.getCoordonnées(positionRelative);
-        latitude = c.getLatitude();
-        longitude = c.getLongitude();
+        latitude = c.getLatitudeRadians();
+        longitude = c.getLongitudeRadians();
         coordonnéesCalculées = true;
     }
 
+    /**
+     * Signale que la géométrie de l'arc a changé : la latitude et la longitude de ce point seront recalculées lors de leur prochaine utilisation.
+     */
+    public void invaliderCoordonnées() {
+        coordonnéesCalculées = false;
+    }
+
     /**
      * Renvoie l'arc sur lequel se situe ce point.
      *
@@ -73,13 +80,23 @@ public class PositionSurArc extends Point {
 
     @Override
     public Latitude getLatitude() {
+        return new Latitude(getLatitudeRadians());
+    }
+
+    @Override
+    public Longitude getLongitude() {
+        return new Longitude(getLongitudeRadians());
+    }
+
+    @Override
+    public double getLatitudeRadians() {
         if (!coordonnéesCalculées)
             calculerCoordonnées();
         return latitude;
     }
 
     @Override
-    public Longitude getLongitude() {
+    public double getLongitudeRadians() {
         if (!coordonnéesCalculées)
             calculerCoordonnées();
         return longitude;
@@ -27,7 +27,17 @@ public final class Terre {
      * @return le rayon du parallèle à la latitude donnée.
      */
     public static double rayon(Latitude l) {
-        return RAYON * Math.cos(l.getValeurRadians());
+        return rayon(l.getValeurRadians());
+    }
+
+    /**
+     * Renvoie le rayon du parallèle à la latitude donnée en radians (voir {@link #rayon(Latitude)}).
+     *
+     * @param latitude une latitude en radians.
+     * @return le rayon du parallèle à la latitude donnée.
+     */
+    public static double rayon(double latitude) {
+        return RAYON * Math.cos(latitude);
     }
 
     /**
@@ -38,6 +48,6 @@ public final class Terre {
      * @return le rayon du parallèle passant par ce point.
      */
     public static double rayon(Point p) {
-        return rayon(p.getLatitude());
+        return rayon(p.getLatitudeRadians());
     }
 }
@@ -1,13 +1,18 @@
 package cartographie.éléments;
 
 import cartographie.Carte;
+import cartographie.fichiers.ÉcrivainXML;
 import cartographie.positionnementGéographique.Coordonnées;
 import cartographie.positionnementGéographique.Point;
 import cartographie.positionnementGéographique.PositionSurArc;
 import cartographie.gestionDonnées.Identifiable;
+import cartographie.gestionDonnées.ListeDIndices;
 import cartographie.gestionDonnées.Localisable;
+import cartographie.gestionDonnées.Zone;
 import java.util.HashSet;
 import java.util.Set;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * La classe {@code Arc} représente un arc routier.
@@ -21,13 +26,17 @@ public abstract class Arc implements Identifiable, Localisable, Dessinable {
      */
     private long id;
     /**
-     * l'identifiant de la route associée à l'arc
+     * l'identifiant de la route associée à l'arc, valable seulement si {@link #appartientÀUneRoute} vaut {@code true}
      */
     private long idRoute;
     /**
-     * l'ensemble des identifiants des points d'intérêt associés à l'arc
+     * {@code true} si l'arc appartient à une route (tout identifiant, y compris 0, pouvant désigner une route)
      */
-    private Set<Long> idPointsDIntérêt = new HashSet<>();
+    private boolean appartientÀUneRoute;
+    /**
+     * les indices denses dans la carte des points d'intérêt situés sur l'arc ou associés à l'arc
+     */
+    private final ListeDIndices indicesPointsDIntérêt = new ListeDIndices();
     /**
      * le noeud duquel part l'arc
      */
@@ -72,8 +81,6 @@ public abstract class Arc implements Identifiable, Localisable, Dessinable {
         this.vitesseLimite = vitesseLimite;
         this.coefVitesseNominale = coefVitesseNominale;
         this.coefVitesseActuelle = coefVitesseNominale;
-        départ.ajouterIdArcSortant(id);
-        arrivée.ajouterIdArcEntrant(id);
     }
 
     /**
@@ -84,6 +91,30 @@ public abstract class Arc implements Identifiable, Localisable, Dessinable {
      */
     public abstract PositionSurArc calculerPointLePlusProche(Point p);
 
+    /**
+     * Renvoie le nombre de tronçons rectilignes de cet arc (voir {@link Tronçon}).
+     *
+     * @return le nombre de tronçons de cet arc.
+     */
+    public abstract int getNbTronçons();
+
+    /**
+     * Calcule la zone d'un tronçon de cet arc.
+     *
+     * @param indice l'indice du tronçon (0 correspond au tronçon partant du départ de l'arc).
+     * @return la plus petite zone contenant le tronçon.
+     */
+    public abstract Zone calculerZoneTronçon(int indice);
+
+    /**
+     * Détermine le point d'un tronçon de cet arc le plus proche du point spécifié.
+     *
+     * @param p un point.
+     * @param indice l'indice du tronçon.
+     * @return le point du tronçon le plus proche du point donné en paramètre, sous forme de position relative sur l'arc entier.
+     */
+    public abstract PositionSurArc calculerPointLePlusProcheSurTronçon(Point p, int indice);
+
     /**
      * @param positionRelative un double entre 0 et 1 (0 correspond au départ, 1 correspond à l'arrivée)
      * @return les coordonnées d'un point se trouvant sur un arc, à la position relative donnée.
@@ -112,10 +143,10 @@ public abstract class Arc implements Identifiable, Localisable, Dessinable {
      * Renvoie la route à laquelle appartient cet arc.
      *
      * @param c la carte à laquelle appartient cet arc.
-     * @return la route à laquelle appartient cet arc.
+     * @return la route à laquelle appartient cet arc, ou {@code null} s'il n'appartient à aucune route.
      */
     public Route getRoute(Carte c) {
-        return c.getRoute(idRoute);
+        return appartientÀUneRoute ? c.getRoute(idRoute) : null;
     }
 
     /**
@@ -125,28 +156,108 @@ public abstract class Arc implements Identifiable, Localisable, Dessinable {
      */
     public void setIdRoute(long id) {
         idRoute = id;
+        appartientÀUneRoute = true;
+    }
+
+    /**
+     * Détache cet arc de sa route : l'arc n'appartient plus à aucune route.
+     */
+    public void retirerIdRoute() {
+        appartientÀUneRoute = false;
     }
 
     /**
-     * Renvoie les points d'intérêt associés à cet arc.
+     * Renvoie les points d'intérêt situés sur cet arc ou associés à cet arc. Un nouvel ensemble est créé à chaque appel : pour parcourir les points
+     * d'intérêt de nombreux arcs, utiliser {@link #getNbPointsDIntérêt()} et {@link #getIndicePointDIntérêt(int)}.
      *
      * @param c la carte à laquelle appartient cet arc.
-     * @return l'ensemble des points d'intérêt associés à cet arc.
+     * @return l'ensemble des points d'intérêt situés sur cet arc ou associés à cet arc.
      */
     public Set<PointDIntérêt> getPointsDIntérêt(Carte c) {
         HashSet<PointDIntérêt> pointDIntérêt = new HashSet<>();
-        for (long idPoI : idPointsDIntérêt)
-            pointDIntérêt.add(c.getPoI(idPoI));
+        for (int i = 0; i < indicesPointsDIntérêt.taille(); i++)
+            pointDIntérêt.add(c.getPoIParIndice(indicesPointsDIntérêt.get(i)));
         return pointDIntérêt;
     }
 
     /**
-     * Ajoute un point d'intérêt à cet arc.
+     * Renvoie le nombre de points d'intérêt situés sur cet arc ou associés à cet arc.
+     *
+     * @return le nombre de points d'intérêt.
+     */
+    public int getNbPointsDIntérêt() {
+        return indicesPointsDIntérêt.taille();
+    }
+
+    /**
+     * Renvoie l'indice dense d'un point d'intérêt situé sur cet arc ou associé à cet arc (voir {@link Carte#getPoIParIndice(int)}).
+     *
+     * @param k le rang du point d'intérêt, entre 0 et {@link #getNbPointsDIntérêt()} - 1.
+     * @return l'indice du point d'intérêt dans la carte.
+     */
+    public int getIndicePointDIntérêt(int k) {
+        return indicesPointsDIntérêt.get(k);
+    }
+
+    /**
+     * Ajoute un point d'intérêt à cet arc. Cette méthode est appelée par la carte lorsque le point d'intérêt y est ajouté.
+     *
+     * @param indice l'indice dense du point d'intérêt dans la carte.
+     */
+    public void ajouterPointDIntérêt(int indice) {
+        indicesPointsDIntérêt.ajouter(indice);
+    }
+
+    /**
+     * Retire un point d'intérêt de cet arc.
+     *
+     * @param indice l'indice dense du point d'intérêt dans la carte.
+     */
+    public void retirerPointDIntérêt(int indice) {
+        indicesPointsDIntérêt.retirer(indice);
+    }
+
+    /**
+     * Permet de savoir si des points d'intérêt sont situés sur cet arc ou associés à cet arc.
+     *
+     * @return {@code true} si au moins un point d'intérêt est situé sur cet arc ou associé à cet arc, {@code false} sinon.
+     */
+    public boolean aDesPointsDIntérêt() {
+        return indicesPointsDIntérêt.taille() > 0;
+    }
+
+    /**
+     * Redéfinit les noeuds de départ et d'arrivée de cet arc. Les arcs entrants et sortants des noeuds ne sont pas mis à jour : pour un arc appartenant à
+     * une carte, utiliser {@link Carte#modifierArc(long, Noeud, Noeud, byte, short, double, Coordonnées[])}.
+     *
+     * @param départ le nouveau noeud de départ.
+     * @param arrivée le nouveau noeud d'arrivée.
+     */
+    public void setNoeuds(Noeud départ, Noeud arrivée) {
+        this.départ = départ;
+        this.arrivée = arrivée;
+        géométrieModifiée();
+    }
+
+    /**
+     * Redéfinit les caractéristiques de cet arc. Le coefficient de vitesse actuelle est réinitialisé au coefficient de vitesse nominale.
      *
-     * @param id l'identifiant du point d'intérêt à ajouter.
+     * @param nbVoies le nombre de voies de l'arc.
+     * @param vitesseLimite la vitesse limite légale de circulation sur l'arc.
+     * @param coefVitesseNominale la coefficient de vitesse nominale de circulation sur l'arc.
+     */
+    public void setCaractéristiques(byte nbVoies, short vitesseLimite, double coefVitesseNominale) {
+        this.nbVoies = nbVoies;
+        this.vitesseLimite = vitesseLimite;
+        this.coefVitesseNominale = coefVitesseNominale;
+        this.coefVitesseActuelle = coefVitesseNominale;
+    }
+
+    /**
+     * Signale à cet arc que la position de l'un de ses points a changé (par exemple après le déplacement de l'un de ses noeuds), afin qu'il mette à jour les
+     * données qu'il en a déduites.
      */
-    public void ajouterPointDIntérêt(long id) {
-        idPointsDIntérêt.add(id);
+    public void géométrieModifiée() {
     }
 
     /**
@@ -158,6 +269,49 @@ public abstract class Arc implements Identifiable, Localisable, Dessinable {
         return nbVoies;
     }
 
+    /**
+     * Renvoie la vitesse limite légale de circulation sur cet arc.
+     *
+     * @return la vitesse limite légale en km/h.
+     */
+    public short getVitesseLimite() {
+        return vitesseLimite;
+    }
+
+    /**
+     * Renvoie le coefficient de la vitesse nominale de circulation sur cet arc.
+     *
+     * @return le coefficient de la vitesse nominale.
+     */
+    public double getCoefVitesseNominale() {
+        return coefVitesseNominale;
+    }
+
+    /**
+     * Écrit cet arc dans un flux XML, sans passer par un document DOM.
+     *
+     * @param w l'écrivain StAX.
+     * @param géométrieCodée {@code true} pour écrire les éventuels shape-points sous forme de polyligne codée, {@code false} pour les écrire en degrés.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public abstract void écrireXML(XMLStreamWriter w, boolean géométrieCodée) throws XMLStreamException;
+
+    /**
+     * Écrit l'identifiant et les caractéristiques de cet arc (noeuds, nombre de voies, vitesses), communs à tous les types d'arcs, dans l'élément XML
+     * en cours d'écriture.
+     *
+     * @param w l'écrivain StAX, positionné dans la balise ouvrante de l'arc.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    protected void écrireCaractéristiquesXML(XMLStreamWriter w) throws XMLStreamException {
+        w.writeAttribute("id", String.valueOf(id));
+        ÉcrivainXML.écrireÉlément(w, "départ", String.valueOf(départ.getID()));
+        ÉcrivainXML.écrireÉlément(w, "arrivée", String.valueOf(arrivée.getID()));
+        ÉcrivainXML.écrireÉlément(w, "nbvoies", String.valueOf(nbVoies));
+        ÉcrivainXML.écrireÉlément(w, "vitesselimite", String.valueOf(vitesseLimite));
+        ÉcrivainXML.écrireÉlément(w, "coefvitessenominale", String.valueOf(coefVitesseNominale));
+    }
+
     /**
      * Calcule la longueur de cet arc.
      *
@@ -1,15 +1,21 @@
 package cartographie.éléments;
 
 import cartographie.Carte;
+import cartographie.fichiers.ÉcrivainXML;
+import cartographie.positionnementGéographique.CodagePolyligne;
+import cartographie.positionnementGéographique.Angle;
 import cartographie.positionnementGéographique.Coordonnées;
 import cartographie.positionnementGéographique.CoordonnéesMétriques;
-import cartographie.positionnementGéographique.Latitude;
-import cartographie.positionnementGéographique.Longitude;
 import cartographie.positionnementGéographique.Point;
 import cartographie.positionnementGéographique.PositionSurArc;
 import cartographie.gestionDonnées.Zone;
 import java.awt.Graphics;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 /**
  * La classe {@code ArcComposé} représente un arc routier composé, c'est-à-dire composé de plusieurs tronçons quasi-rectilignes séparés de shape-points.
@@ -71,13 +77,78 @@ public class ArcComposé extends Arc {
                 Short.valueOf(e.getElementsByTagName("vitesselimite").item(0).getTextContent()),
                 Double.valueOf(e.getElementsByTagName("coefvitessenominale").item(0).getTextContent()));
 
-        int nbShapePoints = Integer.valueOf(e.getElementsByTagName("nbshapepoints").item(0).getTextContent());
-        shapePoints = new Coordonnées[nbShapePoints];
+        shapePoints = lireShapePoints(e);
+        calculerLongueursCumulatives();
+    }
+
+    /**
+     * Lit les shape-points d'un élément DOM représentant un arc composé, en un seul parcours de l'élément. Les shape-points sont donnés soit par un élément
+     * {@code géométrie} contenant une polyligne codée (voir {@link CodagePolyligne}), soit par l'élément {@code nbshapepoints} suivi des éléments
+     * {@code latitude} et {@code longitude} de chaque shape-point, dans l'ordre.
+     *
+     * @param e un élément DOM représentant un arc composé.
+     * @return les coordonnées des shape-points.
+     */
+    private static Coordonnées[] lireShapePoints(Element e) {
+        int nbShapePoints = 0;
+        List<Element> latitudes = new ArrayList<>(), longitudes = new ArrayList<>();
+
+        // Parcours en profondeur des descendants de l'élément, dans l'ordre du document
+        Node n = e.getFirstChild();
+        while (n != null) {
+            boolean descendre = true;
+            if (n instanceof Element)
+                switch (n.getNodeName()) {
+                    case "géométrie":
+                        return CodagePolyligne.décoder(n.getTextContent().trim());
+                    case "nbshapepoints":
+                        nbShapePoints = Integer.valueOf(n.getTextContent());
+                        descendre = false;
+                        break;
+                    case "latitude":
+                        latitudes.add((Element) n);
+                        descendre = false;
+                        break;
+                    case "longitude":
+                        longitudes.add((Element) n);
+                        descendre = false;
+                }
+            if (descendre && n.getFirstChild() != null)
+                n = n.getFirstChild();
+            else {
+                while (n != e && n.getNextSibling() == null)
+                    n = n.getParentNode();
+                n = n == e ? null : n.getNextSibling();
+            }
+        }
 
+        Coordonnées[] points = new Coordonnées[nbShapePoints];
         for (int i = 0; i < nbShapePoints; i++)
-            shapePoints[i] = new Coordonnées(new Latitude((Element) e.getElementsByTagName("latitude").item(i)),
-                    new Longitude((Element) e.getElementsByTagName("longitude").item(i)));
+            points[i] = new Coordonnées(Angle.enRadians(latitudes.get(i)), Angle.enRadians(longitudes.get(i)));
+        return points;
+    }
+
+    /**
+     * Renvoie les shape-points de cet arc composé (sans le départ ni l'arrivée).
+     *
+     * @return les coordonnées des shape-points.
+     */
+    public Coordonnées[] getShapePoints() {
+        return shapePoints.clone();
+    }
+
+    /**
+     * Redéfinit les shape-points de cet arc composé.
+     *
+     * @param shapePoints les coordonnées des nouveaux shape-points.
+     */
+    public void setShapePoints(Coordonnées... shapePoints) {
+        this.shapePoints = shapePoints;
+        calculerLongueursCumulatives();
+    }
 
+    @Override
+    public void géométrieModifiée() {
         calculerLongueursCumulatives();
     }
 
@@ -115,38 +186,48 @@ public class ArcComposé extends Arc {
             longueurCumulative[i] = longueurCumulative[i - 1] + getPoint(i - 1).calculerDistanceMétrique(getPoint(i));
     }
 
-    /**
-     * Détermine le point sur la portion de cet arc d'indice spécifié le plus proche du point spécifié.
-     *
-     * @param p un point.
-     * @param indice l'indice de la portion considérée.
-     * @return le point sur la portion spécifiée le plus proche du point donné en paramètre.
-     */
-    private PositionSurArc calculerPointLePlusProcheSurPortion(Point p, int indice) {
+    @Override
+    public int getNbTronçons() {
+        return nbPoints() - 1;
+    }
+
+    @Override
+    public Zone calculerZoneTronçon(int indice) {
+        return new Zone(getPoint(indice), getPoint(indice + 1));
+    }
 
-        // Calcule le projeté du point sur la droite définie par la portion de l'arc
-        CoordonnéesMétriques coordArrivée = getPoint(indice + 1).calculerCoordonnéesMétriques(getPoint(indice));
-        CoordonnéesMétriques coordPoint = p.calculerCoordonnéesMétriques(getPoint(indice));
-        double lambda = (coordArrivée.getX() * coordPoint.getX() + coordArrivée.getY() * coordPoint.getY()) / (coordArrivée.getX() * coordArrivée.getX()
-                + coordArrivée.getY() * coordArrivée.getY());
+    @Override
+    public PositionSurArc calculerPointLePlusProcheSurTronçon(Point p, int indice) {
 
-        // Renvoie le point sur l'arc le plus proche du projeté, et donc le plus proche du point passé en argument de la méthode
-        if (lambda < 0)
+        // Calcule le projeté du point sur la droite définie par la portion de l'arc, en coordonnées métriques par rapport au début de la portion
+        Point début = getPoint(indice), fin = getPoint(indice + 1);
+        double latitudeOrigine = début.getLatitudeRadians(), longitudeOrigine = début.getLongitudeRadians();
+        double xArrivée = Point.calculerAbscisseMétrique(fin.getLongitudeRadians(), latitudeOrigine, longitudeOrigine);
+        double yArrivée = Point.calculerOrdonnéeMétrique(fin.getLatitudeRadians(), latitudeOrigine);
+        double xPoint = Point.calculerAbscisseMétrique(p.getLongitudeRadians(), latitudeOrigine, longitudeOrigine);
+        double yPoint = Point.calculerOrdonnéeMétrique(p.getLatitudeRadians(), latitudeOrigine);
+        double lambda = (xArrivée * xPoint + yArrivée * yPoint) / (xArrivée * xArrivée + yArrivée * yArrivée);
+
+        // Ramène le projeté sur la portion (une portion de longueur nulle donne un lambda indéterminé), puis convertit sa position en position relative sur
+        // l'arc entier
+        if (!(lambda > 0))
+            lambda = 0;
+        else if (lambda > 1)
+            lambda = 1;
+        double longueur = longueurCumulative[nbPoints() - 1];
+        if (longueur == 0)
             return new PositionSurArc(this, 0);
-        if (lambda > 1)
-            return new PositionSurArc(this, 1);
-        else
-            return new PositionSurArc(this, lambda);
+        return new PositionSurArc(this, (longueurCumulative[indice] + lambda * (longueurCumulative[indice + 1] - longueurCumulative[indice])) / longueur);
     }
 
     @Override
     public PositionSurArc calculerPointLePlusProche(Point p) {
 
-        PositionSurArc pointLePlusProche = calculerPointLePlusProcheSurPortion(p, 0);
+        PositionSurArc pointLePlusProche = calculerPointLePlusProcheSurTronçon(p, 0);
         double distance = p.calculerDistanceMétrique(pointLePlusProche);
 
         for (int i = 1; i < nbPoints() - 1; i++) {
-            PositionSurArc nouveauPointLePlusProche = calculerPointLePlusProcheSurPortion(p, i);
+            PositionSurArc nouveauPointLePlusProche = calculerPointLePlusProcheSurTronçon(p, i);
             double nouvelleDistance = p.calculerDistanceMétrique(nouveauPointLePlusProche);
             if (nouvelleDistance < distance) {
                 pointLePlusProche = nouveauPointLePlusProche;
@@ -168,15 +249,15 @@ public class ArcComposé extends Arc {
 
     @Override
     public Coordonnées getCoordonnées(double positionRelative) {
+        double position = positionRelative * longueurCumulative[nbPoints() - 1];
         int indice = 0;
-        while (longueurCumulative[indice + 1] < positionRelative * longueurCumulative[nbPoints() - 1])
+        while (indice < nbPoints() - 2 && longueurCumulative[indice + 1] < position)
             indice++;
-        double r = (positionRelative * longueurCumulative[nbPoints() - 1] - longueurCumulative[indice]) / (longueurCumulative[indice + 1]
-                / longueurCumulative[indice]);
-        return new Coordonnées(new Latitude(getPoint(indice).getLatitude().getValeurRadians()
-                + r * getPoint(indice + 1).getLatitude().getAngleRelatifRadians(getPoint(indice).getLatitude())),
-                new Longitude(getPoint(indice).getLongitude().getValeurRadians()
-                + r * getPoint(indice + 1).getLongitude().getAngleRelatifRadians(getPoint(indice).getLongitude())));
+        double longueurPortion = longueurCumulative[indice + 1] - longueurCumulative[indice];
+        double r = longueurPortion == 0 ? 0 : (position - longueurCumulative[indice]) / longueurPortion;
+        Point p = getPoint(indice), q = getPoint(indice + 1);
+        return new Coordonnées(p.getLatitudeRadians() + r * Angle.normaliser(q.getLatitudeRadians() - p.getLatitudeRadians()),
+                p.getLongitudeRadians() + r * Angle.normaliser(q.getLongitudeRadians() - p.getLongitudeRadians()));
     }
 
     @Override
@@ -189,4 +270,21 @@ public class ArcComposé extends Arc {
             coordDépart = coordArrivée;
         }
     }
+
+    @Override
+    public void écrireXML(XMLStreamWriter w, boolean géométrieCodée) throws XMLStreamException {
+        w.writeStartElement("arccomposé");
+        écrireCaractéristiquesXML(w);
+        if (géométrieCodée)
+            ÉcrivainXML.écrireÉlément(w, "géométrie", CodagePolyligne.coder(shapePoints));
+        else {
+            ÉcrivainXML.écrireÉlément(w, "nbshapepoints", String.valueOf(shapePoints.length));
+            for (Coordonnées c : shapePoints) {
+                w.writeStartElement("shapepoint");
+                ÉcrivainXML.écrireCoordonnées(w, c);
+                w.writeEndElement();
+            }
+        }
+        w.writeEndElement();
+    }
 }
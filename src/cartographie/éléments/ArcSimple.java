@@ -1,14 +1,15 @@
 package cartographie.éléments;
 
 import cartographie.Carte;
+import cartographie.positionnementGéographique.Angle;
 import cartographie.positionnementGéographique.Coordonnées;
 import cartographie.positionnementGéographique.CoordonnéesMétriques;
-import cartographie.positionnementGéographique.Latitude;
-import cartographie.positionnementGéographique.Longitude;
 import cartographie.positionnementGéographique.Point;
 import cartographie.positionnementGéographique.PositionSurArc;
 import cartographie.gestionDonnées.Zone;
 import java.awt.Graphics;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import org.w3c.dom.Element;
 
 /**
@@ -56,11 +57,14 @@ public class ArcSimple extends Arc {
     @Override
     public PositionSurArc calculerPointLePlusProche(Point point) {
 
-        // Calcul du projeté du point sur la droite définie par l'arc (qui est en fait un segment)
-        CoordonnéesMétriques coordArrivée = getArrivée().calculerCoordonnéesMétriques(getDépart());
-        CoordonnéesMétriques coordPoint = point.calculerCoordonnéesMétriques(getDépart());
-        double lambda = (coordArrivée.getX() * coordPoint.getX() + coordArrivée.getY() * coordPoint.getY()) / (coordArrivée.getX() * coordArrivée.getX()
-                + coordArrivée.getY() * coordArrivée.getY());
+        // Calcul du projeté du point sur la droite définie par l'arc (qui est en fait un segment), en coordonnées métriques par rapport au départ
+        Noeud départ = getDépart(), arrivée = getArrivée();
+        double latitudeOrigine = départ.getLatitudeRadians(), longitudeOrigine = départ.getLongitudeRadians();
+        double xArrivée = Point.calculerAbscisseMétrique(arrivée.getLongitudeRadians(), latitudeOrigine, longitudeOrigine);
+        double yArrivée = Point.calculerOrdonnéeMétrique(arrivée.getLatitudeRadians(), latitudeOrigine);
+        double xPoint = Point.calculerAbscisseMétrique(point.getLongitudeRadians(), latitudeOrigine, longitudeOrigine);
+        double yPoint = Point.calculerOrdonnéeMétrique(point.getLatitudeRadians(), latitudeOrigine);
+        double lambda = (xArrivée * xPoint + yArrivée * yPoint) / (xArrivée * xArrivée + yArrivée * yArrivée);
 
         // Renvoie le point sur l'arc le plus proche du projeté, et donc le plus proche du point passé en argument de la méthode
         if (lambda < 0)
@@ -71,12 +75,28 @@ public class ArcSimple extends Arc {
             return new PositionSurArc(this, lambda);
     }
 
+    @Override
+    public int getNbTronçons() {
+        return 1;
+    }
+
+    @Override
+    public Zone calculerZoneTronçon(int indice) {
+        return calculerZone();
+    }
+
+    @Override
+    public PositionSurArc calculerPointLePlusProcheSurTronçon(Point p, int indice) {
+        return calculerPointLePlusProche(p);
+    }
+
     @Override
     public Coordonnées getCoordonnées(double positionRelative) {
-        return new Coordonnées(new Latitude(getDépart().getLatitude().getValeurRadians()
-                + positionRelative * getArrivée().getLatitude().getAngleRelatifRadians(getDépart().getLatitude())),
-                new Longitude(getDépart().getLongitude().getValeurRadians()
-                + positionRelative * getArrivée().getLongitude().getAngleRelatifRadians(getDépart().getLongitude())));
+        Noeud départ = getDépart(), arrivée = getArrivée();
+        return new Coordonnées(départ.getLatitudeRadians()
+                + positionRelative * Angle.normaliser(arrivée.getLatitudeRadians() - départ.getLatitudeRadians()),
+                départ.getLongitudeRadians()
+                + positionRelative * Angle.normaliser(arrivée.getLongitudeRadians() - départ.getLongitudeRadians()));
     }
 
     @Override
@@ -86,4 +106,11 @@ public class ArcSimple extends Arc {
         g.drawLine((int) (échelle * coordDépart.getX()), (int) (-échelle * coordDépart.getY()), (int) (échelle * coordArrivée.getX()), (int) (-échelle
                 * coordArrivée.getY()));
     }
+
+    @Override
+    public void écrireXML(XMLStreamWriter w, boolean géométrieCodée) throws XMLStreamException {
+        w.writeStartElement("arcsimple");
+        écrireCaractéristiquesXML(w);
+        w.writeEndElement();
+    }
 }
@@ -1,15 +1,19 @@
 package cartographie.éléments;
 
 import cartographie.Carte;
+import cartographie.fichiers.ÉcrivainXML;
 import cartographie.positionnementGéographique.Coordonnées;
 import cartographie.positionnementGéographique.CoordonnéesMétriques;
 import cartographie.positionnementGéographique.Latitude;
 import cartographie.positionnementGéographique.Longitude;
 import cartographie.positionnementGéographique.Point;
 import cartographie.gestionDonnées.Identifiable;
+import cartographie.gestionDonnées.ListeDIndices;
 import java.awt.Graphics;
 import java.util.HashSet;
 import java.util.Set;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import org.w3c.dom.Element;
 
 /**
@@ -24,13 +28,13 @@ public class Noeud extends Coordonnées implements Identifiable, Dessinable {
      */
     private long id;
     /**
-     * ensemble des arcs arrivant à ce noeud
+     * les indices denses dans la carte des arcs arrivant à ce noeud
      */
-    private Set<Long> idArcsEntrants = new HashSet<>();
+    private final ListeDIndices indicesArcsEntrants = new ListeDIndices();
     /**
-     * ensemble des arcs partant de ce noeud
+     * les indices denses dans la carte des arcs partant de ce noeud
      */
-    private Set<Long> idArcsSortants = new HashSet<>();
+    private final ListeDIndices indicesArcsSortants = new ListeDIndices();
 
     /**
      * Construit un noeud à partir de sa latitude et de sa longitude.
@@ -44,6 +48,18 @@ public class Noeud extends Coordonnées implements Identifiable, Dessinable {
         this.id = id;
     }
 
+    /**
+     * Construit un noeud à partir de sa latitude et de sa longitude en radians.
+     *
+     * @param id l'identifiant du noeud.
+     * @param latitude la latitude du noeud en radians.
+     * @param longitude la longitude du noeud en radians.
+     */
+    public Noeud(long id, double latitude, double longitude) {
+        super(latitude, longitude);
+        this.id = id;
+    }
+
     /**
      * Construit un noeud à partir d'un élément DOM (utile pour le décodage XML).
      *
@@ -56,49 +72,131 @@ public class Noeud extends Coordonnées implements Identifiable, Dessinable {
     }
 
     /**
-     * Ajoute un arc entrant au noeud.
+     * Ajoute un arc entrant au noeud. Cette méthode est appelée par la carte lorsque l'arc y est ajouté.
+     *
+     * @param indice l'indice dense de l'arc entrant dans la carte (voir {@link Carte#getIndiceArc(long)}).
+     */
+    public void ajouterArcEntrant(int indice) {
+        indicesArcsEntrants.ajouter(indice);
+    }
+
+    /**
+     * Ajoute un arc sortant au noeud. Cette méthode est appelée par la carte lorsque l'arc y est ajouté.
+     *
+     * @param indice l'indice dense de l'arc sortant dans la carte (voir {@link Carte#getIndiceArc(long)}).
+     */
+    public void ajouterArcSortant(int indice) {
+        indicesArcsSortants.ajouter(indice);
+    }
+
+    /**
+     * Retire un arc entrant du noeud.
+     *
+     * @param indice l'indice dense de l'arc entrant dans la carte.
+     */
+    public void retirerArcEntrant(int indice) {
+        indicesArcsEntrants.retirer(indice);
+    }
+
+    /**
+     * Retire un arc sortant du noeud.
+     *
+     * @param indice l'indice dense de l'arc sortant dans la carte.
+     */
+    public void retirerArcSortant(int indice) {
+        indicesArcsSortants.retirer(indice);
+    }
+
+    /**
+     * Déplace ce noeud. Les arcs, routes et points d'intérêt qui en dépendent ne sont pas mis à jour : pour un noeud appartenant à une carte, utiliser
+     * {@link Carte#modifierNoeud(long, Latitude, Longitude)}.
+     *
+     * @param latitude la nouvelle latitude du noeud.
+     * @param longitude la nouvelle longitude du noeud.
+     */
+    public void déplacer(Latitude latitude, Longitude longitude) {
+        setCoordonnées(latitude, longitude);
+    }
+
+    /**
+     * Renvoie le nombre d'arcs arrivant sur ce noeud.
+     *
+     * @return le nombre d'arcs entrants.
+     */
+    public int getNbArcsEntrants() {
+        return indicesArcsEntrants.taille();
+    }
+
+    /**
+     * Renvoie l'indice dense d'un arc arrivant sur ce noeud (voir {@link Carte#getArcParIndice(int)}).
+     *
+     * @param k le rang de l'arc, entre 0 et {@link #getNbArcsEntrants()} - 1.
+     * @return l'indice de l'arc dans la carte.
+     */
+    public int getIndiceArcEntrant(int k) {
+        return indicesArcsEntrants.get(k);
+    }
+
+    /**
+     * Renvoie le nombre d'arcs partant de ce noeud.
      *
-     * @param id l'identifiant de l'arc entrant.
+     * @return le nombre d'arcs sortants.
      */
-    public void ajouterIdArcEntrant(long id) {
-        idArcsEntrants.add(id);
+    public int getNbArcsSortants() {
+        return indicesArcsSortants.taille();
     }
 
     /**
-     * Ajoute un arc sortant au noeud.
+     * Renvoie l'indice dense d'un arc partant de ce noeud (voir {@link Carte#getArcParIndice(int)}).
      *
-     * @param id l'identifiant de l'arc sortant.
+     * @param k le rang de l'arc, entre 0 et {@link #getNbArcsSortants()} - 1.
+     * @return l'indice de l'arc dans la carte.
      */
-    public void ajouterIdArcSortant(long id) {
-        idArcsSortants.add(id);
+    public int getIndiceArcSortant(int k) {
+        return indicesArcsSortants.get(k);
     }
 
     /**
-     * Renvoie les arcs arrivant sur ce noeud.
+     * Renvoie les arcs arrivant sur ce noeud. Un nouvel ensemble est créé à chaque appel : pour parcourir les arcs sans en créer, utiliser
+     * {@link #getNbArcsEntrants()} et {@link #getIndiceArcEntrant(int)}, ou le graphe figé de la carte (voir {@link Carte#figerGraphe()}).
      *
      * @param c la carte à laquelle appartient ce noeud.
      * @return l'ensemble des arcs arrivant sur ce noeud.
      */
     public Set<Arc> getArcsEntrants(Carte c) {
         HashSet<Arc> arcsEntrants = new HashSet<>();
-        for (long idArc : idArcsEntrants)
-            arcsEntrants.add(c.getArc(idArc));
+        for (int i = 0; i < indicesArcsEntrants.taille(); i++)
+            arcsEntrants.add(c.getArcParIndice(indicesArcsEntrants.get(i)));
         return arcsEntrants;
     }
 
     /**
-     * Renvoie les arcs partant de ce noeud.
+     * Renvoie les arcs partant de ce noeud. Un nouvel ensemble est créé à chaque appel : pour parcourir les arcs sans en créer, utiliser
+     * {@link #getNbArcsSortants()} et {@link #getIndiceArcSortant(int)}, ou le graphe figé de la carte (voir {@link Carte#figerGraphe()}).
      *
      * @param c la carte à laquelle appartient ce noeud.
      * @return l'ensemble des arcs partant de ce noeud.
      */
     public Set<Arc> getArcsSortants(Carte c) {
         HashSet<Arc> arcsSortants = new HashSet<>();
-        for (long idArc : idArcsSortants)
-            arcsSortants.add(c.getArc(idArc));
+        for (int i = 0; i < indicesArcsSortants.taille(); i++)
+            arcsSortants.add(c.getArcParIndice(indicesArcsSortants.get(i)));
         return arcsSortants;
     }
 
+    /**
+     * Écrit ce noeud dans un flux XML, sans passer par un document DOM.
+     *
+     * @param w l'écrivain StAX.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public void écrireXML(XMLStreamWriter w) throws XMLStreamException {
+        w.writeStartElement("noeud");
+        w.writeAttribute("id", String.valueOf(id));
+        ÉcrivainXML.écrireCoordonnées(w, this);
+        w.writeEndElement();
+    }
+
     @Override
     public long getID() {
         return id;
@@ -1,13 +1,17 @@
 package cartographie.éléments;
 
 import cartographie.Carte;
+import cartographie.fichiers.ÉcrivainXML;
 import cartographie.positionnementGéographique.PositionSurArc;
 import cartographie.gestionDonnées.Identifiable;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * La classe {@code PointDIntérêt} représente un point d'intérêt associé à un arc ou plusieurs arcs. Un point d'intérêt se situe nécessairement sur un arc.
@@ -37,7 +41,7 @@ public abstract class PointDIntérêt extends PositionSurArc implements Dessinab
         super(arc, positionRelative);
         this.id = id;
         for (Arc a : arcsAssociés)
-            a.ajouterPointDIntérêt(id);
+            this.arcsAssociés.add(a);
     }
 
     /**
@@ -52,11 +56,17 @@ public abstract class PointDIntérêt extends PositionSurArc implements Dessinab
                 Double.valueOf(e.getElementsByTagName("positionrelative").item(0).getTextContent()));
 
         NodeList idArcsAssociésXML = e.getElementsByTagName("idarcassocié");
-        for (int i = 0; i < idArcsAssociésXML.getLength(); i++) {
-            Arc a = c.getArc(Long.valueOf(idArcsAssociésXML.item(i).getTextContent()));
-            arcsAssociés.add(a);
-            a.ajouterPointDIntérêt(id);
-        }
+        for (int i = 0; i < idArcsAssociésXML.getLength(); i++)
+            arcsAssociés.add(c.getArc(Long.valueOf(idArcsAssociésXML.item(i).getTextContent())));
+    }
+
+    /**
+     * Renvoie les arcs associés à ce point d'intérêt.
+     *
+     * @return l'ensemble des arcs associés.
+     */
+    public Set<Arc> getArcsAssociés() {
+        return Collections.unmodifiableSet(arcsAssociés);
     }
 
     /**
@@ -95,6 +105,30 @@ public abstract class PointDIntérêt extends PositionSurArc implements Dessinab
         return e;
     }
 
+    /**
+     * Écrit ce point d'intérêt dans un flux XML, sans passer par un document DOM.
+     *
+     * @param w l'écrivain StAX.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public abstract void écrireXML(XMLStreamWriter w) throws XMLStreamException;
+
+    /**
+     * Écrit les informations générales de ce point d'intérêt (position, arcs associés, indépendantes du type de point d'intérêt) dans un flux XML.
+     *
+     * @param w l'écrivain StAX.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public void écrireInfoPoIXML(XMLStreamWriter w) throws XMLStreamException {
+        w.writeStartElement("poi");
+        w.writeAttribute("id", String.valueOf(id));
+        ÉcrivainXML.écrireÉlément(w, "idarc", String.valueOf(getArc().getID()));
+        ÉcrivainXML.écrireÉlément(w, "positionrelative", String.valueOf(getPositionRelative()));
+        for (Arc arc : arcsAssociés)
+            ÉcrivainXML.écrireÉlément(w, "idarcassocié", String.valueOf(arc.getID()));
+        w.writeEndElement();
+    }
+
     @Override
     public long getID() {
         return id;
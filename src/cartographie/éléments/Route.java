@@ -1,12 +1,15 @@
 package cartographie.éléments;
 
 import cartographie.Carte;
+import cartographie.fichiers.ÉcrivainXML;
 import cartographie.positionnementGéographique.Point;
 import cartographie.gestionDonnées.Zone;
 import cartographie.gestionDonnées.Identifiable;
 import cartographie.gestionDonnées.Localisable;
 import cartographie.positionnementGéographique.CoordonnéesMétriques;
 import java.awt.Graphics;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import org.w3c.dom.Element;
 
 /**
@@ -94,6 +97,40 @@ public class Route implements Dessinable, Identifiable, Localisable {
         return nom;
     }
 
+    /**
+     * Renvoie le premier arc de la route.
+     *
+     * @return le premier arc.
+     */
+    public Arc getArcAller() {
+        return arcAller;
+    }
+
+    /**
+     * Renvoie le deuxième arc de la route.
+     *
+     * @return le deuxième arc, ou {@code null} si la route est à sens unique.
+     */
+    public Arc getArcRetour() {
+        return arcRetour;
+    }
+
+    /**
+     * Écrit cette route dans un flux XML, sans passer par un document DOM.
+     *
+     * @param w l'écrivain StAX.
+     * @throws XMLStreamException si l'écriture échoue.
+     */
+    public void écrireXML(XMLStreamWriter w) throws XMLStreamException {
+        w.writeStartElement("route");
+        w.writeAttribute("id", String.valueOf(id));
+        ÉcrivainXML.écrireÉlément(w, "nom", nom);
+        ÉcrivainXML.écrireÉlément(w, "idarcaller", String.valueOf(arcAller.getID()));
+        if (arcRetour != null)
+            ÉcrivainXML.écrireÉlément(w, "idarcretour", String.valueOf(arcRetour.getID()));
+        w.writeEndElement();
+    }
+
     @Override
     public String toString() {
         return "Route{" + "id=" + id + ", arcAller=" + arcAller + ", arcRetour=" + arcRetour + ", nom=" + nom + '}';
@@ -0,0 +1,84 @@
+package cartographie.éléments;
+
+import cartographie.gestionDonnées.Localisable;
+import cartographie.gestionDonnées.Zone;
+import cartographie.positionnementGéographique.Point;
+import cartographie.positionnementGéographique.PositionSurArc;
+
+/**
+ * La classe {@code Tronçon} représente un tronçon rectiligne d'un arc, désigné par l'arc et l'indice du tronçon dans l'arc. Un arc simple n'a qu'un
+ * tronçon ; un arc composé a un tronçon de plus que de shape-points.
+ * <p>Indexer les tronçons plutôt que les arcs permet de ne mesurer, lors des recherches de proximité, que les portions d'arcs effectivement proches du
+ * point recherché. Deux tronçons sont égaux s'ils désignent la même portion du même arc. La zone d'un tronçon dépend de la géométrie actuelle de son arc :
+ * un tronçon indexé doit donc être retiré de l'index avant la modification de son arc.
+ *
+ * @author Charles Masson
+ */
+public final class Tronçon implements Localisable {
+
+    /**
+     * l'arc auquel appartient le tronçon
+     */
+    private final Arc arc;
+    /**
+     * l'indice du tronçon dans l'arc
+     */
+    private final int indice;
+
+    /**
+     * Construit un tronçon.
+     *
+     * @param arc l'arc auquel appartient le tronçon.
+     * @param indice l'indice du tronçon dans l'arc (0 correspond au tronçon partant du départ de l'arc).
+     */
+    public Tronçon(Arc arc, int indice) {
+        this.arc = arc;
+        this.indice = indice;
+    }
+
+    /**
+     * Renvoie l'arc auquel appartient ce tronçon.
+     *
+     * @return l'arc auquel appartient ce tronçon.
+     */
+    public Arc getArc() {
+        return arc;
+    }
+
+    /**
+     * Renvoie l'indice de ce tronçon dans son arc.
+     *
+     * @return l'indice de ce tronçon.
+     */
+    public int getIndice() {
+        return indice;
+    }
+
+    /**
+     * Détermine le point de ce tronçon le plus proche du point spécifié.
+     *
+     * @param p un point.
+     * @return le point de ce tronçon le plus proche du point donné en paramètre, sous forme de position relative sur l'arc entier.
+     */
+    public PositionSurArc calculerPointLePlusProche(Point p) {
+        return arc.calculerPointLePlusProcheSurTronçon(p, indice);
+    }
+
+    @Override
+    public Zone calculerZone() {
+        return arc.calculerZoneTronçon(indice);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Tronçon))
+            return false;
+        Tronçon t = (Tronçon) o;
+        return arc == t.arc && indice == t.indice;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * arc.hashCode() + indice;
+    }
+}